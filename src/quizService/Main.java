@@ -1,5 +1,8 @@
 package quizService;
 
+import quizService.jdbc.JdbcStorage;
+import quizService.repository.QuestionRepository;
+import quizService.repository.UserRepository;
 import quizService.ui.MainMenu;
 
 /**
@@ -9,6 +12,11 @@ import quizService.ui.MainMenu;
  * where users can register, log in, and navigate based on their roles
  * (Teacher or Student).
  * </p>
+ * <p>
+ * The repositories are opened first: if a database is configured with
+ * {@value JdbcStorage#URL_PROPERTY} but cannot be opened or read, the
+ * application stops instead of running without its stored data.
+ * </p>
  */
 public class Main {
     /**
@@ -17,6 +25,17 @@ public class Main {
      * @param args command-line arguments (not used)
      */
     public static void main(String[] args) {
+        try {
+            int legacy = UserRepository.getInstance().legacyPasswords();
+            if (legacy > 0) {
+                System.out.printf("%,d accounts still have plaintext passwords; they are hashed at their next login%n",
+                        legacy);
+            }
+            QuestionRepository.getInstance();
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
         new MainMenu().start();
     }
 }
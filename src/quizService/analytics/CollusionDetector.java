@@ -0,0 +1,344 @@
+package quizService.analytics;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Finds submissions whose answers look copied from each other.
+ * <p>
+ * Honest students agree on correct answers all the time; what gives copying
+ * away is sharing the same <em>wrong</em> choices. Every submission is reduced
+ * to the set of (question, wrong choice) pairs it contains, and two submissions
+ * of the same quiz are suspicious when the Jaccard similarity of their sets is high.
+ * Unanswered questions are not counted as wrong choices; a wrong multi-select
+ * answer counts as one choice, its whole selection.
+ * </p>
+ * <p>
+ * Comparing every pair of submissions is quadratic, so the sets are first
+ * compressed into MinHash signatures of {@code bands × rows} values; two
+ * signatures agree in a value with a probability equal to the similarity of
+ * their sets. Locality-sensitive hashing cuts each signature into bands and
+ * puts submissions into the same bucket when a whole band agrees, so similar
+ * submissions almost surely meet in some bucket and dissimilar ones almost
+ * never do. Only pairs that share a bucket are compared exactly, which keeps
+ * the work close to linear in the number of submissions. Signatures, bands and
+ * exact comparisons all run on a fork/join pool.
+ * </p>
+ */
+public class CollusionDetector {
+    /**
+     * Default amount of bands a signature is cut into.
+     */
+    public static final int DEFAULT_BANDS = 32;
+    /**
+     * Default amount of signature values per band.
+     */
+    public static final int DEFAULT_ROWS = 6;
+    /**
+     * Default lowest similarity reported.
+     */
+    public static final double DEFAULT_THRESHOLD = 0.6;
+    /**
+     * Default lowest amount of shared wrong answers reported.
+     */
+    public static final int DEFAULT_MIN_SHARED = 4;
+
+    /**
+     * Buckets bigger than this only yield pairs of neighbours, which still links
+     * all of their submissions but avoids a quadratic blow-up on a common pattern.
+     */
+    private static final int MAX_BUCKET = 256;
+    private static final int MIN_CHUNK = 1 << 10;
+
+    private final ForkJoinPool pool;
+    private final int bands;
+    private final int rows;
+    private final double threshold;
+    private final int minShared;
+
+    /**
+     * Multipliers and offsets of the multiply-shift hash functions, one per signature value.
+     */
+    private final long[] hashA;
+    private final long[] hashB;
+
+    /**
+     * Creates a detector with default settings on the common fork/join pool.
+     * With {@value #DEFAULT_BANDS} bands of {@value #DEFAULT_ROWS} values, pairs with a
+     * similarity of 0.7 are found with a probability of about 98 % and pairs
+     * below 0.3 are hardly ever compared.
+     */
+    public CollusionDetector() {
+        this(ForkJoinPool.commonPool(), DEFAULT_BANDS, DEFAULT_ROWS, DEFAULT_THRESHOLD, DEFAULT_MIN_SHARED);
+    }
+
+    /**
+     * Creates a detector.
+     * More rows per band make the buckets stricter, more bands find more of the
+     * similar pairs; the similarity at which a pair is found half of the time is
+     * about {@code (1 / bands) ^ (1 / rows)}.
+     *
+     * @param pool      fork/join pool to use
+     * @param bands     amount of bands a signature is cut into
+     * @param rows      amount of signature values per band
+     * @param threshold lowest Jaccard similarity of wrong answers reported, from 0 to 1
+     * @param minShared lowest amount of shared wrong answers reported, at least 1
+     */
+    public CollusionDetector(ForkJoinPool pool, int bands, int rows, double threshold, int minShared) {
+        this.pool = pool;
+        this.bands = bands;
+        this.rows = rows;
+        this.threshold = threshold;
+        this.minShared = Math.max(1, minShared);
+        // fixed seed, so the same results always give the same pairs
+        SplittableRandom random = new SplittableRandom(0x5EED_C011_0510L);
+        this.hashA = new long[bands * rows];
+        this.hashB = new long[bands * rows];
+        for (int i = 0; i < hashA.length; i++) {
+            hashA[i] = random.nextLong() | 1;
+            hashB[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Finds pairs of submissions of the same quiz with similar wrong answers.
+     * Pairs below the similarity threshold can be missed by design; pairs well
+     * above it are found with high probability.
+     *
+     * @param table results and answers to examine
+     * @return suspicious pairs, most similar first
+     */
+    public SuspiciousPair[] detect(ResultTable table) {
+        int size = table.size();
+        int[] answerResult = table.answerResult();
+        long[] answerQuestion = table.answerQuestion();
+        int[] answerChoice = table.answerChoice();
+        boolean[] answerCorrect = table.answerCorrect();
+
+        // wrong answers of every result, grouped by result: tokens[start[r] .. start[r + 1])
+        int[] start = new int[size + 1];
+        for (int a = 0; a < table.answerCount(); a++) {
+            if (isWrong(answerResult, answerChoice, answerCorrect, a, size)) start[answerResult[a] + 1]++;
+        }
+        for (int r = 0; r < size; r++) start[r + 1] += start[r];
+        long[] tokens = new long[start[size]];
+        int[] fill = Arrays.copyOf(start, size);
+        for (int a = 0; a < table.answerCount(); a++) {
+            if (isWrong(answerResult, answerChoice, answerCorrect, a, size)) {
+                // the full 32 bits of the choice, so selection masks (negative) never collide
+                tokens[fill[answerResult[a]]++] = (answerQuestion[a] << 32) | (answerChoice[a] & 0xFFFF_FFFFL);
+            }
+        }
+
+        // results with fewer wrong answers than minShared cannot be reported
+        int n = 0;
+        int[] subset = new int[size];
+        for (int r = 0; r < size; r++) {
+            if (start[r + 1] - start[r] >= minShared) subset[n++] = r;
+        }
+        int candidates = n;
+        if (candidates < 2) return new SuspiciousPair[0];
+
+        int length = bands * rows;
+        int[] signatures = new int[candidates * length];
+        forEach(candidates, MIN_CHUNK, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                int r = subset[i];
+                Arrays.sort(tokens, start[r], start[r + 1]);
+                sign(tokens, start[r], start[r + 1], signatures, i * length);
+            }
+        });
+
+        int[] quizId = table.quizId();
+        long[][] bandPairs = new long[bands][];
+        forEach(bands, 1, (from, to) -> {
+            for (int b = from; b < to; b++) bandPairs[b] = pairsOfBand(b, candidates, subset, quizId, signatures);
+        });
+        long[] pairs = distinct(bandPairs);
+
+        // exact similarity of every candidate pair
+        double[] similarity = new double[pairs.length];
+        int[] shared = new int[pairs.length];
+        forEach(pairs.length, MIN_CHUNK, (from, to) -> {
+            for (int p = from; p < to; p++) {
+                int a = subset[(int) (pairs[p] >>> 32)];
+                int b = subset[(int) pairs[p]];
+                int common = intersection(tokens, start[a], start[a + 1], start[b], start[b + 1]);
+                int union = start[a + 1] - start[a] + start[b + 1] - start[b] - common;
+                shared[p] = common;
+                similarity[p] = (double) common / union;
+            }
+        });
+
+        int[] userId = table.userId();
+        int found = 0;
+        SuspiciousPair[] out = new SuspiciousPair[pairs.length];
+        for (int p = 0; p < pairs.length; p++) {
+            if (similarity[p] < threshold || shared[p] < minShared) continue;
+            int a = subset[(int) (pairs[p] >>> 32)];
+            int b = subset[(int) pairs[p]];
+            out[found++] = new SuspiciousPair(a, b, userId[a], userId[b], quizId[a], shared[p], similarity[p]);
+        }
+        out = Arrays.copyOf(out, found);
+        Arrays.sort(out, Comparator.comparingDouble(SuspiciousPair::similarity).reversed()
+                .thenComparing(Comparator.comparingInt(SuspiciousPair::sharedWrong).reversed()));
+        return out;
+    }
+
+    private static boolean isWrong(int[] answerResult, int[] answerChoice, boolean[] answerCorrect, int a, int size) {
+        return !answerCorrect[a] && answerChoice[a] != 0 && answerResult[a] >= 0 && answerResult[a] < size;
+    }
+
+    /**
+     * Writes the MinHash signature of a token set: for every hash function, the smallest hash of any token.
+     */
+    private void sign(long[] tokens, int from, int to, int[] signatures, int offset) {
+        Arrays.fill(signatures, offset, offset + hashA.length, Integer.MAX_VALUE);
+        for (int t = from; t < to; t++) {
+            long h = mix(tokens[t]);
+            for (int j = 0; j < hashA.length; j++) {
+                int v = (int) ((hashA[j] * h + hashB[j]) >>> 33);
+                if (v < signatures[offset + j]) signatures[offset + j] = v;
+            }
+        }
+    }
+
+    /**
+     * Buckets all candidates by one band of their signature, together with their quiz,
+     * and lists the pairs that share a bucket as {@code (lower << 32) | higher} candidate indices.
+     */
+    private long[] pairsOfBand(int band, int candidates, int[] subset, int[] quizId, int[] signatures) {
+        int length = bands * rows;
+        // bucket key in the high half, candidate index in the low half, so sorting groups the buckets
+        long[] keyed = new long[candidates];
+        for (int i = 0; i < candidates; i++) {
+            long h = quizId[subset[i]];
+            int offset = i * length + band * rows;
+            for (int r = 0; r < rows; r++) h = mix(h ^ signatures[offset + r]);
+            keyed[i] = (h & 0xFFFF_FFFF_0000_0000L) | i;
+        }
+        Arrays.sort(keyed);
+
+        long[] pairs = new long[16];
+        int count = 0;
+        int from = 0;
+        while (from < candidates) {
+            int to = from + 1;
+            while (to < candidates && (keyed[to] >>> 32) == (keyed[from] >>> 32)) to++;
+            int bucket = to - from;
+            if (bucket > 1) {
+                long needed = bucket > MAX_BUCKET ? bucket - 1 : (long) bucket * (bucket - 1) / 2;
+                if (count + needed > pairs.length) {
+                    pairs = Arrays.copyOf(pairs, (int) Math.max(pairs.length * 2L, count + needed));
+                }
+                for (int i = from; i < to; i++) {
+                    long lower = keyed[i] & 0xFFFF_FFFFL;
+                    int last = bucket > MAX_BUCKET ? Math.min(i + 2, to) : to;
+                    for (int j = i + 1; j < last; j++) pairs[count++] = (lower << 32) | (keyed[j] & 0xFFFF_FFFFL);
+                }
+            }
+            from = to;
+        }
+        return Arrays.copyOf(pairs, count);
+    }
+
+    /**
+     * Merges the pairs of all bands and drops duplicates.
+     */
+    private static long[] distinct(long[][] bandPairs) {
+        int total = 0;
+        for (long[] pairs : bandPairs) total += pairs.length;
+        long[] all = new long[total];
+        int at = 0;
+        for (long[] pairs : bandPairs) {
+            System.arraycopy(pairs, 0, all, at, pairs.length);
+            at += pairs.length;
+        }
+        Arrays.parallelSort(all);
+        int count = 0;
+        for (int i = 0; i < total; i++) {
+            if (count == 0 || all[i] != all[count - 1]) all[count++] = all[i];
+        }
+        return Arrays.copyOf(all, count);
+    }
+
+    /**
+     * Size of the intersection of two sorted token ranges.
+     */
+    private static int intersection(long[] tokens, int aFrom, int aTo, int bFrom, int bTo) {
+        int common = 0;
+        while (aFrom < aTo && bFrom < bTo) {
+            long a = tokens[aFrom];
+            long b = tokens[bFrom];
+            if (a == b) {
+                common++;
+                aFrom++;
+                bFrom++;
+            } else if (a < b) {
+                aFrom++;
+            } else {
+                bFrom++;
+            }
+        }
+        return common;
+    }
+
+    /**
+     * SplitMix64 finalizer: spreads every input bit over the whole word.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // ---- fork/join plumbing ----
+
+    /**
+     * Processes items {@code [from, to)}.
+     */
+    @FunctionalInterface
+    private interface Range {
+        void run(int from, int to);
+    }
+
+    /**
+     * Runs {@code range} over {@code size} items on the pool, in chunks of at least {@code minChunk}.
+     */
+    private void forEach(int size, int minChunk, Range range) {
+        if (size == 0) return;
+        int chunkSize = Math.max(minChunk, size / (pool.getParallelism() * 4));
+        pool.invoke(new RangeAction(0, size, chunkSize, range));
+    }
+
+    /**
+     * Splits its range in halves until it is small enough to process directly.
+     */
+    @SuppressWarnings("serial")
+    private static final class RangeAction extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+        private final Range range;
+
+        RangeAction(int from, int to, int chunkSize, Range range) {
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+            this.range = range;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                range.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeAction(from, mid, chunkSize, range), new RangeAction(mid, to, chunkSize, range));
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package quizService.analytics;
+
+/**
+ * Classical test statistics of one question.
+ *
+ * @param questionId     id of the question
+ * @param answered       how many times the question was answered
+ * @param correctRate    share of correct answers, from 0 to 1
+ * @param discrimination point-biserial correlation between answering this question
+ *                       correctly and the overall quiz score, from -1 to 1;
+ *                       {@code NaN} when it cannot be computed
+ */
+public record ItemStatistics(long questionId, long answered, double correctRate, double discrimination) {}
@@ -0,0 +1,271 @@
+package quizService.analytics;
+
+import quizService.model.Role;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Parallel reports over stored quiz results.
+ * <p>
+ * Every report is a fork/join reduction over a {@link ResultTable}: the row
+ * range is split into chunks, each chunk fills its own primitive accumulator
+ * and the accumulators are summed pairwise on the way back up. Reports read
+ * only the columns they need and never box a value per row.
+ * </p>
+ */
+public class ResultAnalytics {
+    /**
+     * Smallest chunk worth handing to another worker.
+     */
+    private static final int MIN_CHUNK = 1 << 16;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    /**
+     * Pool the reductions run on.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates analytics running on the common fork/join pool.
+     */
+    public ResultAnalytics() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates analytics running on the given pool.
+     *
+     * @param pool fork/join pool to use
+     */
+    public ResultAnalytics(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Average score per calendar week (weeks start on Monday, UTC).
+     *
+     * @param table results to aggregate
+     * @return one entry per week that has results, oldest first
+     */
+    public WeeklyScore[] averageScoreByWeek(ResultTable table) {
+        if (table.size() == 0) return new WeeklyScore[0];
+        long[] finishedAt = table.finishedAt();
+        long[] range = reduce(table.size(), () -> new long[]{Long.MAX_VALUE, Long.MIN_VALUE},
+                (acc, from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        long week = weekOf(finishedAt[i]);
+                        if (week < acc[0]) acc[0] = week;
+                        if (week > acc[1]) acc[1] = week;
+                    }
+                },
+                (a, b) -> new long[]{Math.min(a[0], b[0]), Math.max(a[1], b[1])});
+        long firstWeek = range[0];
+        int weeks = (int) (range[1] - firstWeek + 1);
+
+        double[] score = table.score();
+        int[] total = table.total();
+        double[] sums = reduce(table.size(), () -> new double[weeks * 2],
+                (acc, from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        if (total[i] == 0) continue;
+                        int w = (int) (weekOf(finishedAt[i]) - firstWeek);
+                        acc[w * 2] += 100.0 * score[i] / total[i];
+                        acc[w * 2 + 1]++;
+                    }
+                },
+                ResultAnalytics::sum);
+
+        int nonEmpty = 0;
+        for (int w = 0; w < weeks; w++) if (sums[w * 2 + 1] > 0) nonEmpty++;
+        WeeklyScore[] out = new WeeklyScore[nonEmpty];
+        int k = 0;
+        for (int w = 0; w < weeks; w++) {
+            double n = sums[w * 2 + 1];
+            if (n == 0) continue;
+            LocalDate monday = LocalDate.ofEpochDay((firstWeek + w) * 7 - 3);
+            out[k++] = new WeeklyScore(monday, (long) n, sums[w * 2] / n);
+        }
+        return out;
+    }
+
+    /**
+     * Distribution of scores for every role.
+     * Scores are in percent; bin {@code b} covers {@code [b * 100 / bins, (b + 1) * 100 / bins)},
+     * and a perfect score falls into the last bin.
+     *
+     * @param table results to aggregate
+     * @param bins  amount of bins, at least 1
+     * @return counts indexed by {@link Role#ordinal()} and then by bin
+     */
+    public long[][] scoreDistributionByRole(ResultTable table, int bins) {
+        int roles = Role.values().length;
+        byte[] role = table.role();
+        double[] score = table.score();
+        int[] total = table.total();
+        long[] flat = reduce(table.size(), () -> new long[roles * bins],
+                (acc, from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        if (total[i] == 0) continue;
+                        int bin = (int) (score[i] * bins / total[i]);
+                        if (bin >= bins) bin = bins - 1;
+                        acc[role[i] * bins + bin]++;
+                    }
+                },
+                ResultAnalytics::sum);
+        long[][] out = new long[roles][bins];
+        for (int r = 0; r < roles; r++) {
+            System.arraycopy(flat, r * bins, out[r], 0, bins);
+        }
+        return out;
+    }
+
+    /**
+     * Correct rate and discrimination of every answered question.
+     * Discrimination is the point-biserial correlation between getting the
+     * question right and the score of the whole quiz it was asked in:
+     * good questions are answered correctly mostly by strong students.
+     * Question ids are first mapped to dense indices, so the accumulators are
+     * sized by the amount of distinct questions, not by the largest id.
+     *
+     * @param table results and answers to aggregate
+     * @return statistics for every question answered at least once, by ascending id
+     */
+    public ItemStatistics[] questionStatistics(ResultTable table) {
+        int n = table.answerCount();
+        if (n == 0) return new ItemStatistics[0];
+        long[] questionId = table.answerQuestion();
+        long[] ids = distinct(questionId, n);
+        int slots = ids.length;
+
+        int[] resultRow = table.answerResult();
+        boolean[] answerCorrect = table.answerCorrect();
+        double[] score = table.score();
+        int[] total = table.total();
+        // per question: count, sum(x), sum(y), sum(x*y), sum(y*y)
+        double[] moments = reduce(n, () -> new double[slots * 5],
+                (acc, from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        int row = resultRow[i];
+                        if (total[row] == 0) continue;
+                        int base = Arrays.binarySearch(ids, questionId[i]) * 5;
+                        double x = answerCorrect[i] ? 1 : 0;
+                        double y = score[row] / total[row];
+                        acc[base]++;
+                        acc[base + 1] += x;
+                        acc[base + 2] += y;
+                        acc[base + 3] += x * y;
+                        acc[base + 4] += y * y;
+                    }
+                },
+                ResultAnalytics::sum);
+
+        int answered = 0;
+        for (int q = 0; q < slots; q++) if (moments[q * 5] > 0) answered++;
+        ItemStatistics[] out = new ItemStatistics[answered];
+        int k = 0;
+        for (int q = 0; q < slots; q++) {
+            double count = moments[q * 5];
+            if (count == 0) continue;
+            double p = moments[q * 5 + 1] / count;
+            double meanY = moments[q * 5 + 2] / count;
+            double cov = moments[q * 5 + 3] / count - p * meanY;
+            double varY = moments[q * 5 + 4] / count - meanY * meanY;
+            double varX = p * (1 - p);
+            double r = varX > 0 && varY > 0 ? cov / Math.sqrt(varX * varY) : Double.NaN;
+            out[k++] = new ItemStatistics(ids[q], (long) count, p, r);
+        }
+        return out;
+    }
+
+    /**
+     * Monday-based week number of an epoch-millis timestamp.
+     * Epoch day 0 was a Thursday, hence the shift by 3 days.
+     */
+    private static long weekOf(long epochMillis) {
+        return Math.floorDiv(Math.floorDiv(epochMillis, MILLIS_PER_DAY) + 3, 7);
+    }
+
+    /**
+     * Sorted distinct values of the first {@code n} entries of a column.
+     */
+    private static long[] distinct(long[] column, int n) {
+        long[] sorted = Arrays.copyOf(column, n);
+        Arrays.parallelSort(sorted);
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            if (k == 0 || sorted[i] != sorted[k - 1]) sorted[k++] = sorted[i];
+        }
+        return Arrays.copyOf(sorted, k);
+    }
+
+    private static double[] sum(double[] a, double[] b) {
+        for (int i = 0; i < a.length; i++) a[i] += b[i];
+        return a;
+    }
+
+    private static long[] sum(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i++) a[i] += b[i];
+        return a;
+    }
+
+    // ---- fork/join plumbing ----
+
+    /**
+     * Folds rows {@code [from, to)} into an accumulator.
+     */
+    @FunctionalInterface
+    private interface Chunk<A> {
+        void accumulate(A acc, int from, int to);
+    }
+
+    /**
+     * Runs a chunked reduction over {@code size} rows on the pool.
+     * Chunks are sized so each worker gets a few of them, which keeps the
+     * amount of live accumulators small even when they are wide.
+     */
+    private <A> A reduce(int size, Supplier<A> identity, Chunk<A> chunk, BinaryOperator<A> merge) {
+        int chunkSize = Math.max(MIN_CHUNK, size / (pool.getParallelism() * 4));
+        return pool.invoke(new RangeTask<>(0, size, chunkSize, identity, chunk, merge));
+    }
+
+    /**
+     * Splits its range in halves until it is small enough to accumulate directly.
+     */
+    @SuppressWarnings("serial")
+    private static final class RangeTask<A> extends RecursiveTask<A> {
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+        private final Supplier<A> identity;
+        private final Chunk<A> chunk;
+        private final BinaryOperator<A> merge;
+
+        RangeTask(int from, int to, int chunkSize, Supplier<A> identity, Chunk<A> chunk, BinaryOperator<A> merge) {
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+            this.identity = identity;
+            this.chunk = chunk;
+            this.merge = merge;
+        }
+
+        @Override
+        protected A compute() {
+            if (to - from <= chunkSize) {
+                A acc = identity.get();
+                chunk.accumulate(acc, from, to);
+                return acc;
+            }
+            int mid = (from + to) >>> 1;
+            RangeTask<A> left = new RangeTask<>(from, mid, chunkSize, identity, chunk, merge);
+            left.fork();
+            A right = new RangeTask<>(mid, to, chunkSize, identity, chunk, merge).compute();
+            return merge.apply(left.join(), right);
+        }
+    }
+}
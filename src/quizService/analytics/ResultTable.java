@@ -0,0 +1,29 @@
+package quizService.analytics;
+
+/**
+ * Columnar view of stored quiz results.
+ * <p>
+ * Row {@code i} of the result columns describes one graded quiz; row {@code j}
+ * of the answer columns describes one answered question and points back to its
+ * quiz through {@code answerResult[j]}. Only the first {@code size} and
+ * {@code answerCount} rows are valid; arrays may be longer.
+ * </p>
+ *
+ * @param userId        small integer id of the student per result
+ * @param quizId        id of the quiz per result
+ * @param role          {@link quizService.model.Role} ordinal of the student per result
+ * @param correct       correct answers per result
+ * @param total         asked questions per result
+ * @param score         earned credit per result, fractional under partial-credit rules
+ * @param finishedAt    epoch millis when the result was graded
+ * @param size          amount of valid result rows
+ * @param answerResult  result row each answer belongs to
+ * @param answerQuestion question id of each answer
+ * @param answerChoice  chosen answer (1-based) of each answer; 0 if none, the negated selection mask if several
+ * @param answerCorrect whether each answer was correct
+ * @param answerCount   amount of valid answer rows
+ */
+public record ResultTable(int[] userId, int[] quizId, byte[] role, int[] correct, int[] total,
+                          double[] score, long[] finishedAt,
+                          int size, int[] answerResult, long[] answerQuestion, int[] answerChoice,
+                          boolean[] answerCorrect, int answerCount) {}
@@ -0,0 +1,15 @@
+package quizService.analytics;
+
+/**
+ * Two submissions of the same quiz with unusually similar wrong answers.
+ *
+ * @param resultA     result row of the first submission
+ * @param resultB     result row of the second submission
+ * @param userA       small integer id of the first student
+ * @param userB       small integer id of the second student
+ * @param quizId      id of the quiz both submissions belong to
+ * @param sharedWrong amount of questions both answered wrong with the same choice
+ * @param similarity  Jaccard similarity of the two sets of wrong answers, from 0 to 1
+ */
+public record SuspiciousPair(int resultA, int resultB, int userA, int userB, int quizId,
+                             int sharedWrong, double similarity) {}
@@ -0,0 +1,12 @@
+package quizService.analytics;
+
+import java.time.LocalDate;
+
+/**
+ * Average score of the quizzes graded during one week.
+ *
+ * @param weekStart      Monday the week starts on
+ * @param results        amount of graded quizzes in the week
+ * @param averagePercent mean score in percent of asked questions
+ */
+public record WeeklyScore(LocalDate weekStart, long results, double averagePercent) {}
@@ -0,0 +1,41 @@
+package quizService.archive;
+
+/**
+ * Decoded columns of one archive block, handed to a scan callback.
+ * <p>
+ * Only the columns requested for the scan are decoded; the others are
+ * {@code null}. Arrays are reused between blocks and may be longer than
+ * {@link #rows()} or {@link #answers()}, so copy what has to outlive the callback.
+ * </p>
+ */
+public final class ArchiveBlock {
+    final long[][] columns = new long[ArchiveColumn.values().length][];
+    int rows;
+    int answers;
+
+    ArchiveBlock() {}
+
+    /**
+     * @return amount of results in the block
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * @return amount of answers in the block
+     */
+    public int answers() {
+        return answers;
+    }
+
+    /**
+     * Values of a decoded column.
+     *
+     * @param column column to read
+     * @return values, or null if the column was not requested or the archive format has no such column
+     */
+    public long[] column(ArchiveColumn column) {
+        return columns[column.ordinal()];
+    }
+}
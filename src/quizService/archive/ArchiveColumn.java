@@ -0,0 +1,47 @@
+package quizService.archive;
+
+/**
+ * Columns stored in a result archive, in on-disk order.
+ * <p>
+ * Result columns hold one value per graded quiz; answer columns hold one value
+ * per answered question, grouped by quiz in the same order as the results.
+ * Archives of format 1 have no {@link #SCORE} column.
+ * </p>
+ */
+public enum ArchiveColumn {
+    /** Small integer id of the student. */
+    USER(false),
+    /** {@link quizService.model.Role} ordinal of the student. */
+    ROLE(false),
+    /** Id of the quiz the result belongs to. */
+    QUIZ(false),
+    /** Amount of correct answers. */
+    CORRECT_COUNT(false),
+    /** Amount of asked questions. */
+    TOTAL(false),
+    /** Earned credit in {@link ResultArchiveWriter#SCORE_UNITS} of a question. */
+    SCORE(false),
+    /** Epoch millis when the quiz was graded. */
+    FINISHED_AT(false),
+    /** Amount of answer rows that belong to the result. */
+    ANSWER_COUNT(false),
+    /** Id of the answered question. */
+    QUESTION(true),
+    /** Chosen answer (1-based). */
+    CHOICE(true),
+    /** 1 if the answer was correct, otherwise 0. */
+    CORRECT(true);
+
+    private final boolean perAnswer;
+
+    ArchiveColumn(boolean perAnswer) {
+        this.perAnswer = perAnswer;
+    }
+
+    /**
+     * @return true if the column has one value per answer rather than per result
+     */
+    public boolean isPerAnswer() {
+        return perAnswer;
+    }
+}
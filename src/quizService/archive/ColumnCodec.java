@@ -0,0 +1,180 @@
+package quizService.archive;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes one column of one block.
+ * <p>
+ * Values are written as zig-zag varints using whichever of three layouts is
+ * smallest for the block at hand:
+ * <ul>
+ *   <li>{@code PLAIN} - every value as is</li>
+ *   <li>{@code DELTA} - difference to the previous value; wins for ids and timestamps that grow</li>
+ *   <li>{@code RLE} - (value, run length) pairs; wins for columns that repeat, like totals or quiz ids</li>
+ * </ul>
+ * The layout is stored as a one-byte tag in front of the payload.
+ * </p>
+ */
+final class ColumnCodec {
+    private static final byte PLAIN = 0;
+    private static final byte DELTA = 1;
+    private static final byte RLE = 2;
+
+    private ColumnCodec() {}
+
+    /**
+     * Appends the first {@code n} values to {@code out}.
+     */
+    static void encode(long[] values, int n, ByteSink out) {
+        long plain = 0, delta = 0, rle = 0;
+        long prev = 0;
+        for (int i = 0; i < n; i++) {
+            plain += varSize(zigZag(values[i]));
+            delta += varSize(zigZag(values[i] - prev));
+            prev = values[i];
+        }
+        for (int i = 0; i < n; ) {
+            int run = runLength(values, i, n);
+            rle += varSize(zigZag(values[i])) + varSize(run);
+            i += run;
+        }
+
+        if (rle <= plain && rle <= delta) {
+            out.put(RLE);
+            for (int i = 0; i < n; ) {
+                int run = runLength(values, i, n);
+                out.putVarLong(zigZag(values[i]));
+                out.putVarLong(run);
+                i += run;
+            }
+        } else if (delta < plain) {
+            out.put(DELTA);
+            prev = 0;
+            for (int i = 0; i < n; i++) {
+                out.putVarLong(zigZag(values[i] - prev));
+                prev = values[i];
+            }
+        } else {
+            out.put(PLAIN);
+            for (int i = 0; i < n; i++) out.putVarLong(zigZag(values[i]));
+        }
+    }
+
+    /**
+     * Reads {@code n} values from the current position of {@code in}.
+     */
+    static void decode(ByteBuffer in, int n, long[] into) {
+        byte layout = in.get();
+        switch (layout) {
+            case PLAIN -> {
+                for (int i = 0; i < n; i++) into[i] = unZigZag(getVarLong(in));
+            }
+            case DELTA -> {
+                long prev = 0;
+                for (int i = 0; i < n; i++) {
+                    prev += unZigZag(getVarLong(in));
+                    into[i] = prev;
+                }
+            }
+            case RLE -> {
+                for (int i = 0; i < n; ) {
+                    long value = unZigZag(getVarLong(in));
+                    int run = (int) getVarLong(in);
+                    for (int end = i + run; i < end; i++) into[i] = value;
+                }
+            }
+            default -> throw new IllegalStateException("Unknown column layout " + layout);
+        }
+    }
+
+    private static int runLength(long[] values, int from, int n) {
+        int i = from + 1;
+        while (i < n && values[i] == values[from]) i++;
+        return i - from;
+    }
+
+    private static long zigZag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unZigZag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static int varSize(long v) {
+        int size = 1;
+        while ((v & ~0x7FL) != 0) {
+            v >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static long getVarLong(ByteBuffer in) {
+        long result = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return result;
+        }
+    }
+
+    /**
+     * Growable byte array the writer encodes a block into.
+     */
+    static final class ByteSink {
+        private byte[] buf = new byte[1 << 16];
+        private int len;
+
+        void put(byte b) {
+            ensure(1);
+            buf[len++] = b;
+        }
+
+        void putInt(int v) {
+            ensure(4);
+            buf[len++] = (byte) (v >>> 24);
+            buf[len++] = (byte) (v >>> 16);
+            buf[len++] = (byte) (v >>> 8);
+            buf[len++] = (byte) v;
+        }
+
+        void putVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[len++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[len++] = (byte) v;
+        }
+
+        /**
+         * Overwrites four bytes at an earlier position, used to fill in lengths.
+         */
+        void setInt(int pos, int v) {
+            buf[pos] = (byte) (v >>> 24);
+            buf[pos + 1] = (byte) (v >>> 16);
+            buf[pos + 2] = (byte) (v >>> 8);
+            buf[pos + 3] = (byte) v;
+        }
+
+        int length() {
+            return len;
+        }
+
+        void clear() {
+            len = 0;
+        }
+
+        ByteBuffer asBuffer() {
+            return ByteBuffer.wrap(buf, 0, len);
+        }
+
+        private void ensure(int extra) {
+            if (len + extra <= buf.length) return;
+            byte[] newBuf = new byte[Math.max(buf.length * 2, len + extra)];
+            System.arraycopy(buf, 0, newBuf, 0, len);
+            buf = newBuf;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package quizService.archive;
+
+import quizService.analytics.ResultTable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Reads a columnar result archive written by {@link ResultArchiveWriter}.
+ * <p>
+ * The file is memory-mapped, so scanning it does not copy it onto the heap.
+ * A scan decodes only the requested columns of each block and jumps over the
+ * others using the lengths in the block header. A single mapping is limited to
+ * 2 GB; larger histories should be split over several archive files.
+ * Archives of format 1 are read with every score equal to the amount of
+ * correct answers.
+ * </p>
+ */
+public class ResultArchiveReader implements AutoCloseable {
+    private final FileChannel channel;
+    private final MappedByteBuffer data;
+    private final int version;
+    /**
+     * Columns the file has, in on-disk order.
+     */
+    private final ArchiveColumn[] layout;
+
+    /**
+     * Maps an archive for reading.
+     *
+     * @param file path of the archive
+     * @throws IOException if the file cannot be read or is not an archive
+     */
+    public ResultArchiveReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            version = checkHeader(channel);
+            layout = layout(version);
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Archive is larger than 2 GB: " + file);
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException | RuntimeException e) {
+            // the reader is never handed out, so nobody else would close the channel
+            try {
+                channel.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Callback receiving decoded blocks.
+     */
+    @FunctionalInterface
+    public interface BlockVisitor {
+        /**
+         * Called once per block, in file order.
+         *
+         * @param block decoded columns of the block
+         */
+        void visit(ArchiveBlock block);
+    }
+
+    /**
+     * Decodes the given columns block by block.
+     *
+     * @param columns columns the visitor needs
+     * @param visitor callback for every block
+     */
+    public void scan(Set<ArchiveColumn> columns, BlockVisitor visitor) {
+        ByteBuffer in = data.duplicate();
+        in.position(8);
+        ArchiveBlock block = new ArchiveBlock();
+        int[] lengths = new int[layout.length];
+        while (in.remaining() > 0) {
+            block.rows = in.getInt();
+            block.answers = in.getInt();
+            for (int c = 0; c < layout.length; c++) lengths[c] = in.getInt();
+            for (int k = 0; k < layout.length; k++) {
+                ArchiveColumn c = layout[k];
+                int end = in.position() + lengths[k];
+                if (columns.contains(c)) {
+                    int n = c.isPerAnswer() ? block.answers : block.rows;
+                    long[] values = block.columns[c.ordinal()];
+                    if (values == null || values.length < n) values = new long[Math.max(n, 16)];
+                    ColumnCodec.decode(in, n, values);
+                    block.columns[c.ordinal()] = values;
+                }
+                in.position(end);
+            }
+            visitor.visit(block);
+        }
+    }
+
+    /**
+     * Average score of all archived results in percent, reading only
+     * the {@link ArchiveColumn#SCORE} and {@link ArchiveColumn#TOTAL} columns
+     * ({@link ArchiveColumn#CORRECT_COUNT} instead of the score in format 1).
+     *
+     * @return mean score in percent, or 0 if the archive is empty
+     */
+    public double averageScorePercent() {
+        ArchiveColumn scoreColumn = hasScores() ? ArchiveColumn.SCORE : ArchiveColumn.CORRECT_COUNT;
+        double unit = hasScores() ? ResultArchiveWriter.SCORE_UNITS : 1;
+        double[] acc = new double[2];
+        scan(EnumSet.of(scoreColumn, ArchiveColumn.TOTAL), block -> {
+            long[] score = block.column(scoreColumn);
+            long[] total = block.column(ArchiveColumn.TOTAL);
+            for (int i = 0; i < block.rows(); i++) {
+                if (total[i] == 0) continue;
+                acc[0] += 100.0 * score[i] / unit / total[i];
+                acc[1]++;
+            }
+        });
+        return acc[1] == 0 ? 0 : acc[0] / acc[1];
+    }
+
+    /**
+     * Loads the whole archive into a {@link ResultTable} for
+     * {@link quizService.analytics.ResultAnalytics}.
+     *
+     * @return table with every archived result and answer
+     */
+    public ResultTable toTable() {
+        int[] counts = new int[2];
+        scan(EnumSet.noneOf(ArchiveColumn.class), block -> {
+            counts[0] += block.rows();
+            counts[1] += block.answers();
+        });
+        int[] userId = new int[counts[0]];
+        int[] quizId = new int[counts[0]];
+        byte[] role = new byte[counts[0]];
+        int[] correct = new int[counts[0]];
+        int[] total = new int[counts[0]];
+        double[] score = new double[counts[0]];
+        long[] finishedAt = new long[counts[0]];
+        int[] answerResult = new int[counts[1]];
+        long[] answerQuestion = new long[counts[1]];
+        int[] answerChoice = new int[counts[1]];
+        boolean[] answerCorrect = new boolean[counts[1]];
+        int[] pos = new int[2];
+        scan(EnumSet.allOf(ArchiveColumn.class), block -> {
+            long[] answerCount = block.column(ArchiveColumn.ANSWER_COUNT);
+            int a = 0;
+            for (int i = 0; i < block.rows(); i++) {
+                int row = pos[0]++;
+                userId[row] = (int) block.column(ArchiveColumn.USER)[i];
+                role[row] = (byte) block.column(ArchiveColumn.ROLE)[i];
+                quizId[row] = (int) block.column(ArchiveColumn.QUIZ)[i];
+                correct[row] = (int) block.column(ArchiveColumn.CORRECT_COUNT)[i];
+                total[row] = (int) block.column(ArchiveColumn.TOTAL)[i];
+                score[row] = hasScores()
+                        ? (double) block.column(ArchiveColumn.SCORE)[i] / ResultArchiveWriter.SCORE_UNITS
+                        : correct[row];
+                finishedAt[row] = block.column(ArchiveColumn.FINISHED_AT)[i];
+                for (long k = 0; k < answerCount[i]; k++, a++) {
+                    int answer = pos[1]++;
+                    answerResult[answer] = row;
+                    answerQuestion[answer] = block.column(ArchiveColumn.QUESTION)[a];
+                    answerChoice[answer] = (int) block.column(ArchiveColumn.CHOICE)[a];
+                    answerCorrect[answer] = block.column(ArchiveColumn.CORRECT)[a] != 0;
+                }
+            }
+        });
+        return new ResultTable(userId, quizId, role, correct, total, score, finishedAt, counts[0],
+                answerResult, answerQuestion, answerChoice, answerCorrect, counts[1]);
+    }
+
+    /**
+     * @return false for archives of format 1, whose scores are the amount of correct answers
+     */
+    public boolean hasScores() {
+        return version != ResultArchiveWriter.FORMAT_WITHOUT_SCORE;
+    }
+
+    /**
+     * Closes the file. The mapping itself is released by the garbage collector.
+     *
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Verifies magic number and format version at the start of a channel.
+     *
+     * @return format version of the file
+     */
+    static int checkHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(8);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // keep reading until the header is complete or the file ends
+        }
+        header.flip();
+        if (header.remaining() < 8 || header.getInt() != ResultArchiveWriter.MAGIC) {
+            throw new IOException("Not a result archive");
+        }
+        int version = header.getInt();
+        if (version != ResultArchiveWriter.FORMAT_VERSION && version != ResultArchiveWriter.FORMAT_WITHOUT_SCORE) {
+            throw new IOException("Unsupported archive version " + version);
+        }
+        return version;
+    }
+
+    /**
+     * Columns of a format version, in on-disk order.
+     */
+    private static ArchiveColumn[] layout(int version) {
+        EnumSet<ArchiveColumn> columns = EnumSet.allOf(ArchiveColumn.class);
+        if (version == ResultArchiveWriter.FORMAT_WITHOUT_SCORE) columns.remove(ArchiveColumn.SCORE);
+        return columns.toArray(new ArchiveColumn[0]);
+    }
+}
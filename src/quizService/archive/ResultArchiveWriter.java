@@ -0,0 +1,195 @@
+package quizService.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends quiz results to a columnar archive file.
+ * <p>
+ * Results are buffered in primitive columns and written as self-contained
+ * blocks of up to {@value #BLOCK_ROWS} results. Every block starts with its
+ * row counts and the byte length of each column, so a reader can skip the
+ * columns it does not need. Columns are compressed by {@link ColumnCodec}.
+ * Opening an existing archive appends new blocks after the old ones; blocks
+ * already on disk are never rewritten.
+ * </p>
+ * <pre>
+ * file  := MAGIC:int FORMAT_VERSION:int block*
+ * block := rows:int answers:int columnLength:int[11] column*
+ * </pre>
+ */
+public class ResultArchiveWriter implements AutoCloseable {
+    /**
+     * First four bytes of every archive: "QZRA".
+     */
+    public static final int MAGIC = 0x515A5241;
+    /**
+     * Version of the file layout.
+     */
+    public static final int FORMAT_VERSION = 2;
+    /**
+     * Oldest version of the file layout that can still be read; it has no {@link ArchiveColumn#SCORE} column.
+     */
+    static final int FORMAT_WITHOUT_SCORE = 1;
+    /**
+     * Fractional scores are stored as whole millionths of a question.
+     */
+    public static final long SCORE_UNITS = 1_000_000;
+    /**
+     * Results per block.
+     */
+    public static final int BLOCK_ROWS = 65_536;
+    /**
+     * Bytes a result and an answer take in plain binary form, used for {@link #rawBytes()}.
+     */
+    private static final int RAW_RESULT_BYTES = 4 * 4 + 1 + 8 + 8;
+    private static final int RAW_ANSWER_BYTES = 8 + 4 + 1;
+
+    private static final int COLUMNS = ArchiveColumn.values().length;
+
+    private final FileChannel channel;
+    private final ColumnCodec.ByteSink sink = new ColumnCodec.ByteSink();
+    /**
+     * Buffered values, one array per column.
+     */
+    private final long[][] columns = new long[COLUMNS][];
+    private int rows;
+    private int answers;
+    private long rawBytes;
+    private long bytesWritten;
+
+    /**
+     * Opens an archive for appending, creating it if it does not exist.
+     *
+     * @param file path of the archive
+     * @throws IOException if the file cannot be opened, is not an archive or has an older format
+     */
+    public ResultArchiveWriter(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(8).putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+                while (header.hasRemaining()) channel.write(header);
+            } else if (ResultArchiveReader.checkHeader(channel) != FORMAT_VERSION) {
+                throw new IOException("Archive has an older format, append to a new file: " + file);
+            }
+            channel.position(channel.size());
+            bytesWritten = channel.size();
+        } catch (IOException | RuntimeException e) {
+            // the writer is never handed out, so nobody else would close the channel
+            try {
+                channel.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        for (ArchiveColumn c : ArchiveColumn.values()) {
+            columns[c.ordinal()] = new long[c.isPerAnswer() ? BLOCK_ROWS * 4 : BLOCK_ROWS];
+        }
+    }
+
+    /**
+     * Buffers one result; a full block is written out immediately.
+     *
+     * @param userId       id of the student
+     * @param role         role ordinal of the student
+     * @param quizId       id of the quiz
+     * @param correctCount correct answers
+     * @param total        asked questions
+     * @param score        earned credit
+     * @param finishedAt   epoch millis when graded
+     * @param questionIds  ids of the answered questions
+     * @param choices      chosen answers (1-based)
+     * @param correct      whether each answer was correct
+     * @param answered     amount of valid entries in the three answer arrays
+     * @throws IOException if a block cannot be written
+     */
+    public void append(int userId, int role, int quizId, int correctCount, int total, double score, long finishedAt,
+                       long[] questionIds, int[] choices, boolean[] correct, int answered) throws IOException {
+        ensureAnswerCapacity(answered);
+        columns[ArchiveColumn.USER.ordinal()][rows] = userId;
+        columns[ArchiveColumn.ROLE.ordinal()][rows] = role;
+        columns[ArchiveColumn.QUIZ.ordinal()][rows] = quizId;
+        columns[ArchiveColumn.CORRECT_COUNT.ordinal()][rows] = correctCount;
+        columns[ArchiveColumn.TOTAL.ordinal()][rows] = total;
+        columns[ArchiveColumn.SCORE.ordinal()][rows] = Math.round(score * SCORE_UNITS);
+        columns[ArchiveColumn.FINISHED_AT.ordinal()][rows] = finishedAt;
+        columns[ArchiveColumn.ANSWER_COUNT.ordinal()][rows] = answered;
+        for (int i = 0; i < answered; i++, answers++) {
+            columns[ArchiveColumn.QUESTION.ordinal()][answers] = questionIds[i];
+            columns[ArchiveColumn.CHOICE.ordinal()][answers] = choices[i];
+            columns[ArchiveColumn.CORRECT.ordinal()][answers] = correct[i] ? 1 : 0;
+        }
+        rows++;
+        rawBytes += RAW_RESULT_BYTES + (long) answered * RAW_ANSWER_BYTES;
+        if (rows == BLOCK_ROWS) flush();
+    }
+
+    /**
+     * Writes buffered results as a block and forces it to disk.
+     *
+     * @throws IOException if the block cannot be written
+     */
+    public void flush() throws IOException {
+        if (rows == 0) return;
+        sink.clear();
+        sink.putInt(rows);
+        sink.putInt(answers);
+        int lengthsAt = sink.length();
+        for (int c = 0; c < COLUMNS; c++) sink.putInt(0);
+        for (ArchiveColumn c : ArchiveColumn.values()) {
+            int start = sink.length();
+            ColumnCodec.encode(columns[c.ordinal()], c.isPerAnswer() ? answers : rows, sink);
+            sink.setInt(lengthsAt + c.ordinal() * 4, sink.length() - start);
+        }
+        ByteBuffer block = sink.asBuffer();
+        while (block.hasRemaining()) channel.write(block);
+        channel.force(false);
+        bytesWritten += sink.length();
+        rows = 0;
+        answers = 0;
+    }
+
+    /**
+     * @return size the appended results would take as plain binary rows
+     */
+    public long rawBytes() {
+        return rawBytes;
+    }
+
+    /**
+     * @return size of the archive file after the last flushed block
+     */
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Flushes pending results and closes the file.
+     *
+     * @throws IOException if the last block cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void ensureAnswerCapacity(int extra) {
+        for (ArchiveColumn c : ArchiveColumn.values()) {
+            long[] arr = columns[c.ordinal()];
+            if (!c.isPerAnswer() || answers + extra <= arr.length) continue;
+            long[] newArr = new long[Math.max(arr.length * 2, answers + extra)];
+            System.arraycopy(arr, 0, newArr, 0, answers);
+            columns[c.ordinal()] = newArr;
+        }
+    }
+}
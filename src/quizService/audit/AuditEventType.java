@@ -0,0 +1,19 @@
+package quizService.audit;
+
+/**
+ * Kinds of events written to the audit log.
+ */
+public enum AuditEventType {
+    /** Registration attempt; value is unused. */
+    REGISTER,
+    /** Login attempt; value is unused. */
+    LOGIN,
+    /** Teacher added a question; value is the question id. */
+    QUESTION_ADDED,
+    /** Teacher updated a question; value is the question id. */
+    QUESTION_UPDATED,
+    /** Teacher deleted a question; value is the question id. */
+    QUESTION_DELETED,
+    /** Student submitted a quiz; value is the score, second value the total. */
+    QUIZ_SUBMITTED
+}
@@ -0,0 +1,308 @@
+package quizService.audit;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous audit trail backed by a preallocated ring buffer.
+ * <p>
+ * Callers on hot paths only claim the next slot with one atomic increment,
+ * copy a few fields into it and publish it; nothing is allocated, formatted
+ * or locked on their thread. A single background thread is the only writer of
+ * the log file: it drains published slots in order, formats them and writes
+ * them in batches, flushing once per batch and rotating the file when it
+ * grows past {@link #maxFileBytes}.
+ * </p>
+ * <p>
+ * If the writer falls a full ring behind, callers wait for a free slot rather
+ * than dropping events; {@link #producerWaits()} counts how often that happened.
+ * Once the log is closed, a caller still fills its claimed slot, but with a
+ * tombstone the writer passes over, so the writer never waits for a sequence
+ * that is never published; {@link #dropped()} counts those events.
+ * This class follows the Singleton pattern; the instance logs to {@code audit/audit.log}.
+ * </p>
+ */
+public final class AuditLog {
+    /**
+     * Slots in the ring of the default instance (power of two).
+     */
+    private static final int DEFAULT_CAPACITY = 1 << 14;
+    /**
+     * Size after which the default instance rotates its file.
+     */
+    private static final long DEFAULT_MAX_FILE_BYTES = 16L * 1024 * 1024;
+    /**
+     * How long the writer sleeps when the ring is empty.
+     */
+    private static final long IDLE_PARK_NANOS = 200_000;
+
+    /**
+     * Holder of the singleton, so the writer thread and the log directory
+     * are only created once the application audit log is actually used.
+     * The singleton is closed, i.e. drained to its file, on JVM shutdown.
+     */
+    private static final class Holder {
+        static final AuditLog instance = new AuditLog(Path.of("audit", "audit.log"),
+                DEFAULT_CAPACITY, DEFAULT_MAX_FILE_BYTES);
+
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(instance::close, "audit-shutdown"));
+        }
+    }
+
+    /**
+     * One preallocated event. Fields are written by the producer that claimed
+     * the slot and become visible to the writer through {@link #published}.
+     */
+    private static final class Slot {
+        AuditEventType type;
+        long timeMillis;
+        boolean success;
+        String subject;
+        long value;
+        long value2;
+        /**
+         * Set for a tombstone: the sequence was claimed after the log was closed and holds no event.
+         */
+        boolean skipped;
+        /**
+         * Sequence of the event stored in the slot; -1 before the first use.
+         */
+        volatile long published = -1;
+    }
+
+    private final Slot[] ring;
+    private final int mask;
+    /**
+     * Next sequence to hand out to a producer.
+     */
+    private final AtomicLong claimed = new AtomicLong();
+    /**
+     * Sequence of the next event the writer will read; everything below is on disk.
+     */
+    private volatile long consumed;
+    private final AtomicLong producerWaits = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final Path file;
+    private final long maxFileBytes;
+    private BufferedWriter out;
+    private long fileBytes;
+    private final StringBuilder line = new StringBuilder(128);
+    private volatile boolean running = true;
+    private final Thread writer;
+
+    /**
+     * Creates an audit log and starts its writer thread.
+     * Events still in the ring are only written by {@link #close()}, which the
+     * creator of a log other than {@link #getInstance()} has to call.
+     *
+     * @param file         path of the active log file
+     * @param capacity     slots in the ring, rounded up to a power of two
+     * @param maxFileBytes size after which the file is rotated
+     */
+    public AuditLog(Path file, int capacity, long maxFileBytes) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new Slot[size];
+        for (int i = 0; i < size; i++) ring[i] = new Slot();
+        this.mask = size - 1;
+        this.file = file;
+        this.maxFileBytes = maxFileBytes;
+        this.writer = new Thread(this::drainLoop, "audit-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Returns the application-wide audit log.
+     *
+     * @return singleton {@code AuditLog} instance
+     */
+    public static AuditLog getInstance() {
+        return Holder.instance;
+    }
+
+    /**
+     * Records an event.
+     *
+     * @param type    kind of event
+     * @param subject user the event is about
+     * @param success outcome of the operation
+     * @param value   event specific value, see {@link AuditEventType}
+     * @param value2  second event specific value
+     */
+    public void publish(AuditEventType type, String subject, boolean success, long value, long value2) {
+        long seq = claimed.getAndIncrement();
+        if (seq - consumed >= ring.length) {
+            producerWaits.incrementAndGet();
+            for (int spins = 0; seq - consumed >= ring.length; spins++) {
+                // a stopped writer reads nothing anymore, so nobody waits for this sequence
+                if (!writer.isAlive()) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                if (spins < 100) Thread.onSpinWait();
+                else Thread.yield();
+            }
+        }
+        Slot slot = ring[(int) (seq & mask)];
+        if (!running) {
+            dropped.incrementAndGet();
+            slot.skipped = true;
+            slot.published = seq;
+            return;
+        }
+        slot.skipped = false;
+        slot.type = type;
+        slot.timeMillis = System.currentTimeMillis();
+        slot.success = success;
+        slot.subject = subject;
+        slot.value = value;
+        slot.value2 = value2;
+        slot.published = seq;
+    }
+
+    /**
+     * Records an event without values.
+     *
+     * @param type    kind of event
+     * @param subject user the event is about
+     * @param success outcome of the operation
+     */
+    public void publish(AuditEventType type, String subject, boolean success) {
+        publish(type, subject, success, 0, 0);
+    }
+
+    /**
+     * @return how many times a producer had to wait for the writer
+     */
+    public long producerWaits() {
+        return producerWaits.get();
+    }
+
+    /**
+     * @return events published after the log was closed, which are not written
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return amount of sequences the writer has passed so far: written events and tombstones
+     */
+    public long written() {
+        return consumed;
+    }
+
+    /**
+     * Stops the writer after it has written every published event.
+     */
+    public void close() {
+        if (!running) return;
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Body of the writer thread.
+     */
+    private void drainLoop() {
+        try {
+            open();
+            while (running || consumed < claimed.get()) {
+                long next = consumed;
+                int batch = 0;
+                Slot slot;
+                while ((slot = ring[(int) (next & mask)]).published == next) {
+                    if (!slot.skipped) write(slot);
+                    slot.subject = null;
+                    next++;
+                    if (++batch == ring.length / 2) break;
+                }
+                if (batch > 0) {
+                    out.flush();
+                    consumed = next;
+                    if (fileBytes >= maxFileBytes) rotate();
+                } else if (running) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                } else if (consumed < claimed.get()) {
+                    // a claimed slot is still being filled; let its producer run
+                    Thread.yield();
+                }
+            }
+            out.close();
+        } catch (IOException e) {
+            running = false;
+            System.out.println("Audit log stopped: " + e.getMessage());
+        }
+    }
+
+    private void write(Slot slot) throws IOException {
+        line.setLength(0);
+        line.append(Instant.ofEpochMilli(slot.timeMillis)).append(' ')
+            .append(slot.type).append(' ')
+            .append(slot.subject).append(' ')
+            .append(slot.success ? "OK" : "FAILED");
+        if (slot.type == AuditEventType.QUIZ_SUBMITTED) {
+            line.append(' ').append(slot.value).append('/').append(slot.value2);
+        } else if (slot.value != 0) {
+            line.append(" #").append(slot.value);
+        }
+        line.append('\n');
+        out.append(line);
+        fileBytes += utf8Length(line);
+    }
+
+    /**
+     * Encoded size of text in UTF-8, without encoding it.
+     */
+    static int utf8Length(CharSequence text) {
+        int bytes = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                // a lone surrogate is encoded as '?'
+                bytes += Character.isSurrogate(c) ? 1 : 3;
+            }
+        }
+        return bytes;
+    }
+
+    private void open() throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        fileBytes = Files.size(file);
+    }
+
+    /**
+     * Moves the full file aside as {@code <name>.<epochMillis>} and starts a new one.
+     */
+    private void rotate() throws IOException {
+        out.close();
+        Path rotated = file.resolveSibling(file.getFileName() + "." + System.currentTimeMillis());
+        Files.move(file, rotated, StandardCopyOption.REPLACE_EXISTING);
+        open();
+    }
+}
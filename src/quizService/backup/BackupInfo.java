@@ -0,0 +1,28 @@
+package quizService.backup;
+
+import java.nio.file.Path;
+
+/**
+ * Summary of a backup file, returned when it is written, verified or restored.
+ *
+ * @param file        path of the backup
+ * @param createdAt   epoch millis when the repositories were captured
+ * @param users       stored users
+ * @param questions   questions of the bank
+ * @param bankVersion version of the question bank
+ * @param quizzes     quizzes with banks of their own
+ * @param results     graded quiz results
+ * @param answers     answered questions of all results
+ * @param bytes       size of the file
+ * @param pauseNanos  time writers were held back while the repositories were captured; 0 unless written
+ * @param millis      time the whole operation took
+ */
+public record BackupInfo(Path file, long createdAt, int users, int questions, long bankVersion, int quizzes,
+                         int results, int answers, long bytes, long pauseNanos, long millis) {
+    @Override
+    public String toString() {
+        return String.format("%s: %,d users, %,d questions (version %d), %,d quizzes, %,d results, %,d answers, "
+                        + "%,d bytes in %,d ms" + (pauseNanos > 0 ? ", writers paused %.2f ms" : ""),
+                file, users, questions, bankVersion, quizzes, results, answers, bytes, millis, pauseNanos / 1e6);
+    }
+}
@@ -0,0 +1,598 @@
+package quizService.backup;
+
+import quizService.analytics.ResultTable;
+import quizService.model.Role;
+import quizService.model.User;
+import quizService.quiz.QuizRegistry;
+import quizService.quiz.QuizRegistry.SavedQuiz;
+import quizService.repository.QuestionDelta;
+import quizService.repository.QuestionRepository;
+import quizService.repository.QuestionSnapshot;
+import quizService.repository.ResultRepository;
+import quizService.repository.UserRepository;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Online backup of the user, question and result repositories and of the
+ * quizzes with banks of their own.
+ * <p>
+ * A backup captures all three repositories at one point in time without
+ * stopping the service. The repository locks are taken in a fixed order
+ * (users, questions, results) only long enough to copy the user array and
+ * grab the current question snapshot and result view; the latter two are
+ * immutable or append-only, so taking them costs O(1). Everything is written
+ * after the locks are released, while registrations, edits and gradings go on.
+ * The quizzes of the {@link QuizRegistry} are captured right after, under the
+ * registry's lock; their banks are the only copy that survives a restart.
+ * The file is written next to its target and moved into place atomically, so a
+ * crash never leaves a half-written backup under the final name.
+ * </p>
+ * <p>
+ * Every section carries a CRC32C of its payload. {@link #verify(Path)} checks
+ * the whole file without touching the repositories. {@link #restore(Path)}
+ * verifies and decodes everything, then checks under all locks that every
+ * target is empty before it loads anything; if a store rejects users or
+ * questions, what was already restored is removed again, so the repositories
+ * are never left half restored. Media files of questions are referenced by
+ * hash and are not part of the backup. Backups of format 1, written before
+ * quizzes were included, and of format 2, written before fractional scores
+ * were kept, can still be read; their scores are the amount of correct answers.
+ * </p>
+ * <pre>
+ * file    := MAGIC:int FORMAT_VERSION:int section(USERS) section(QUESTIONS) section(RESULTS) section(QUIZZES)
+ *            section(END)
+ * section := tag:byte length:long payload crc32c:int
+ * USERS     := count:int (role:byte username:str password:str)*
+ * QUESTIONS := {@link QuestionDelta#encode() full question delta}
+ * RESULTS   := names:int username:str* rows:int answers:int
+ *              userId:int[] quizId:int[] role:byte[] correct:int[] total:int[] score:double[] finishedAt:long[]
+ *              answerResult:int[] answerQuestion:long[] answerChoice:int[] answerCorrect:byte[]
+ * QUIZZES   := count:int (id:int name:str bankLength:int {@link QuestionDelta#encode() full question delta})*
+ * END       := createdAt:long users:int questions:int bankVersion:long results:int answers:int quizzes:int
+ * str       := length:int utf8:byte[]
+ * </pre>
+ */
+public class BackupService {
+    /**
+     * First four bytes of every backup: "QZBK".
+     */
+    public static final int MAGIC = 0x515A424B;
+    /**
+     * Version of the file layout.
+     */
+    public static final int FORMAT_VERSION = 3;
+    /**
+     * Oldest version of the file layout that can still be read; it has no quizzes.
+     */
+    private static final int FORMAT_WITHOUT_QUIZZES = 1;
+    /**
+     * Version of the file layout without the score column.
+     */
+    private static final int FORMAT_WITHOUT_SCORES = 2;
+
+    private static final byte USERS = 'U';
+    private static final byte QUESTIONS = 'Q';
+    private static final byte RESULTS = 'R';
+    private static final byte QUIZZES = 'C';
+    private static final byte END = 'E';
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final UserRepository userRepository;
+    private final QuestionRepository questionRepository;
+    private final ResultRepository resultRepository;
+    /**
+     * Quizzes to back up or restore into, or null to leave quizzes out.
+     */
+    private final QuizRegistry quizRegistry;
+
+    /**
+     * Creates a backup service for the shared repositories and quiz registry.
+     */
+    public BackupService() {
+        this(UserRepository.getInstance(), QuestionRepository.getInstance(), ResultRepository.getInstance(),
+                QuizRegistry.getInstance());
+    }
+
+    /**
+     * Creates a backup service for the given repositories, without quizzes.
+     *
+     * @param userRepository     users to back up or restore into
+     * @param questionRepository question bank to back up or restore into
+     * @param resultRepository   results to back up or restore into
+     */
+    public BackupService(UserRepository userRepository, QuestionRepository questionRepository,
+                         ResultRepository resultRepository) {
+        this(userRepository, questionRepository, resultRepository, null);
+    }
+
+    /**
+     * Creates a backup service for the given repositories and quiz registry.
+     *
+     * @param userRepository     users to back up or restore into
+     * @param questionRepository question bank to back up or restore into
+     * @param resultRepository   results to back up or restore into
+     * @param quizRegistry       quizzes to back up or restore into, or null to leave them out
+     */
+    public BackupService(UserRepository userRepository, QuestionRepository questionRepository,
+                         ResultRepository resultRepository, QuizRegistry quizRegistry) {
+        this.userRepository = userRepository;
+        this.questionRepository = questionRepository;
+        this.resultRepository = resultRepository;
+        this.quizRegistry = quizRegistry;
+    }
+
+    /**
+     * Writes a consistent backup of the repositories while they stay in use.
+     *
+     * @param file path of the backup; an existing file is replaced once the new one is complete
+     * @return summary of the written backup
+     * @throws IOException if the file cannot be written
+     */
+    public BackupInfo backup(Path file) throws IOException {
+        long start = System.nanoTime();
+        User[] users;
+        QuestionSnapshot bank;
+        ResultTable results;
+        String[] names;
+        long createdAt;
+        long pause;
+        synchronized (userRepository) {
+            long locked = System.nanoTime();
+            synchronized (questionRepository) {
+                synchronized (resultRepository) {
+                    createdAt = System.currentTimeMillis();
+                    users = userRepository.getAll();
+                    bank = questionRepository.snapshot();
+                    results = resultRepository.view();
+                    names = resultRepository.usernames();
+                }
+            }
+            pause = System.nanoTime() - locked;
+        }
+        SavedQuiz[] quizzes = quizRegistry != null ? quizRegistry.save() : new SavedQuiz[0];
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        long bytes;
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Output out = new Output(channel);
+            out.putInt(MAGIC);
+            out.putInt(FORMAT_VERSION);
+
+            out.begin(USERS);
+            out.putInt(users.length);
+            for (User user : users) {
+                out.put((byte) user.role().ordinal());
+                out.putString(user.username());
+                out.putString(user.password());
+            }
+            out.end();
+
+            out.begin(QUESTIONS);
+            out.putBytes(QuestionDelta.of(bank).encode());
+            out.end();
+
+            out.begin(RESULTS);
+            out.putInt(names.length);
+            for (String name : names) out.putString(name);
+            int rows = results.size();
+            int answers = results.answerCount();
+            out.putInt(rows);
+            out.putInt(answers);
+            out.putInts(results.userId(), rows);
+            out.putInts(results.quizId(), rows);
+            out.putBytes(results.role(), rows);
+            out.putInts(results.correct(), rows);
+            out.putInts(results.total(), rows);
+            out.putDoubles(results.score(), rows);
+            out.putLongs(results.finishedAt(), rows);
+            out.putInts(results.answerResult(), answers);
+            out.putLongs(results.answerQuestion(), answers);
+            out.putInts(results.answerChoice(), answers);
+            out.putBooleans(results.answerCorrect(), answers);
+            out.end();
+
+            out.begin(QUIZZES);
+            out.putInt(quizzes.length);
+            for (SavedQuiz quiz : quizzes) {
+                out.putInt(quiz.id());
+                out.putString(quiz.name());
+                byte[] encoded = quiz.bank().encode();
+                out.putInt(encoded.length);
+                out.putBytes(encoded);
+            }
+            out.end();
+
+            out.begin(END);
+            out.putLong(createdAt);
+            out.putInt(users.length);
+            out.putInt(bank.size());
+            out.putLong(bank.version());
+            out.putInt(rows);
+            out.putInt(answers);
+            out.putInt(quizzes.length);
+            out.end();
+
+            channel.force(true);
+            bytes = channel.size();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new BackupInfo(file, createdAt, users.length, bank.size(), bank.version(), quizzes.length,
+                results.size(), results.answerCount(), bytes, pause, millisSince(start));
+    }
+
+    /**
+     * Checks every checksum and the structure of a backup without restoring it.
+     *
+     * @param file path of the backup
+     * @return summary of the backup
+     * @throws IOException if the file cannot be read or is damaged
+     */
+    public BackupInfo verify(Path file) throws IOException {
+        long start = System.nanoTime();
+        Contents contents = read(file);
+        return contents.info(file, millisSince(start));
+    }
+
+    /**
+     * Restores a backup into the repositories and quiz registry of this service, which must be empty.
+     * <p>
+     * The whole file is verified and decoded first. Then, holding every lock in
+     * the backup's order and the registry's last, all targets are checked
+     * before any of them is written. Only the stores behind the repositories
+     * can still refuse data after that: users are restored first and removed
+     * again if they or the questions are refused; results and quizzes, which
+     * live in memory only, come last.
+     * </p>
+     *
+     * @param file path of the backup
+     * @return summary of the restored backup, or null if a target was not empty
+     *         or a store rejected the restored data; nothing is restored then
+     * @throws IOException if the file cannot be read or is damaged
+     */
+    public BackupInfo restore(Path file) throws IOException {
+        long start = System.nanoTime();
+        Contents contents = read(file);
+        if (quizRegistry == null && contents.quizzes.length > 0) {
+            System.out.println("Backup holds " + contents.quizzes.length + " quizzes but no registry was given, "
+                    + "backup not restored.");
+            return null;
+        }
+        boolean restored;
+        synchronized (userRepository) {
+            synchronized (questionRepository) {
+                synchronized (resultRepository) {
+                    if (quizRegistry == null) {
+                        restored = load(contents);
+                    } else {
+                        synchronized (quizRegistry) {
+                            restored = load(contents);
+                        }
+                    }
+                }
+            }
+        }
+        return restored ? contents.info(file, millisSince(start)) : null;
+    }
+
+    /**
+     * Checks every target, then loads a decoded backup into them; called with all locks held.
+     *
+     * @return false if nothing was loaded
+     */
+    private boolean load(Contents contents) {
+        if (userRepository.getAll().length > 0 || !questionRepository.canFill() || resultRepository.size() > 0
+                || (quizRegistry != null && !quizRegistry.canRestore(contents.quizzes))) {
+            System.out.println("Repositories are not empty, backup not restored.");
+            return false;
+        }
+        boolean[] added = userRepository.addAll(contents.users, contents.users.length);
+        int restored = 0;
+        for (boolean ok : added) if (ok) restored++;
+        if (restored != contents.users.length) {
+            System.out.println("Only " + restored + " of " + contents.users.length
+                    + " users could be restored, backup not restored.");
+            removeUsers(contents.users, added);
+            return false;
+        }
+        if (!questionRepository.fill(contents.questions)) {
+            System.out.println("Questions could not be restored, backup not restored.");
+            removeUsers(contents.users, added);
+            return false;
+        }
+        // in memory only and checked above, so these cannot fail anymore
+        resultRepository.restore(contents.results, contents.names);
+        if (quizRegistry != null) quizRegistry.restore(contents.quizzes);
+        return true;
+    }
+
+    /**
+     * Takes back the users a failed restore added.
+     */
+    private void removeUsers(User[] users, boolean[] added) {
+        for (int i = 0; i < users.length; i++) {
+            if (added[i]) userRepository.remove(users[i].username());
+        }
+    }
+
+    // ---- reading ----
+
+    /**
+     * Decoded content of a verified backup.
+     */
+    private static final class Contents {
+        long createdAt;
+        long bytes;
+        User[] users;
+        QuestionDelta questions;
+        String[] names;
+        ResultTable results;
+        SavedQuiz[] quizzes = new SavedQuiz[0];
+
+        BackupInfo info(Path file, long millis) {
+            return new BackupInfo(file, createdAt, users.length, questions.size(), questions.toVersion(),
+                    quizzes.length, results.size(), results.answerCount(), bytes, 0, millis);
+        }
+    }
+
+    private static Contents read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Backup too large to read: " + file);
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (in.remaining() < 8 || in.getInt() != MAGIC) throw new IOException("Not a backup: " + file);
+            int format = in.getInt();
+            if (format != FORMAT_VERSION && format != FORMAT_WITHOUT_SCORES && format != FORMAT_WITHOUT_QUIZZES) {
+                throw new IOException("Unsupported backup format " + format + ": " + file);
+            }
+
+            Contents contents = new Contents();
+            contents.bytes = size;
+            contents.users = readUsers(section(in, USERS));
+            ByteBuffer questions = section(in, QUESTIONS);
+            byte[] encoded = new byte[questions.remaining()];
+            questions.get(encoded);
+            contents.questions = QuestionDelta.decode(encoded);
+            readResults(section(in, RESULTS), contents, format == FORMAT_VERSION);
+            if (format != FORMAT_WITHOUT_QUIZZES) contents.quizzes = readQuizzes(section(in, QUIZZES));
+
+            ByteBuffer end = section(in, END);
+            contents.createdAt = end.getLong();
+            if (end.getInt() != contents.users.length || end.getInt() != contents.questions.size()
+                    || end.getLong() != contents.questions.toVersion()
+                    || end.getInt() != contents.results.size() || end.getInt() != contents.results.answerCount()
+                    || (format != FORMAT_WITHOUT_QUIZZES && end.getInt() != contents.quizzes.length)) {
+                throw new IOException("Backup sections do not match its summary: " + file);
+            }
+            if (in.hasRemaining()) throw new IOException("Unexpected data after the end of the backup: " + file);
+            return contents;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                 | NegativeArraySizeException e) {
+            throw new IOException("Backup is truncated or damaged: " + file, e);
+        }
+    }
+
+    /**
+     * Reads the next section, checks its tag and checksum and returns its payload.
+     */
+    private static ByteBuffer section(ByteBuffer in, byte tag) throws IOException {
+        byte found = in.get();
+        if (found != tag) throw new IOException("Expected backup section " + (char) tag + " but found " + (char) found);
+        long length = in.getLong();
+        if (length < 0 || length > in.remaining() - 4) throw new IOException("Backup section " + (char) tag + " is truncated");
+        ByteBuffer payload = in.slice(in.position(), (int) length);
+        in.position(in.position() + (int) length);
+        int expected = in.getInt();
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != expected) throw new IOException("Backup section " + (char) tag + " is damaged");
+        return payload;
+    }
+
+    private static User[] readUsers(ByteBuffer in) {
+        Role[] roles = Role.values();
+        User[] users = new User[in.getInt()];
+        for (int i = 0; i < users.length; i++) {
+            Role role = roles[in.get()];
+            users[i] = new User(role, getString(in), getString(in));
+        }
+        return users;
+    }
+
+    private static void readResults(ByteBuffer in, Contents contents, boolean withScores) {
+        String[] names = new String[in.getInt()];
+        for (int i = 0; i < names.length; i++) names[i] = getString(in);
+        int rows = in.getInt();
+        int answers = in.getInt();
+        int[] userId = getInts(in, rows);
+        int[] quizId = getInts(in, rows);
+        byte[] role = new byte[rows];
+        in.get(role);
+        int[] correct = getInts(in, rows);
+        int[] total = getInts(in, rows);
+        double[] score = new double[rows];
+        if (withScores) {
+            in.asDoubleBuffer().get(score);
+            in.position(in.position() + 8 * rows);
+        } else {
+            for (int i = 0; i < rows; i++) score[i] = correct[i];
+        }
+        long[] finishedAt = getLongs(in, rows);
+        int[] answerResult = getInts(in, answers);
+        long[] answerQuestion = getLongs(in, answers);
+        int[] answerChoice = getInts(in, answers);
+        boolean[] answerCorrect = new boolean[answers];
+        for (int i = 0; i < answers; i++) answerCorrect[i] = in.get() != 0;
+        contents.names = names;
+        contents.results = new ResultTable(userId, quizId, role, correct, total, score, finishedAt, rows,
+                answerResult, answerQuestion, answerChoice, answerCorrect, answers);
+    }
+
+    private static SavedQuiz[] readQuizzes(ByteBuffer in) throws IOException {
+        SavedQuiz[] quizzes = new SavedQuiz[in.getInt()];
+        for (int i = 0; i < quizzes.length; i++) {
+            int id = in.getInt();
+            String name = getString(in);
+            byte[] encoded = new byte[in.getInt()];
+            in.get(encoded);
+            quizzes[i] = new SavedQuiz(id, name, QuestionDelta.decode(encoded));
+        }
+        return quizzes;
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int[] getInts(ByteBuffer in, int n) {
+        int[] values = new int[n];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + 4 * n);
+        return values;
+    }
+
+    private static long[] getLongs(ByteBuffer in, int n) {
+        long[] values = new long[n];
+        in.asLongBuffer().get(values);
+        in.position(in.position() + 8 * n);
+        return values;
+    }
+
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    // ---- writing ----
+
+    /**
+     * Buffered writer of sections. The length of a section is patched in once
+     * its payload is written, so large columns are streamed instead of being
+     * assembled in memory first.
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final CRC32C crc = new CRC32C();
+        private boolean inSection;
+        private long lengthPosition;
+        private long payloadStart;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void begin(byte tag) throws IOException {
+            flush();
+            lengthPosition = channel.position() + 1;
+            buffer.put(tag).putLong(0);
+            flush();
+            payloadStart = channel.position();
+            crc.reset();
+            inSection = true;
+        }
+
+        void end() throws IOException {
+            flush();
+            inSection = false;
+            long length = channel.position() - payloadStart;
+            buffer.putInt((int) crc.getValue());
+            flush();
+            ByteBuffer patch = ByteBuffer.allocate(8).putLong(0, length);
+            while (patch.hasRemaining()) channel.write(patch, lengthPosition + patch.position());
+        }
+
+        void put(byte b) throws IOException {
+            ensure(1);
+            buffer.put(b);
+        }
+
+        void putInt(int v) throws IOException {
+            ensure(4);
+            buffer.putInt(v);
+        }
+
+        void putLong(long v) throws IOException {
+            ensure(8);
+            buffer.putLong(v);
+        }
+
+        void putString(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            putBytes(bytes);
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            putBytes(bytes, bytes.length);
+        }
+
+        void putBytes(byte[] bytes, int n) throws IOException {
+            for (int i = 0; i < n; ) {
+                if (!buffer.hasRemaining()) flush();
+                int k = Math.min(n - i, buffer.remaining());
+                buffer.put(bytes, i, k);
+                i += k;
+            }
+        }
+
+        void putBooleans(boolean[] values, int n) throws IOException {
+            for (int i = 0; i < n; i++) put(values[i] ? (byte) 1 : 0);
+        }
+
+        void putInts(int[] values, int n) throws IOException {
+            for (int i = 0; i < n; ) {
+                if (buffer.remaining() < 4) flush();
+                int k = Math.min(n - i, buffer.remaining() / 4);
+                buffer.asIntBuffer().put(values, i, k);
+                buffer.position(buffer.position() + 4 * k);
+                i += k;
+            }
+        }
+
+        void putLongs(long[] values, int n) throws IOException {
+            for (int i = 0; i < n; ) {
+                if (buffer.remaining() < 8) flush();
+                int k = Math.min(n - i, buffer.remaining() / 8);
+                buffer.asLongBuffer().put(values, i, k);
+                buffer.position(buffer.position() + 8 * k);
+                i += k;
+            }
+        }
+
+        void putDoubles(double[] values, int n) throws IOException {
+            for (int i = 0; i < n; ) {
+                if (buffer.remaining() < 8) flush();
+                int k = Math.min(n - i, buffer.remaining() / 8);
+                buffer.asDoubleBuffer().put(values, i, k);
+                buffer.position(buffer.position() + 8 * k);
+                i += k;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) flush();
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            if (inSection) crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+    }
+}
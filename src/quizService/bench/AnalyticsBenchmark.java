@@ -0,0 +1,50 @@
+package quizService.bench;
+
+import quizService.analytics.ItemStatistics;
+import quizService.analytics.ResultAnalytics;
+import quizService.analytics.ResultTable;
+import quizService.analytics.WeeklyScore;
+
+/**
+ * Benchmark of {@link ResultAnalytics} over a synthetic result history.
+ * <p>
+ * Generates {@code results} graded quizzes spread over a year with
+ * {@code answersPerResult} answered questions each, then times every report
+ * a few times. Run with a heap big enough for the columns, e.g.
+ * {@code java -Xmx4g quizService.bench.AnalyticsBenchmark 10000000 4}.
+ * </p>
+ */
+public class AnalyticsBenchmark {
+    private static final int ROUNDS = 5;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args optional: amount of results (default 10 000 000)
+     *             and answers per result (default 4)
+     */
+    public static void main(String[] args) {
+        int results = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int answersPerResult = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int questions = 2_000;
+
+        long start = System.nanoTime();
+        ResultTable table = SyntheticResults.generate(results, answersPerResult, questions);
+        System.out.printf("generated %,d results / %,d answers in %d ms%n",
+                results, table.answerCount(), (System.nanoTime() - start) / 1_000_000);
+
+        ResultAnalytics analytics = new ResultAnalytics();
+        for (int round = 1; round <= ROUNDS; round++) {
+            long t0 = System.nanoTime();
+            WeeklyScore[] weeks = analytics.averageScoreByWeek(table);
+            long t1 = System.nanoTime();
+            long[][] distribution = analytics.scoreDistributionByRole(table, 10);
+            long t2 = System.nanoTime();
+            ItemStatistics[] items = analytics.questionStatistics(table);
+            long t3 = System.nanoTime();
+            System.out.printf("round %d: weekly %d ms (%d weeks), distribution %d ms (%d roles), items %d ms (%d questions)%n",
+                    round, (t1 - t0) / 1_000_000, weeks.length, (t2 - t1) / 1_000_000, distribution.length,
+                    (t3 - t2) / 1_000_000, items.length);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package quizService.bench;
+
+import quizService.analytics.ResultTable;
+import quizService.archive.ResultArchiveReader;
+import quizService.archive.ResultArchiveWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Benchmark of the columnar result archive.
+ * <p>
+ * Writes a synthetic history to a temporary archive, reports its size
+ * against the plain binary size, then times a scan that reads two columns
+ * and a full load into a {@link ResultTable}. Run with e.g.
+ * {@code java -Xmx4g quizService.bench.ArchiveBenchmark 5000000 10}.
+ * </p>
+ */
+public class ArchiveBenchmark {
+    /**
+     * Runs the benchmark.
+     *
+     * @param args optional: amount of results (default 2 000 000)
+     *             and answers per result (default 10)
+     * @throws IOException if the temporary archive cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int results = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int answersPerResult = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        ResultTable table = SyntheticResults.generate(results, answersPerResult, 2_000);
+
+        Path file = Files.createTempFile("results", ".qzra");
+        try {
+            long start = System.nanoTime();
+            long raw;
+            try (ResultArchiveWriter writer = new ResultArchiveWriter(file)) {
+                long[] ids = new long[answersPerResult];
+                int[] choices = new int[answersPerResult];
+                boolean[] correct = new boolean[answersPerResult];
+                for (int r = 0; r < table.size(); r++) {
+                    int from = r * answersPerResult;
+                    System.arraycopy(table.answerQuestion(), from, ids, 0, answersPerResult);
+                    System.arraycopy(table.answerChoice(), from, choices, 0, answersPerResult);
+                    System.arraycopy(table.answerCorrect(), from, correct, 0, answersPerResult);
+                    writer.append(table.userId()[r], table.role()[r], table.quizId()[r], table.correct()[r],
+                            table.total()[r], table.score()[r], table.finishedAt()[r], ids, choices, correct, answersPerResult);
+                }
+                raw = writer.rawBytes();
+            }
+            long size = Files.size(file);
+            System.out.printf("wrote %,d results in %d ms: %,d bytes vs %,d raw (%.1f%%)%n",
+                    results, (System.nanoTime() - start) / 1_000_000, size, raw, 100.0 * size / raw);
+
+            try (ResultArchiveReader reader = new ResultArchiveReader(file)) {
+                for (int round = 1; round <= 3; round++) {
+                    long t0 = System.nanoTime();
+                    double average = reader.averageScorePercent();
+                    long t1 = System.nanoTime();
+                    ResultTable loaded = reader.toTable();
+                    long t2 = System.nanoTime();
+                    System.out.printf("round %d: average %.2f%% in %d ms (2 columns), full load of %,d answers in %d ms%n",
+                            round, average, (t1 - t0) / 1_000_000, loaded.answerCount(), (t2 - t1) / 1_000_000);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
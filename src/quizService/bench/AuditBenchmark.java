@@ -0,0 +1,85 @@
+package quizService.bench;
+
+import quizService.audit.AuditEventType;
+import quizService.audit.AuditLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Measures what {@link AuditLog#publish} costs the calling thread.
+ * <p>
+ * Several threads publish events into a log in a temporary directory, in bursts
+ * that fit into the ring, and wait for the writer between bursts. This is the
+ * situation the log is built for: the reported time per publish is what an
+ * audited operation pays when the writer keeps up. A second phase publishes
+ * without pauses and reports the sustained rate the writer can absorb.
+ * Run with e.g. {@code java quizService.bench.AuditBenchmark 4 2000000}.
+ * </p>
+ */
+public class AuditBenchmark {
+    /**
+     * Runs the benchmark.
+     *
+     * @param args optional: producer threads (default 4) and events per thread (default 2 000 000)
+     * @throws Exception if the temporary directory cannot be used or a thread is interrupted
+     */
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int events = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        Path dir = Files.createTempDirectory("audit");
+        AuditLog log = new AuditLog(dir.resolve("audit.log"), 1 << 16, 64L * 1024 * 1024);
+
+        int burst = 4096;
+        AtomicLong published = new AtomicLong();
+        long[] nanos = new long[threads];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            String user = "student" + t;
+            workers[t] = new Thread(() -> {
+                for (int done = 0; done < events; done += burst) {
+                    long start = System.nanoTime();
+                    for (int i = 0; i < burst; i++) {
+                        log.publish(AuditEventType.LOGIN, user, true);
+                    }
+                    nanos[id] += System.nanoTime() - start;
+                    long target = published.addAndGet(burst);
+                    while (log.written() < target) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+        for (Thread w : workers) w.start();
+        for (Thread w : workers) w.join();
+        long total = 0;
+        for (long n : nanos) total += n;
+        long bursts = (long) threads * ((events + burst - 1) / burst) * burst;
+        System.out.printf("bursts: %d threads x %,d events: %.1f ns per publish, %d producer waits%n",
+                threads, events, (double) total / bursts, log.producerWaits());
+
+        long sustainedStart = System.nanoTime();
+        long before = log.written();
+        for (int i = 0; i < events; i++) {
+            log.publish(AuditEventType.QUIZ_SUBMITTED, "student", true, 7, 10);
+        }
+        while (log.written() < before + events) Thread.yield();
+        System.out.printf("sustained: %,.0f events/s written%n",
+                events / ((System.nanoTime() - sustainedStart) / 1e9));
+
+        long start = System.nanoTime();
+        log.close();
+        System.out.printf("drained %,d events in %d ms after producers finished%n",
+                log.written(), (System.nanoTime() - start) / 1_000_000);
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path f : (Iterable<Path>) files::iterator) Files.delete(f);
+        } catch (IOException e) {
+            System.out.println("Could not clean up " + dir + ": " + e.getMessage());
+        }
+        Files.deleteIfExists(dir);
+    }
+}
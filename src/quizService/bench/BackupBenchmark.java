@@ -0,0 +1,145 @@
+package quizService.bench;
+
+import quizService.backup.BackupInfo;
+import quizService.backup.BackupService;
+import quizService.model.Answer;
+import quizService.model.Question;
+import quizService.model.QuizResult;
+import quizService.model.Role;
+import quizService.model.User;
+import quizService.repository.QuestionRepository;
+import quizService.repository.ResultRepository;
+import quizService.repository.UserRepository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmark of online backups under write load.
+ * <p>
+ * Fills separate repositories with users, questions and results, then lets
+ * writer threads register students, edit questions and store graded quizzes
+ * without pause. The slowest write is measured once without and once during a
+ * backup, next to the time the backup held the repository locks. Finally the
+ * backup is verified and restored into empty repositories.
+ * </p>
+ */
+public class BackupBenchmark {
+    private static final int BATCH = 4096;
+    private static final int QUESTIONS = 2_000;
+    private static final int RESULT_USERS = 100_000;
+    private static final int ANSWERS_PER_RESULT = 20;
+    private static final long BASELINE_MILLIS = 1_000;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args optional: users (default 200 000), results (default 500 000), writer threads (default 4)
+     * @throws Exception if the backup cannot be written or read
+     */
+    public static void main(String[] args) throws Exception {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int results = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+        int writers = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        UserRepository userRepo = UserRepository.open(null);
+        QuestionRepository bank = QuestionRepository.newBank();
+        ResultRepository resultRepo = ResultRepository.newRepository();
+        fill(userRepo, bank, resultRepo, users, results);
+        BackupService backups = new BackupService(userRepo, bank, resultRepo);
+        Path file = Files.createTempFile("quiz-backup", ".bin");
+
+        try {
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicLong maxNanos = new AtomicLong();
+            AtomicLong operations = new AtomicLong();
+            Thread[] threads = new Thread[writers];
+            for (int t = 0; t < writers; t++) {
+                int id = t;
+                threads[t] = new Thread(() -> write(id, userRepo, bank, resultRepo, running, maxNanos, operations),
+                        "backup-bench-writer-" + t);
+                threads[t].start();
+            }
+
+            Thread.sleep(BASELINE_MILLIS);
+            System.out.printf("without backup: %,d writes, slowest %.2f ms%n",
+                    operations.getAndSet(0), maxNanos.getAndSet(0) / 1e6);
+
+            BackupInfo written = backups.backup(file);
+            System.out.printf("during backup:  %,d writes, slowest %.2f ms%n",
+                    operations.get(), maxNanos.get() / 1e6);
+            running.set(false);
+            for (Thread thread : threads) thread.join();
+            System.out.println("backup   " + written);
+
+            BackupInfo verified = backups.verify(file);
+            System.out.println("verify   " + verified);
+
+            UserRepository restoredUsers = UserRepository.open(null);
+            QuestionRepository restoredBank = QuestionRepository.newBank();
+            ResultRepository restoredResults = ResultRepository.newRepository();
+            BackupInfo restored = new BackupService(restoredUsers, restoredBank, restoredResults).restore(file);
+            System.out.println("restore  " + restored);
+            System.out.println("restored copy matches: " + (restored != null
+                    && restoredUsers.getAll().length == written.users()
+                    && restoredBank.size() == written.questions()
+                    && restoredBank.version() == written.bankVersion()
+                    && restoredResults.size() == written.results()
+                    && restoredResults.view().answerCount() == written.answers()));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void fill(UserRepository userRepo, QuestionRepository bank, ResultRepository resultRepo,
+                             int users, int results) {
+        User[] batch = new User[BATCH];
+        for (int from = 0; from < users; from += BATCH) {
+            int n = Math.min(BATCH, users - from);
+            for (int i = 0; i < n; i++) batch[i] = new User(Role.STUDENT, "student" + (from + i), "password" + i);
+            userRepo.addAll(batch, n);
+        }
+        for (int i = 0; i < QUESTIONS; i++) bank.add(question("Question " + i));
+        String[] names = new String[RESULT_USERS];
+        for (int i = 0; i < names.length; i++) names[i] = "student" + i;
+        resultRepo.restore(SyntheticResults.generate(results, ANSWERS_PER_RESULT, QUESTIONS), names);
+    }
+
+    /**
+     * Registers students, edits questions and stores results until stopped,
+     * recording the slowest single write.
+     */
+    private static void write(int id, UserRepository userRepo, QuestionRepository bank, ResultRepository resultRepo,
+                              AtomicBoolean running, AtomicLong maxNanos, AtomicLong operations) {
+        long[] ids = new long[ANSWERS_PER_RESULT];
+        int[] choices = new int[ANSWERS_PER_RESULT];
+        boolean[] flags = new boolean[ANSWERS_PER_RESULT];
+        for (int i = 0; i < ANSWERS_PER_RESULT; i++) {
+            ids[i] = i + 1;
+            choices[i] = 1 + i % 4;
+            flags[i] = choices[i] == 1;
+        }
+        for (long op = 0; running.get(); op++) {
+            long start = System.nanoTime();
+            if (op % 3 == 0) {
+                userRepo.add(new User(Role.STUDENT, "writer" + id + "-" + op, "password"));
+            } else if (op % 50 == 1) {
+                bank.update((int) (op % QUESTIONS), question("Edited question " + op));
+            } else {
+                User user = new User(Role.STUDENT, "student" + (op % RESULT_USERS), "password");
+                resultRepo.add(new QuizResult(user, ANSWERS_PER_RESULT / 4, ANSWERS_PER_RESULT),
+                        ids, choices, flags, ANSWERS_PER_RESULT);
+            }
+            maxNanos.accumulateAndGet(System.nanoTime() - start, Math::max);
+            operations.incrementAndGet();
+        }
+    }
+
+    private static Question question(String text) {
+        Question q = new Question(text, new Answer[4]);
+        for (int a = 0; a < 4; a++) q.addAnswer(new Answer("Answer " + a, a == 0));
+        return q;
+    }
+}
@@ -0,0 +1,49 @@
+package quizService.bench;
+
+import quizService.analytics.CollusionDetector;
+import quizService.analytics.ResultTable;
+import quizService.analytics.SuspiciousPair;
+
+/**
+ * Benchmark of {@link CollusionDetector} over a synthetic exam.
+ * <p>
+ * Generates one exam with planted pairs of copied submissions, then times the
+ * detection a few times and reports how many planted pairs were found and how
+ * many other pairs were flagged. Run with e.g.
+ * {@code java -Xmx2g quizService.bench.CollusionBenchmark 50000 40 100}.
+ * </p>
+ */
+public class CollusionBenchmark {
+    private static final int ROUNDS = 3;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args optional: amount of submissions (default 50 000), questions
+     *             of the exam (default 40) and planted pairs (default 100)
+     */
+    public static void main(String[] args) {
+        int submissions = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int questions = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        int planted = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+        ResultTable table = SyntheticResults.generateExam(submissions, questions, planted);
+        System.out.printf("generated %,d submissions of %d questions with %d copied pairs%n",
+                submissions, questions, planted);
+
+        CollusionDetector detector = new CollusionDetector();
+        for (int round = 1; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            SuspiciousPair[] pairs = detector.detect(table);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            int found = 0;
+            for (SuspiciousPair pair : pairs) {
+                if (pair.resultA() / 2 == pair.resultB() / 2 && pair.resultA() / 2 < planted) found++;
+            }
+            System.out.printf("round %d: %d ms, %,d pairs flagged, %d of %d planted pairs found, %,d others%n",
+                    round, millis, pairs.length, found, planted, pairs.length - found);
+        }
+        long comparisons = (long) submissions * (submissions - 1) / 2;
+        System.out.printf("an exhaustive comparison would check %,d pairs%n", comparisons);
+    }
+}
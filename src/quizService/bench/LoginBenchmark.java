@@ -0,0 +1,107 @@
+package quizService.bench;
+
+import quizService.model.Role;
+import quizService.model.User;
+import quizService.service.CredentialService;
+import quizService.util.PasswordHasher;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Benchmark of password hashing and logins on the bounded credential pool.
+ * <p>
+ * Hashes the passwords of a set of students, then runs a login storm in which
+ * every student logs in once (each a full PBKDF2 check), a second storm of
+ * repeated logins answered by the verification cache, and a burst of wrong
+ * passwords far larger than the pool's queue, which is partly turned away.
+ * Rates are reported per core. The iteration count comes from
+ * {@value PasswordHasher#ITERATIONS_PROPERTY}, e.g.
+ * {@code java -DquizService.passwordIterations=600000 quizService.bench.LoginBenchmark 50}.
+ * Passwords whose hash is not ready within {@value CredentialService#WAIT_MILLIS} ms
+ * are skipped, so with many students only part of them may take part.
+ * </p>
+ */
+public class LoginBenchmark {
+    private static final int REPEATED_LOGINS = 20;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args optional: students (default 50)
+     */
+    public static void main(String[] args) {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int cores = Runtime.getRuntime().availableProcessors();
+        PasswordHasher hasher = PasswordHasher.getInstance();
+        System.out.printf("PBKDF2-HMAC-SHA256, %,d iterations, %d cores%n", hasher.iterations(), cores);
+
+        try (CredentialService credentials = new CredentialService(hasher, cores, CredentialService.CACHE_TTL_MILLIS)) {
+            User[] users = new User[students];
+            long start = System.nanoTime();
+            runConcurrently(students, i -> {
+                String hash = credentials.hash(password(i));
+                if (hash != null) users[i] = new User(Role.STUDENT, "student" + i, hash);
+            });
+            int hashed = 0;
+            for (User user : users) if (user != null) hashed++;
+            print("hash", hashed, start, cores);
+
+            LongAdder refused = new LongAdder();
+            start = System.nanoTime();
+            runConcurrently(students, i -> {
+                if (users[i] != null && !credentials.verify(users[i], password(i))) refused.increment();
+            });
+            print("first login", hashed, start, cores);
+
+            start = System.nanoTime();
+            runConcurrently(students * REPEATED_LOGINS, k -> {
+                int i = k % students;
+                if (users[i] != null && !credentials.verify(users[i], password(i))) refused.increment();
+            });
+            print("repeated login", hashed * REPEATED_LOGINS, start, cores);
+
+            LongAdder accepted = new LongAdder();
+            int burst = cores * CredentialService.QUEUE_PER_CORE * 4;
+            long rejectedBefore = credentials.rejected();
+            start = System.nanoTime();
+            runConcurrently(burst, k -> {
+                int i = k % students;
+                if (users[i] != null && credentials.verify(users[i], password(i) + "-wrong")) accepted.increment();
+            });
+            System.out.printf("%-15s %,d wrong passwords in %,d ms, %,d turned away by the queue limit%n",
+                    "burst", burst, millisSince(start), credentials.rejected() - rejectedBefore);
+
+            System.out.printf("valid logins refused: %,d, wrong passwords accepted: %,d%n", refused.sum(), accepted.sum());
+            System.out.println(credentials.report());
+        }
+    }
+
+    private interface Task {
+        void run(int i);
+    }
+
+    private static void runConcurrently(int n, Task task) {
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < n; i++) {
+                int k = i;
+                clients.submit(() -> task.run(k));
+            }
+        }
+    }
+
+    private static String password(int student) {
+        return "correct horse " + student;
+    }
+
+    private static void print(String name, int operations, long start, int cores) {
+        long millis = Math.max(1, millisSince(start));
+        System.out.printf("%-15s %,d in %,d ms: %,.1f per second per core%n",
+                name, operations, millis, operations * 1000.0 / millis / cores);
+    }
+
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,90 @@
+package quizService.bench;
+
+import quizService.jdbc.JdbcStorage;
+import quizService.model.Answer;
+import quizService.model.Question;
+import quizService.model.Role;
+import quizService.model.User;
+import quizService.repository.QuestionRepository;
+import quizService.repository.UserRepository;
+
+import java.sql.SQLException;
+
+/**
+ * Benchmark of the repositories in memory and on a JDBC database.
+ * <p>
+ * Runs the same workload on both backends: bulk user inserts in batches,
+ * single registrations, username lookups, question adds and updates, and for
+ * the database a fresh load of everything through paged reads. The JDBC
+ * driver has to be on the class path, e.g.
+ * {@code java -cp out:h2.jar quizService.bench.StorageBenchmark jdbc:h2:mem:bench 100000 2000}.
+ * </p>
+ */
+public class StorageBenchmark {
+    private static final int BATCH = 4096;
+    private static final int SINGLE_USERS = 2_000;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args JDBC URL, then optional: users (default 100 000) and questions (default 2 000)
+     * @throws SQLException if the database cannot be opened
+     */
+    public static void main(String[] args) throws SQLException {
+        if (args.length == 0) {
+            System.out.println("usage: StorageBenchmark <jdbc-url> [users] [questions]");
+            return;
+        }
+        int users = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int questions = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+
+        run("memory", UserRepository.open(null), QuestionRepository.newBank(), users, questions);
+        try (JdbcStorage storage = new JdbcStorage(args[0], null, null, JdbcStorage.DEFAULT_POOL_SIZE)) {
+            run("jdbc", UserRepository.open(storage.users()), QuestionRepository.open(storage.questions()),
+                    users, questions);
+
+            long start = System.nanoTime();
+            UserRepository reloadedUsers = UserRepository.open(storage.users());
+            QuestionRepository reloadedBank = QuestionRepository.open(storage.questions());
+            System.out.printf("jdbc    reload %,d users and %,d questions: %,d ms%n",
+                    reloadedUsers.getAll().length, reloadedBank.size(), millisSince(start));
+        }
+    }
+
+    private static void run(String name, UserRepository userRepo, QuestionRepository bank, int users, int questions) {
+        User[] batch = new User[BATCH];
+        long start = System.nanoTime();
+        int added = 0;
+        for (int from = 0; from < users; from += BATCH) {
+            int n = Math.min(BATCH, users - from);
+            for (int i = 0; i < n; i++) batch[i] = new User(Role.STUDENT, "student" + (from + i), "password" + i);
+            for (boolean ok : userRepo.addAll(batch, n)) if (ok) added++;
+        }
+        System.out.printf("%-7s bulk insert %,d users: %,d ms%n", name, added, millisSince(start));
+
+        start = System.nanoTime();
+        for (int i = 0; i < SINGLE_USERS; i++) userRepo.add(new User(Role.STUDENT, "single" + i, "password" + i));
+        System.out.printf("%-7s single insert %,d users: %,d ms%n", name, SINGLE_USERS, millisSince(start));
+
+        start = System.nanoTime();
+        int found = 0;
+        for (int i = 0; i < users; i += 97) if (userRepo.findByUsername("student" + i) != null) found++;
+        System.out.printf("%-7s %,d lookups: %,d ms%n", name, found, millisSince(start));
+
+        start = System.nanoTime();
+        for (int i = 0; i < questions; i++) bank.add(question("Question " + i, 4));
+        for (int i = 0; i < questions; i += 2) bank.update(i, question("Edited question " + i, 3));
+        System.out.printf("%-7s %,d question adds and %,d updates: %,d ms%n",
+                name, questions, (questions + 1) / 2, millisSince(start));
+    }
+
+    private static Question question(String text, int answers) {
+        Question q = new Question(text, new Answer[answers]);
+        for (int a = 0; a < answers; a++) q.addAnswer(new Answer("Answer " + a, a == 0));
+        return q;
+    }
+
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,121 @@
+package quizService.bench;
+
+import quizService.analytics.ResultTable;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generator of synthetic result histories for the benchmarks.
+ */
+final class SyntheticResults {
+    private SyntheticResults() {}
+
+    /**
+     * Builds a table of results spread over one year, graded in time order,
+     * where stronger students answer more questions correctly.
+     *
+     * @param results          amount of graded quizzes
+     * @param answersPerResult answered questions per quiz
+     * @param questions        amount of distinct questions (ids 1..questions)
+     * @return generated table
+     */
+    static ResultTable generate(int results, int answersPerResult, int questions) {
+        SplittableRandom random = new SplittableRandom(42);
+        long yearStart = 1_700_000_000_000L;
+        long step = 365L * 86_400_000L / Math.max(1, results);
+        int answers = results * answersPerResult;
+
+        int[] userId = new int[results];
+        int[] quizId = new int[results];
+        byte[] role = new byte[results];
+        int[] correct = new int[results];
+        int[] total = new int[results];
+        double[] score = new double[results];
+        long[] finishedAt = new long[results];
+        int[] answerResult = new int[answers];
+        long[] answerQuestion = new long[answers];
+        int[] answerChoice = new int[answers];
+        boolean[] answerCorrect = new boolean[answers];
+
+        int a = 0;
+        for (int r = 0; r < results; r++) {
+            userId[r] = random.nextInt(100_000);
+            quizId[r] = random.nextInt(20);
+            role[r] = (byte) (random.nextInt(20) == 0 ? 0 : 1);
+            finishedAt[r] = yearStart + r * step + random.nextLong(Math.max(1, step));
+            double skill = random.nextDouble();
+            int right = 0;
+            for (int k = 0; k < answersPerResult; k++, a++) {
+                answerResult[a] = r;
+                answerQuestion[a] = 1 + random.nextInt(questions);
+                answerCorrect[a] = random.nextDouble() < skill;
+                answerChoice[a] = answerCorrect[a] ? 1 : 2 + random.nextInt(3);
+                if (answerCorrect[a]) right++;
+            }
+            correct[r] = right;
+            total[r] = answersPerResult;
+            score[r] = right;
+        }
+        return new ResultTable(userId, quizId, role, correct, total, score, finishedAt, results,
+                answerResult, answerQuestion, answerChoice, answerCorrect, answers);
+    }
+
+    /**
+     * Builds the results of one exam in which every student answers the same
+     * questions. Each question has a popular wrong choice that weak students
+     * tend to pick, so honest students share some wrong answers too. The
+     * submissions {@code 2p} and {@code 2p + 1} for {@code p < colludingPairs}
+     * are copied: the second one takes most answers from the first.
+     *
+     * @param submissions    amount of graded submissions
+     * @param questions      questions of the exam (ids 1..questions)
+     * @param colludingPairs amount of planted pairs of copied submissions
+     * @return generated table
+     */
+    static ResultTable generateExam(int submissions, int questions, int colludingPairs) {
+        SplittableRandom random = new SplittableRandom(7);
+        long examEnd = 1_700_000_000_000L;
+        int answers = submissions * questions;
+
+        int[] userId = new int[submissions];
+        int[] quizId = new int[submissions];
+        byte[] role = new byte[submissions];
+        int[] correct = new int[submissions];
+        int[] total = new int[submissions];
+        double[] score = new double[submissions];
+        long[] finishedAt = new long[submissions];
+        int[] answerResult = new int[answers];
+        long[] answerQuestion = new long[answers];
+        int[] answerChoice = new int[answers];
+        boolean[] answerCorrect = new boolean[answers];
+
+        int a = 0;
+        for (int r = 0; r < submissions; r++) {
+            userId[r] = r;
+            role[r] = 1;
+            finishedAt[r] = examEnd + random.nextLong(600_000);
+            boolean copies = r % 2 == 1 && r / 2 < colludingPairs;
+            double skill = 0.2 + 0.75 * random.nextDouble();
+            int right = 0;
+            for (int q = 0; q < questions; q++, a++) {
+                answerResult[a] = r;
+                answerQuestion[a] = q + 1;
+                if (copies && random.nextDouble() < 0.9) {
+                    answerChoice[a] = answerChoice[a - questions];
+                } else if (random.nextDouble() < skill) {
+                    answerChoice[a] = 1;
+                } else {
+                    // choice 2 is the popular distractor, 3 and 4 are picked less often
+                    answerChoice[a] = random.nextDouble() < 0.5 ? 2 : 3 + random.nextInt(2);
+                }
+                answerCorrect[a] = answerChoice[a] == 1;
+                if (answerCorrect[a]) right++;
+            }
+            correct[r] = right;
+            total[r] = questions;
+            score[r] = right;
+        }
+        return new ResultTable(userId, quizId, role, correct, total, score, finishedAt, submissions,
+                answerResult, answerQuestion, answerChoice, answerCorrect, answers);
+    }
+}
@@ -0,0 +1,140 @@
+package quizService.bench;
+
+import quizService.model.Answer;
+import quizService.model.Question;
+import quizService.util.TextDictionary;
+
+import java.util.Random;
+
+/**
+ * Benchmark of the heap saved by sharing question and answer texts.
+ * <p>
+ * Builds a large bank the way an import reads it, with a new string for every
+ * text, once as is and once through a {@link TextDictionary}, and compares the
+ * heap each bank retains after garbage collection; the dictionary's own entries
+ * count against the second bank. The bank mixes true/false questions, numeric
+ * options, options from a shared vocabulary with "None of the above" and
+ * "All of the above", and unique option sentences; a fifth of the questions
+ * use a common stem, the rest have unique, mostly long texts. Run with a fixed
+ * heap for stable numbers, e.g.
+ * {@code java -Xms2g -Xmx2g quizService.bench.TextDictionaryBenchmark 200000}.
+ * </p>
+ */
+public class TextDictionaryBenchmark {
+    private static final int OPTIONS = 4;
+    private static final int VOCABULARY = 5_000;
+    private static final String[] STEMS = {
+            "Which of the following is true?",
+            "Which of the following is not correct?",
+            "Select the best answer.",
+            "What is the result of the expression?",
+            "Which statement describes the term best?",
+            "Choose all that apply.",
+            "What is the output of the program?",
+            "Which option completes the sentence?"
+    };
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args optional: questions (default 200 000)
+     */
+    public static void main(String[] args) {
+        int questions = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        long base = usedHeap();
+        long start = System.nanoTime();
+        Question[] plain = build(questions, null);
+        long plainNanos = System.nanoTime() - start;
+        long plainBytes = usedHeap() - base;
+        System.out.printf("plain:    %,d questions, %,d KiB retained, built in %,d ms%n",
+                plain.length, plainBytes / 1024, plainNanos / 1_000_000);
+        plain = null;
+
+        base = usedHeap();
+        TextDictionary dictionary = new TextDictionary();
+        start = System.nanoTime();
+        Question[] shared = build(questions, dictionary);
+        long sharedNanos = System.nanoTime() - start;
+        long sharedBytes = usedHeap() - base;
+        System.out.printf("interned: %,d questions, %,d KiB retained, built in %,d ms, %,d distinct texts%n",
+                shared.length, sharedBytes / 1024, sharedNanos / 1_000_000, dictionary.size());
+
+        long saved = plainBytes - sharedBytes;
+        System.out.printf("saved %,d KiB (%.1f%%), %.0f bytes per question; interning cost %.0f ns per text%n",
+                saved / 1024, 100.0 * saved / Math.max(1, plainBytes), (double) saved / questions,
+                (double) (sharedNanos - plainNanos) / ((long) questions * (OPTIONS + 1)));
+        // keep the bank and the dictionary reachable until measured
+        if (shared.length != questions || dictionary.size() == 0) System.out.println("unexpected bank");
+    }
+
+    /**
+     * Builds a bank with a fresh string per text, shared through the dictionary if given.
+     */
+    private static Question[] build(int n, TextDictionary dictionary) {
+        Random random = new Random(42);
+        Question[] bank = new Question[n];
+        for (int i = 0; i < n; i++) {
+            String text = random.nextInt(5) == 0
+                    ? copy(STEMS[random.nextInt(STEMS.length)])
+                    : "Question " + i + ": explain what happens when the described situation number "
+                      + random.nextInt(1_000_000) + " occurs";
+            Answer[] answers = answers(i, random);
+            if (dictionary != null) {
+                text = dictionary.intern(text);
+                dictionary.internAll(answers);
+            }
+            Question q = new Question(text, new Answer[answers.length]);
+            for (Answer a : answers) q.addAnswer(a);
+            q.setId(i + 1);
+            bank[i] = q;
+        }
+        return bank;
+    }
+
+    private static Answer[] answers(int question, Random random) {
+        int kind = random.nextInt(20);
+        if (kind < 5) {
+            boolean truth = random.nextBoolean();
+            return new Answer[]{new Answer(copy("True"), truth), new Answer(copy("False"), !truth)};
+        }
+        int correct = random.nextInt(OPTIONS);
+        Answer[] answers = new Answer[OPTIONS];
+        for (int k = 0; k < OPTIONS; k++) {
+            String text;
+            if (kind < 9) {
+                text = Integer.toString(random.nextInt(1_000));
+            } else if (k == OPTIONS - 1 && kind < 15) {
+                text = copy(random.nextBoolean() ? "None of the above" : "All of the above");
+            } else if (kind < 15) {
+                // skewed towards the common terms of a subject
+                int term = (int) (VOCABULARY * Math.pow(random.nextDouble(), 2));
+                text = "Term " + term;
+            } else {
+                text = "Option " + (k + 1) + " of question " + question + ", a sentence of its own";
+            }
+            answers[k] = new Answer(text, k == correct);
+        }
+        return answers;
+    }
+
+    /**
+     * A new string equal to the given one, as an import would read it.
+     */
+    private static String copy(String s) {
+        return new String(s.toCharArray());
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,125 @@
+package quizService.jdbc;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small fixed-size pool of JDBC connections.
+ * <p>
+ * At most {@code size} connections are in use at once; callers beyond that
+ * wait up to {@value #BORROW_TIMEOUT_SECONDS} seconds. Connections are opened
+ * lazily and reused, and one that sat idle for a while is checked with
+ * {@link Connection#isValid(int)} before it is handed out again. A connection
+ * whose work failed is closed instead of being returned, so a broken
+ * transaction never leaks into the next caller.
+ * </p>
+ */
+final class ConnectionPool implements AutoCloseable {
+    private static final int BORROW_TIMEOUT_SECONDS = 30;
+    private static final long VALIDATE_AFTER_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    /**
+     * Work done with a borrowed connection.
+     *
+     * @param <T> result type
+     */
+    @FunctionalInterface
+    interface Work<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    /**
+     * An idle connection and when it was returned.
+     */
+    private record Idle(Connection connection, long since) {}
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final Semaphore permits;
+    private final BlockingQueue<Idle> idle;
+    private volatile boolean closed;
+
+    ConnectionPool(String url, String user, String password, int size) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.permits = new Semaphore(size);
+        this.idle = new ArrayBlockingQueue<>(size);
+    }
+
+    /**
+     * Runs work on a pooled connection in auto-commit mode.
+     * Work that needs a transaction turns auto-commit off itself;
+     * the pool rolls back and discards the connection if the work fails.
+     *
+     * @param work work to run
+     * @return result of the work
+     * @throws SQLException if no connection is available in time or the work fails
+     */
+    <T> T execute(Work<T> work) throws SQLException {
+        try {
+            if (!permits.tryAcquire(BORROW_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new SQLException("No database connection available within " + BORROW_TIMEOUT_SECONDS + " s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        Connection connection = null;
+        try {
+            connection = borrow();
+            T result = work.run(connection);
+            if (!connection.getAutoCommit()) connection.setAutoCommit(true);
+            if (!closed && idle.offer(new Idle(connection, System.nanoTime()))) connection = null;
+            return result;
+        } finally {
+            if (connection != null) discard(connection);
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes the idle connections; connections in use are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Idle i;
+        while ((i = idle.poll()) != null) quietlyClose(i.connection());
+    }
+
+    private Connection borrow() throws SQLException {
+        if (closed) throw new SQLException("Connection pool is closed");
+        Idle i;
+        while ((i = idle.poll()) != null) {
+            if (System.nanoTime() - i.since() < VALIDATE_AFTER_NANOS || i.connection().isValid(1)) {
+                return i.connection();
+            }
+            quietlyClose(i.connection());
+        }
+        return user == null ? DriverManager.getConnection(url) : DriverManager.getConnection(url, user, password);
+    }
+
+    private static void discard(Connection connection) {
+        try {
+            if (!connection.getAutoCommit()) connection.rollback();
+        } catch (SQLException ignored) {
+            // the connection is closed below anyway
+        }
+        quietlyClose(connection);
+    }
+
+    private static void quietlyClose(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // nothing left to release
+        }
+    }
+}
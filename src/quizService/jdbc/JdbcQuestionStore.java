@@ -0,0 +1,231 @@
+package quizService.jdbc;
+
+import quizService.model.Answer;
+import quizService.model.MediaRef;
+import quizService.model.Question;
+import quizService.uml.QuestionStore;
+import quizService.util.TextDictionary;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link QuestionStore} in the tables {@code quiz_questions}, {@code quiz_answers}
+ * and {@code quiz_media} of a JDBC database.
+ * <p>
+ * Every change of a question runs in one transaction, with its answers and
+ * media references sent as statement batches. A page is read with three
+ * queries: the questions by id, then the answers and media of the page's id range.
+ * </p>
+ */
+final class JdbcQuestionStore implements QuestionStore {
+    private static final String PAGE =
+            "SELECT id, question_text, difficulty FROM quiz_questions WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String PAGE_ANSWERS =
+            "SELECT question_id, answer_text, correct FROM quiz_answers "
+            + "WHERE question_id BETWEEN ? AND ? ORDER BY question_id, answer_no";
+    private static final String PAGE_MEDIA =
+            "SELECT question_id, hash, content_type, byte_size FROM quiz_media "
+            + "WHERE question_id BETWEEN ? AND ? ORDER BY question_id, media_no";
+    private static final String INSERT =
+            "INSERT INTO quiz_questions (id, question_text, difficulty) VALUES (?, ?, ?)";
+    private static final String UPDATE =
+            "UPDATE quiz_questions SET question_text = ?, difficulty = ? WHERE id = ?";
+    private static final String INSERT_ANSWER =
+            "INSERT INTO quiz_answers (question_id, answer_no, answer_text, correct) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_MEDIA =
+            "INSERT INTO quiz_media (question_id, media_no, hash, content_type, byte_size) VALUES (?, ?, ?, ?, ?)";
+    private static final String DELETE_ANSWERS = "DELETE FROM quiz_answers WHERE question_id = ?";
+    private static final String DELETE_MEDIA = "DELETE FROM quiz_media WHERE question_id = ?";
+    private static final String DELETE = "DELETE FROM quiz_questions WHERE id = ?";
+
+    private final ConnectionPool pool;
+    private final TextDictionary dictionary = TextDictionary.getInstance();
+
+    JdbcQuestionStore(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public Question[] page(long afterId, int limit) {
+        try {
+            return pool.execute(c -> {
+                List<Long> ids = new ArrayList<>();
+                List<String> texts = new ArrayList<>();
+                List<Double> difficulties = new ArrayList<>();
+                try (PreparedStatement st = c.prepareStatement(PAGE)) {
+                    st.setLong(1, afterId);
+                    st.setInt(2, limit);
+                    try (ResultSet rs = st.executeQuery()) {
+                        while (rs.next()) {
+                            ids.add(rs.getLong(1));
+                            texts.add(dictionary.intern(rs.getString(2)));
+                            difficulties.add(rs.getDouble(3));
+                        }
+                    }
+                }
+                if (ids.isEmpty()) return new Question[0];
+                long first = ids.get(0);
+                long last = ids.get(ids.size() - 1);
+
+                Map<Long, List<Answer>> answers = new HashMap<>();
+                try (PreparedStatement st = c.prepareStatement(PAGE_ANSWERS)) {
+                    st.setLong(1, first);
+                    st.setLong(2, last);
+                    try (ResultSet rs = st.executeQuery()) {
+                        while (rs.next()) {
+                            answers.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>())
+                                    .add(dictionary.intern(new Answer(rs.getString(2), rs.getBoolean(3))));
+                        }
+                    }
+                }
+                Map<Long, List<MediaRef>> media = new HashMap<>();
+                try (PreparedStatement st = c.prepareStatement(PAGE_MEDIA)) {
+                    st.setLong(1, first);
+                    st.setLong(2, last);
+                    try (ResultSet rs = st.executeQuery()) {
+                        while (rs.next()) {
+                            media.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>())
+                                    .add(new MediaRef(rs.getString(2), rs.getString(3), rs.getLong(4)));
+                        }
+                    }
+                }
+
+                Question[] page = new Question[ids.size()];
+                for (int i = 0; i < page.length; i++) {
+                    long id = ids.get(i);
+                    List<Answer> list = answers.getOrDefault(id, List.of());
+                    Question q = new Question(texts.get(i), new Answer[list.size()]);
+                    for (Answer a : list) q.addAnswer(a);
+                    q.setId(id);
+                    q.setDifficulty(difficulties.get(i));
+                    q.setMedia(media.getOrDefault(id, List.of()).toArray(new MediaRef[0]));
+                    page[i] = q;
+                }
+                return page;
+            });
+        } catch (SQLException | IllegalArgumentException e) {
+            // a malformed row, e.g. a media hash that is not SHA-256, counts as unreadable
+            System.out.println("Storage failed: cannot read questions: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public boolean insert(Question question) {
+        try {
+            return pool.execute(c -> {
+                c.setAutoCommit(false);
+                try (PreparedStatement st = c.prepareStatement(INSERT)) {
+                    st.setLong(1, question.getId());
+                    st.setString(2, question.getQuestion());
+                    st.setDouble(3, question.getDifficulty());
+                    st.executeUpdate();
+                }
+                insertParts(c, question);
+                c.commit();
+                return true;
+            });
+        } catch (SQLException e) {
+            System.out.println("Storage failed: cannot store question " + question.getId() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean replace(Question question) {
+        try {
+            return pool.execute(c -> {
+                c.setAutoCommit(false);
+                int updated;
+                try (PreparedStatement st = c.prepareStatement(UPDATE)) {
+                    st.setString(1, question.getQuestion());
+                    st.setDouble(2, question.getDifficulty());
+                    st.setLong(3, question.getId());
+                    updated = st.executeUpdate();
+                }
+                if (updated == 0) {
+                    c.rollback();
+                    return false;
+                }
+                deleteParts(c, question.getId());
+                insertParts(c, question);
+                c.commit();
+                return true;
+            });
+        } catch (SQLException e) {
+            System.out.println("Storage failed: cannot update question " + question.getId() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean delete(long id) {
+        try {
+            return pool.execute(c -> {
+                c.setAutoCommit(false);
+                deleteParts(c, id);
+                try (PreparedStatement st = c.prepareStatement(DELETE)) {
+                    st.setLong(1, id);
+                    st.executeUpdate();
+                }
+                c.commit();
+                return true;
+            });
+        } catch (SQLException e) {
+            System.out.println("Storage failed: cannot delete question " + id + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Sends the answers and media references of a question as two batches.
+     */
+    private static void insertParts(Connection c, Question question) throws SQLException {
+        Answer[] answers = question.getAnswers();
+        if (question.getAnswerCount() > 0) {
+            try (PreparedStatement st = c.prepareStatement(INSERT_ANSWER)) {
+                for (int i = 0; i < question.getAnswerCount(); i++) {
+                    if (answers[i] == null) continue;
+                    st.setLong(1, question.getId());
+                    st.setInt(2, i);
+                    st.setString(3, answers[i].text());
+                    st.setBoolean(4, answers[i].isCorrect());
+                    st.addBatch();
+                }
+                st.executeBatch();
+            }
+        }
+        MediaRef[] media = question.getMedia();
+        if (media.length > 0) {
+            try (PreparedStatement st = c.prepareStatement(INSERT_MEDIA)) {
+                for (int i = 0; i < media.length; i++) {
+                    st.setLong(1, question.getId());
+                    st.setInt(2, i);
+                    st.setString(3, media[i].hash());
+                    st.setString(4, media[i].contentType());
+                    st.setLong(5, media[i].size());
+                    st.addBatch();
+                }
+                st.executeBatch();
+            }
+        }
+    }
+
+    private static void deleteParts(Connection c, long id) throws SQLException {
+        try (PreparedStatement st = c.prepareStatement(DELETE_ANSWERS)) {
+            st.setLong(1, id);
+            st.executeUpdate();
+        }
+        try (PreparedStatement st = c.prepareStatement(DELETE_MEDIA)) {
+            st.setLong(1, id);
+            st.executeUpdate();
+        }
+    }
+}
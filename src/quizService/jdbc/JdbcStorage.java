@@ -0,0 +1,170 @@
+package quizService.jdbc;
+
+import quizService.uml.QuestionStore;
+import quizService.uml.UserStore;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Users and the shared question bank stored in a JDBC database.
+ * <p>
+ * Opens a {@link ConnectionPool}, creates the tables if they are missing and
+ * provides a {@link UserStore} and a {@link QuestionStore} on top of it. The
+ * SQL is kept to what embedded databases such as H2 and SQLite and server
+ * databases such as PostgreSQL all accept; the driver only has to be on the
+ * class path.
+ * </p>
+ * <p>
+ * The repository singletons use the database given by the system property
+ * {@value #URL_PROPERTY}, e.g. {@code -DquizService.jdbc.url=jdbc:h2:./quiz},
+ * and keep everything in memory only when it is not set. When it is set but
+ * the database cannot be opened, they refuse to start rather than silently
+ * losing every write on restart. Quizzes with a bank of their own keep being
+ * saved by {@link quizService.quiz.QuizRegistry}.
+ * </p>
+ */
+public final class JdbcStorage implements AutoCloseable {
+    /**
+     * System property with the JDBC URL of the database the repositories use.
+     */
+    public static final String URL_PROPERTY = "quizService.jdbc.url";
+    /**
+     * System property with the database user, if the database needs one.
+     */
+    public static final String USER_PROPERTY = "quizService.jdbc.user";
+    /**
+     * System property with the database password.
+     */
+    public static final String PASSWORD_PROPERTY = "quizService.jdbc.password";
+    /**
+     * System property with the amount of pooled connections.
+     */
+    public static final String POOL_PROPERTY = "quizService.jdbc.pool";
+    /**
+     * Pooled connections unless {@value #POOL_PROPERTY} says otherwise.
+     */
+    public static final int DEFAULT_POOL_SIZE = 8;
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS quiz_users ("
+                    + "username VARCHAR(255) PRIMARY KEY, role VARCHAR(16) NOT NULL, password VARCHAR(255) NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS quiz_questions ("
+                    + "id BIGINT PRIMARY KEY, question_text VARCHAR(4000) NOT NULL, difficulty DOUBLE PRECISION NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS quiz_answers ("
+                    + "question_id BIGINT NOT NULL, answer_no INT NOT NULL, answer_text VARCHAR(4000) NOT NULL, "
+                    + "correct BOOLEAN NOT NULL, PRIMARY KEY (question_id, answer_no))",
+            "CREATE TABLE IF NOT EXISTS quiz_media ("
+                    + "question_id BIGINT NOT NULL, media_no INT NOT NULL, hash CHAR(64) NOT NULL, "
+                    + "content_type VARCHAR(255) NOT NULL, byte_size BIGINT NOT NULL, PRIMARY KEY (question_id, media_no))"
+    };
+
+    /**
+     * Storage opened from the system properties, once.
+     */
+    private static JdbcStorage configured;
+    private static boolean configuredOpened;
+
+    private final ConnectionPool pool;
+    private final JdbcUserStore users;
+    private final JdbcQuestionStore questions;
+
+    /**
+     * Opens a database and creates the tables that are missing.
+     *
+     * @param url      JDBC URL
+     * @param user     database user, or null to connect with the URL alone
+     * @param password database password
+     * @param poolSize most connections open at once
+     * @throws SQLException if the database cannot be reached or the tables cannot be created
+     */
+    public JdbcStorage(String url, String user, String password, int poolSize) throws SQLException {
+        this.pool = new ConnectionPool(url, user, password, Math.max(1, poolSize));
+        pool.execute(c -> {
+            try (Statement st = c.createStatement()) {
+                for (String ddl : SCHEMA) st.execute(ddl);
+            }
+            return null;
+        });
+        this.users = new JdbcUserStore(pool);
+        this.questions = new JdbcQuestionStore(pool);
+    }
+
+    /**
+     * Returns the storage named by the system properties, opening it on first use.
+     *
+     * @return the storage, or null if {@value #URL_PROPERTY} is not set
+     * @throws IllegalStateException if {@value #URL_PROPERTY} is set but the database cannot be opened
+     */
+    public static synchronized JdbcStorage configured() {
+        if (!configuredOpened) {
+            configured = openConfigured();
+            configuredOpened = true;
+        }
+        return configured;
+    }
+
+    /**
+     * Opens the storage named by the system properties as they are now.
+     *
+     * @return new storage, or null if {@value #URL_PROPERTY} is not set
+     * @throws IllegalStateException if {@value #URL_PROPERTY} is set but the database cannot be opened
+     */
+    static JdbcStorage openConfigured() {
+        String url = System.getProperty(URL_PROPERTY);
+        if (url == null || url.isBlank()) return null;
+        try {
+            return new JdbcStorage(url, System.getProperty(USER_PROPERTY), System.getProperty(PASSWORD_PROPERTY),
+                    Integer.getInteger(POOL_PROPERTY, DEFAULT_POOL_SIZE));
+        } catch (SQLException e) {
+            throw new IllegalStateException("Storage failed: cannot open " + url + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return store of the configured database, or null to keep users in memory only
+     * @throws IllegalStateException if the configured database cannot be opened
+     */
+    public static UserStore configuredUsers() {
+        JdbcStorage storage = configured();
+        return storage == null ? null : storage.users();
+    }
+
+    /**
+     * @return store of the configured database, or null to keep the shared bank in memory only
+     * @throws IllegalStateException if the configured database cannot be opened
+     */
+    public static QuestionStore configuredQuestions() {
+        JdbcStorage storage = configured();
+        return storage == null ? null : storage.questions();
+    }
+
+    /**
+     * @return store of the users
+     */
+    public UserStore users() {
+        return users;
+    }
+
+    /**
+     * @return store of the questions
+     */
+    public QuestionStore questions() {
+        return questions;
+    }
+
+    /**
+     * Closes the pooled connections.
+     */
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    /**
+     * Tells unique and primary key violations apart from other failures (SQL state class 23).
+     */
+    static boolean isConstraintViolation(SQLException e) {
+        return e.getSQLState() != null && e.getSQLState().startsWith("23");
+    }
+}
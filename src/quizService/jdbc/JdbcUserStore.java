@@ -0,0 +1,152 @@
+package quizService.jdbc;
+
+import quizService.model.Role;
+import quizService.model.User;
+import quizService.uml.UserStore;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link UserStore} in the {@code quiz_users} table of a JDBC database.
+ * <p>
+ * Inserts are put-if-absent in one statement, backed by the primary key on
+ * the username. {@link #insertAll(User[], int)} sends a whole batch in one
+ * transaction; if a concurrent writer makes the batch fail, the batch is
+ * retried row by row so every other row is still stored.
+ * </p>
+ */
+final class JdbcUserStore implements UserStore {
+    private static final String PAGE =
+            "SELECT username, role, password FROM quiz_users WHERE username > ? ORDER BY username LIMIT ?";
+    private static final String INSERT =
+            "INSERT INTO quiz_users (username, role, password) SELECT ?, ?, ? "
+            + "WHERE NOT EXISTS (SELECT 1 FROM quiz_users WHERE username = ?)";
+    private static final String UPDATE_PASSWORD =
+            "UPDATE quiz_users SET password = ? WHERE username = ? AND password = ?";
+    private static final String DELETE = "DELETE FROM quiz_users WHERE username = ?";
+
+    private final ConnectionPool pool;
+
+    JdbcUserStore(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public User[] page(String afterUsername, int limit) {
+        try {
+            return pool.execute(c -> {
+                List<User> users = new ArrayList<>();
+                try (PreparedStatement st = c.prepareStatement(PAGE)) {
+                    st.setString(1, afterUsername == null ? "" : afterUsername);
+                    st.setInt(2, limit);
+                    try (ResultSet rs = st.executeQuery()) {
+                        while (rs.next()) {
+                            users.add(new User(Role.valueOf(rs.getString(2)), rs.getString(1), rs.getString(3)));
+                        }
+                    }
+                }
+                return users.toArray(new User[0]);
+            });
+        } catch (SQLException e) {
+            System.out.println("Storage failed: cannot read users: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public boolean insert(User user) {
+        try {
+            return pool.execute(c -> {
+                try (PreparedStatement st = c.prepareStatement(INSERT)) {
+                    bind(st, user);
+                    return st.executeUpdate() == 1;
+                }
+            });
+        } catch (SQLException e) {
+            if (!JdbcStorage.isConstraintViolation(e)) {
+                System.out.println("Storage failed: cannot store user " + user.username() + ": " + e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public boolean[] insertAll(User[] users, int n) {
+        boolean[] stored = new boolean[n];
+        try {
+            pool.execute(c -> {
+                c.setAutoCommit(false);
+                try (PreparedStatement st = c.prepareStatement(INSERT)) {
+                    for (int i = 0; i < n; i++) {
+                        if (users[i] == null) continue;
+                        bind(st, users[i]);
+                        st.addBatch();
+                    }
+                    int[] counts = st.executeBatch();
+                    c.commit();
+                    int k = 0;
+                    for (int i = 0; i < n; i++) {
+                        if (users[i] == null) continue;
+                        int count = counts[k++];
+                        stored[i] = count == 1 || count == Statement.SUCCESS_NO_INFO;
+                    }
+                }
+                return null;
+            });
+            return stored;
+        } catch (BatchUpdateException e) {
+            // rolled back by the pool; store what can be stored one by one
+            for (int i = 0; i < n; i++) stored[i] = users[i] != null && insert(users[i]);
+            return stored;
+        } catch (SQLException e) {
+            System.out.println("Storage failed: cannot store " + n + " users: " + e.getMessage());
+            return new boolean[n];
+        }
+    }
+
+    @Override
+    public boolean replacePassword(String username, String expected, String newPassword) {
+        try {
+            return pool.execute(c -> {
+                try (PreparedStatement st = c.prepareStatement(UPDATE_PASSWORD)) {
+                    st.setString(1, newPassword);
+                    st.setString(2, username);
+                    st.setString(3, expected);
+                    return st.executeUpdate() == 1;
+                }
+            });
+        } catch (SQLException e) {
+            System.out.println("Storage failed: cannot update password of " + username + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean delete(String username) {
+        try {
+            return pool.execute(c -> {
+                try (PreparedStatement st = c.prepareStatement(DELETE)) {
+                    st.setString(1, username);
+                    st.executeUpdate();
+                    return true;
+                }
+            });
+        } catch (SQLException e) {
+            System.out.println("Storage failed: cannot delete user " + username + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void bind(PreparedStatement st, User user) throws SQLException {
+        st.setString(1, user.username());
+        st.setString(2, user.role().name());
+        st.setString(3, user.password());
+        st.setString(4, user.username());
+    }
+}
@@ -0,0 +1,363 @@
+package quizService.load;
+
+import quizService.model.Answer;
+import quizService.model.Question;
+import quizService.model.QuizResult;
+import quizService.model.Role;
+import quizService.model.User;
+import quizService.repository.QuestionRepository;
+import quizService.repository.QuestionSnapshot;
+import quizService.repository.ResultRepository;
+import quizService.repository.UserRepository;
+import quizService.service.AuthService;
+import quizService.service.CredentialService;
+import quizService.service.QuizService;
+import quizService.service.TeacherService;
+import quizService.service.UserService;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process exam-day load generator.
+ * <p>
+ * Every simulated client is a virtual thread calling the services directly:
+ * a registration wave in which each username is claimed by two clients at once,
+ * a login storm with correct and wrong passwords, and then concurrent quiz runs
+ * while teachers keep editing and adding questions. Clients that are throttled
+ * back off and retry, as a real client would.
+ * </p>
+ * <p>
+ * Besides throughput and latency percentiles per operation, the simulation
+ * checks invariants and counts every break as a violation: a username stored
+ * twice, valid credentials refused or wrong ones accepted, a quiz graded
+ * differently from the bank version it was shown from, a lost question edit,
+ * a lost result and a bank version left pinned. Service output is muted while
+ * the simulation runs. Users and questions live in a user repository and a
+ * bank of the simulation's own, kept in memory only, so a run never writes
+ * into the shared ones or the configured database; graded results go to the
+ * in-memory result repository. Run with e.g.
+ * {@code java quizService.load.LoadSimulation 2000 20 3 50}; add
+ * {@code -DquizService.passwordIterations=1000} to keep password hashing from
+ * dominating a short run.
+ * </p>
+ */
+public class LoadSimulation {
+    /**
+     * Calls a throttled client makes before giving up.
+     */
+    private static final int MAX_ATTEMPTS = 60;
+    /**
+     * Answers per simulated question; one of them is correct.
+     */
+    private static final int ANSWERS = 4;
+
+    private final QuestionRepository questionRepo = QuestionRepository.newBank();
+    private final UserRepository userRepo = UserRepository.open(null);
+    private final UserService userService = new UserService(userRepo, CredentialService.getInstance());
+    private final AuthService auth = new AuthService(userService);
+    private final QuizService quizService = new QuizService(questionRepo);
+    private final ResultRepository resultRepo = ResultRepository.getInstance();
+
+    private final OperationStats register = new OperationStats("register");
+    private final OperationStats login = new OperationStats("login");
+    private final OperationStats quiz = new OperationStats("quiz");
+    private final OperationStats edit = new OperationStats("edit");
+    /**
+     * Broken invariants found by the checks after each phase.
+     */
+    private final LongAdder stateViolations = new LongAdder();
+
+    private final int students;
+    private final int teachers;
+    private final int quizzesPerStudent;
+    private final int editsPerTeacher;
+
+    /**
+     * Creates a simulation.
+     *
+     * @param students          simulated students
+     * @param teachers          simulated teachers editing during the exam
+     * @param quizzesPerStudent quizzes each student submits
+     * @param editsPerTeacher   edits each teacher makes during the exam
+     */
+    public LoadSimulation(int students, int teachers, int quizzesPerStudent, int editsPerTeacher) {
+        this.students = students;
+        this.teachers = teachers;
+        this.quizzesPerStudent = quizzesPerStudent;
+        this.editsPerTeacher = editsPerTeacher;
+    }
+
+    /**
+     * Runs the simulation and prints its report.
+     *
+     * @param args optional: students (default 2000), teachers (default 20),
+     *             quizzes per student (default 3), edits per teacher (default 50)
+     */
+    public static void main(String[] args) {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int teachers = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int quizzes = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int edits = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+        LoadSimulation simulation = new LoadSimulation(students, teachers, quizzes, edits);
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long start = System.nanoTime();
+        try {
+            simulation.run();
+        } finally {
+            System.setOut(console);
+        }
+        console.printf("%,d students, %d teachers: finished in %.1f s%n",
+                students, teachers, (System.nanoTime() - start) / 1e9);
+        console.println(simulation.report());
+    }
+
+    /**
+     * Runs all phases one after another.
+     */
+    public void run() {
+        String[] names = new String[students];
+        for (int i = 0; i < students; i++) names[i] = "load-student-" + i;
+
+        User[] users = registrationWave(names);
+        loginStorm(names, users);
+        exam(users);
+    }
+
+    /**
+     * @return amount of invariant breaks found so far
+     */
+    public long violations() {
+        return register.violations() + login.violations() + quiz.violations() + edit.violations()
+                + stateViolations.sum();
+    }
+
+    /**
+     * Describes throughput, latency and violations per operation.
+     *
+     * @return multi-line report
+     */
+    public String report() {
+        long[] registrations = userService.rejectedRegistrations();
+        long[] logins = userService.rejectedLogins();
+        return register + "\n" + login + "\n" + quiz + "\n" + edit + "\n"
+                + String.format("throttled: register %,d by user / %,d global, login %,d by user / %,d global%n",
+                registrations[0], registrations[1], logins[0], logins[1])
+                + String.format("state violations %d, total violations %d", stateViolations.sum(), violations());
+    }
+
+    /**
+     * Two clients race to register every username; exactly one must win.
+     *
+     * @return the stored user of every username
+     */
+    private User[] registrationWave(String[] names) {
+        AtomicIntegerArray wins = new AtomicIntegerArray(names.length);
+        register.start();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < names.length; i++) {
+                for (int client = 0; client < 2; client++) {
+                    int student = i;
+                    String password = password(i);
+                    clients.submit(() -> {
+                        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+                            long t = System.nanoTime();
+                            boolean ok = auth.register(Role.STUDENT, names[student], password);
+                            register.record(t, ok);
+                            if (ok) {
+                                wins.incrementAndGet(student);
+                                return;
+                            }
+                            if (userRepo.usernameTaken(names[student])) return;
+                            backOff(attempt);
+                        }
+                    });
+                }
+            }
+        }
+        register.stop();
+
+        Map<String, Integer> stored = new HashMap<>();
+        for (User u : userRepo.getAll()) stored.merge(u.username(), 1, Integer::sum);
+        User[] users = new User[names.length];
+        for (int i = 0; i < names.length; i++) {
+            if (wins.get(i) != 1) register.violation();
+            if (stored.getOrDefault(names[i], 0) != 1) stateViolations.increment();
+            users[i] = userRepo.findByUsername(names[i]);
+        }
+        return users;
+    }
+
+    /**
+     * Password both clients register a student with; the stored user only keeps its hash.
+     */
+    private static String password(int student) {
+        return "secret-" + student;
+    }
+
+    /**
+     * Every student tries one wrong password, then logs in a few times.
+     */
+    private void loginStorm(String[] names, User[] users) {
+        login.start();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < names.length; i++) {
+                User user = users[i];
+                if (user == null) continue;
+                String password = password(i);
+                clients.submit(() -> {
+                    long t = System.nanoTime();
+                    User intruder = auth.login(user.username(), password + "-wrong");
+                    login.record(t, intruder != null);
+                    if (intruder != null) login.violation();
+
+                    for (int session = 0; session < 3; session++) {
+                        User loggedIn = null;
+                        for (int attempt = 0; attempt < MAX_ATTEMPTS && loggedIn == null; attempt++) {
+                            t = System.nanoTime();
+                            loggedIn = auth.login(user.username(), password);
+                            login.record(t, loggedIn != null);
+                            if (loggedIn == null) backOff(attempt);
+                        }
+                        if (loggedIn == null || !loggedIn.username().equals(user.username())) login.violation();
+                    }
+                });
+            }
+        }
+        login.stop();
+    }
+
+    /**
+     * Students submit quizzes while teachers edit and add questions.
+     */
+    private void exam(User[] users) {
+        int seeded = Math.max(30, teachers);
+        TeacherService seeder = new TeacherService(new User(Role.TEACHER, "load-seeder", "secret"), questionRepo);
+        for (int i = 0; i < seeded; i++) {
+            seeder.add(new Question("Seed question " + i, new Answer[ANSWERS]), answers("seed " + i));
+        }
+        int bankBefore = questionRepo.size();
+        int resultsBefore = resultRepo.size();
+        LongAdder graded = new LongAdder();
+        LongAdder added = new LongAdder();
+
+        quiz.start();
+        edit.start();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int j = 0; j < teachers; j++) {
+                int index = j + 1;
+                TeacherService teacher = new TeacherService(new User(Role.TEACHER, "load-teacher-" + j, "secret"), questionRepo);
+                clients.submit(() -> {
+                    for (int revision = 1; revision <= editsPerTeacher; revision++) {
+                        String text = "Question " + index + " revision " + revision;
+                        long t = System.nanoTime();
+                        teacher.update(index, text, answers(text));
+                        Question stored = questionRepo.getQuestion(index - 1);
+                        boolean kept = stored != null && stored.getQuestion().equals(text);
+                        edit.record(t, kept);
+                        if (!kept) edit.violation();
+                        if (revision % 5 == 0) {
+                            String extra = "Added by teacher " + index + " at revision " + revision;
+                            teacher.add(new Question(extra, new Answer[ANSWERS]), answers(extra));
+                            added.increment();
+                        }
+                        pause();
+                    }
+                });
+            }
+            for (User user : users) {
+                if (user == null) continue;
+                clients.submit(() -> {
+                    for (int q = 0; q < quizzesPerStudent; q++) {
+                        pause();
+                        runQuiz(user);
+                        graded.increment();
+                    }
+                });
+            }
+        }
+        quiz.stop();
+        edit.stop();
+
+        if (questionRepo.size() != bankBefore + added.sum()) stateViolations.increment();
+        for (int j = 0; j < teachers && editsPerTeacher > 0; j++) {
+            Question q = questionRepo.getQuestion(j);
+            if (q == null || !q.getQuestion().equals("Question " + (j + 1) + " revision " + editsPerTeacher)) {
+                stateViolations.increment();
+            }
+        }
+        if (resultRepo.size() - resultsBefore != graded.sum()) stateViolations.increment();
+        if (questionRepo.pinnedVersions() != 0) stateViolations.increment();
+    }
+
+    /**
+     * Answers the current bank at random and checks the grade independently.
+     */
+    private void runQuiz(User user) {
+        QuestionSnapshot snapshot = questionRepo.pin();
+        try {
+            Question[] questions = snapshot.toArray();
+            int[] chosen = new int[questions.length];
+            int expected = 0;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < questions.length; i++) {
+                chosen[i] = 1 + random.nextInt(ANSWERS);
+                Answer a = questions[i].getAnswers()[chosen[i] - 1];
+                if (a != null && a.isCorrect()) expected++;
+            }
+            long t = System.nanoTime();
+            QuizResult result = quizService.startQuiz(user, snapshot, chosen);
+            quiz.record(t, result != null);
+            if (result == null || result.correctAnswers() != expected
+                    || result.totalQuestions() != questions.length) {
+                quiz.violation();
+            }
+        } finally {
+            questionRepo.release(snapshot);
+        }
+    }
+
+    /**
+     * Answers for a simulated question, the correct one at a random position.
+     */
+    private static Answer[] answers(String question) {
+        int correct = ThreadLocalRandom.current().nextInt(ANSWERS);
+        Answer[] answers = new Answer[ANSWERS];
+        for (int i = 0; i < ANSWERS; i++) {
+            answers[i] = new Answer(question + " / option " + (i + 1), i == correct);
+        }
+        return answers;
+    }
+
+    /**
+     * Exponential back-off with jitter, capped at one second.
+     */
+    private static void backOff(int attempt) {
+        long ceiling = Math.min(1_000, 10L << Math.min(attempt, 7));
+        sleep(ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1));
+    }
+
+    /**
+     * Think time between two actions of a client.
+     */
+    private static void pause() {
+        sleep(ThreadLocalRandom.current().nextLong(1, 20));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package quizService.load;
+
+import quizService.util.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outcome counters and latencies of one kind of simulated operation.
+ * All methods may be called from any number of threads.
+ */
+class OperationStats {
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder violations = new LongAdder();
+    private volatile long startNanos;
+    private volatile long endNanos;
+
+    OperationStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Marks the start of the phase the operation runs in.
+     */
+    void start() {
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Marks the end of the phase the operation runs in.
+     */
+    void stop() {
+        endNanos = System.nanoTime();
+    }
+
+    /**
+     * Records one call.
+     *
+     * @param startedAt {@link System#nanoTime()} before the call
+     * @param success   whether the service accepted the call
+     */
+    void record(long startedAt, boolean success) {
+        latency.record(System.nanoTime() - startedAt);
+        if (success) succeeded.increment();
+        else rejected.increment();
+    }
+
+    /**
+     * Records a broken invariant.
+     */
+    void violation() {
+        violations.increment();
+    }
+
+    long violations() {
+        return violations.sum();
+    }
+
+    @Override
+    public String toString() {
+        double seconds = Math.max(1, endNanos - startNanos) / 1e9;
+        long calls = latency.count();
+        return String.format("%-9s %,9d calls %,11.0f/s  ok %,9d  rejected %,8d  "
+                        + "p50 %,8.1fus  p99 %,9.1fus  max %,10.1fus  violations %d",
+                name, calls, calls / seconds, succeeded.sum(), rejected.sum(),
+                latency.percentile(50) / 1e3, latency.percentile(99) / 1e3, latency.max() / 1e3,
+                violations.sum());
+    }
+}
@@ -0,0 +1,246 @@
+package quizService.media;
+
+import quizService.model.MediaRef;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Content-addressed store of question media on disk.
+ * <p>
+ * Every file is stored under the SHA-256 of its content, in
+ * {@code <root>/<first two hex digits>/<hash>}. Storing the same image for a
+ * second question finds the existing file and keeps only one copy.
+ * Questions hold a {@link MediaRef}; the bytes never become part of the bank.
+ * </p>
+ * <p>
+ * Content is streamed through a small direct buffer while it is hashed and
+ * written, and {@link #transferTo(String, long, long, WritableByteChannel)}
+ * sends files with {@link FileChannel#transferTo}, which lets the operating
+ * system copy them to a socket without passing through the Java heap.
+ * Files are published with an atomic rename, so readers never see a partial file.
+ * Stored content is never deleted: one file may be referenced by questions of
+ * several banks, by pinned bank versions and by backups.
+ * This store follows the Singleton pattern, with an extra constructor for other roots.
+ * </p>
+ */
+public class MediaStore {
+    /**
+     * Singleton instance, storing under the {@code media} directory.
+     */
+    private static final MediaStore instance = new MediaStore(Path.of("media"));
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final Path root;
+    private final LongAdder stored = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder bytesServed = new LongAdder();
+
+    /**
+     * Creates a store.
+     *
+     * @param root directory the media files are kept in
+     */
+    public MediaStore(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns the shared media store.
+     *
+     * @return singleton {@code MediaStore} instance
+     */
+    public static MediaStore getInstance() {
+        return instance;
+    }
+
+    /**
+     * Stores a file.
+     *
+     * @param source      file to store
+     * @param contentType MIME type, or null to guess it from the file name
+     * @return reference to put into a question
+     * @throws IOException if the file cannot be read or stored
+     */
+    public MediaRef put(Path source, String contentType) throws IOException {
+        if (contentType == null) contentType = Files.probeContentType(source);
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            return put(in, contentType);
+        }
+    }
+
+    /**
+     * Stores the content of a stream, e.g. an upload.
+     *
+     * @param in          content to store; read to the end but not closed
+     * @param contentType MIME type of the content
+     * @return reference to put into a question
+     * @throws IOException if the content cannot be read or stored
+     */
+    public MediaRef put(InputStream in, String contentType) throws IOException {
+        return put(Channels.newChannel(in), contentType);
+    }
+
+    /**
+     * Streams content into a temporary file while hashing it,
+     * then publishes it under its hash unless it is already stored.
+     */
+    private MediaRef put(ReadableByteChannel in, String contentType) throws IOException {
+        Files.createDirectories(root);
+        Path tmp = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            MessageDigest sha256 = sha256();
+            long size = 0;
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                while (in.read(buffer) >= 0) {
+                    buffer.flip();
+                    sha256.update(buffer.duplicate());
+                    while (buffer.hasRemaining()) size += out.write(buffer);
+                    buffer.clear();
+                }
+                out.force(true);
+            }
+            String hash = HEX.formatHex(sha256.digest());
+            Path target = path(hash);
+            if (Files.exists(target)) {
+                deduplicated.increment();
+            } else {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                    stored.increment();
+                } catch (FileAlreadyExistsException e) {
+                    // stored concurrently by another upload of the same content
+                    deduplicated.increment();
+                }
+            }
+            return new MediaRef(hash, contentType != null ? contentType : "application/octet-stream", size);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * @param hash content hash
+     * @return true if the content is stored
+     */
+    public boolean contains(String hash) {
+        return MediaRef.isHash(hash) && Files.isRegularFile(path(hash));
+    }
+
+    /**
+     * Sends a whole media file.
+     *
+     * @param hash   content hash
+     * @param target channel to send to, e.g. a socket channel
+     * @return amount of bytes sent, or -1 if the content is not stored
+     * @throws IOException if the file or the channel fails
+     */
+    public long transferTo(String hash, WritableByteChannel target) throws IOException {
+        return transferTo(hash, 0, Long.MAX_VALUE, target);
+    }
+
+    /**
+     * Sends a byte range of a media file, e.g. for seeking in audio.
+     *
+     * @param hash     content hash
+     * @param position first byte to send
+     * @param count    most bytes to send
+     * @param target   channel to send to, e.g. a socket channel
+     * @return amount of bytes sent, or -1 if the content is not stored
+     * @throws IOException if the file or the channel fails
+     */
+    public long transferTo(String hash, long position, long count, WritableByteChannel target) throws IOException {
+        if (!contains(hash)) return -1;
+        try (FileChannel file = FileChannel.open(path(hash), StandardOpenOption.READ)) {
+            long end = Math.min(file.size(), position + Math.min(count, Long.MAX_VALUE - position));
+            long sent = 0;
+            // transferTo may send less than asked, e.g. to a non-blocking socket
+            while (position + sent < end) {
+                long n = file.transferTo(position + sent, end - position - sent, target);
+                if (n <= 0) break;
+                sent += n;
+            }
+            bytesServed.add(sent);
+            return sent;
+        }
+    }
+
+    /**
+     * Copies a media file into a directory, e.g. for a student's viewer to open.
+     * The copy is named after the hash with an extension from the content type,
+     * so a file already exported is not copied again.
+     *
+     * @param media     reference from a question
+     * @param directory directory to copy into
+     * @return path of the copy, or null if the content is not stored
+     * @throws IOException if the file cannot be copied
+     */
+    public Path export(MediaRef media, Path directory) throws IOException {
+        Path target = directory.resolve(media.hash() + extension(media.contentType()));
+        if (Files.isRegularFile(target)) return target;
+        Files.createDirectories(directory);
+        Path tmp = Files.createTempFile(directory, "media-", ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                if (transferTo(media.hash(), out) < 0) return null;
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return target;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * @return one-line report: files stored, duplicate uploads avoided and bytes served
+     */
+    public String report() {
+        return String.format("Media: %,d files stored, %,d duplicates avoided, %,d bytes served",
+                stored.sum(), deduplicated.sum(), bytesServed.sum());
+    }
+
+    /**
+     * File extension for a content type, e.g. {@code .png} for {@code image/png}
+     * and {@code .svg} for {@code image/svg+xml}; empty if there is no usable subtype.
+     */
+    static String extension(String contentType) {
+        int slash = contentType.indexOf('/');
+        StringBuilder ext = new StringBuilder(".");
+        for (int i = slash + 1; slash >= 0 && i < contentType.length(); i++) {
+            char c = Character.toLowerCase(contentType.charAt(i));
+            if ((c < 'a' || c > 'z') && (c < '0' || c > '9')) break;
+            ext.append(c);
+        }
+        return ext.length() > 1 ? ext.toString() : "";
+    }
+
+    private Path path(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required by every Java platform", e);
+        }
+    }
+}
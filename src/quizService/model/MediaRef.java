@@ -0,0 +1,39 @@
+package quizService.model;
+
+import quizService.uml.BaseClass;
+
+/**
+ * Reference from a question to a media file in the media store.
+ * The file itself stays on disk; the question only holds this small record.
+ *
+ * @param hash        SHA-256 of the content, 64 lowercase hex digits
+ * @param contentType MIME type, e.g. {@code image/png} or {@code audio/mpeg}
+ * @param size        content length in bytes
+ */
+public record MediaRef(String hash, String contentType, long size) implements BaseClass {
+
+    /**
+     * Creates a reference.
+     *
+     * @throws IllegalArgumentException if {@code hash} is not 64 lowercase hex digits
+     */
+    public MediaRef {
+        if (!isHash(hash)) throw new IllegalArgumentException("Not a SHA-256 media hash: " + hash);
+    }
+
+    /**
+     * Checks the form of a media hash, so it can be shortened for display
+     * and never names a path outside the media store.
+     *
+     * @param hash value to check
+     * @return true if it is 64 lowercase hex digits
+     */
+    public static boolean isHash(String hash) {
+        if (hash == null || hash.length() != 64) return false;
+        for (int i = 0; i < hash.length(); i++) {
+            char c = hash.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) return false;
+        }
+        return true;
+    }
+}
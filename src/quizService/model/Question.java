@@ -6,9 +6,29 @@ import quizService.uml.BaseClass;
  * Represents a quiz question with multiple possible answers.
  */
 public class Question implements BaseClass {
+    private long id;
     private String question;
     private final Answer[] answers;
     private int answerCount;
+    private double difficulty;
+    private MediaRef[] media = NO_MEDIA;
+    /**
+     * Bit {@code i} is set if answer {@code i + 1} is correct; kept up to date
+     * by {@link #addAnswer} and {@link #updateAnswer}, so grading reads it without a loop.
+     */
+    private int correctMask;
+
+    private static final MediaRef[] NO_MEDIA = new MediaRef[0];
+
+    /**
+     * Most answers that can take part in a multi-select submission, one bit each.
+     */
+    public static final int MAX_OPTIONS = 31;
+    /**
+     * Most answers a question holds: every answer has its bit in the selection
+     * and correct-answer masks, so any answer can be picked and graded.
+     */
+    public static final int MAX_ANSWERS = MAX_OPTIONS;
 
     /**
      * Constructs a question with a given text and maximum number of answers.
@@ -23,20 +43,64 @@ public class Question implements BaseClass {
 
     /**
      * Adds a new answer to the question.
+     * Answers beyond the array's length or {@value #MAX_ANSWERS} are ignored.
      *
      * @param answer the answer to add
      */
     public void addAnswer(Answer answer) {
-        if (answerCount >= answers.length) return;
-        answers[answerCount++] = answer;
+        if (answerCount >= answers.length || answerCount >= MAX_ANSWERS) return;
+        answers[answerCount] = answer;
+        markCorrect(answerCount++, answer);
     }
 
     public void updateAnswer(int index, Answer newAnswer) {
         if (index >= 0 && index < answerCount) {
             answers[index] = newAnswer;
+            markCorrect(index, newAnswer);
         }
     }
 
+    /**
+     * Correct answers as a bit mask: bit {@code i} stands for answer {@code i + 1}.
+     * @return mask of correct answers
+     */
+    public int getCorrectMask() {
+        return correctMask;
+    }
+
+    /**
+     * All selectable answers as a bit mask, in the layout of {@link #getCorrectMask()}.
+     * @return mask with one bit per answer
+     */
+    public int getOptionMask() {
+        return (1 << Math.min(answerCount, MAX_OPTIONS)) - 1;
+    }
+
+    /**
+     * Whether more than one answer is correct, so students should select several.
+     * @return true for a multi-select question
+     */
+    public boolean isMultiSelect() {
+        return Integer.bitCount(correctMask) > 1;
+    }
+
+    /**
+     * Stable identifier assigned by the repository.
+     * It survives updates, so an edited question keeps its identity across bank versions.
+     * @return id, or 0 if the question was never stored
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Set the identifier of this question
+     * @param id identifier assigned by the repository
+     */
+    public void setId(long id) {
+        this.id = id;
+    }
+
     /**
      * Number of answers currently assigned to this question
      * @return count of answers
@@ -61,6 +125,23 @@ public class Question implements BaseClass {
         return answers;
     }
 
+    /**
+     * Difficulty on the logit scale used by adaptive quizzes:
+     * 0 is average, negative is easier, positive is harder.
+     * @return difficulty of the question
+     */
+    public double getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * Set the difficulty of this question
+     * @param difficulty logit-scale difficulty, usually between -3 and 3
+     */
+    public void setDifficulty(double difficulty) {
+        this.difficulty = difficulty;
+    }
+
     /**
      * Set a new question instead of old one
      * @param question a new one that would be set
@@ -68,4 +149,25 @@ public class Question implements BaseClass {
     public void setQuestion(String question) {
         this.question = question;
     }
+
+    /**
+     * Images, audio and other media shown with the question
+     * @return media references, empty if the question has none
+     */
+    public MediaRef[] getMedia() {
+        return media;
+    }
+
+    /**
+     * Set the media shown with this question
+     * @param media references returned by the media store
+     */
+    public void setMedia(MediaRef... media) {
+        this.media = media == null || media.length == 0 ? NO_MEDIA : media.clone();
+    }
+
+    private void markCorrect(int index, Answer answer) {
+        if (answer != null && answer.isCorrect()) correctMask |= 1 << index;
+        else correctMask &= ~(1 << index);
+    }
 }
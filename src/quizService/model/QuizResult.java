@@ -6,11 +6,85 @@ package quizService.model;
  * @param user a student taking a quiz
  * @param correctAnswers amount of correct answers
  * @param totalQuestions all questions student answered
+ * @param ability estimated ability on the logit scale, {@code NaN} for non-adaptive quizzes
+ * @param standardError standard error of the ability estimate, {@code NaN} for non-adaptive quizzes
+ * @param score sum of the per-question credit, fractional under partial-credit rules;
+ *              equal to {@code correctAnswers} when every question is scored all or nothing
  */
-public record QuizResult(User user, int correctAnswers, int totalQuestions) {
+public record QuizResult(User user, int correctAnswers, int totalQuestions,
+                         double ability, double standardError, double score) {
+
+    /**
+     * Result of a quiz where every question of the bank was asked.
+     *
+     * @param user a student taking a quiz
+     * @param correctAnswers amount of correct answers
+     * @param totalQuestions all questions student answered
+     */
+    public QuizResult(User user, int correctAnswers, int totalQuestions) {
+        this(user, correctAnswers, totalQuestions, Double.NaN, Double.NaN, correctAnswers);
+    }
+
+    /**
+     * Result of a quiz graded with partial credit.
+     *
+     * @param user a student taking a quiz
+     * @param correctAnswers amount of questions that earned full credit
+     * @param totalQuestions all questions student answered
+     * @param score sum of the per-question credit
+     */
+    public QuizResult(User user, int correctAnswers, int totalQuestions, double score) {
+        this(user, correctAnswers, totalQuestions, Double.NaN, Double.NaN, score);
+    }
+
+    /**
+     * Result of an adaptive quiz, where each question is right or wrong.
+     *
+     * @param user a student taking a quiz
+     * @param correctAnswers amount of correct answers
+     * @param totalQuestions all questions student answered
+     * @param ability estimated ability on the logit scale
+     * @param standardError standard error of the ability estimate
+     */
+    public QuizResult(User user, int correctAnswers, int totalQuestions, double ability, double standardError) {
+        this(user, correctAnswers, totalQuestions, ability, standardError, correctAnswers);
+    }
+
+    /**
+     * @return true if some question earned only part of its credit
+     */
+    public boolean hasPartialCredit() {
+        return score != correctAnswers;
+    }
+
+    /**
+     * @return score as a share of the asked questions, from 0 to 1
+     */
+    public double scoreRatio() {
+        return totalQuestions == 0 ? 0 : score / totalQuestions;
+    }
+
+    /**
+     * @return true if the result comes from an adaptive quiz
+     */
+    public boolean isAdaptive() {
+        return !Double.isNaN(ability);
+    }
 
     @Override
     public String toString() {
+        if (isAdaptive()) {
+            return String.format(
+                    "\n=== Test results for %s ===\nCorrect answers: %d / %d\nAbility: %.2f (\u00b1%.2f)\n=== Test finished ===",
+                    user.username(), correctAnswers, totalQuestions, ability, standardError
+            );
+        }
+        if (hasPartialCredit()) {
+            return String.format(
+                    "\n=== Test results for %s ===\nCorrect answers: %d / %d\nScore: %.2f / %d\n=== Test finished ===",
+                    user.username(), correctAnswers, totalQuestions, score, totalQuestions
+            );
+        }
         return String.format(
                 "\n=== Test results for %s ===\nCorrect answers: %d / %d\n=== Test finished ===",
                 user.username(), correctAnswers, totalQuestions
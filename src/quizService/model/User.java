@@ -6,6 +6,7 @@ import quizService.uml.BaseClass;
  * A user can be either a {@link Role#STUDENT} or a {@link Role#TEACHER}.
  * @param  role current role of user's
  * @param username user's name
- * @param password password of username
+ * @param password salted password hash from {@link quizService.util.PasswordHasher},
+ *                 or a plaintext password stored before hashing was introduced
  */
 public record User(Role role, String username, String password) implements BaseClass {}
@@ -0,0 +1,44 @@
+package quizService.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event of one login or registration attempt.
+ */
+@Name("quizService.Auth")
+@Label("Authentication")
+@Category({"Quiz Service", "Users"})
+@Description("Login or registration attempt, including rate limiting and the repository lookup")
+@StackTrace(false)
+@Threshold("5 ms")
+public final class AuthEvent extends QuizServiceEvent {
+    @Label("Operation")
+    @Description("login or register")
+    private String operation;
+
+    @Label("Username")
+    private String username;
+
+    @Label("Success")
+    private boolean success;
+
+    /**
+     * Ends the event and commits it if a recording wants it.
+     *
+     * @param operation {@code login} or {@code register}
+     * @param username  username the attempt was made for
+     * @param success   whether the attempt succeeded
+     */
+    public void finish(String operation, String username, boolean success) {
+        if (!shouldCommit()) return;
+        this.operation = operation;
+        this.username = username;
+        this.success = success;
+        commit();
+    }
+}
@@ -0,0 +1,59 @@
+package quizService.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event of grading and storing one quiz.
+ */
+@Name("quizService.Grading")
+@Label("Quiz Grading")
+@Category({"Quiz Service", "Quizzes"})
+@Description("Grading of a submitted quiz against a bank snapshot, including storing the result")
+@StackTrace(false)
+@Threshold("5 ms")
+public final class GradingEvent extends QuizServiceEvent {
+    @Label("Username")
+    private String username;
+
+    @Label("Quiz")
+    private int quizId;
+
+    @Label("Bank Version")
+    private long bankVersion;
+
+    @Label("Questions")
+    @Description("Questions in the snapshot")
+    private int questions;
+
+    @Label("Answered")
+    private int answered;
+
+    @Label("Correct")
+    private int correct;
+
+    /**
+     * Ends the event and commits it if a recording wants it.
+     *
+     * @param username    student whose quiz was graded
+     * @param quizId      quiz the result is stored under
+     * @param bankVersion version of the snapshot graded against
+     * @param questions   questions in the snapshot
+     * @param answered    questions with an answer
+     * @param correct     correctly answered questions
+     */
+    public void finish(String username, int quizId, long bankVersion, int questions, int answered, int correct) {
+        if (!shouldCommit()) return;
+        this.username = username;
+        this.quizId = quizId;
+        this.bankVersion = bankVersion;
+        this.questions = questions;
+        this.answered = answered;
+        this.correct = correct;
+        commit();
+    }
+}
@@ -0,0 +1,55 @@
+package quizService.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event of a teacher adding, updating or deleting a question.
+ */
+@Name("quizService.QuestionEdit")
+@Label("Question Edit")
+@Category({"Quiz Service", "Questions"})
+@Description("Question added, updated or deleted by a teacher, including validation and auditing")
+@StackTrace(false)
+@Threshold("0 ms")
+public final class QuestionEditEvent extends QuizServiceEvent {
+    @Label("Operation")
+    @Description("add, update or delete")
+    private String operation;
+
+    @Label("Teacher")
+    private String actor;
+
+    @Label("Question Id")
+    private long questionId;
+
+    @Label("Answers")
+    @Description("Answers of the question after the edit")
+    private int answers;
+
+    @Label("Success")
+    private boolean success;
+
+    /**
+     * Ends the event and commits it if a recording wants it.
+     *
+     * @param operation  {@code add}, {@code update} or {@code delete}
+     * @param actor      teacher who made the edit
+     * @param questionId id of the edited question, 0 if unknown
+     * @param answers    answers of the question after the edit
+     * @param success    whether the edit was stored
+     */
+    public void finish(String operation, String actor, long questionId, int answers, boolean success) {
+        if (!shouldCommit()) return;
+        this.operation = operation;
+        this.actor = actor;
+        this.questionId = questionId;
+        this.answers = answers;
+        this.success = success;
+        commit();
+    }
+}
@@ -0,0 +1,20 @@
+package quizService.monitoring;
+
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+
+/**
+ * Base of the Flight Recorder events emitted by the quiz service.
+ * <p>
+ * Events are created and begun on every call, but their fields are only
+ * filled and written when a recording has them enabled and the operation
+ * took longer than the event's threshold, so without a recording they cost
+ * little more than reading the clock. Each event's default threshold can be
+ * changed per recording, e.g.
+ * {@code java -XX:StartFlightRecording:+quizService.Grading#threshold=20ms,filename=quiz.jfr ...},
+ * or in a settings file made with {@code jfr configure}.
+ * </p>
+ */
+@Enabled(true)
+abstract class QuizServiceEvent extends Event {
+}
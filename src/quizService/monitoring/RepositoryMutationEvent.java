@@ -0,0 +1,78 @@
+package quizService.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event of a change to a repository.
+ * <p>
+ * The event begins before the repository lock is taken, so its duration
+ * includes the wait for the lock; {@link #locked()} marks when the lock was
+ * acquired and the wait is recorded separately.
+ * </p>
+ */
+@Name("quizService.RepositoryMutation")
+@Label("Repository Mutation")
+@Category({"Quiz Service", "Repositories"})
+@Description("Insert, update or removal in a repository, including the wait for the repository lock")
+@StackTrace(false)
+@Threshold("1 ms")
+public final class RepositoryMutationEvent extends QuizServiceEvent {
+    @Label("Repository")
+    private String repository;
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Key")
+    @Description("Question id or username")
+    private String key;
+
+    @Label("Size")
+    @Description("Entries in the repository after the change")
+    private int size;
+
+    @Label("Success")
+    private boolean success;
+
+    @Label("Lock Wait")
+    @Description("Time spent waiting for the repository lock")
+    @Timespan(Timespan.NANOSECONDS)
+    private long lockWait;
+
+    /**
+     * When the event was created, just before it is begun; not recorded.
+     */
+    private final transient long createdNanos = System.nanoTime();
+
+    /**
+     * Marks that the repository lock was acquired; call it first thing inside the lock.
+     */
+    public void locked() {
+        lockWait = System.nanoTime() - createdNanos;
+    }
+
+    /**
+     * Ends the event and commits it if a recording wants it.
+     *
+     * @param repository name of the repository
+     * @param operation  {@code add}, {@code update} or {@code remove}
+     * @param key        question id or username the change was made for
+     * @param size       entries in the repository after the change
+     * @param success    whether the change was made
+     */
+    public void finish(String repository, String operation, String key, int size, boolean success) {
+        if (!shouldCommit()) return;
+        this.repository = repository;
+        this.operation = operation;
+        this.key = key;
+        this.size = size;
+        this.success = success;
+        commit();
+    }
+}
@@ -0,0 +1,66 @@
+package quizService.quiz;
+
+import quizService.repository.QuestionRepository;
+import quizService.service.QuizService;
+
+/**
+ * Use of a quiz's bank that keeps the bank in memory.
+ * <p>
+ * A {@link QuizRegistry} never evicts a bank while a lease on it is open, so
+ * everything written through {@link #bank()} or {@link #service()} reaches the
+ * bank the registry holds and is saved with it. Close the lease as soon as the
+ * bank is no longer needed, best with try-with-resources; the bank and
+ * services taken from it must not be used afterwards.
+ * </p>
+ */
+public final class BankLease implements AutoCloseable {
+    private final QuizRegistry registry;
+    private final CourseQuiz quiz;
+    private final QuestionRepository bank;
+    private boolean closed = false;
+
+    BankLease(QuizRegistry registry, CourseQuiz quiz, QuestionRepository bank) {
+        this.registry = registry;
+        this.quiz = quiz;
+        this.bank = bank;
+    }
+
+    /**
+     * @return quiz the bank belongs to
+     */
+    public CourseQuiz quiz() {
+        return quiz;
+    }
+
+    /**
+     * @return question bank of the quiz
+     * @throws IllegalStateException if the lease is closed
+     */
+    public synchronized QuestionRepository bank() {
+        if (closed) throw new IllegalStateException("Lease on " + quiz + " is closed");
+        return bank;
+    }
+
+    /**
+     * Returns a quiz service that grades against the leased bank
+     * and stores results under the quiz id.
+     *
+     * @return quiz service of this quiz
+     * @throws IllegalStateException if the lease is closed
+     */
+    public QuizService service() {
+        return new QuizService(bank(), quiz.getId());
+    }
+
+    /**
+     * Ends the lease; the bank may be evicted again. Closing twice has no effect.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+        }
+        registry.release(quiz.getId());
+    }
+}
@@ -0,0 +1,107 @@
+package quizService.quiz;
+
+import quizService.model.Answer;
+import quizService.model.Question;
+import quizService.uml.Quiz;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A named quiz with a question bank of its own.
+ * <p>
+ * Quizzes are created by and belong to a {@link QuizRegistry}, which may move
+ * their banks to disk while they are not used. The bank is therefore only
+ * reachable through a {@link BankLease} from {@link #acquire()}, which keeps it
+ * in memory until the lease is closed. Single questions can also be read
+ * through {@link #question(int)}, which is served from the registry's
+ * hot-question cache without a lease.
+ * </p>
+ */
+public class CourseQuiz implements Quiz {
+    private final int id;
+    private final String name;
+    private final QuizRegistry registry;
+    /**
+     * Raised whenever a question of the bank is updated or removed,
+     * so hot questions cached before the edit are not served anymore.
+     */
+    final AtomicLong generation = new AtomicLong();
+    /**
+     * Questions in the bank, kept current by the registry once the bank was
+     * in memory; -1 until then. Only written under the bank's lock.
+     */
+    volatile int size = -1;
+
+    CourseQuiz(int id, String name, QuizRegistry registry) {
+        this.id = id;
+        this.name = name;
+        this.registry = registry;
+    }
+
+    /**
+     * @return id of the quiz, also used for its stored results
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return name of the quiz
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Leases the bank of the quiz, loading it from disk if it was evicted.
+     *
+     * @return lease on the question bank of this quiz, or null if it cannot be read
+     */
+    public BankLease acquire() {
+        return registry.acquire(id);
+    }
+
+    /**
+     * Returns one question, from the registry's hot-question cache when it is
+     * there, so frequently shown questions are served without the registry's
+     * lock and without reading an evicted bank back from disk.
+     *
+     * @param index index (0-based)
+     * @return the question, or null if the index is invalid or the bank cannot be read
+     */
+    public Question question(int index) {
+        return registry.question(this, index);
+    }
+
+    /**
+     * @return amount of questions in the bank; the bank is only read if it was not in memory since the start
+     */
+    public int size() {
+        return registry.size(this);
+    }
+
+    /**
+     * Displays the name of the quiz and its questions with numbered answers.
+     * Questions are read one by one through {@link #question(int)}.
+     */
+    @Override
+    public void show() {
+        int n = size();
+        System.out.printf("=== %s (%d questions) ===%n", name, n);
+        for (int i = 0; i < n; i++) {
+            Question q = question(i);
+            // removed by a concurrent edit
+            if (q == null) break;
+            System.out.printf("%n%d. %s%n", i + 1, q.getQuestion());
+            Answer[] answers = q.getAnswers();
+            for (int j = 0; j < q.getAnswerCount(); j++) {
+                System.out.printf(" %d. %s%n", j + 1, answers[j] != null ? answers[j].text() : "(empty answer)");
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Quiz #" + id + " " + name;
+    }
+}
@@ -0,0 +1,559 @@
+package quizService.quiz;
+
+import quizService.model.Answer;
+import quizService.model.Question;
+import quizService.repository.QuestionDelta;
+import quizService.repository.QuestionRepository;
+import quizService.repository.QuestionSnapshot;
+import quizService.util.TinyLfuCache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry of all {@link CourseQuiz quizzes} and keeper of their banks.
+ * <p>
+ * Quiz names and ids always stay in memory; banks only while they are used.
+ * Resident banks are ordered by last access, and whenever their estimated size
+ * exceeds the memory budget the least recently used ones are written to disk
+ * and dropped; a bank unchanged since it was last read is dropped without
+ * writing. The next access reads the bank back, with its question ids and
+ * version intact. Banks are only handed out through {@link BankLease leases}:
+ * a bank with an open lease, or with a pinned version, i.e. a quiz in
+ * progress, is never evicted, so nothing is written to a bank the registry
+ * no longer holds.
+ * </p>
+ * <p>
+ * Single questions asked through {@link CourseQuiz#question(int)} are served
+ * from a {@link TinyLfuCache} shared by all quizzes, without taking the
+ * registry's lock or reading an evicted bank back. The questions of a quiz
+ * shown over and over stay cached while rarely asked ones are not admitted.
+ * An update or removal in a bank drops that quiz's cached questions; a
+ * per-quiz generation read before the bank keeps a read racing the edit from
+ * serving the old question afterwards.
+ * </p>
+ * <p>
+ * Banks are written in the {@link QuestionDelta} binary form to
+ * {@code quiz-<id>.bank} files: when a quiz is created, when the last lease on
+ * a changed bank is closed, and when a bank is evicted. Ids and names are kept
+ * in a {@value #INDEX_FILE} file next to them. A registry created over the same
+ * directory reads the index back and loads each bank on its first use, so
+ * quizzes outlive a restart. Backups include them too, see {@link #save()} and
+ * {@link #restore(SavedQuiz[])}.
+ * This registry follows the Singleton pattern, with an extra constructor for
+ * other directories and budgets.
+ * </p>
+ */
+public class QuizRegistry {
+    /**
+     * Memory budget of the shared registry: 64 MB of estimated bank size.
+     */
+    public static final long DEFAULT_BUDGET_BYTES = 64L * 1024 * 1024;
+    /**
+     * File listing the ids and names of all quizzes.
+     */
+    static final String INDEX_FILE = "quizzes.index";
+    /**
+     * Questions the hot-question cache holds by default.
+     */
+    public static final int DEFAULT_HOT_QUESTIONS = 4096;
+
+    /**
+     * Singleton instance, evicting to the {@code quizzes} directory.
+     */
+    private static final QuizRegistry instance = new QuizRegistry(Path.of("quizzes"), DEFAULT_BUDGET_BYTES);
+
+    /**
+     * A quiz with its whole bank, as saved in and restored from a backup.
+     *
+     * @param id   id of the quiz
+     * @param name name of the quiz
+     * @param bank full delta of its bank
+     */
+    public record SavedQuiz(int id, String name, QuestionDelta bank) {}
+
+    /**
+     * A cached question with the generation of its quiz it was read at.
+     */
+    private record HotQuestion(Question question, long generation) {}
+
+    /**
+     * A bank in memory with the version its size was last estimated at
+     * and the version its file holds, if any.
+     */
+    private static final class Resident {
+        final QuestionRepository bank;
+        /**
+         * Open leases on the bank.
+         */
+        int leases = 0;
+        long sizedVersion = -1;
+        long savedVersion = -1;
+        long bytes;
+
+        Resident(QuestionRepository bank) {
+            this.bank = bank;
+        }
+    }
+
+    private final Path directory;
+    private final long budgetBytes;
+
+    private final Map<Integer, CourseQuiz> byId = new HashMap<>();
+    private final Map<String, CourseQuiz> byName = new HashMap<>();
+    /**
+     * Banks in memory, least recently used first.
+     */
+    private final LinkedHashMap<Integer, Resident> resident = new LinkedHashMap<>(16, 0.75f, true);
+    private long residentBytes = 0;
+    private int lastQuizId = 0;
+    private long loads = 0;
+    private long evictions = 0;
+    /**
+     * Hot questions by quiz id (high half) and index (low half).
+     */
+    private final TinyLfuCache<Long, HotQuestion> hot;
+    private final LongAdder staleHits = new LongAdder();
+
+    /**
+     * Creates a registry with the quizzes already saved in a directory.
+     * Their banks stay on disk until they are used.
+     *
+     * @param directory   where the index and the banks are written
+     * @param budgetBytes estimated size the resident banks may take
+     */
+    public QuizRegistry(Path directory, long budgetBytes) {
+        this(directory, budgetBytes, DEFAULT_HOT_QUESTIONS);
+    }
+
+    /**
+     * Creates a registry with a hot-question cache of the given size.
+     *
+     * @param directory    where the index and the banks are written
+     * @param budgetBytes  estimated size the resident banks may take
+     * @param hotQuestions questions the hot-question cache holds
+     */
+    public QuizRegistry(Path directory, long budgetBytes, int hotQuestions) {
+        this.directory = directory;
+        this.budgetBytes = budgetBytes;
+        this.hot = new TinyLfuCache<>(hotQuestions);
+        Path index = directory.resolve(INDEX_FILE);
+        if (!Files.exists(index)) return;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(index))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                CourseQuiz quiz = new CourseQuiz(in.readInt(), in.readUTF(), this);
+                byId.put(quiz.getId(), quiz);
+                byName.put(quiz.getName(), quiz);
+                lastQuizId = Math.max(lastQuizId, quiz.getId());
+            }
+        } catch (IOException e) {
+            System.out.println("Could not read quiz index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the shared registry.
+     *
+     * @return singleton {@code QuizRegistry} instance
+     */
+    public static QuizRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * Creates a quiz with an empty bank.
+     *
+     * @param name unique name of the quiz
+     * @return the new quiz, or null if the name is empty or taken
+     */
+    public synchronized CourseQuiz create(String name) {
+        if (name == null || name.isBlank()) {
+            System.out.println("Quiz name cannot be empty.");
+            return null;
+        }
+        String trimmed = name.trim();
+        if (byName.containsKey(trimmed)) {
+            System.out.println("Quiz already exists: " + trimmed);
+            return null;
+        }
+        CourseQuiz quiz = new CourseQuiz(++lastQuizId, trimmed, this);
+        byId.put(quiz.getId(), quiz);
+        byName.put(trimmed, quiz);
+        Resident r = new Resident(watch(quiz, QuestionRepository.newBank()));
+        resident.put(quiz.getId(), r);
+        if (write(quiz.getId(), r.bank)) r.savedVersion = r.bank.version();
+        writeIndex();
+        enforceBudget(quiz.getId());
+        return quiz;
+    }
+
+    /**
+     * @param id id of the quiz
+     * @return the quiz, or null if there is none with that id
+     */
+    public synchronized CourseQuiz find(int id) {
+        return byId.get(id);
+    }
+
+    /**
+     * @param name name of the quiz
+     * @return the quiz, or null if there is none with that name
+     */
+    public synchronized CourseQuiz find(String name) {
+        return name == null ? null : byName.get(name.trim());
+    }
+
+    /**
+     * @return all quizzes, ordered by id
+     */
+    public synchronized CourseQuiz[] listAll() {
+        CourseQuiz[] all = new CourseQuiz[byId.size()];
+        int i = 0;
+        for (int id = 1; id <= lastQuizId; id++) {
+            CourseQuiz quiz = byId.get(id);
+            if (quiz != null) all[i++] = quiz;
+        }
+        return all;
+    }
+
+    /**
+     * Leases the bank of a quiz, reading it back from disk if it was evicted.
+     * The bank stays in memory until the lease is closed.
+     *
+     * @param quizId id of the quiz
+     * @return lease on its bank, or null if there is no such quiz or the bank cannot be read
+     */
+    public synchronized BankLease acquire(int quizId) {
+        Resident r = resident(quizId);
+        if (r == null) return null;
+        r.leases++;
+        enforceBudget(quizId);
+        return new BankLease(this, byId.get(quizId), r.bank);
+    }
+
+    /**
+     * Ends a lease, saves the bank once its last lease is closed if it changed,
+     * and evicts banks if the budget is exceeded.
+     */
+    synchronized void release(int quizId) {
+        Resident r = resident.get(quizId);
+        if (r == null || r.leases == 0) return;
+        r.leases--;
+        long version = r.bank.version();
+        if (r.leases == 0 && r.savedVersion != version && write(quizId, r.bank)) r.savedVersion = version;
+        enforceBudget(0);
+    }
+
+    /**
+     * Returns the resident entry of a quiz's bank, reading the bank back if it was evicted.
+     *
+     * @return the entry, or null if there is no such quiz or the bank cannot be read
+     */
+    private Resident resident(int quizId) {
+        if (!byId.containsKey(quizId)) return null;
+        Resident r = resident.get(quizId);
+        if (r == null) {
+            QuestionRepository bank = load(quizId);
+            if (bank == null) return null;
+            r = new Resident(watch(byId.get(quizId), bank));
+            r.savedVersion = bank.version();
+            resident.put(quizId, r);
+            loads++;
+        }
+        return r;
+    }
+
+    /**
+     * Returns one question of a quiz, from the hot-question cache if possible.
+     * On a miss the bank is looked up, and read back from disk if it was evicted.
+     *
+     * @param quiz  quiz of this registry
+     * @param index index (0-based)
+     * @return the question, or null if the index is invalid or the bank cannot be read
+     */
+    Question question(CourseQuiz quiz, int index) {
+        if (index < 0) return null;
+        long key = ((long) quiz.getId() << 32) | index;
+        // read before the bank, so a concurrent edit makes what is cached below stale, never the reverse
+        long generation = quiz.generation.get();
+        HotQuestion cached = hot.get(key);
+        if (cached != null) {
+            if (cached.generation() == generation) return cached.question();
+            hot.invalidate(key);
+            staleHits.increment();
+        }
+        Question question;
+        synchronized (this) {
+            Resident r = resident(quiz.getId());
+            question = r == null ? null : r.bank.getQuestion(index);
+            enforceBudget(quiz.getId());
+        }
+        if (question != null) hot.put(key, new HotQuestion(question, generation));
+        return question;
+    }
+
+    /**
+     * Amount of questions of a quiz; the bank is only read back if it was not
+     * in memory since the registry was created.
+     *
+     * @param quiz quiz of this registry
+     * @return amount of questions, 0 if the bank cannot be read
+     */
+    int size(CourseQuiz quiz) {
+        int size = quiz.size;
+        if (size >= 0) return size;
+        synchronized (this) {
+            Resident r = resident(quiz.getId());
+            size = r == null ? 0 : r.bank.size();
+            enforceBudget(quiz.getId());
+        }
+        return size;
+    }
+
+    /**
+     * @return one-line report of the hot-question cache
+     */
+    public String hotQuestionReport() {
+        return "Hot questions: " + hot + ", " + staleHits.sum() + " stale";
+    }
+
+    /**
+     * Captures every quiz with its bank, e.g. for a backup.
+     * <p>
+     * Under the registry's lock only the current snapshots of resident banks
+     * are taken and the files of evicted ones read; the deltas of resident banks
+     * are built after the lock is released.
+     * </p>
+     *
+     * @return all quizzes, ordered by id
+     * @throws IOException if the file of an evicted bank cannot be read
+     */
+    public SavedQuiz[] save() throws IOException {
+        CourseQuiz[] quizzes;
+        QuestionSnapshot[] snapshots;
+        QuestionDelta[] evicted;
+        synchronized (this) {
+            quizzes = listAll();
+            snapshots = new QuestionSnapshot[quizzes.length];
+            evicted = new QuestionDelta[quizzes.length];
+            Map<Integer, QuestionRepository> banks = new HashMap<>();
+            // iterated, not looked up, so the order of last access stays as it is
+            for (Map.Entry<Integer, Resident> e : resident.entrySet()) banks.put(e.getKey(), e.getValue().bank);
+            for (int i = 0; i < quizzes.length; i++) {
+                QuestionRepository bank = banks.get(quizzes[i].getId());
+                if (bank != null) snapshots[i] = bank.snapshot();
+                else evicted[i] = QuestionDelta.decode(Files.readAllBytes(file(quizzes[i].getId())));
+            }
+        }
+        SavedQuiz[] saved = new SavedQuiz[quizzes.length];
+        for (int i = 0; i < quizzes.length; i++) {
+            QuestionDelta bank = snapshots[i] != null ? QuestionDelta.of(snapshots[i]) : evicted[i];
+            saved[i] = new SavedQuiz(quizzes[i].getId(), quizzes[i].getName(), bank);
+        }
+        return saved;
+    }
+
+    /**
+     * Checks that {@link #restore(SavedQuiz[])} would accept the quizzes.
+     *
+     * @param quizzes quizzes from {@link #save()}
+     * @return false if the registry already holds quizzes or the ids or names are not unique
+     */
+    public synchronized boolean canRestore(SavedQuiz[] quizzes) {
+        if (!byId.isEmpty()) {
+            System.out.println("Quiz registry is not empty, cannot restore into it.");
+            return false;
+        }
+        Set<Integer> ids = new HashSet<>();
+        Set<String> names = new HashSet<>();
+        for (SavedQuiz quiz : quizzes) {
+            if (quiz.id() <= 0 || quiz.name() == null || quiz.name().isBlank()
+                    || !ids.add(quiz.id()) || !names.add(quiz.name().trim())) {
+                System.out.println("Saved quizzes are not valid: " + quiz.id() + " " + quiz.name());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Recreates saved quizzes with their ids, names and banks in an empty registry.
+     * Question ids and bank versions are kept.
+     *
+     * @param quizzes quizzes from {@link #save()}
+     * @return false if {@link #canRestore(SavedQuiz[])} refuses them; nothing is restored then
+     */
+    public synchronized boolean restore(SavedQuiz[] quizzes) {
+        if (!canRestore(quizzes)) return false;
+        for (SavedQuiz saved : quizzes) {
+            CourseQuiz quiz = new CourseQuiz(saved.id(), saved.name().trim(), this);
+            byId.put(quiz.getId(), quiz);
+            byName.put(quiz.getName(), quiz);
+            Resident r = new Resident(watch(quiz, QuestionRepository.restore(saved.bank())));
+            resident.put(quiz.getId(), r);
+            if (write(quiz.getId(), r.bank)) r.savedVersion = r.bank.version();
+            lastQuizId = Math.max(lastQuizId, quiz.getId());
+        }
+        writeIndex();
+        enforceBudget(0);
+        return true;
+    }
+
+    /**
+     * @return amount of banks in memory
+     */
+    public synchronized int residentCount() {
+        return resident.size();
+    }
+
+    /**
+     * @return estimated size of the banks in memory, in bytes
+     */
+    public synchronized long residentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * @return banks read back from disk so far
+     */
+    public synchronized long loads() {
+        return loads;
+    }
+
+    /**
+     * @return banks written to disk and dropped so far
+     */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Re-estimates changed banks and evicts least recently used ones
+     * until the resident size fits the budget.
+     *
+     * @param keep quiz whose bank is being handed out and must stay, 0 for none
+     */
+    private void enforceBudget(int keep) {
+        for (Resident r : resident.values()) {
+            long version = r.bank.version();
+            if (version != r.sizedVersion) {
+                long bytes = estimateBytes(r.bank.listAll());
+                residentBytes += bytes - r.bytes;
+                r.bytes = bytes;
+                r.sizedVersion = version;
+            }
+        }
+        Iterator<Map.Entry<Integer, Resident>> eldest = resident.entrySet().iterator();
+        while (residentBytes > budgetBytes && eldest.hasNext()) {
+            Map.Entry<Integer, Resident> e = eldest.next();
+            Resident r = e.getValue();
+            if (e.getKey() == keep || r.leases > 0 || r.bank.pinnedVersions() > 0) continue;
+            if (r.savedVersion != r.bank.version() && !write(e.getKey(), r.bank)) continue;
+            eldest.remove();
+            residentBytes -= r.bytes;
+            evictions++;
+        }
+    }
+
+    /**
+     * Keeps the size of a quiz current and drops its cached questions whenever
+     * one of them is updated or removed. Added questions are appended and leave
+     * the cached indices valid.
+     */
+    private QuestionRepository watch(CourseQuiz quiz, QuestionRepository bank) {
+        long quizId = quiz.getId();
+        // a bank being watched is not shared yet, so no edit runs between these two lines
+        quiz.size = bank.size();
+        bank.addListener((oldQuestion, newQuestion) -> {
+            if (oldQuestion == null) {
+                quiz.size++;
+                return;
+            }
+            if (newQuestion == null) quiz.size--;
+            quiz.generation.incrementAndGet();
+            hot.invalidateIf(key -> key >>> 32 == quizId);
+        });
+        return bank;
+    }
+
+    private Path file(int quizId) {
+        return directory.resolve("quiz-" + quizId + ".bank");
+    }
+
+    /**
+     * Writes a bank to its file, replacing the previous one atomically.
+     */
+    private boolean write(int quizId, QuestionRepository bank) {
+        try {
+            Files.createDirectories(directory);
+            Path tmp = directory.resolve("quiz-" + quizId + ".tmp");
+            Files.write(tmp, bank.changesSince(0).encode());
+            Files.move(tmp, file(quizId), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Could not save quiz " + quizId + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Writes the ids and names of all quizzes, replacing the previous index atomically.
+     * <pre>
+     * index := count:int (id:int name:utf)*
+     * </pre>
+     */
+    private void writeIndex() {
+        try {
+            Files.createDirectories(directory);
+            Path tmp = directory.resolve(INDEX_FILE + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp))) {
+                CourseQuiz[] quizzes = listAll();
+                out.writeInt(quizzes.length);
+                for (CourseQuiz quiz : quizzes) {
+                    out.writeInt(quiz.getId());
+                    out.writeUTF(quiz.getName());
+                }
+            }
+            Files.move(tmp, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Could not save quiz index: " + e.getMessage());
+        }
+    }
+
+    private QuestionRepository load(int quizId) {
+        try {
+            return QuestionRepository.restore(QuestionDelta.decode(Files.readAllBytes(file(quizId))));
+        } catch (IOException e) {
+            System.out.println("Could not load quiz " + quizId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Rough heap size of a bank: object headers plus two bytes per character.
+     */
+    private static long estimateBytes(Question[] questions) {
+        long bytes = 64;
+        for (Question q : questions) {
+            bytes += 96 + 2L * q.getQuestion().length();
+            Answer[] answers = q.getAnswers();
+            for (int i = 0; i < q.getAnswerCount(); i++) {
+                bytes += 64 + (answers[i] != null ? 2L * answers[i].text().length() : 0);
+            }
+        }
+        return bytes;
+    }
+}
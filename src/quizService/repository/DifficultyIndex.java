@@ -0,0 +1,72 @@
+package quizService.repository;
+
+import quizService.model.Question;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Questions of one {@link QuestionSnapshot} ordered by difficulty.
+ * <p>
+ * Built once per bank version and shared by every adaptive session on that
+ * version. Finding the unused question closest to a target difficulty is a
+ * binary search followed by a walk outward past questions the session has
+ * already used, i.e. O(log n + k) for a session that asked k questions.
+ * </p>
+ */
+public final class DifficultyIndex {
+    /**
+     * Difficulties in ascending order.
+     */
+    private final double[] difficulties;
+    /**
+     * Snapshot position of the question at the same slot of {@link #difficulties}.
+     */
+    private final int[] positions;
+
+    /**
+     * Builds the index for a snapshot.
+     *
+     * @param snapshot bank version to index
+     */
+    DifficultyIndex(QuestionSnapshot snapshot) {
+        Question[] questions = snapshot.toArray();
+        Integer[] order = new Integer[questions.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingDouble(i -> questions[i].getDifficulty()));
+
+        positions = new int[order.length];
+        difficulties = new double[order.length];
+        for (int i = 0; i < order.length; i++) {
+            positions[i] = order[i];
+            difficulties[i] = questions[order[i]].getDifficulty();
+        }
+    }
+
+    /**
+     * @return amount of indexed questions
+     */
+    public int size() {
+        return positions.length;
+    }
+
+    /**
+     * Finds the question whose difficulty is closest to {@code target},
+     * skipping positions already marked as used.
+     *
+     * @param target desired difficulty
+     * @param used   flags by snapshot position; {@code true} means already asked
+     * @return snapshot position of the question, or -1 if all are used
+     */
+    public int nearest(double target, boolean[] used) {
+        int n = difficulties.length;
+        int hi = Arrays.binarySearch(difficulties, target);
+        if (hi < 0) hi = -hi - 1;
+        int lo = hi - 1;
+        while (lo >= 0 && used[positions[lo]]) lo--;
+        while (hi < n && used[positions[hi]]) hi++;
+        if (lo < 0) return hi < n ? positions[hi] : -1;
+        if (hi >= n) return positions[lo];
+        return target - difficulties[lo] <= difficulties[hi] - target ? positions[lo] : positions[hi];
+    }
+}
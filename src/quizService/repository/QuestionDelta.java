@@ -0,0 +1,290 @@
+package quizService.repository;
+
+import quizService.model.Answer;
+import quizService.model.MediaRef;
+import quizService.model.Question;
+import quizService.util.TextDictionary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Changes of the question bank between two versions.
+ * <p>
+ * Holds at most one entry per question: several edits of the same question
+ * collapse into its latest state, and a question added and removed within the
+ * range does not appear at all. Entries are ordered by question id. Because new
+ * questions always get a larger id than every stored one and the bank keeps them
+ * in insertion order, a client that keeps its copy sorted by id can apply a delta
+ * without knowing any positions, see {@link #applyTo(Question[])}.
+ * </p>
+ * <p>
+ * When the requested version is older than the retained change history the
+ * delta is {@link #full() full}: it lists the whole bank as added questions and
+ * the client replaces its copy instead of patching it.
+ * </p>
+ * <p>
+ * {@link #encode()} writes a compact binary form: variable-length integers,
+ * ids as differences to the previous entry, UTF-8 texts with a length prefix and
+ * the correct answers as one bit mask per question. Media is sent as references
+ * (hash, type, size); clients fetch the files they lack from the media store.
+ * </p>
+ */
+public final class QuestionDelta {
+    /**
+     * Kind of change of a question.
+     */
+    public enum Kind { ADDED, UPDATED, REMOVED }
+
+    private static final byte MAGIC_0 = 'Q';
+    private static final byte MAGIC_1 = 'D';
+    private static final byte FORMAT = 2;
+
+    private final long fromVersion;
+    private final long toVersion;
+    private final boolean full;
+    private final long[] ids;
+    private final Kind[] kinds;
+    private final Question[] questions;
+
+    QuestionDelta(long fromVersion, long toVersion, boolean full, long[] ids, Kind[] kinds, Question[] questions) {
+        this.fromVersion = fromVersion;
+        this.toVersion = toVersion;
+        this.full = full;
+        this.ids = ids;
+        this.kinds = kinds;
+        this.questions = questions;
+    }
+
+    /**
+     * Full delta of a snapshot from version 0, e.g. to write a whole bank to disk.
+     *
+     * @param snapshot version of the bank to describe
+     * @return full delta whose questions are those of the snapshot
+     */
+    public static QuestionDelta of(QuestionSnapshot snapshot) {
+        Question[] all = snapshot.toArray();
+        long[] ids = new long[all.length];
+        Kind[] kinds = new Kind[all.length];
+        for (int i = 0; i < all.length; i++) {
+            ids[i] = all[i].getId();
+            kinds[i] = Kind.ADDED;
+        }
+        return new QuestionDelta(0, snapshot.version(), true, ids, kinds, all);
+    }
+
+    /**
+     * @return version the delta starts from
+     */
+    public long fromVersion() {
+        return fromVersion;
+    }
+
+    /**
+     * @return version the bank has after applying the delta
+     */
+    public long toVersion() {
+        return toVersion;
+    }
+
+    /**
+     * @return true if the delta lists the whole bank and replaces the client copy
+     */
+    public boolean full() {
+        return full;
+    }
+
+    /**
+     * @return amount of changed questions
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @param i entry index
+     * @return id of the changed question
+     */
+    public long id(int i) {
+        return ids[i];
+    }
+
+    /**
+     * @param i entry index
+     * @return kind of the change
+     */
+    public Kind kind(int i) {
+        return kinds[i];
+    }
+
+    /**
+     * @param i entry index
+     * @return the question after the change, or null if it was removed
+     */
+    public Question question(int i) {
+        return questions[i];
+    }
+
+    /**
+     * Applies the delta to a copy of the bank at {@link #fromVersion()}.
+     *
+     * @param bank questions of the client copy, in bank order; ignored for a full delta
+     * @return questions at {@link #toVersion()}, in bank order
+     */
+    public Question[] applyTo(Question[] bank) {
+        Map<Long, Question> byId = new HashMap<>();
+        if (!full) {
+            for (Question q : bank) byId.put(q.getId(), q);
+        }
+        for (int i = 0; i < ids.length; i++) {
+            if (kinds[i] == Kind.REMOVED) byId.remove(ids[i]);
+            else byId.put(ids[i], questions[i]);
+        }
+        Question[] result = byId.values().toArray(new Question[0]);
+        Arrays.sort(result, Comparator.comparingLong(Question::getId));
+        return result;
+    }
+
+    /**
+     * Encodes the delta for transfer.
+     *
+     * @return binary form, readable by {@link #decode(byte[])}
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + ids.length * 64);
+        out.write(MAGIC_0);
+        out.write(MAGIC_1);
+        out.write(FORMAT);
+        out.write(full ? 1 : 0);
+        putVarLong(out, fromVersion);
+        putVarLong(out, toVersion - fromVersion);
+        putVarLong(out, ids.length);
+        long previousId = 0;
+        for (int i = 0; i < ids.length; i++) {
+            out.write(kinds[i].ordinal());
+            putVarLong(out, ids[i] - previousId);
+            previousId = ids[i];
+            if (kinds[i] == Kind.REMOVED) continue;
+            Question q = questions[i];
+            putString(out, q.getQuestion());
+            long bits = Double.doubleToLongBits(q.getDifficulty());
+            for (int b = 56; b >= 0; b -= 8) out.write((int) (bits >>> b));
+            int count = q.getAnswerCount();
+            Answer[] answers = q.getAnswers();
+            putVarLong(out, count);
+            // at most Question.MAX_ANSWERS, so every answer has its bit in the 64-bit mask
+            long correctMask = 0;
+            for (int a = 0; a < count; a++) {
+                putString(out, answers[a] != null ? answers[a].text() : "");
+                if (answers[a] != null && answers[a].isCorrect()) correctMask |= 1L << a;
+            }
+            putVarLong(out, correctMask);
+            MediaRef[] media = q.getMedia();
+            putVarLong(out, media.length);
+            for (MediaRef m : media) {
+                putString(out, m.hash());
+                putString(out, m.contentType());
+                putVarLong(out, m.size());
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a delta written by {@link #encode()}.
+     * Short question and answer texts are taken from the shared {@link TextDictionary}.
+     *
+     * @param data binary form
+     * @return decoded delta
+     * @throws IOException if the data is not a valid delta
+     */
+    public static QuestionDelta decode(byte[] data) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        TextDictionary dictionary = TextDictionary.getInstance();
+        try {
+            if (in.get() != MAGIC_0 || in.get() != MAGIC_1 || in.get() != FORMAT) {
+                throw new IOException("Not a question delta");
+            }
+            boolean full = in.get() != 0;
+            long from = getVarLong(in);
+            long to = from + getVarLong(in);
+            int n = (int) getVarLong(in);
+            if (n < 0 || n > in.remaining()) throw new IOException("Corrupt question delta");
+            long[] ids = new long[n];
+            Kind[] kinds = new Kind[n];
+            Question[] questions = new Question[n];
+            Kind[] allKinds = Kind.values();
+            long id = 0;
+            for (int i = 0; i < n; i++) {
+                int kind = in.get();
+                if (kind < 0 || kind >= allKinds.length) throw new IOException("Corrupt question delta");
+                kinds[i] = allKinds[kind];
+                id += getVarLong(in);
+                ids[i] = id;
+                if (kinds[i] == Kind.REMOVED) continue;
+                String text = dictionary.intern(getString(in));
+                double difficulty = Double.longBitsToDouble(in.getLong());
+                int count = (int) getVarLong(in);
+                // the format has room for 64 answers; a question keeps the first MAX_ANSWERS
+                if (count < 0 || count > Long.SIZE) throw new IOException("Corrupt question delta");
+                String[] texts = new String[count];
+                for (int a = 0; a < count; a++) texts[a] = getString(in);
+                long correctMask = getVarLong(in);
+                Question q = new Question(text, new Answer[count]);
+                for (int a = 0; a < count; a++) q.addAnswer(dictionary.intern(new Answer(texts[a], (correctMask >>> a & 1) != 0)));
+                int mediaCount = (int) getVarLong(in);
+                if (mediaCount < 0 || mediaCount > in.remaining()) throw new IOException("Corrupt question delta");
+                MediaRef[] media = new MediaRef[mediaCount];
+                for (int m = 0; m < mediaCount; m++) {
+                    media[m] = new MediaRef(getString(in), getString(in), getVarLong(in));
+                }
+                q.setMedia(media);
+                q.setDifficulty(difficulty);
+                q.setId(id);
+                questions[i] = q;
+            }
+            return new QuestionDelta(from, to, full, ids, kinds, questions);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Truncated question delta", e);
+        }
+    }
+
+    private static void putString(ByteArrayOutputStream out, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        putVarLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String getString(ByteBuffer in) throws IOException {
+        int length = (int) getVarLong(in);
+        if (length < 0 || length > in.remaining()) throw new IOException("Corrupt question delta");
+        String s = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return s;
+    }
+
+    private static void putVarLong(ByteArrayOutputStream out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) (v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static long getVarLong(ByteBuffer in) {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+        return v;
+    }
+}
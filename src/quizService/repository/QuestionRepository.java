@@ -1,51 +1,198 @@
 package quizService.repository;
 
+import quizService.jdbc.JdbcStorage;
 import quizService.model.Question;
+import quizService.monitoring.RepositoryMutationEvent;
+import quizService.uml.QuestionListener;
+import quizService.uml.QuestionStore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Repository for storing and managing {@link Question} objects.
  * <p>
- * Implements a simple in-memory storage using an array.
- * Automatically resizes the array if capacity is exceeded.
- * This repository follows the Singleton pattern.
+ * The bank is versioned: every mutation publishes a new immutable
+ * {@link QuestionSnapshot} that shares all untouched structure with the
+ * previous one. Readers never block writers and never see a half-applied change.
+ * The shared bank follows the Singleton pattern; quizzes with a bank of their
+ * own get one from {@link #newBank()}.
+ * </p>
+ * <p>
+ * A quiz session {@link #pin() pins} the snapshot it started on and
+ * {@link #release(QuestionSnapshot) releases} it when graded. Pinned versions
+ * can be resolved by number through {@link #pinned(long)}; once the last pin is
+ * released the version is dropped from the registry and its unshared nodes
+ * become garbage.
+ * </p>
+ * <p>
+ * Every mutation raises the version by one and is recorded in a bounded change
+ * history, from which {@link #changesSince(long)} builds a {@link QuestionDelta}
+ * so that clients can catch up without reloading the whole bank.
+ * </p>
+ * <p>
+ * A bank with a {@link QuestionStore} is loaded from it page by page when it
+ * is created, and every change is written through to the store, under the
+ * bank's lock, before the new version is published. The shared bank uses the
+ * database configured for {@link JdbcStorage}, if any.
  * </p>
  */
 public class QuestionRepository {
     /**
-     * Singleton instance of {@code QuestionRepository}.
+     * Last identifier given to a stored question. Shared by all banks, so an id
+     * names one question across every quiz.
+     */
+    private static final AtomicLong lastId = new AtomicLong();
+    /**
+     * Singleton instance of {@code QuestionRepository}, created on first use
+     * so a failing database surfaces there instead of in class initialization.
+     */
+    private static QuestionRepository instance;
+    /**
+     * Questions read from the store per query while loading.
+     */
+    private static final int LOAD_PAGE = 500;
+    /**
+     * Latest published version of the bank.
+     */
+    private volatile QuestionSnapshot current = QuestionSnapshot.EMPTY;
+    /**
+     * Versions currently referenced by at least one session, by version number.
+     */
+    private final Map<Long, Pin> pins = new HashMap<>();
+    /**
+     * Listeners notified about every mutation.
+     */
+    private final List<QuestionListener> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * Durable storage changes are written through to, or null to keep the bank in memory only.
+     */
+    private final QuestionStore store;
+
+    /**
+     * Amount of most recent changes kept for {@link #changesSince(long)}.
+     */
+    public static final int CHANGE_HISTORY = 4096;
+    /**
+     * Ring of recent changes: version it produced, question id, kind and new question.
      */
-    private static final QuestionRepository instance = new QuestionRepository();
+    private final long[] changeVersion = new long[CHANGE_HISTORY];
+    private final long[] changeId = new long[CHANGE_HISTORY];
+    private final QuestionDelta.Kind[] changeKind = new QuestionDelta.Kind[CHANGE_HISTORY];
+    private final Question[] changeQuestion = new Question[CHANGE_HISTORY];
     /**
-     * Internal array of questions.
+     * Amount of changes ever recorded.
      */
-    private Question[] questions = new Question[10];
+    private long changes = 0;
+
     /**
-     * Current number of stored questions.
+     * Reference count of a pinned version.
      */
-    private int count = 0; // current amount of questions
+    private static final class Pin {
+        final QuestionSnapshot snapshot;
+        int refs;
+
+        Pin(QuestionSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+    }
 
     /**
      * Private constructor to enforce Singleton pattern.
      */
-    private QuestionRepository(){}
+    private QuestionRepository(QuestionStore store) {
+        this.store = store;
+        if (store != null) load();
+    }
 
     /**
-     * Returns the single instance of this repository.
+     * Creates an empty bank separate from the shared one, e.g. for a single quiz.
      *
-     * @return singleton {@code QuestionRepository} instance
+     * @return new empty repository
      */
-    public synchronized static QuestionRepository getInstance() {
-        return instance;
+    public static QuestionRepository newBank() {
+        return new QuestionRepository(null);
+    }
+
+    /**
+     * Creates a bank kept in a store, loading the questions stored there.
+     * Questions keep their ids.
+     *
+     * @param store storage to load from and write through to
+     * @return bank holding the stored questions
+     * @throws IllegalStateException if the store cannot be read completely
+     */
+    public static QuestionRepository open(QuestionStore store) {
+        return new QuestionRepository(store);
+    }
+
+    /**
+     * Recreates a bank from a delta taken from version 0, e.g. one written to disk.
+     * Questions keep their ids and the bank continues at the delta's version.
+     *
+     * @param delta delta of the whole bank, from {@code changesSince(0)}
+     * @return restored repository
+     */
+    public static QuestionRepository restore(QuestionDelta delta) {
+        QuestionRepository bank = new QuestionRepository(null);
+        Question[] questions = delta.applyTo(new Question[0]);
+        long maxId = 0;
+        for (Question q : questions) maxId = Math.max(maxId, q.getId());
+        lastId.accumulateAndGet(maxId, Math::max);
+        bank.current = QuestionSnapshot.of(delta.toVersion(), questions);
+        return bank;
     }
 
     /**
-     * Checking and expending an array if it's full.
+     * Fills this bank from a delta taken from version 0, e.g. when a backup is restored.
+     * Questions keep their ids, are written through to the store, and the bank
+     * continues at the delta's version. Listeners are not notified.
+     *
+     * @param delta delta of the whole bank
+     * @return false if the bank is not empty or the store rejected a question;
+     *         questions already written to the store are deleted again then
      */
-    private void ensureCapacity() {
-        if (count < questions.length) return;
-        Question[] newArr = new Question[questions.length * 2];
-        System.arraycopy(questions, 0, newArr, 0, questions.length);
-        questions = newArr;
+    public synchronized boolean fill(QuestionDelta delta) {
+        if (!canFill()) {
+            System.out.println("Question bank is not empty, cannot restore into it.");
+            return false;
+        }
+        Question[] questions = delta.applyTo(new Question[0]);
+        long maxId = 0;
+        for (int i = 0; i < questions.length; i++) {
+            if (store != null && !store.insert(questions[i])) {
+                for (int j = 0; j < i; j++) store.delete(questions[j].getId());
+                return false;
+            }
+            maxId = Math.max(maxId, questions[i].getId());
+        }
+        lastId.accumulateAndGet(maxId, Math::max);
+        current = QuestionSnapshot.of(delta.toVersion(), questions);
+        return true;
+    }
+
+    /**
+     * @return true if {@link #fill(QuestionDelta)} would accept a delta: the bank never held a question
+     */
+    public synchronized boolean canFill() {
+        return current.size() == 0 && changes == 0;
+    }
+
+    /**
+     * Returns the single instance of this repository.
+     *
+     * @return singleton {@code QuestionRepository} instance
+     * @throws IllegalStateException if the configured database cannot be opened or read
+     */
+    public synchronized static QuestionRepository getInstance() {
+        if (instance == null) instance = new QuestionRepository(JdbcStorage.configuredQuestions());
+        return instance;
     }
 
     /**
@@ -55,9 +202,21 @@ public class QuestionRepository {
      * @return true If added successfully
      */
     public boolean add(Question question) {
-        ensureCapacity();
-        questions[count++] = question;
-        return true;
+        RepositoryMutationEvent event = new RepositoryMutationEvent();
+        event.begin();
+        synchronized (this) {
+            event.locked();
+            question.setId(lastId.incrementAndGet());
+            if (store != null && !store.insert(question)) {
+                event.finish("questions", "add", String.valueOf(question.getId()), current.size(), false);
+                return false;
+            }
+            current = current.withAdded(question);
+            recordChange(QuestionDelta.Kind.ADDED, question.getId(), question);
+            notifyListeners(null, question);
+            event.finish("questions", "add", String.valueOf(question.getId()), current.size(), true);
+            return true;
+        }
     }
 
     /**
@@ -67,12 +226,25 @@ public class QuestionRepository {
      * @return true if deleted successfully.
      */
     public boolean remove(int index) {
-        if (index < 0 || index >= count) return false;
-        for (int i = index; i < count - 1; i++) {
-            questions[i] = questions[i + 1];
+        RepositoryMutationEvent event = new RepositoryMutationEvent();
+        event.begin();
+        synchronized (this) {
+            event.locked();
+            Question old = current.get(index);
+            if (old == null) {
+                event.finish("questions", "remove", null, current.size(), false);
+                return false;
+            }
+            if (store != null && !store.delete(old.getId())) {
+                event.finish("questions", "remove", String.valueOf(old.getId()), current.size(), false);
+                return false;
+            }
+            current = current.withRemoved(index);
+            recordChange(QuestionDelta.Kind.REMOVED, old.getId(), null);
+            notifyListeners(old, null);
+            event.finish("questions", "remove", String.valueOf(old.getId()), current.size(), true);
+            return true;
         }
-        questions[--count] = null;
-        return true;
     }
 
     /**
@@ -82,21 +254,38 @@ public class QuestionRepository {
      * @return Question or null if index is invalid
      */
     public Question getQuestion(int index) {
-        if (index < 0 || index >= count) return null;
-        return questions[index];
+        return current.get(index);
     }
 
     /**
      * Update a question by index.
+     * The new question takes over the identifier of the one it replaces.
      *
      * @param index    index (0-based)
      * @param question new question
      * @return true if updated successfully.
      */
     public boolean update(int index, Question question) {
-        if (index < 0 || index >= count) return false;
-        questions[index] = question;
-        return true;
+        RepositoryMutationEvent event = new RepositoryMutationEvent();
+        event.begin();
+        synchronized (this) {
+            event.locked();
+            Question old = current.get(index);
+            if (old == null) {
+                event.finish("questions", "update", null, current.size(), false);
+                return false;
+            }
+            question.setId(old.getId());
+            if (store != null && !store.replace(question)) {
+                event.finish("questions", "update", String.valueOf(old.getId()), current.size(), false);
+                return false;
+            }
+            current = current.withUpdated(index, question);
+            recordChange(QuestionDelta.Kind.UPDATED, old.getId(), question);
+            notifyListeners(old, question);
+            event.finish("questions", "update", String.valueOf(old.getId()), current.size(), true);
+            return true;
+        }
     }
 
     /**
@@ -106,15 +295,189 @@ public class QuestionRepository {
      * @return array of questions
      */
     public Question[] listAll() {
-        Question[] copy = new Question[count];
-        System.arraycopy(questions, 0, copy, 0, count);
-        return copy;
+        return current.toArray();
     }
 
     /**
      * @return amount of questions in repository
      */
     public int size() {
-        return count;
+        return current.size();
+    }
+
+    /**
+     * Registers a listener for question changes.
+     *
+     * @param listener listener to add
+     */
+    public void addListener(QuestionListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener added by {@link #addListener(QuestionListener)}.
+     *
+     * @param listener listener to remove
+     */
+    public void removeListener(QuestionListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyListeners(Question oldQuestion, Question newQuestion) {
+        for (QuestionListener listener : listeners) {
+            listener.questionChanged(oldQuestion, newQuestion);
+        }
+    }
+
+    /**
+     * @return version number of the latest change
+     */
+    public long version() {
+        return current.version();
+    }
+
+    /**
+     * Reads the whole bank from the store, a page at a time. A loaded bank starts
+     * at version 1, so clients at version 0 receive it as a full delta.
+     * A page that cannot be read fails the whole load: a partial bank would
+     * hand out ids that are already stored.
+     */
+    private void load() {
+        List<Question> loaded = new ArrayList<>();
+        long after = 0;
+        Question[] page;
+        while ((page = page(after)).length > 0) {
+            Collections.addAll(loaded, page);
+            after = page[page.length - 1].getId();
+        }
+        if (loaded.isEmpty()) return;
+        lastId.accumulateAndGet(after, Math::max);
+        current = QuestionSnapshot.of(1, loaded.toArray(new Question[0]));
+    }
+
+    private Question[] page(long after) {
+        Question[] page = store.page(after, LOAD_PAGE);
+        if (page == null) throw new IllegalStateException("Storage failed: cannot load questions after id " + after);
+        return page;
+    }
+
+    /**
+     * Collects the changes made after a version.
+     * <p>
+     * The result holds the latest state of every question added or updated since
+     * {@code version} and the ids of removed ones. If that version is no longer
+     * covered by the change history, the whole bank is returned as a full delta.
+     * </p>
+     *
+     * @param version version the client copy is at; 0 for an empty copy
+     * @return delta from {@code version} to the current version
+     */
+    public synchronized QuestionDelta changesSince(long version) {
+        long to = current.version();
+        long first = Math.max(0, changes - CHANGE_HISTORY);
+        long oldest = changes == 0 ? to : changeVersion[(int) (first % CHANGE_HISTORY)] - 1;
+        if (version < oldest || version > to) {
+            Question[] all = current.toArray();
+            long[] ids = new long[all.length];
+            QuestionDelta.Kind[] kinds = new QuestionDelta.Kind[all.length];
+            for (int i = 0; i < all.length; i++) {
+                ids[i] = all[i].getId();
+                kinds[i] = QuestionDelta.Kind.ADDED;
+            }
+            return new QuestionDelta(version, to, true, ids, kinds, all);
+        }
+
+        // latest change per question id, ordered by id
+        Map<Long, Integer> latest = new TreeMap<>();
+        Map<Long, QuestionDelta.Kind> kindById = new HashMap<>();
+        for (long c = changes - (to - version); c < changes; c++) {
+            int slot = (int) (c % CHANGE_HISTORY);
+            long id = changeId[slot];
+            QuestionDelta.Kind kind = changeKind[slot];
+            QuestionDelta.Kind before = kindById.get(id);
+            if (before == QuestionDelta.Kind.ADDED) {
+                if (kind == QuestionDelta.Kind.REMOVED) {
+                    // added and removed within the range: the client never saw it
+                    latest.remove(id);
+                    kindById.remove(id);
+                    continue;
+                }
+                kind = QuestionDelta.Kind.ADDED;
+            }
+            latest.put(id, slot);
+            kindById.put(id, kind);
+        }
+
+        int n = latest.size();
+        long[] ids = new long[n];
+        QuestionDelta.Kind[] kinds = new QuestionDelta.Kind[n];
+        Question[] questions = new Question[n];
+        int i = 0;
+        for (Map.Entry<Long, Integer> e : latest.entrySet()) {
+            ids[i] = e.getKey();
+            kinds[i] = kindById.get(e.getKey());
+            questions[i] = changeQuestion[e.getValue()];
+            i++;
+        }
+        return new QuestionDelta(version, to, false, ids, kinds, questions);
+    }
+
+    private void recordChange(QuestionDelta.Kind kind, long id, Question question) {
+        int slot = (int) (changes % CHANGE_HISTORY);
+        changeVersion[slot] = current.version();
+        changeId[slot] = id;
+        changeKind[slot] = kind;
+        changeQuestion[slot] = question;
+        changes++;
+    }
+
+    /**
+     * Latest version of the bank, without pinning it.
+     *
+     * @return current snapshot
+     */
+    public QuestionSnapshot snapshot() {
+        return current;
+    }
+
+    /**
+     * Pins the current version so it stays resolvable until released.
+     *
+     * @return pinned snapshot
+     */
+    public synchronized QuestionSnapshot pin() {
+        QuestionSnapshot snapshot = current;
+        pins.computeIfAbsent(snapshot.version(), v -> new Pin(snapshot)).refs++;
+        return snapshot;
+    }
+
+    /**
+     * Releases a pin taken by {@link #pin()}.
+     * The version is forgotten when its last pin is released.
+     *
+     * @param snapshot snapshot returned by {@link #pin()}
+     */
+    public synchronized void release(QuestionSnapshot snapshot) {
+        Pin pin = pins.get(snapshot.version());
+        if (pin == null) return;
+        if (--pin.refs == 0) pins.remove(snapshot.version());
+    }
+
+    /**
+     * Resolves a pinned version by its number.
+     *
+     * @param version version number
+     * @return the snapshot, or null if that version is not pinned
+     */
+    public synchronized QuestionSnapshot pinned(long version) {
+        Pin pin = pins.get(version);
+        return pin == null ? null : pin.snapshot;
+    }
+
+    /**
+     * @return amount of distinct versions currently pinned by sessions
+     */
+    public synchronized int pinnedVersions() {
+        return pins.size();
     }
 }
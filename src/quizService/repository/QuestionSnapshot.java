@@ -0,0 +1,214 @@
+package quizService.repository;
+
+import quizService.model.Question;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Immutable, versioned view of the question bank.
+ * <p>
+ * Every mutation of {@link QuestionRepository} produces a new snapshot.
+ * Snapshots are stored as a persistent implicit treap: a change copies only
+ * the O(log n) nodes on the path to the touched position, and every other
+ * node is shared with the previous version. Holding an old snapshot therefore
+ * costs only the nodes that differ from the current one.
+ * </p>
+ * <p>
+ * Questions reachable from a snapshot must be treated as read-only;
+ * edits replace a question instead of mutating it.
+ * </p>
+ */
+public final class QuestionSnapshot {
+    /**
+     * Empty bank at version 0.
+     */
+    static final QuestionSnapshot EMPTY = new QuestionSnapshot(0, null);
+
+    /**
+     * Version number of this snapshot, increasing with every mutation.
+     */
+    private final long version;
+    /**
+     * Root of the treap, {@code null} when the bank is empty.
+     */
+    private final Node root;
+    /**
+     * Difficulty-ordered index over this version, built on first use.
+     */
+    private volatile DifficultyIndex difficultyIndex;
+
+    private QuestionSnapshot(long version, Node root) {
+        this.version = version;
+        this.root = root;
+    }
+
+    /**
+     * @return version number of this snapshot
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * @return amount of questions in this snapshot
+     */
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Get a question by index.
+     *
+     * @param index index (0-based)
+     * @return Question or null if index is invalid
+     */
+    public Question get(int index) {
+        if (index < 0 || index >= size()) return null;
+        Node n = root;
+        while (true) {
+            int leftSize = size(n.left);
+            if (index < leftSize) {
+                n = n.left;
+            } else if (index == leftSize) {
+                return n.value;
+            } else {
+                index -= leftSize + 1;
+                n = n.right;
+            }
+        }
+    }
+
+    /**
+     * Copies the questions of this snapshot into a new array, in order.
+     *
+     * @return array of questions
+     */
+    public Question[] toArray() {
+        Question[] out = new Question[size()];
+        fill(root, out, 0);
+        return out;
+    }
+
+    /**
+     * Index of this version's questions ordered by difficulty.
+     * Built once on first request and shared by every caller afterwards.
+     *
+     * @return difficulty index
+     */
+    public DifficultyIndex difficultyIndex() {
+        DifficultyIndex index = difficultyIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = difficultyIndex;
+                if (index == null) difficultyIndex = index = new DifficultyIndex(this);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Builds a snapshot holding the given questions in order, at the given version.
+     */
+    static QuestionSnapshot of(long version, Question[] questions) {
+        Node root = null;
+        for (int i = 0; i < questions.length; i++) root = insert(root, i, questions[i]);
+        return new QuestionSnapshot(version, root);
+    }
+
+    /**
+     * Returns a new snapshot with the question appended at the end.
+     */
+    QuestionSnapshot withAdded(Question question) {
+        return new QuestionSnapshot(version + 1, insert(root, size(), question));
+    }
+
+    /**
+     * Returns a new snapshot with the question at {@code index} replaced.
+     */
+    QuestionSnapshot withUpdated(int index, Question question) {
+        return new QuestionSnapshot(version + 1, set(root, index, question));
+    }
+
+    /**
+     * Returns a new snapshot without the question at {@code index}.
+     */
+    QuestionSnapshot withRemoved(int index) {
+        Node[] lr = split(root, index);
+        Node[] mr = split(lr[1], 1);
+        return new QuestionSnapshot(version + 1, merge(lr[0], mr[1]));
+    }
+
+    // ---- persistent treap ----
+
+    /**
+     * Treap node. Nodes are never modified once built, which is what lets
+     * snapshots share them.
+     */
+    private static final class Node {
+        final Question value;
+        final int priority;
+        final Node left;
+        final Node right;
+        final int size;
+
+        Node(Question value, int priority, Node left, Node right) {
+            this.value = value;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    private static int size(Node n) {
+        return n == null ? 0 : n.size;
+    }
+
+    private static int fill(Node n, Question[] out, int pos) {
+        if (n == null) return pos;
+        pos = fill(n.left, out, pos);
+        out[pos++] = n.value;
+        return fill(n.right, out, pos);
+    }
+
+    private static Node set(Node n, int index, Question question) {
+        int leftSize = size(n.left);
+        if (index < leftSize) {
+            return new Node(n.value, n.priority, set(n.left, index, question), n.right);
+        }
+        if (index == leftSize) {
+            return new Node(question, n.priority, n.left, n.right);
+        }
+        return new Node(n.value, n.priority, n.left, set(n.right, index - leftSize - 1, question));
+    }
+
+    private static Node insert(Node root, int index, Question question) {
+        Node[] lr = split(root, index);
+        Node single = new Node(question, ThreadLocalRandom.current().nextInt(), null, null);
+        return merge(merge(lr[0], single), lr[1]);
+    }
+
+    /**
+     * Splits a tree into the first {@code k} elements and the rest,
+     * copying only the nodes along the split path.
+     */
+    private static Node[] split(Node n, int k) {
+        if (n == null) return new Node[]{null, null};
+        int leftSize = size(n.left);
+        if (k <= leftSize) {
+            Node[] parts = split(n.left, k);
+            return new Node[]{parts[0], new Node(n.value, n.priority, parts[1], n.right)};
+        }
+        Node[] parts = split(n.right, k - leftSize - 1);
+        return new Node[]{new Node(n.value, n.priority, n.left, parts[0]), parts[1]};
+    }
+
+    private static Node merge(Node a, Node b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            return new Node(a.value, a.priority, a.left, merge(a.right, b));
+        }
+        return new Node(b.value, b.priority, merge(a, b.left), b.right);
+    }
+}
@@ -0,0 +1,80 @@
+package quizService.repository;
+
+import quizService.util.LatencyHistogram;
+
+/**
+ * Repository of per-question response-time histograms.
+ * <p>
+ * Histograms are kept in an array indexed by {@link quizService.model.Question#getId()},
+ * so recording a time is an array read plus a few atomic increments and never allocates
+ * once the question has been seen. The array grows like the other repositories do.
+ * This repository follows the Singleton pattern.
+ * </p>
+ */
+public class ResponseTimeRepository {
+    /**
+     * Singleton instance of {@code ResponseTimeRepository}.
+     */
+    private static final ResponseTimeRepository instance = new ResponseTimeRepository();
+    /**
+     * Histograms by question id. Replaced by a larger copy when it grows.
+     */
+    private volatile LatencyHistogram[] byId = new LatencyHistogram[16];
+
+    /**
+     * Private constructor to enforce Singleton pattern.
+     */
+    private ResponseTimeRepository() {}
+
+    /**
+     * Returns the single instance of this repository.
+     *
+     * @return singleton {@code ResponseTimeRepository} instance
+     */
+    public static ResponseTimeRepository getInstance() {
+        return instance;
+    }
+
+    /**
+     * Records how long a student spent on a question.
+     *
+     * @param questionId id of the question
+     * @param nanos      time from display to answer, in nanoseconds
+     */
+    public void record(long questionId, long nanos) {
+        if (questionId <= 0 || questionId > Integer.MAX_VALUE - 8) return;
+        LatencyHistogram[] arr = byId;
+        LatencyHistogram h = questionId < arr.length ? arr[(int) questionId] : null;
+        if (h == null) h = create((int) questionId);
+        h.record(nanos);
+    }
+
+    /**
+     * Returns the response-time histogram of a question.
+     *
+     * @param questionId id of the question
+     * @return histogram, or null if no answer to that question was timed yet
+     */
+    public LatencyHistogram histogram(long questionId) {
+        LatencyHistogram[] arr = byId;
+        if (questionId <= 0 || questionId >= arr.length) return null;
+        return arr[(int) questionId];
+    }
+
+    /**
+     * Creates the histogram slot for a question, growing the array if needed.
+     */
+    private synchronized LatencyHistogram create(int id) {
+        LatencyHistogram[] arr = byId;
+        if (id >= arr.length) {
+            int newLength = arr.length;
+            while (newLength <= id) newLength *= 2;
+            LatencyHistogram[] newArr = new LatencyHistogram[newLength];
+            System.arraycopy(arr, 0, newArr, 0, arr.length);
+            arr = newArr;
+        }
+        if (arr[id] == null) arr[id] = new LatencyHistogram();
+        byId = arr;
+        return arr[id];
+    }
+}
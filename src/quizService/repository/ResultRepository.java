@@ -0,0 +1,281 @@
+package quizService.repository;
+
+import quizService.analytics.ResultTable;
+import quizService.archive.ResultArchiveWriter;
+import quizService.model.QuizResult;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Repository of graded quiz results.
+ * <p>
+ * Results are stored column by column in primitive arrays that grow like the
+ * other repositories do: one row per {@link QuizResult}, and one row per
+ * answered question in the answer columns. Compared with keeping result
+ * objects this needs a fraction of the memory and lets analytics scan only
+ * the columns a report uses. Rows are only ever appended, so a
+ * {@link #view()} taken at any time stays consistent while new rows arrive.
+ * This repository follows the Singleton pattern.
+ * </p>
+ */
+public class ResultRepository {
+    /**
+     * Quiz id used for results of the shared question bank.
+     */
+    public static final int DEFAULT_QUIZ = 0;
+    /**
+     * Singleton instance of {@code ResultRepository}.
+     */
+    private static final ResultRepository instance = new ResultRepository();
+
+    /**
+     * Small integer id per username, assigned on first result.
+     */
+    private final Map<String, Integer> userIds = new HashMap<>();
+
+    private int[] userId = new int[16];
+    private int[] quizId = new int[16];
+    private byte[] role = new byte[16];
+    private int[] correct = new int[16];
+    private int[] total = new int[16];
+    private double[] score = new double[16];
+    private long[] finishedAt = new long[16];
+    /**
+     * Current number of stored results.
+     */
+    private int count = 0;
+
+    private int[] answerRow = new int[64];
+    private long[] answerQuestion = new long[64];
+    private int[] answerChoice = new int[64];
+    private boolean[] answerCorrect = new boolean[64];
+    /**
+     * Current number of stored answers.
+     */
+    private int answerCount = 0;
+
+    /**
+     * Results and answers already written by {@link #archive(ResultArchiveWriter)}.
+     */
+    private int archivedCount = 0;
+    private int archivedAnswers = 0;
+
+    /**
+     * Private constructor to enforce Singleton pattern.
+     */
+    private ResultRepository() {}
+
+    /**
+     * Creates an empty repository separate from the shared one, e.g. to restore a backup into for checking.
+     *
+     * @return new empty repository
+     */
+    public static ResultRepository newRepository() {
+        return new ResultRepository();
+    }
+
+    /**
+     * Returns the single instance of this repository.
+     *
+     * @return singleton {@code ResultRepository} instance
+     */
+    public static ResultRepository getInstance() {
+        return instance;
+    }
+
+    /**
+     * Stores a graded quiz of the shared bank together with its per-question outcome.
+     *
+     * @param result      graded result
+     * @param questionIds ids of the asked questions, in order
+     * @param choices     chosen answer (1-based) for each asked question
+     * @param correctness whether each asked question was answered correctly
+     * @param answered    amount of valid entries in the answer arrays
+     */
+    public void add(QuizResult result, long[] questionIds, int[] choices, boolean[] correctness, int answered) {
+        add(DEFAULT_QUIZ, result, questionIds, choices, correctness, answered);
+    }
+
+    /**
+     * Stores a graded quiz together with its per-question outcome.
+     *
+     * @param quiz        id of the quiz
+     * @param result      graded result
+     * @param questionIds ids of the asked questions, in order
+     * @param choices     chosen answer (1-based) for each asked question
+     * @param correctness whether each asked question was answered correctly
+     * @param answered    amount of valid entries in the answer arrays
+     */
+    public synchronized void add(int quiz, QuizResult result, long[] questionIds, int[] choices,
+                                 boolean[] correctness, int answered) {
+        ensureCapacity(1);
+        int row = count;
+        userId[row] = userIds.computeIfAbsent(result.user().username(), u -> userIds.size());
+        quizId[row] = quiz;
+        role[row] = (byte) result.user().role().ordinal();
+        correct[row] = result.correctAnswers();
+        total[row] = result.totalQuestions();
+        score[row] = result.score();
+        finishedAt[row] = System.currentTimeMillis();
+
+        ensureAnswerCapacity(answered);
+        for (int i = 0; i < answered; i++) {
+            answerRow[answerCount] = row;
+            answerQuestion[answerCount] = questionIds[i];
+            answerChoice[answerCount] = choices[i];
+            answerCorrect[answerCount] = correctness[i];
+            answerCount++;
+        }
+        count++;
+    }
+
+    /**
+     * @return amount of stored results
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Read-only columnar view of all results stored so far.
+     * The view does not copy the columns.
+     *
+     * @return view for analytics
+     */
+    public synchronized ResultTable view() {
+        return new ResultTable(userId, quizId, role, correct, total, score, finishedAt, count,
+                answerRow, answerQuestion, answerChoice, answerCorrect, answerCount);
+    }
+
+    /**
+     * Usernames by the small integer ids used in the {@code userId} column.
+     *
+     * @return array whose element {@code i} is the username with id {@code i}
+     */
+    public synchronized String[] usernames() {
+        String[] names = new String[userIds.size()];
+        for (Map.Entry<String, Integer> e : userIds.entrySet()) names[e.getValue()] = e.getKey();
+        return names;
+    }
+
+    /**
+     * Fills this repository from a table, e.g. when a backup is restored.
+     * Rows and answers are copied column by column; user ids keep their meaning.
+     *
+     * @param table     results to copy
+     * @param usernames usernames by user id, as returned by {@link #usernames()}
+     * @return false if the repository already holds results
+     */
+    public synchronized boolean restore(ResultTable table, String[] usernames) {
+        if (count > 0) {
+            System.out.println("Result repository is not empty, cannot restore into it.");
+            return false;
+        }
+        for (int i = 0; i < usernames.length; i++) userIds.put(usernames[i], i);
+        int n = table.size();
+        ensureCapacity(n);
+        System.arraycopy(table.userId(), 0, userId, 0, n);
+        System.arraycopy(table.quizId(), 0, quizId, 0, n);
+        System.arraycopy(table.role(), 0, role, 0, n);
+        System.arraycopy(table.correct(), 0, correct, 0, n);
+        System.arraycopy(table.total(), 0, total, 0, n);
+        System.arraycopy(table.score(), 0, score, 0, n);
+        System.arraycopy(table.finishedAt(), 0, finishedAt, 0, n);
+        int a = table.answerCount();
+        ensureAnswerCapacity(a);
+        System.arraycopy(table.answerResult(), 0, answerRow, 0, a);
+        System.arraycopy(table.answerQuestion(), 0, answerQuestion, 0, a);
+        System.arraycopy(table.answerChoice(), 0, answerChoice, 0, a);
+        System.arraycopy(table.answerCorrect(), 0, answerCorrect, 0, a);
+        count = n;
+        answerCount = a;
+        return true;
+    }
+
+    /**
+     * Appends every result stored since the previous call to an archive file.
+     *
+     * @param writer open archive
+     * @return amount of results written
+     * @throws IOException if the archive cannot be written
+     */
+    public synchronized int archive(ResultArchiveWriter writer) throws IOException {
+        int written = 0;
+        long[] ids = new long[16];
+        int[] choices = new int[16];
+        boolean[] flags = new boolean[16];
+        while (archivedCount < count) {
+            int row = archivedCount;
+            int from = archivedAnswers;
+            int to = from;
+            while (to < answerCount && answerRow[to] == row) to++;
+            int n = to - from;
+            if (ids.length < n) {
+                ids = new long[n];
+                choices = new int[n];
+                flags = new boolean[n];
+            }
+            System.arraycopy(answerQuestion, from, ids, 0, n);
+            System.arraycopy(answerChoice, from, choices, 0, n);
+            System.arraycopy(answerCorrect, from, flags, 0, n);
+            writer.append(userId[row], role[row], quizId[row], correct[row], total[row], score[row],
+                    finishedAt[row], ids, choices, flags, n);
+            archivedCount++;
+            archivedAnswers = to;
+            written++;
+        }
+        writer.flush();
+        return written;
+    }
+
+    /**
+     * Grows the result columns so that {@code extra} more rows fit.
+     */
+    private void ensureCapacity(int extra) {
+        if (count + extra <= userId.length) return;
+        int newLength = Math.max(userId.length * 2, count + extra);
+        int[] newUserId = new int[newLength];
+        int[] newQuizId = new int[newLength];
+        byte[] newRole = new byte[newLength];
+        int[] newCorrect = new int[newLength];
+        int[] newTotal = new int[newLength];
+        double[] newScore = new double[newLength];
+        long[] newFinishedAt = new long[newLength];
+        System.arraycopy(userId, 0, newUserId, 0, count);
+        System.arraycopy(quizId, 0, newQuizId, 0, count);
+        System.arraycopy(role, 0, newRole, 0, count);
+        System.arraycopy(correct, 0, newCorrect, 0, count);
+        System.arraycopy(total, 0, newTotal, 0, count);
+        System.arraycopy(score, 0, newScore, 0, count);
+        System.arraycopy(finishedAt, 0, newFinishedAt, 0, count);
+        userId = newUserId;
+        quizId = newQuizId;
+        role = newRole;
+        correct = newCorrect;
+        total = newTotal;
+        score = newScore;
+        finishedAt = newFinishedAt;
+    }
+
+    /**
+     * Grows the answer columns so that {@code extra} more rows fit.
+     */
+    private void ensureAnswerCapacity(int extra) {
+        if (answerCount + extra <= answerRow.length) return;
+        int newLength = Math.max(answerRow.length * 2, answerCount + extra);
+        int[] newRow = new int[newLength];
+        long[] newQuestion = new long[newLength];
+        int[] newChoice = new int[newLength];
+        boolean[] newCorrect = new boolean[newLength];
+        System.arraycopy(answerRow, 0, newRow, 0, answerCount);
+        System.arraycopy(answerQuestion, 0, newQuestion, 0, answerCount);
+        System.arraycopy(answerChoice, 0, newChoice, 0, answerCount);
+        System.arraycopy(answerCorrect, 0, newCorrect, 0, answerCount);
+        answerRow = newRow;
+        answerQuestion = newQuestion;
+        answerChoice = newChoice;
+        answerCorrect = newCorrect;
+    }
+}
@@ -1,21 +1,56 @@
 package quizService.repository;
 
+import quizService.jdbc.JdbcStorage;
 import quizService.model.User;
+import quizService.monitoring.RepositoryMutationEvent;
+import quizService.uml.UserStore;
+import quizService.util.BloomFilter;
+import quizService.util.PasswordHasher;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Repository for storing and managing {@link User} objects.
  * <p>
- * Provides CRUD operations for users without using collections.
+ * Provides CRUD operations for users.
  * Uses an array-based storage that grows dynamically when needed.
  * This repository follows the Singleton pattern.
  * </p>
+ * <p>
+ * A {@link BloomFilter} of all stored usernames is kept alongside the array.
+ * Lookups of a username the filter has never seen, the common case when many
+ * new students register, return at once. Other lookups go to a concurrent
+ * map from username to user, which is read without the repository lock and
+ * changed together with the array under it.
+ * </p>
+ * <p>
+ * With a {@link UserStore}, the users are loaded from it page by page when
+ * the repository is created and every change is written through to it before
+ * it becomes visible in memory. The singleton uses the database configured
+ * for {@link JdbcStorage}, if any.
+ * </p>
  */
 public class UserRepository {
 
     /**
-     * Singleton instance of {@code UserRepository}.
+     * Singleton instance of {@code UserRepository}, created on first use
+     * so a failing database surfaces there instead of in class initialization.
      */
-    private static final UserRepository instance = new UserRepository();
+    private static UserRepository instance;
+
+    /**
+     * Users read from the store per query while loading.
+     */
+    private static final int LOAD_PAGE = 1000;
+
+    /**
+     * Durable storage changes are written through to, or null to keep users in memory only.
+     */
+    private final UserStore store;
 
     /**
      * Internal array of users.
@@ -27,12 +62,68 @@ public class UserRepository {
      */
     private int count = 0;
 
+    /**
+     * Stored users by username, the same users as in {@link #users}.
+     */
+    private final Map<String, User> byUsername = new ConcurrentHashMap<>();
+
+    /**
+     * Usernames the filter is sized for unless {@link #configureFilter(int, double)} is called.
+     */
+    public static final int DEFAULT_FILTER_USERS = 100_000;
+    /**
+     * Default false-positive probability of the username filter.
+     */
+    public static final double DEFAULT_FILTER_FPP = 0.01;
+
+    /**
+     * Filter of every username ever stored.
+     */
+    private volatile BloomFilter usernames = new BloomFilter(DEFAULT_FILTER_USERS, DEFAULT_FILTER_FPP);
+    /**
+     * Usernames the current filter is sized for.
+     */
+    private int filterUsers = DEFAULT_FILTER_USERS;
+    /**
+     * False-positive probability the current filter is sized for.
+     */
+    private double filterFpp = DEFAULT_FILTER_FPP;
+    /**
+     * Lookups answered by the filter alone.
+     */
+    private final LongAdder filterSkips = new LongAdder();
+    /**
+     * Lookups the filter let through that found no user.
+     */
+    private final LongAdder filterFalsePositives = new LongAdder();
+
+    /**
+     * Private constructor to enforce Singleton pattern.
+     */
+    private UserRepository(UserStore store) {
+        this.store = store;
+        if (store != null) load();
+    }
+
+    /**
+     * Creates a repository separate from the shared one, e.g. to compare storage backends.
+     *
+     * @param store storage to load from and write through to, or null to keep users in memory only
+     * @return new repository holding the stored users
+     * @throws IllegalStateException if the store cannot be read completely
+     */
+    public static UserRepository open(UserStore store) {
+        return new UserRepository(store);
+    }
+
     /**
      * Returns the single instance of this repository.
      *
      * @return singleton {@code UserRepository} instance
+     * @throws IllegalStateException if the configured database cannot be opened or read
      */
     public synchronized static UserRepository getInstance() {
+        if (instance == null) instance = new UserRepository(JdbcStorage.configuredUsers());
         return instance;
     }
 
@@ -49,33 +140,143 @@ public class UserRepository {
 
     /**
      * Checks if a user exists with given username and password.
+     * The password is checked against the stored hash on the calling thread,
+     * outside the repository lock;
+     * logins go through {@link quizService.service.CredentialService} instead.
      *
      * @param username username to check
      * @param password password to check
      * @return true if such user exists, false otherwise
      */
     public boolean exists(String username, String password) {
-        for (int i = 0; i < count; i++) {
-            User u = users[i];
-            if (u != null && u.username().equals(username) && u.password().equals(password)) {
-                return true;
-            }
-        }
-        return false;
+        User u = findByUsername(username);
+        return u != null && PasswordHasher.getInstance().verify(password, u.password());
+    }
+
+    /**
+     * Checks if any user has the given username, whatever the password.
+     *
+     * @param username username to check
+     * @return true if the username is taken
+     */
+    public boolean usernameTaken(String username) {
+        return findByUsername(username) != null;
     }
 
     /**
      * Adds a new user to the repository.
+     * The check and the insert happen under one lock, so of two concurrent
+     * registrations of the same username exactly one succeeds.
+     * If the user would overfill the username filter, the filter is rebuilt
+     * twice as large first.
      *
      * @param user {@link User} to add
      * @return true if added successfully,
-     *         false if a user with same username and password already exists
+     *         false if a user with the same username already exists
      */
     public boolean add(User user) {
-        if (exists(user.username(), user.password())) return false;
-        ensureCapacity();
-        users[count++] = user;
-        return true;
+        RepositoryMutationEvent event = new RepositoryMutationEvent();
+        event.begin();
+        synchronized (this) {
+            event.locked();
+            if (usernameTaken(user.username()) || (store != null && !store.insert(user))) {
+                event.finish("users", "add", user.username(), count, false);
+                return false;
+            }
+            if (count + 1 > filterUsers) configureFilter(Math.max(filterUsers * 2, count + 1), filterFpp);
+            usernames.put(user.username());
+            ensureCapacity();
+            users[count++] = user;
+            byUsername.put(user.username(), user);
+            event.finish("users", "add", user.username(), count, true);
+            return true;
+        }
+    }
+
+    /**
+     * Adds many users under one lock, each with the same put-if-absent check as {@link #add(User)},
+     * also against earlier users of the same batch.
+     * If the batch would overfill the username filter, the filter is rebuilt
+     * twice as large first. Usernames the filter cannot rule out are looked up
+     * by username. New users are written to the store as one batch.
+     *
+     * @param batch users to add; null entries are skipped
+     * @param n     amount of valid entries in {@code batch}
+     * @return for each entry, whether it was added
+     */
+    public boolean[] addAll(User[] batch, int n) {
+        RepositoryMutationEvent event = new RepositoryMutationEvent();
+        event.begin();
+        synchronized (this) {
+            event.locked();
+            if (count + n > filterUsers) configureFilter(Math.max(filterUsers * 2, count + n), filterFpp);
+            User[] fresh = new User[n];
+            Set<String> batchNames = new HashSet<>(n * 2);
+            for (int i = 0; i < n; i++) {
+                User user = batch[i];
+                if (user == null || !batchNames.add(user.username())) continue;
+                if (!definitelyAbsent(user.username()) && byUsername.containsKey(user.username())) continue;
+                fresh[i] = user;
+            }
+            boolean[] added = store != null ? store.insertAll(fresh, n) : new boolean[n];
+            for (int i = 0; i < n; i++) {
+                if (fresh[i] == null || (store != null && !added[i])) {
+                    added[i] = false;
+                    continue;
+                }
+                usernames.put(fresh[i].username());
+                ensureCapacity();
+                users[count++] = fresh[i];
+                byUsername.put(fresh[i].username(), fresh[i]);
+                added[i] = true;
+            }
+            event.finish("users", "addAll", n + " users", count, true);
+            return added;
+        }
+    }
+
+    /**
+     * Replaces the password of a user, e.g. a legacy plaintext password by its hash.
+     * Nothing changes if the user's password is no longer {@code expected},
+     * so a concurrent change is never overwritten.
+     *
+     * @param username    username of the user
+     * @param expected    password value the user is stored with
+     * @param newPassword password value to store instead
+     * @return the updated user, or null if the user is gone, has another password or the store failed
+     */
+    public User replacePassword(String username, String expected, String newPassword) {
+        RepositoryMutationEvent event = new RepositoryMutationEvent();
+        event.begin();
+        synchronized (this) {
+            event.locked();
+            User u = username == null ? null : byUsername.get(username);
+            if (u != null && u.password().equals(expected)
+                    && (store == null || store.replacePassword(username, expected, newPassword))) {
+                User updated = new User(u.role(), username, newPassword);
+                for (int i = 0; i < count; i++) {
+                    if (users[i] == u) users[i] = updated;
+                }
+                byUsername.put(username, updated);
+                event.finish("users", "replacePassword", username, count, true);
+                return updated;
+            }
+            event.finish("users", "replacePassword", username, count, false);
+            return null;
+        }
+    }
+
+    /**
+     * Counts the users still stored with a legacy plaintext password.
+     *
+     * @return amount of users whose password is not hashed yet
+     */
+    public synchronized int legacyPasswords() {
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (PasswordHasher.needsRehash(users[i].password())) n++;
+        }
+        return n;
     }
 
     /**
@@ -85,41 +286,119 @@ public class UserRepository {
      * @return true if removed successfully, false if not found
      */
     public boolean remove(String username) {
-        for (int i = 0; i < count; i++) {
-            if (users[i] != null && users[i].username().equals(username)) {
-                for (int j = i; j < count -1 ; j++) {
-                    users[j] = users[j + 1];
+        RepositoryMutationEvent event = new RepositoryMutationEvent();
+        event.begin();
+        synchronized (this) {
+            event.locked();
+            for (int i = 0; i < count; i++) {
+                if (users[i] != null && users[i].username().equals(username)) {
+                    if (store != null && !store.delete(username)) {
+                        event.finish("users", "remove", username, count, false);
+                        return false;
+                    }
+                    for (int j = i; j < count -1 ; j++) {
+                        users[j] = users[j + 1];
+                    }
+                    users[--count] = null;
+                    byUsername.remove(username);
+                    event.finish("users", "remove", username, count, true);
+                    return true;
                 }
-                users[--count] = null;
-                return true;
             }
+            event.finish("users", "remove", username, count, false);
+            return false;
         }
-        return false;
     }
 
     /**
-     * Finds a user by username.
+     * Finds a user by username, without taking the repository lock.
      *
      * @param username username of the user
      * @return {@link User} if found, otherwise null
      */
     public User findByUsername(String username) {
-        for (int i = 0; i < count; i++) {
-            if (users[i] != null && users[i].username().equals(username)) {
-                return users[i];
-            }
-        }
-        return null;
+        if (username == null || definitelyAbsent(username)) return null;
+        User found = byUsername.get(username);
+        if (found == null) filterFalsePositives.increment();
+        return found;
     }
 
     /**
-     * Returns all users as a new array copy.
+     * Returns all users as a new array copy, taken under the repository lock
+     * so it never mixes states before and after a concurrent change.
      *
      * @return copy of stored users
      */
-    public User[] getAll() {
+    public synchronized User[] getAll() {
         User[] copy = new User[count];
         System.arraycopy(users, 0, copy, 0, count);
         return copy;
     }
+
+    /**
+     * Replaces the username filter with one sized for a different load
+     * and fills it with the stored usernames.
+     *
+     * @param expectedUsers amount of users the filter is sized for
+     * @param fpp           wanted false-positive probability, in (0, 1)
+     */
+    public synchronized void configureFilter(int expectedUsers, double fpp) {
+        BloomFilter filter = new BloomFilter(expectedUsers, fpp);
+        for (int i = 0; i < count; i++) filter.put(users[i].username());
+        usernames = filter;
+        filterUsers = expectedUsers;
+        filterFpp = fpp;
+        filterSkips.reset();
+        filterFalsePositives.reset();
+    }
+
+    /**
+     * Describes the username filter: size, load, false-positive rate
+     * and how many lookups it saved.
+     *
+     * @return one-line report
+     */
+    public String filterReport() {
+        long skipped = filterSkips.sum();
+        long falsePositives = filterFalsePositives.sum();
+        return String.format("Username filter: %s; %,d lookups skipped, %,d false positives",
+                usernames, skipped, falsePositives);
+    }
+
+    /**
+     * Reads all users from the store, a page at a time, growing the filter if they would overfill it.
+     * A page that cannot be read fails the whole load, so the repository never starts half filled.
+     */
+    private void load() {
+        String after = null;
+        User[] page;
+        while ((page = page(after)).length > 0) {
+            for (User user : page) {
+                ensureCapacity();
+                users[count++] = user;
+                byUsername.put(user.username(), user);
+            }
+            after = page[page.length - 1].username();
+        }
+        if (count > filterUsers / 2) {
+            configureFilter(Math.max(DEFAULT_FILTER_USERS, count * 2), filterFpp);
+        } else {
+            for (int i = 0; i < count; i++) usernames.put(users[i].username());
+        }
+    }
+
+    private User[] page(String after) {
+        User[] page = store.page(after, LOAD_PAGE);
+        if (page == null) throw new IllegalStateException("Storage failed: cannot load users after " + after);
+        return page;
+    }
+
+    /**
+     * Asks the filter first; true means no scan is needed.
+     */
+    private boolean definitelyAbsent(String username) {
+        if (username == null || usernames.mightContain(username)) return false;
+        filterSkips.increment();
+        return true;
+    }
 }
@@ -0,0 +1,238 @@
+package quizService.service;
+
+import quizService.audit.AuditEventType;
+import quizService.audit.AuditLog;
+import quizService.model.Question;
+import quizService.model.QuizResult;
+import quizService.model.User;
+import quizService.repository.DifficultyIndex;
+import quizService.repository.QuestionRepository;
+import quizService.repository.QuestionSnapshot;
+import quizService.repository.ResultRepository;
+
+/**
+ * One run of a computer-adaptive quiz.
+ * <p>
+ * Ability is estimated with the Rasch model: the chance that a student of
+ * ability {@code θ} answers a question of difficulty {@code b} correctly is
+ * {@code 1 / (1 + e^(b - θ))}. The estimate is the mean of a posterior kept on a
+ * fixed grid (standard normal prior), updated after every answer. The next
+ * question is the unused one whose difficulty is closest to the current estimate,
+ * which is where a question tells the most about the student. The quiz stops
+ * when the standard error drops below the target or the question limit is reached.
+ * </p>
+ * <p>
+ * Answers are graded like a regular quiz: the selection mask is scored by the
+ * service's {@link ScoringRule}, and a fractional credit {@code c} weighs the
+ * update as {@code c} correct and {@code 1 - c} wrong answers.
+ * </p>
+ * <p>
+ * Sessions are created by {@link QuizService#startAdaptiveQuiz(User, int, double)}
+ * and pin their bank version until {@link #finish()} or {@link #cancel()} is called.
+ * </p>
+ */
+public class AdaptiveQuizSession {
+    /**
+     * Ability grid: {@value #GRID_POINTS} points from -4 to 4.
+     */
+    private static final int GRID_POINTS = 81;
+    private static final double GRID_MIN = -4.0;
+    private static final double GRID_STEP = 8.0 / (GRID_POINTS - 1);
+
+    private final QuestionRepository questionRepository;
+    private final QuestionSnapshot snapshot;
+    private final int quizId;
+    private final DifficultyIndex index;
+    private final User user;
+    private final int maxQuestions;
+    private final double targetError;
+    private final ScoringRule rule;
+    /**
+     * Log of the posterior weight of every grid point.
+     */
+    private final double[] logPosterior = new double[GRID_POINTS];
+    /**
+     * Snapshot positions already asked.
+     */
+    private final boolean[] used;
+    /**
+     * Ids of asked questions, the chosen answers and their outcome, in asking order.
+     */
+    private final long[] askedIds;
+    private final int[] askedChoices;
+    private final boolean[] askedCorrect;
+
+    private double ability;
+    private double standardError;
+    private int asked;
+    private int correct;
+    private double score;
+    /**
+     * Snapshot position of the question waiting for an answer, or -1.
+     */
+    private int pending = -1;
+    private boolean finished;
+
+    /**
+     * Creates a session over a pinned bank version.
+     *
+     * @param questionRepository repository the snapshot was pinned from
+     * @param snapshot           pinned bank version
+     * @param quizId             quiz the result is stored under
+     * @param user               student taking the quiz
+     * @param maxQuestions       upper bound on asked questions
+     * @param targetError        stop once the standard error is at or below this value
+     * @param rule               how a selection is scored
+     */
+    AdaptiveQuizSession(QuestionRepository questionRepository, QuestionSnapshot snapshot, int quizId,
+                        User user, int maxQuestions, double targetError, ScoringRule rule) {
+        this.questionRepository = questionRepository;
+        this.snapshot = snapshot;
+        this.quizId = quizId;
+        this.index = snapshot.difficultyIndex();
+        this.user = user;
+        this.maxQuestions = Math.min(maxQuestions, snapshot.size());
+        this.targetError = targetError;
+        this.rule = rule;
+        this.used = new boolean[snapshot.size()];
+        this.askedIds = new long[this.maxQuestions];
+        this.askedChoices = new int[this.maxQuestions];
+        this.askedCorrect = new boolean[this.maxQuestions];
+        for (int i = 0; i < GRID_POINTS; i++) {
+            double theta = GRID_MIN + i * GRID_STEP;
+            logPosterior[i] = -theta * theta / 2;
+        }
+        updateEstimate();
+    }
+
+    /**
+     * Picks the next question.
+     *
+     * @return question to show, or null when the quiz is over
+     */
+    public Question nextQuestion() {
+        if (finished || asked >= maxQuestions || (asked > 0 && standardError <= targetError)) {
+            return null;
+        }
+        if (pending < 0) {
+            pending = index.nearest(ability, used);
+            if (pending < 0) return null;
+        }
+        return snapshot.get(pending);
+    }
+
+    /**
+     * Grades a single pick for the question returned by {@link #nextQuestion()}.
+     *
+     * @param chosenIndex chosen answer (1-based)
+     * @return true if the answer earned full credit
+     * @see #select(int)
+     */
+    public boolean answer(int chosenIndex) {
+        return select(ScoringRule.selection(chosenIndex)) >= 1;
+    }
+
+    /**
+     * Grades the selected answers for the question returned by {@link #nextQuestion()}
+     * and updates the ability estimate.
+     *
+     * @param selection selected answers as a bit mask, see {@link ScoringRule#selection(int...)}
+     * @return credit earned by the selection, 0 to 1, or -1 when no question was waiting
+     */
+    public double select(int selection) {
+        if (pending < 0) return -1;
+        Question q = snapshot.get(pending);
+        used[pending] = true;
+        pending = -1;
+        asked++;
+
+        int options = q.getOptionMask();
+        int selected = selection & options;
+        double credit = rule.credit(selected, q.getCorrectMask(), options);
+        boolean isCorrect = credit >= 1;
+        if (isCorrect) correct++;
+        score += credit;
+        askedIds[asked - 1] = q.getId();
+        askedChoices[asked - 1] = Integer.bitCount(selected) == 1
+                ? Integer.numberOfTrailingZeros(selected) + 1 : -selected;
+        askedCorrect[asked - 1] = isCorrect;
+
+        double b = q.getDifficulty();
+        for (int i = 0; i < GRID_POINTS; i++) {
+            double p = 1.0 / (1.0 + Math.exp(b - (GRID_MIN + i * GRID_STEP)));
+            // skip a zero weight so that 0 * log(0) cannot turn the posterior into NaN
+            if (credit > 0) logPosterior[i] += credit * Math.log(p);
+            if (credit < 1) logPosterior[i] += (1.0 - credit) * Math.log(1.0 - p);
+        }
+        updateEstimate();
+        return credit;
+    }
+
+    /**
+     * Ends the session, releases the pinned bank version and returns the result.
+     * The result is stored for analytics the first time the session is finished.
+     *
+     * @return {@link QuizResult} with the ability estimate and its standard error
+     */
+    public QuizResult finish() {
+        QuizResult result = new QuizResult(user, correct, asked, ability, standardError, score);
+        if (!finished) {
+            finished = true;
+            questionRepository.release(snapshot);
+            if (asked > 0) ResultRepository.getInstance().add(quizId, result, askedIds, askedChoices, askedCorrect, asked);
+            AuditLog.getInstance().publish(AuditEventType.QUIZ_SUBMITTED, user.username(), true, correct, asked);
+        }
+        return result;
+    }
+
+    /**
+     * Ends a session that never asked a question, e.g. on an empty bank, and
+     * releases the pinned bank version. Nothing is stored or audited.
+     * Does nothing once the session is finished.
+     */
+    public void cancel() {
+        if (finished) return;
+        finished = true;
+        questionRepository.release(snapshot);
+    }
+
+    /**
+     * @return current ability estimate
+     */
+    public double getAbility() {
+        return ability;
+    }
+
+    /**
+     * @return standard error of the current ability estimate
+     */
+    public double getStandardError() {
+        return standardError;
+    }
+
+    /**
+     * @return amount of questions answered so far
+     */
+    public int getAsked() {
+        return asked;
+    }
+
+    /**
+     * Recomputes posterior mean and standard deviation from the grid.
+     */
+    private void updateEstimate() {
+        double maxLog = Double.NEGATIVE_INFINITY;
+        for (double l : logPosterior) maxLog = Math.max(maxLog, l);
+        double sum = 0, mean = 0, sq = 0;
+        for (int i = 0; i < GRID_POINTS; i++) {
+            double theta = GRID_MIN + i * GRID_STEP;
+            double w = Math.exp(logPosterior[i] - maxLog);
+            sum += w;
+            mean += w * theta;
+            sq += w * theta * theta;
+        }
+        mean /= sum;
+        ability = mean;
+        standardError = Math.sqrt(Math.max(0, sq / sum - mean * mean));
+    }
+}
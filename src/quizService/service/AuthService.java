@@ -13,9 +13,25 @@ import quizService.model.User;
 public class AuthService {
 
     /**
-     * Reference to {@link UserService} singleton.
+     * Reference to {@link UserService}, by default the singleton.
      */
-private static final UserService userService = UserService.getInstance();
+    private final UserService userService;
+
+    /**
+     * Creates a façade over the shared {@link UserService}.
+     */
+    public AuthService() {
+        this(UserService.getInstance());
+    }
+
+    /**
+     * Creates a façade over a separate user service, e.g. for a load simulation.
+     *
+     * @param userService service registrations and logins are passed to
+     */
+    public AuthService(UserService userService) {
+        this.userService = userService;
+    }
 
     /**
      * Registers a new user in the system.
@@ -0,0 +1,289 @@
+package quizService.service;
+
+import quizService.model.User;
+import quizService.util.PasswordHasher;
+import quizService.util.TinyLfuCache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hashes and checks passwords on a bounded pool of worker threads.
+ * <p>
+ * PBKDF2 takes tens of milliseconds of CPU per password on purpose. Run on
+ * request threads, a login storm would occupy all of them with hashing. Here
+ * at most one hash per core runs at a time; further requests wait in a queue
+ * of fixed length, and requests beyond that are turned away at once instead
+ * of piling up. A caller waits at most {@value #WAIT_MILLIS} ms for its turn.
+ * </p>
+ * <p>
+ * Successful verifications are remembered for {@value #CACHE_TTL_MILLIS} ms,
+ * so a student logging in again shortly after does not pay for PBKDF2 again.
+ * The cache never holds a password, only a SHA-256 of it keyed with a random
+ * per-process secret, next to the stored hash it was checked against. A
+ * changed password therefore never matches an old entry, and failed attempts
+ * are never cached.
+ * This service follows the Singleton pattern.
+ * </p>
+ */
+public class CredentialService implements AutoCloseable {
+    /**
+     * Hash requests that may wait for a worker per core; at the default iteration
+     * count a full queue is worked off within {@link #WAIT_MILLIS}.
+     */
+    public static final int QUEUE_PER_CORE = 16;
+    /**
+     * Longest time a caller waits for its hash to be computed.
+     */
+    public static final long WAIT_MILLIS = 5_000;
+    /**
+     * Lifetime of a cached successful verification.
+     */
+    public static final long CACHE_TTL_MILLIS = 5 * 60_000;
+    /**
+     * Most cached verifications.
+     */
+    public static final int CACHE_ENTRIES = 1 << 16;
+    /**
+     * Pause before a batch retries a hash the full queue turned away.
+     */
+    private static final long BATCH_RETRY_MILLIS = 10;
+
+    private static final CredentialService instance = new CredentialService(PasswordHasher.getInstance(),
+            Runtime.getRuntime().availableProcessors(), CACHE_TTL_MILLIS);
+
+    /**
+     * A successful verification: the stored hash and a keyed digest of the password.
+     */
+    private record Verified(String stored, byte[] digest, long expiresAt) {}
+
+    private final PasswordHasher hasher;
+    private final ThreadPoolExecutor pool;
+    private final TinyLfuCache<String, Verified> verified = new TinyLfuCache<>(CACHE_ENTRIES);
+    private final long cacheTtlMillis;
+    private final byte[] cacheKey = new byte[32];
+
+    private final LongAdder hashes = new LongAdder();
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder rehashed = new LongAdder();
+
+    /**
+     * Creates a service with its own pool, e.g. for benchmarks.
+     *
+     * @param hasher         hasher of new passwords
+     * @param workers        threads computing hashes
+     * @param cacheTtlMillis lifetime of a cached successful verification, 0 to disable the cache
+     */
+    public CredentialService(PasswordHasher hasher, int workers, long cacheTtlMillis) {
+        this.hasher = hasher;
+        this.cacheTtlMillis = cacheTtlMillis;
+        int threads = Math.max(1, workers);
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUE_PER_CORE), r -> {
+                    Thread t = new Thread(r, "password-hasher-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        new SecureRandom().nextBytes(cacheKey);
+    }
+
+    /**
+     * Returns the single instance of this service.
+     *
+     * @return singleton {@code CredentialService} instance
+     */
+    public static CredentialService getInstance() {
+        return instance;
+    }
+
+    /**
+     * Hashes a new password on the pool.
+     *
+     * @param password password to hash
+     * @return encoded hash, or null if the pool is overloaded
+     */
+    public String hash(String password) {
+        String hash = run(() -> hasher.hash(password));
+        if (hash != null) hashes.increment();
+        return hash;
+    }
+
+    /**
+     * Hashes many passwords, e.g. those of a roster, on the pool.
+     * <p>
+     * The batch keeps at most one hash per worker submitted at a time, so it
+     * never fills the queue: logins arriving meanwhile wait for at most one
+     * running hash instead of the whole batch. When logins have filled the
+     * queue the batch waits and retries instead of failing. The batch takes as
+     * long as its hashes take on the pool's workers and is not bounded by
+     * {@value #WAIT_MILLIS} ms.
+     * </p>
+     *
+     * @param passwords passwords to hash; null entries are skipped
+     * @return encoded hashes by index, null where the password was null or hashing failed
+     */
+    public String[] hashAll(String[] passwords) {
+        String[] results = new String[passwords.length];
+        int workers = pool.getMaximumPoolSize();
+        Semaphore inFlight = new Semaphore(workers);
+        try {
+            for (int i = 0; i < passwords.length; i++) {
+                if (passwords[i] == null) continue;
+                inFlight.acquire();
+                int k = i;
+                Runnable task = () -> {
+                    try {
+                        results[k] = hasher.hash(passwords[k]);
+                        hashes.increment();
+                    } catch (RuntimeException e) {
+                        System.out.println("Password hashing failed: " + e.getMessage());
+                    } finally {
+                        inFlight.release();
+                    }
+                };
+                while (!pool.isShutdown()) {
+                    try {
+                        pool.execute(task);
+                        break;
+                    } catch (RejectedExecutionException e) {
+                        Thread.sleep(BATCH_RETRY_MILLIS);
+                    }
+                }
+                if (pool.isShutdown()) break;
+            }
+            // the workers' writes are visible once all permits are back
+            inFlight.acquire(workers);
+            inFlight.release(workers);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return results;
+    }
+
+    /**
+     * Checks a password of a stored user, from the cache if it was verified recently.
+     *
+     * @param user     stored user
+     * @param password password to check
+     * @return true if it matches; false if it does not or the pool is overloaded
+     */
+    public boolean verify(User user, String password) {
+        if (user == null || password == null) return false;
+        byte[] digest = cacheTtlMillis > 0 ? digest(password) : null;
+        if (digest != null) {
+            Verified entry = verified.get(user.username());
+            if (entry != null && entry.expiresAt() > System.currentTimeMillis()
+                    && entry.stored().equals(user.password()) && MessageDigest.isEqual(entry.digest(), digest)) {
+                cacheHits.increment();
+                return true;
+            }
+        }
+        Boolean ok = run(() -> hasher.verify(password, user.password()));
+        if (ok == null) return false;
+        checks.increment();
+        if (ok && digest != null) {
+            verified.put(user.username(), new Verified(user.password(), digest, System.currentTimeMillis() + cacheTtlMillis));
+        }
+        return ok;
+    }
+
+    /**
+     * Hashes the password of a user still stored with a legacy plaintext password.
+     * Call it only after {@link #verify(User, String)} accepted the password,
+     * and store the result in place of the plaintext.
+     *
+     * @param user     stored user
+     * @param password password the user just logged in with
+     * @return encoded hash to store, or null if the stored value is a hash already or the pool is overloaded
+     */
+    public String rehash(User user, String password) {
+        if (user == null || password == null || !PasswordHasher.needsRehash(user.password())) return null;
+        String hash = hash(password);
+        if (hash != null) rehashed.increment();
+        return hash;
+    }
+
+    /**
+     * @return hash requests turned away because the pool was overloaded
+     */
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return one-line report of hashes, checks, cache hits, rehashed plaintext passwords and rejections
+     */
+    public String report() {
+        return String.format("Credentials: %,d hashed, %,d checked, %,d from cache, %,d plaintext rehashed, "
+                             + "%,d rejected, %d queued",
+                hashes.sum(), checks.sum(), cacheHits.sum(), rehashed.sum(), rejected.sum(), pool.getQueue().size());
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Runs a hashing task on the pool and waits for it.
+     *
+     * @return the task's result, or null if it was rejected or took too long
+     */
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = pool.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            System.out.println("Password check skipped: too many requests, try again later");
+            return null;
+        }
+        try {
+            return future.get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            rejected.increment();
+            System.out.println("Password check skipped: timed out");
+            return null;
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            System.out.println("Password check failed: " + e.getCause().getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * SHA-256 of the password keyed with the per-process cache key.
+     */
+    private byte[] digest(String password) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(cacheKey);
+            return sha.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+}
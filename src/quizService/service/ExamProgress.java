@@ -0,0 +1,14 @@
+package quizService.service;
+
+/**
+ * Progress of one student in a timed exam, as shown to watching teachers.
+ *
+ * @param username  student taking the exam
+ * @param answered  questions answered so far; skipped and timed-out ones do not count
+ * @param correct   answered questions that were right
+ * @param current   0-based position of the question shown now, equal to {@code questions} when all were shown
+ * @param questions questions of the exam
+ * @param finished  true once the exam was submitted, by the student or on timeout
+ */
+public record ExamProgress(String username, int answered, int correct, int current, int questions,
+                           boolean finished) {}
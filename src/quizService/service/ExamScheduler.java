@@ -0,0 +1,242 @@
+package quizService.service;
+
+import quizService.model.QuizResult;
+import quizService.model.User;
+import quizService.repository.QuestionRepository;
+import quizService.util.TimingWheel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs timed exams and submits them automatically when their time is up.
+ * <p>
+ * Exam deadlines and per-question time limits of all open sessions live in one
+ * {@link TimingWheel}, so starting, answering and cancelling cost O(1) no matter
+ * how many students are writing. The wheel hands over the timeouts of each tick
+ * as a batch; question timeouts just move their session on, and the sessions
+ * whose deadline passed are handed to a {@link SubmissionPipeline} by a
+ * separate thread, keeping the wheel on time during an exam-end burst. The
+ * pipeline grades them in parallel and pushes back on that thread when it is
+ * full. Exams submitted by the student go through the same pipeline, so every
+ * graded exam also reaches the {@link #leaderboard()}.
+ * </p>
+ * <p>
+ * With a {@link ProgressFeed}, the exams are reported under the quiz id of the
+ * {@link QuizService} so teachers can watch them live.
+ * </p>
+ */
+public class ExamScheduler implements AutoCloseable {
+    /**
+     * Question index of a timeout that ends the whole exam.
+     */
+    static final int DEADLINE = -1;
+    /**
+     * Default timer precision.
+     */
+    public static final long DEFAULT_TICK_MILLIS = 100;
+
+    /**
+     * Payload of a timer: the session and the question whose time runs out,
+     * or {@link #DEADLINE} for the exam itself.
+     */
+    record Timeout(ExamSession session, int question) {}
+
+    private final QuizService quizService;
+    private final QuestionRepository questionRepository;
+    private final TimingWheel<Timeout> wheel;
+    private final ExecutorService grader;
+    private final SubmissionPipeline pipeline;
+    private final ProgressFeed feed;
+    private final int examId;
+    /**
+     * Sessions started and not yet handed to the pipeline.
+     */
+    private final Set<ExamSession> open = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder started = new LongAdder();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder autoSubmitted = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    /**
+     * Creates a scheduler with the default tick of {@value #DEFAULT_TICK_MILLIS} ms.
+     *
+     * @param quizService service whose bank exams are taken from and graded with
+     */
+    public ExamScheduler(QuizService quizService) {
+        this(quizService, DEFAULT_TICK_MILLIS);
+    }
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param quizService service whose bank exams are taken from and graded with
+     * @param tickMillis  timer precision in milliseconds
+     */
+    public ExamScheduler(QuizService quizService, long tickMillis) {
+        this(quizService, tickMillis, null);
+    }
+
+    /**
+     * Creates a scheduler whose exams can be watched live.
+     *
+     * @param quizService service whose bank exams are taken from and graded with
+     * @param tickMillis  timer precision in milliseconds
+     * @param feed        feed the progress of the exams is reported to, or null
+     */
+    public ExamScheduler(QuizService quizService, long tickMillis, ProgressFeed feed) {
+        this.quizService = quizService;
+        this.feed = feed;
+        this.examId = quizService.quizId();
+        this.questionRepository = quizService.questionRepository();
+        this.wheel = new TimingWheel<>(tickMillis, "exam-timers", this::expired);
+        this.pipeline = new SubmissionPipeline(quizService, new Leaderboard());
+        this.grader = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "exam-auto-submit");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Starts a timed exam on the current version of the bank.
+     *
+     * @param user                student taking the exam
+     * @param durationMillis      time until the exam is submitted automatically
+     * @param questionLimitMillis time per question, or 0 for no limit
+     * @return the running session
+     */
+    public ExamSession start(User user, long durationMillis, long questionLimitMillis) {
+        ExamSession session = new ExamSession(this, user, questionRepository.pin(), questionLimitMillis);
+        open.add(session);
+        session.begin(durationMillis);
+        started.increment();
+        if (feed != null) feed.started(examId, session);
+        return session;
+    }
+
+    /**
+     * @return amount of exams still open
+     */
+    public long openSessions() {
+        return open.size();
+    }
+
+    /**
+     * @return amount of pending deadlines and question time limits
+     */
+    public int pendingTimers() {
+        return wheel.size();
+    }
+
+    /**
+     * @return best graded exam of every student
+     */
+    public Leaderboard leaderboard() {
+        return pipeline.leaderboard();
+    }
+
+    /**
+     * @return one-line report of started, submitted and auto-submitted exams
+     */
+    public String report() {
+        return String.format("Exams: %,d started, %,d submitted, %,d auto-submitted in %,d batches, %,d timers pending",
+                started.sum(), submitted.sum(), autoSubmitted.sum(), batches.sum(), wheel.size());
+    }
+
+    /**
+     * Stops the timers and waits for the exams already submitted to be graded.
+     * Exams still open are not submitted anymore: they are finished without a
+     * result, their futures are cancelled and their bank versions released.
+     */
+    @Override
+    public void close() {
+        wheel.close();
+        for (ExamSession session : open) {
+            if (!session.finish()) continue;
+            open.remove(session);
+            questionRepository.release(session.snapshot());
+            session.result().cancel(false);
+        }
+        grader.shutdown();
+        try {
+            grader.awaitTermination(SubmissionPipeline.CLOSE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pipeline.close();
+    }
+
+    TimingWheel.Timer<Timeout> schedule(ExamSession session, int question, long delayMillis) {
+        return wheel.schedule(new Timeout(session, question), delayMillis);
+    }
+
+    void cancel(TimingWheel.Timer<Timeout> timer) {
+        if (timer != null) wheel.cancel(timer);
+    }
+
+    void progressChanged(ExamSession session) {
+        if (feed != null) feed.changed(examId, session);
+    }
+
+    /**
+     * Grades a session submitted by the student.
+     */
+    QuizResult grade(ExamSession session) {
+        submitted.increment();
+        try {
+            return gradeFinished(session).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Handles the timeouts of one tick.
+     */
+    private void expired(List<Timeout> timeouts) {
+        List<ExamSession> due = new ArrayList<>();
+        for (Timeout t : timeouts) {
+            if (t.question() != DEADLINE) {
+                t.session().questionExpired(t.question());
+            } else if (t.session().finish()) {
+                due.add(t.session());
+            }
+        }
+        if (due.isEmpty()) return;
+        batches.increment();
+        // blocks while the pipeline is full, which must not hold up the wheel
+        grader.execute(() -> {
+            for (ExamSession session : due) {
+                gradeFinished(session);
+                autoSubmitted.increment();
+            }
+        });
+    }
+
+    /**
+     * Hands a finished session to the pipeline, which releases its snapshot.
+     *
+     * @return future of the result, also completing the session's own future
+     */
+    private CompletableFuture<QuizResult> gradeFinished(ExamSession session) {
+        open.remove(session);
+        CompletableFuture<QuizResult> result = pipeline.submit(session.getUser(), session.snapshot(),
+                session.chosen(), session.responseNanos());
+        result.whenComplete((graded, failure) -> {
+            if (failure != null) session.result().completeExceptionally(failure);
+            else session.complete(graded);
+        });
+        return result;
+    }
+}
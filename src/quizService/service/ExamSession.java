@@ -0,0 +1,207 @@
+package quizService.service;
+
+import quizService.model.Question;
+import quizService.model.QuizResult;
+import quizService.model.User;
+import quizService.repository.QuestionSnapshot;
+import quizService.util.TimingWheel;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A timed exam of one student, created by {@link ExamScheduler#start}.
+ * <p>
+ * Questions are shown one at a time from the bank version pinned at the start.
+ * If a question has a time limit and it runs out, the question counts as
+ * unanswered and the next one is shown. When the exam deadline passes, the
+ * scheduler submits the exam with the answers given so far. All methods are
+ * safe to call while a timer fires. Every change of progress is reported to
+ * the scheduler's {@link ProgressFeed}, if it has one.
+ * </p>
+ */
+public class ExamSession {
+    private final ExamScheduler scheduler;
+    private final User user;
+    private final QuestionSnapshot snapshot;
+    private final int[] chosen;
+    private final long[] responseNanos;
+    private final long questionLimitMillis;
+    private final CompletableFuture<QuizResult> result = new CompletableFuture<>();
+    /**
+     * Set while the session waits in its progress feed's queue of changed sessions.
+     */
+    private final AtomicBoolean progressChanged = new AtomicBoolean();
+
+    private int current = 0;
+    private int answered = 0;
+    private int correct = 0;
+    private long shownAt;
+    private boolean finished;
+    private TimingWheel.Timer<ExamScheduler.Timeout> deadlineTimer;
+    private TimingWheel.Timer<ExamScheduler.Timeout> questionTimer;
+
+    ExamSession(ExamScheduler scheduler, User user, QuestionSnapshot snapshot, long questionLimitMillis) {
+        this.scheduler = scheduler;
+        this.user = user;
+        this.snapshot = snapshot;
+        this.chosen = new int[snapshot.size()];
+        this.responseNanos = new long[snapshot.size()];
+        this.questionLimitMillis = questionLimitMillis;
+    }
+
+    /**
+     * @return the student taking the exam
+     */
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * @return the question to answer now, or null when all were shown or the exam is over
+     */
+    public synchronized Question currentQuestion() {
+        return finished || current >= chosen.length ? null : snapshot.get(current);
+    }
+
+    /**
+     * @return 0-based position of the current question
+     */
+    public synchronized int currentIndex() {
+        return current;
+    }
+
+    /**
+     * Answers the current question and moves on to the next one.
+     *
+     * @param index  0-based position of the answered question, from {@link #currentIndex()}
+     * @param choice chosen answer (1-based)
+     * @return false if the exam is over, the question's time ran out before the answer
+     *         or the question has no such answer
+     */
+    public synchronized boolean answer(int index, int choice) {
+        if (finished || index != current || current >= chosen.length) return false;
+        Question q = snapshot.get(current);
+        // the pipeline rejects a whole exam with an answer out of range
+        if (choice < 0 || (q != null && choice > q.getAnswerCount())) return false;
+        chosen[current] = choice;
+        responseNanos[current] = System.nanoTime() - shownAt;
+        answered++;
+        if (q != null && choice > 0 && (q.getCorrectMask() >>> (choice - 1) & 1) != 0) {
+            correct++;
+        }
+        next();
+        return true;
+    }
+
+    /**
+     * Submits the exam before its deadline.
+     *
+     * @return the graded result, or null if it was already submitted
+     */
+    public QuizResult submit() {
+        if (!finish()) return null;
+        return scheduler.grade(this);
+    }
+
+    /**
+     * @return future completed with the result once the exam is submitted, by the student or on timeout
+     */
+    public CompletableFuture<QuizResult> result() {
+        return result;
+    }
+
+    /**
+     * @return true once the exam was submitted
+     */
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * @return current progress of the student, as shown by the {@link ProgressFeed}
+     */
+    public synchronized ExamProgress progress() {
+        return new ExamProgress(user.username(), answered, correct, Math.min(current, chosen.length),
+                chosen.length, finished);
+    }
+
+    /**
+     * Starts the exam clock and shows the first question; called by the scheduler.
+     */
+    synchronized void begin(long durationMillis) {
+        deadlineTimer = scheduler.schedule(this, ExamScheduler.DEADLINE, durationMillis);
+        shownAt = System.nanoTime();
+        scheduleQuestion();
+    }
+
+    /**
+     * Called by the scheduler when a question's time limit ran out.
+     */
+    synchronized void questionExpired(int question) {
+        if (finished || question != current) return;
+        questionTimer = null;
+        next();
+    }
+
+    /**
+     * Marks the session finished and cancels its timers.
+     *
+     * @return false if it was finished already
+     */
+    synchronized boolean finish() {
+        if (finished) return false;
+        finished = true;
+        scheduler.cancel(deadlineTimer);
+        scheduler.cancel(questionTimer);
+        scheduler.progressChanged(this);
+        return true;
+    }
+
+    /**
+     * Marks the progress as changed for the feed.
+     *
+     * @return false if it was marked already and not yet picked up
+     */
+    boolean markChanged() {
+        return progressChanged.compareAndSet(false, true);
+    }
+
+    /**
+     * Clears the mark before the feed reads the progress.
+     */
+    void clearChanged() {
+        progressChanged.set(false);
+    }
+
+    QuestionSnapshot snapshot() {
+        return snapshot;
+    }
+
+    int[] chosen() {
+        return chosen;
+    }
+
+    long[] responseNanos() {
+        return responseNanos;
+    }
+
+    void complete(QuizResult graded) {
+        result.complete(graded);
+    }
+
+    private void next() {
+        scheduler.cancel(questionTimer);
+        questionTimer = null;
+        current++;
+        shownAt = System.nanoTime();
+        scheduleQuestion();
+        scheduler.progressChanged(this);
+    }
+
+    private void scheduleQuestion() {
+        if (questionLimitMillis > 0 && current < chosen.length) {
+            questionTimer = scheduler.schedule(this, current, questionLimitMillis);
+        }
+    }
+}
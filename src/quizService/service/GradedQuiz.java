@@ -0,0 +1,17 @@
+package quizService.service;
+
+import quizService.model.QuizResult;
+
+/**
+ * A graded quiz together with its per-question outcome, before it is stored.
+ * The arrays hold {@code answered} valid entries in the order the questions were asked.
+ *
+ * @param result        graded result
+ * @param questionIds   ids of the answered questions
+ * @param choices       chosen answer (1-based) per question; 0 if none, the negated selection mask if several
+ * @param correctness   whether each question was answered correctly
+ * @param responseNanos time spent per question in nanoseconds, 0 if not measured
+ * @param answered      amount of valid entries
+ */
+record GradedQuiz(QuizResult result, long[] questionIds, int[] choices, boolean[] correctness,
+                  long[] responseNanos, int answered) {}
@@ -0,0 +1,63 @@
+package quizService.service;
+
+import quizService.model.QuizResult;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Best result of every student, ranked by score.
+ * <p>
+ * The score is the earned credit as a share of the asked questions, so
+ * partial credit counts towards the rank.
+ * </p>
+ * <p>
+ * Only a student's best result is kept, so the board grows with the
+ * number of students, not submissions. Ties are ranked by the larger quiz.
+ * </p>
+ */
+public class Leaderboard {
+    private static final Comparator<QuizResult> RANKING =
+            Comparator.comparingDouble(QuizResult::scoreRatio).reversed()
+                      .thenComparing(Comparator.comparingInt(QuizResult::totalQuestions).reversed());
+
+    /**
+     * Best result per username.
+     */
+    private final Map<String, QuizResult> best = new HashMap<>();
+
+    /**
+     * Offers a new result.
+     *
+     * @param result graded result
+     * @return true if it became the student's best result
+     */
+    public synchronized boolean update(QuizResult result) {
+        if (result == null || result.totalQuestions() == 0) return false;
+        QuizResult previous = best.get(result.user().username());
+        if (previous != null && RANKING.compare(result, previous) >= 0) return false;
+        best.put(result.user().username(), result);
+        return true;
+    }
+
+    /**
+     * Returns the best students.
+     *
+     * @param n amount of places
+     * @return up to {@code n} results, best first
+     */
+    public synchronized QuizResult[] top(int n) {
+        QuizResult[] all = best.values().toArray(new QuizResult[0]);
+        Arrays.sort(all, RANKING);
+        return Arrays.copyOf(all, Math.min(n, all.length));
+    }
+
+    /**
+     * @return amount of ranked students
+     */
+    public synchronized int size() {
+        return best.size();
+    }
+}
@@ -0,0 +1,131 @@
+package quizService.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * One stage of the {@link SubmissionPipeline}.
+ * <p>
+ * The stage subscribes to the previous one and publishes to the next one
+ * through a bounded buffer. It requests a new item only when one of its
+ * {@code parallelism} workers is free, so it never holds more than that many
+ * items of its own. When the next stage's buffer is full, publishing blocks the
+ * worker, the stage stops requesting, and the pressure travels upstream to the
+ * pipeline's intake.
+ * </p>
+ * <p>
+ * The work function returns the item to pass on, or null to drop it
+ * (e.g. a rejected submission whose caller was already told).
+ * </p>
+ */
+final class PipelineStage extends SubmissionPublisher<Submission>
+        implements Flow.Processor<Submission, Submission> {
+    private final String name;
+    private final int parallelism;
+    private final UnaryOperator<Submission> work;
+    private final ExecutorService workers;
+
+    private Flow.Subscription subscription;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean upstreamDone;
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Creates a stage.
+     *
+     * @param name        name used for threads and the report
+     * @param parallelism items processed at the same time
+     * @param bufferSize  capacity of the buffer towards the next stage
+     * @param work        processing of one item
+     */
+    PipelineStage(String name, int parallelism, int bufferSize, UnaryOperator<Submission> work) {
+        super(ForkJoinPool.commonPool(), bufferSize);
+        this.name = name;
+        this.parallelism = parallelism;
+        this.work = work;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(parallelism,
+                r -> daemon(r, "pipeline-" + name + "-" + threadNumber.incrementAndGet()));
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(parallelism);
+    }
+
+    @Override
+    public void onNext(Submission item) {
+        inFlight.incrementAndGet();
+        workers.execute(() -> {
+            try {
+                Submission out = work.apply(item);
+                if (out != null) submit(out);
+                else dropped.increment();
+                processed.increment();
+            } catch (RuntimeException e) {
+                item.fail(e);
+                dropped.increment();
+            } finally {
+                if (inFlight.decrementAndGet() == 0 && upstreamDone) finish();
+                else subscription.request(1);
+            }
+        });
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        workers.shutdown();
+        closeExceptionally(throwable);
+        done.complete(null);
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        if (inFlight.get() == 0) finish();
+    }
+
+    /**
+     * Closes the stage once upstream is done and all its items were passed on.
+     */
+    private void finish() {
+        if (!finished.compareAndSet(false, true)) return;
+        workers.shutdown();
+        close();
+        done.complete(null);
+    }
+
+    /**
+     * @return future completed once the stage has passed on its last item and closed
+     */
+    CompletableFuture<Void> done() {
+        return done;
+    }
+
+    /**
+     * @return one-line report: processed and dropped items and items waiting for the next stage
+     */
+    @Override
+    public String toString() {
+        return String.format("%-11s x%d  processed %,10d  dropped %,8d  waiting downstream %,6d",
+                name, parallelism, processed.sum(), dropped.sum(), estimateMaximumLag());
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+}
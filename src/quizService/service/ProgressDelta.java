@@ -0,0 +1,15 @@
+package quizService.service;
+
+import java.util.List;
+
+/**
+ * Progress changes of one exam during one tick of a {@link ProgressFeed}.
+ * Holds the latest state of every student whose progress changed since the
+ * previous delta, however often it changed in between.
+ *
+ * @param examId     id of the exam, the quiz id of its {@link QuizService}
+ * @param sequence   number of the delta within the exam, starting at 1
+ * @param timeMillis epoch millis when the delta was built
+ * @param changes    latest progress of each changed student, read-only
+ */
+public record ProgressDelta(int examId, long sequence, long timeMillis, List<ExamProgress> changes) {}
@@ -0,0 +1,212 @@
+package quizService.service;
+
+import quizService.uml.ProgressListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live progress of running exams for watching teachers.
+ * <p>
+ * {@link ExamScheduler}s report every answer, skipped question and submission
+ * here. A report only marks the session as changed: the first change of a
+ * session within a tick puts it in its exam's queue, later ones find the mark
+ * and do nothing. Once per tick the feed drains each exam's queue, reads the
+ * current progress of the marked sessions and hands one {@link ProgressDelta}
+ * per exam to the exam's listeners. However many students answer, a teacher
+ * view gets at most one delta per tick, with at most one entry per student.
+ * The feed shared by the menus is {@link #getInstance()}.
+ * </p>
+ */
+public class ProgressFeed implements AutoCloseable {
+    /**
+     * Default interval between deltas.
+     */
+    public static final long DEFAULT_TICK_MILLIS = 500;
+
+    /**
+     * Holder of the shared feed, so its thread is only started once a menu uses it.
+     */
+    private static final class Holder {
+        static final ProgressFeed instance = new ProgressFeed();
+    }
+
+    /**
+     * Sessions, pending changes and listeners of one exam.
+     */
+    private static final class Exam {
+        final Set<ExamSession> sessions = ConcurrentHashMap.newKeySet();
+        final Queue<ExamSession> changed = new ConcurrentLinkedQueue<>();
+        final List<ProgressListener> listeners = new CopyOnWriteArrayList<>();
+        /**
+         * Sequence number of the last delta; only used by the feed's thread.
+         */
+        long sequence;
+    }
+
+    private final Map<Integer, Exam> exams = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService ticker;
+
+    private final LongAdder reported = new LongAdder();
+    private final LongAdder entries = new LongAdder();
+    private final LongAdder deltas = new LongAdder();
+
+    /**
+     * Creates a feed with the default tick of {@value #DEFAULT_TICK_MILLIS} ms.
+     */
+    public ProgressFeed() {
+        this(DEFAULT_TICK_MILLIS);
+    }
+
+    /**
+     * Creates a feed and starts its thread.
+     *
+     * @param tickMillis interval between deltas in milliseconds
+     */
+    public ProgressFeed(long tickMillis) {
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "exam-progress-feed");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the feed the student menu's timed exams report to and teachers watch.
+     *
+     * @return shared instance
+     */
+    public static ProgressFeed getInstance() {
+        return Holder.instance;
+    }
+
+    /**
+     * Starts sending the progress of an exam to a listener.
+     * Use {@link #progress(int)} to get the state before the first delta.
+     *
+     * @param examId   quiz id of the exam's {@link QuizService}
+     * @param listener receiver of the deltas
+     */
+    public void subscribe(int examId, ProgressListener listener) {
+        // added inside the atomic section, so a tick cannot drop the exam as idle in between
+        exams.compute(examId, (id, exam) -> {
+            if (exam == null) exam = new Exam();
+            exam.listeners.add(listener);
+            return exam;
+        });
+    }
+
+    /**
+     * Stops sending deltas to a listener.
+     *
+     * @param examId   exam the listener subscribed to
+     * @param listener listener to remove
+     */
+    public void unsubscribe(int examId, ProgressListener listener) {
+        Exam exam = exams.get(examId);
+        if (exam != null) exam.listeners.remove(listener);
+    }
+
+    /**
+     * Current progress of every student still writing an exam, e.g. to fill a new view.
+     *
+     * @param examId quiz id of the exam
+     * @return progress per open session, in no particular order
+     */
+    public List<ExamProgress> progress(int examId) {
+        Exam exam = exams.get(examId);
+        List<ExamProgress> all = new ArrayList<>();
+        if (exam != null) {
+            for (ExamSession session : exam.sessions) all.add(session.progress());
+        }
+        return all;
+    }
+
+    /**
+     * @return one-line report of reported changes, sent entries and deltas
+     */
+    public String report() {
+        return String.format("Progress feed: %,d changes reported, %,d entries sent in %,d deltas to %,d exams",
+                reported.sum(), entries.sum(), deltas.sum(), exams.size());
+    }
+
+    /**
+     * Stops the feed; no more deltas are sent.
+     */
+    @Override
+    public void close() {
+        ticker.shutdown();
+    }
+
+    /**
+     * Registers a newly started session.
+     */
+    void started(int examId, ExamSession session) {
+        exams.compute(examId, (id, exam) -> {
+            if (exam == null) exam = new Exam();
+            exam.sessions.add(session);
+            return exam;
+        });
+        changed(examId, session);
+    }
+
+    /**
+     * Marks the progress of a session as changed; cheap enough to call on every answer.
+     */
+    void changed(int examId, ExamSession session) {
+        reported.increment();
+        Exam exam = exams.get(examId);
+        if (exam != null && session.markChanged()) exam.changed.add(session);
+    }
+
+    /**
+     * Builds and sends the deltas of one tick.
+     */
+    private void tick() {
+        for (Map.Entry<Integer, Exam> entry : exams.entrySet()) {
+            Exam exam = entry.getValue();
+            if (exam.changed.isEmpty()) {
+                // forget exams nobody writes or watches anymore
+                exams.computeIfPresent(entry.getKey(), (id, e) ->
+                        e.sessions.isEmpty() && e.changed.isEmpty() && e.listeners.isEmpty() ? null : e);
+                continue;
+            }
+            // a marked session cannot be queued again, so this loop ends
+            List<ExamSession> sessions = new ArrayList<>();
+            ExamSession session;
+            while ((session = exam.changed.poll()) != null) sessions.add(session);
+
+            List<ExamProgress> changes = new ArrayList<>(sessions.size());
+            for (ExamSession s : sessions) {
+                s.clearChanged();
+                ExamProgress progress = s.progress();
+                changes.add(progress);
+                if (progress.finished()) exam.sessions.remove(s);
+            }
+            if (exam.listeners.isEmpty()) continue;
+
+            ProgressDelta delta = new ProgressDelta(entry.getKey(), ++exam.sequence, System.currentTimeMillis(),
+                    List.copyOf(changes));
+            for (ProgressListener listener : exam.listeners) {
+                try {
+                    listener.progressUpdated(delta);
+                } catch (RuntimeException e) {
+                    System.out.println("Progress listener failed: " + e.getMessage());
+                }
+                deltas.increment();
+                entries.add(changes.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package quizService.service;
+
+import java.util.List;
+
+/**
+ * Outcome of provisioning users from a roster file.
+ *
+ * @param rows     roster rows read, without the header, blank lines and comments
+ * @param created  accounts created
+ * @param failures rows that did not create an account, in file order
+ * @param millis   time the whole roster took
+ */
+public record ProvisioningReport(int rows, int created, List<RowFailure> failures, long millis) {
+    /**
+     * A roster row that did not create an account.
+     *
+     * @param line     1-based line number in the roster file
+     * @param username username of the row, or null if it had none
+     * @param reason   why the row was rejected
+     */
+    public record RowFailure(int line, String username, String reason) {}
+
+    @Override
+    public String toString() {
+        return String.format("Provisioned %,d of %,d rows in %,d ms, %,d failed", created, rows, millis, failures.size());
+    }
+}
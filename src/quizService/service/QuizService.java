@@ -1,10 +1,15 @@
 package quizService.service;
 
-import quizService.model.Answer;
+import quizService.audit.AuditEventType;
+import quizService.audit.AuditLog;
 import quizService.model.Question;
 import quizService.model.User;
 import quizService.model.QuizResult;
+import quizService.monitoring.GradingEvent;
 import quizService.repository.QuestionRepository;
+import quizService.repository.QuestionSnapshot;
+import quizService.repository.ResponseTimeRepository;
+import quizService.repository.ResultRepository;
 
 /**
  * Service layer responsible for quiz execution.
@@ -18,6 +23,26 @@ public class QuizService {
      * Repository for storing and retrieving quiz questions.
      */
     private final QuestionRepository questionRepository;
+    /**
+     * Quiz the graded results are stored under.
+     */
+    private final int quizId;
+    /**
+     * Rule multi-select submissions are scored with.
+     */
+    private volatile ScoringRule scoringRule = ScoringRule.ALL_OR_NOTHING;
+    /**
+     * Per-question response-time histograms fed by graded quizzes.
+     */
+    private static final ResponseTimeRepository responseTimes = ResponseTimeRepository.getInstance();
+    /**
+     * Store of graded results used by analytics.
+     */
+    private static final ResultRepository resultRepository = ResultRepository.getInstance();
+    /**
+     * Audit trail of quiz submissions.
+     */
+    private static final AuditLog audit = AuditLog.getInstance();
 
     /**
      * Constructs a new {@code QuizService} with a provided {@link QuestionRepository}.
@@ -25,11 +50,22 @@ public class QuizService {
      * @param questionRepository repository instance
      */
     public QuizService(QuestionRepository questionRepository) {
+        this(questionRepository, ResultRepository.DEFAULT_QUIZ);
+    }
+
+    /**
+     * Constructs a {@code QuizService} for the bank of one quiz.
+     *
+     * @param questionRepository bank of the quiz
+     * @param quizId             id the results are stored under
+     */
+    public QuizService(QuestionRepository questionRepository, int quizId) {
         this.questionRepository = questionRepository;
+        this.quizId = quizId;
     }
 
     /**
-     * Starts a quiz session for a user.
+     * Starts a quiz session for a user against the current version of the bank.
      * <p>
      * Iterates through all available questions, validates chosen answers,
      * and counts how many were correct.
@@ -40,30 +76,249 @@ public class QuizService {
      * @return {@link QuizResult} object containing the user, total questions, and correct answers
      */
     public QuizResult startQuiz(User user, int[] chosenAnswers) {
-        Question[] questions = questionRepository.listAll();
-        int questionCount = (questions == null) ? 0 : questions.length;
+        QuestionSnapshot snapshot = questionRepository.pin();
+        try {
+            return startQuiz(user, snapshot, chosenAnswers);
+        } finally {
+            questionRepository.release(snapshot);
+        }
+    }
+
+    /**
+     * Grades a quiz against the bank version the session pinned when it started.
+     * Edits made by teachers after that point do not affect the grading.
+     *
+     * @param user          the user who is taking the quiz
+     * @param version       version number returned by {@link QuestionRepository#pin()}
+     * @param chosenAnswers array of chosen indices (1-based) for each question
+     * @return {@link QuizResult}, or {@code null} if the version is no longer pinned
+     */
+    public QuizResult startQuiz(User user, long version, int[] chosenAnswers) {
+        return startQuiz(user, version, chosenAnswers, null);
+    }
+
+    /**
+     * Grades a quiz against a pinned bank version and records how long
+     * the student spent on each question.
+     *
+     * @param user          the user who is taking the quiz
+     * @param version       version number returned by {@link QuestionRepository#pin()}
+     * @param chosenAnswers array of chosen indices (1-based) for each question
+     * @param responseNanos time spent on each question in nanoseconds, or null if not measured
+     * @return {@link QuizResult}, or {@code null} if the version is no longer pinned
+     */
+    public QuizResult startQuiz(User user, long version, int[] chosenAnswers, long[] responseNanos) {
+        QuestionSnapshot snapshot = questionRepository.pinned(version);
+        if (snapshot == null) {
+            System.out.println("Quiz version " + version + " is not available anymore");
+            return null;
+        }
+        return startQuiz(user, snapshot, chosenAnswers, responseNanos);
+    }
+
+    /**
+     * Grades chosen answers against the given snapshot of the bank.
+     *
+     * @param user          the user who is taking the quiz
+     * @param snapshot      bank version the questions were shown from
+     * @param chosenAnswers array of chosen indices (1-based) for each question
+     * @return {@link QuizResult} object containing the user, total questions, and correct answers
+     */
+    public QuizResult startQuiz(User user, QuestionSnapshot snapshot, int[] chosenAnswers) {
+        return startQuiz(user, snapshot, chosenAnswers, null);
+    }
 
-        if (questionCount == 0) {
-            return new QuizResult(user, 0, 0);
+    /**
+     * Grades chosen answers against the given snapshot of the bank and
+     * adds the measured response times to the per-question histograms.
+     *
+     * @param user          the user who is taking the quiz
+     * @param snapshot      bank version the questions were shown from
+     * @param chosenAnswers array of chosen indices (1-based) for each question
+     * @param responseNanos time spent on each question in nanoseconds, or null if not measured
+     * @return {@link QuizResult} object containing the user, total questions, and correct answers
+     */
+    public QuizResult startQuiz(User user, QuestionSnapshot snapshot, int[] chosenAnswers, long[] responseNanos) {
+        GradingEvent event = new GradingEvent();
+        event.begin();
+        GradedQuiz graded = grade(user, snapshot, chosenAnswers, responseNanos);
+        QuizResult result = graded.result();
+        if (result.totalQuestions() > 0) record(graded);
+        event.finish(user != null ? user.username() : null, quizId, snapshot.version(), result.totalQuestions(),
+                graded.answered(), result.correctAnswers());
+        return result;
+    }
+
+    /**
+     * Grades a multi-select quiz against the current version of the bank
+     * with the {@link #getScoringRule() scoring rule} of this service.
+     *
+     * @param user       the user who is taking the quiz
+     * @param selections selected answers per question as bit masks, see {@link ScoringRule#selection(int...)}
+     * @return {@link QuizResult} with the fractional score
+     */
+    public QuizResult submitSelections(User user, int[] selections) {
+        QuestionSnapshot snapshot = questionRepository.pin();
+        try {
+            return submitSelections(user, snapshot, selections, null);
+        } finally {
+            questionRepository.release(snapshot);
         }
+    }
+
+    /**
+     * Grades a multi-select quiz against the given snapshot of the bank
+     * with the {@link #getScoringRule() scoring rule} of this service.
+     * <p>
+     * A question counts as correct if it earned full credit; the score of the
+     * result adds up the partial credit of all questions.
+     * </p>
+     *
+     * @param user          the user who is taking the quiz
+     * @param snapshot      bank version the questions were shown from
+     * @param selections    selected answers per question as bit masks, see {@link ScoringRule#selection(int...)}
+     * @param responseNanos time spent on each question in nanoseconds, or null if not measured
+     * @return {@link QuizResult} with the fractional score
+     */
+    public QuizResult submitSelections(User user, QuestionSnapshot snapshot, int[] selections, long[] responseNanos) {
+        GradingEvent event = new GradingEvent();
+        event.begin();
+        GradedQuiz graded = grade(user, snapshot, selections, true, scoringRule, responseNanos);
+        QuizResult result = graded.result();
+        if (result.totalQuestions() > 0) record(graded);
+        event.finish(user != null ? user.username() : null, quizId, snapshot.version(), result.totalQuestions(),
+                graded.answered(), result.correctAnswers());
+        return result;
+    }
+
+    /**
+     * @return rule multi-select submissions are scored with
+     */
+    public ScoringRule getScoringRule() {
+        return scoringRule;
+    }
+
+    /**
+     * Changes how multi-select submissions are scored from now on.
+     * Single-choice submissions are always scored with {@link ScoringRule#SINGLE_CHOICE}.
+     *
+     * @param scoringRule rule to score with
+     */
+    public void setScoringRule(ScoringRule scoringRule) {
+        this.scoringRule = scoringRule;
+    }
+
+    /**
+     * Grades chosen answers against a snapshot without storing anything.
+     *
+     * @param user          the user who is taking the quiz
+     * @param snapshot      bank version the questions were shown from
+     * @param chosenAnswers array of chosen indices (1-based) for each question
+     * @param responseNanos time spent on each question in nanoseconds, or null if not measured
+     * @return result with the per-question outcome
+     */
+    GradedQuiz grade(User user, QuestionSnapshot snapshot, int[] chosenAnswers, long[] responseNanos) {
+        return grade(user, snapshot, chosenAnswers, false, ScoringRule.SINGLE_CHOICE, responseNanos);
+    }
+
+    /**
+     * Grades chosen answers against a snapshot without storing anything.
+     * <p>
+     * Each answer is turned into a selection mask and compared with the
+     * question's precomputed mask of correct answers by the rule, so a
+     * question costs a few bit operations whatever its amount of answers.
+     * A single selected answer is stored as its 1-based number, several as
+     * the negated mask, and none as 0.
+     * </p>
+     *
+     * @param user          the user who is taking the quiz
+     * @param snapshot      bank version the questions were shown from
+     * @param picks         chosen answer per question, as 1-based index or as selection mask
+     * @param masks         true if {@code picks} holds selection masks
+     * @param rule          rule the questions are scored with
+     * @param responseNanos time spent on each question in nanoseconds, or null if not measured
+     * @return result with the per-question outcome
+     */
+    private GradedQuiz grade(User user, QuestionSnapshot snapshot, int[] picks, boolean masks, ScoringRule rule,
+                             long[] responseNanos) {
+        Question[] questions = snapshot.toArray();
+        int questionCount = questions.length;
 
         int correctCount = 0;
-        for (int i = 0; i < questionCount; i++) {
+        double score = 0;
+        int answered = 0;
+        long[] questionIds = new long[questionCount];
+        int[] choices = new int[questionCount];
+        boolean[] correctness = new boolean[questionCount];
+        long[] nanos = new long[questionCount];
+        for (int i = 0; i < questionCount && i < picks.length; i++) {
             Question q = questions[i];
             if (q == null) continue;
 
-            int chosenIndex = chosenAnswers[i]; // Index chosen by user
-            Answer[] answers = q.getAnswers();
+            int pick = picks[i];
+            int options = q.getOptionMask();
+            int selected = masks ? pick & options
+                    : pick > 0 && pick <= q.getAnswerCount() ? 1 << (pick - 1) : 0;
+            double credit = rule.credit(selected, q.getCorrectMask(), options);
+            boolean isCorrect = credit >= 1;
+            if (isCorrect) correctCount++;
+            score += credit;
+            questionIds[answered] = q.getId();
+            choices[answered] = !masks ? pick
+                    : Integer.bitCount(selected) == 1 ? Integer.numberOfTrailingZeros(selected) + 1 : -selected;
+            nanos[answered] = responseNanos != null && i < responseNanos.length ? responseNanos[i] : 0;
+            correctness[answered++] = isCorrect;
+        }
 
-            if (answers != null
-                && chosenIndex > 0
-                && chosenIndex <= q.getAnswerCount()
-                && answers[chosenIndex - 1] != null
-                && answers[chosenIndex - 1].isCorrect()) {
-                correctCount++;
-            }
+        QuizResult result = new QuizResult(user, correctCount, questionCount, score);
+        return new GradedQuiz(result, questionIds, choices, correctness, nanos, answered);
+    }
+
+    /**
+     * Stores a graded quiz: response times, the result with its answers, and the audit event.
+     *
+     * @param graded quiz graded by {@link #grade(User, QuestionSnapshot, int[], long[])}
+     */
+    void record(GradedQuiz graded) {
+        for (int i = 0; i < graded.answered(); i++) {
+            if (graded.responseNanos()[i] > 0) responseTimes.record(graded.questionIds()[i], graded.responseNanos()[i]);
         }
+        QuizResult result = graded.result();
+        resultRepository.add(quizId, result, graded.questionIds(), graded.choices(), graded.correctness(),
+                graded.answered());
+        audit.publish(AuditEventType.QUIZ_SUBMITTED, result.user().username(), true,
+                result.correctAnswers(), result.totalQuestions());
+    }
 
-        return new QuizResult(user, correctCount, questionCount);
+    /**
+     * @return bank this service grades against
+     */
+    QuestionRepository questionRepository() {
+        return questionRepository;
+    }
+
+    /**
+     * @return id the results of this service are stored under
+     */
+    int quizId() {
+        return quizId;
+    }
+
+    /**
+     * Starts an adaptive quiz on the current version of the bank.
+     * <p>
+     * Instead of the whole bank, the student gets questions picked one by one
+     * around their estimated ability, until the estimate is precise enough.
+     * The returned session pins the bank version until {@link AdaptiveQuizSession#finish()}.
+     * </p>
+     *
+     * @param user         the user who is taking the quiz
+     * @param maxQuestions upper bound on the amount of asked questions
+     * @param targetError  standard error at which the ability estimate is precise enough
+     * @return new adaptive session
+     */
+    public AdaptiveQuizSession startAdaptiveQuiz(User user, int maxQuestions, double targetError) {
+        return new AdaptiveQuizSession(questionRepository, questionRepository.pin(), quizId,
+                user, maxQuestions, targetError, scoringRule);
     }
 }
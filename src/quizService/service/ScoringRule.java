@@ -0,0 +1,75 @@
+package quizService.service;
+
+import quizService.model.Question;
+
+/**
+ * How much credit a selection of answers earns for one question.
+ * <p>
+ * Selections and correct answers are bit masks in which bit {@code i} stands
+ * for answer {@code i + 1}, see {@link Question#getCorrectMask()}.
+ * Every rule works on three masks with a few bitwise operations and
+ * {@link Integer#bitCount popcounts}; there is no loop over the answers.
+ * Credit ranges from 0 to 1; a question with no correct answer earns nothing.
+ * </p>
+ */
+public enum ScoringRule {
+    /**
+     * Exactly one answer selected and it is a correct one; how single-choice quizzes were always graded.
+     */
+    SINGLE_CHOICE,
+    /**
+     * Full credit only if the selection is exactly the set of correct answers.
+     */
+    ALL_OR_NOTHING,
+    /**
+     * Share of the correct answers selected, but nothing if any wrong answer is selected.
+     */
+    PARTIAL,
+    /**
+     * Correct answers selected minus wrong answers selected, divided by the amount
+     * of correct answers and never below 0, so selecting everything does not pay.
+     */
+    RIGHT_MINUS_WRONG,
+    /**
+     * Share of all answers judged right: correct ones selected and wrong ones left out.
+     * An empty selection earns nothing, like an unanswered question under every other rule.
+     */
+    PER_OPTION;
+
+    /**
+     * Scores a selection.
+     *
+     * @param selected selected answers; bits outside {@code options} are ignored
+     * @param correct  correct answers
+     * @param options  all answers of the question
+     * @return credit between 0 and 1
+     */
+    public double credit(int selected, int correct, int options) {
+        if (correct == 0) return 0;
+        selected &= options;
+        int hits = Integer.bitCount(selected & correct);
+        int misses = Integer.bitCount(selected & ~correct);
+        return switch (this) {
+            case SINGLE_CHOICE -> hits == 1 && misses == 0 ? 1 : 0;
+            case ALL_OR_NOTHING -> selected == correct ? 1 : 0;
+            case PARTIAL -> misses == 0 ? (double) hits / Integer.bitCount(correct) : 0;
+            case RIGHT_MINUS_WRONG -> Math.max(0, hits - misses) / (double) Integer.bitCount(correct);
+            case PER_OPTION -> selected == 0 ? 0
+                    : 1 - (double) Integer.bitCount(selected ^ correct) / Integer.bitCount(options);
+        };
+    }
+
+    /**
+     * Builds a selection from chosen answer numbers.
+     *
+     * @param choices chosen answers (1-based); numbers outside 1..{@value Question#MAX_OPTIONS} are ignored
+     * @return selection mask
+     */
+    public static int selection(int... choices) {
+        int mask = 0;
+        for (int c : choices) {
+            if (c > 0 && c <= Question.MAX_OPTIONS) mask |= 1 << (c - 1);
+        }
+        return mask;
+    }
+}
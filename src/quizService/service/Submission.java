@@ -0,0 +1,56 @@
+package quizService.service;
+
+import quizService.model.QuizResult;
+import quizService.model.User;
+import quizService.repository.QuestionSnapshot;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A quiz submission travelling through the {@link SubmissionPipeline}.
+ * Stages fill in the graded outcome; the last one completes {@link #future}.
+ */
+final class Submission {
+    final User user;
+    final QuestionSnapshot snapshot;
+    final int[] chosenAnswers;
+    final long[] responseNanos;
+    final CompletableFuture<QuizResult> future = new CompletableFuture<>();
+    /**
+     * Set by the grading stage.
+     */
+    GradedQuiz graded;
+    private boolean released = false;
+
+    Submission(User user, QuestionSnapshot snapshot, int[] chosenAnswers, long[] responseNanos) {
+        this.user = user;
+        this.snapshot = snapshot;
+        this.chosenAnswers = chosenAnswers;
+        this.responseNanos = responseNanos;
+    }
+
+    /**
+     * Hands out the pinned snapshot for releasing, once.
+     *
+     * @return the snapshot on the first call, null afterwards or if there is none
+     */
+    synchronized QuestionSnapshot takeSnapshot() {
+        if (released) return null;
+        released = true;
+        return snapshot;
+    }
+
+    /**
+     * Completes the submission as rejected.
+     */
+    void reject() {
+        future.complete(null);
+    }
+
+    /**
+     * Completes the submission with an unexpected failure.
+     */
+    void fail(Throwable cause) {
+        future.completeExceptionally(cause);
+    }
+}
@@ -0,0 +1,235 @@
+package quizService.service;
+
+import quizService.model.Question;
+import quizService.model.QuizResult;
+import quizService.model.User;
+import quizService.repository.QuestionSnapshot;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Staged, back-pressured processing of quiz submissions.
+ * <p>
+ * Submissions enter a bounded intake buffer and then pass through the stages
+ * validation, grading, persistence and leaderboard, each a {@link PipelineStage}
+ * with its own workers and bounded buffer, connected with {@link java.util.concurrent.Flow}.
+ * A stage only takes new submissions when it has a free worker and the next stage
+ * has room, so a burst queues up in the buffers instead of in request threads.
+ * When everything is full, {@link #submit} blocks the caller and {@link #offer}
+ * gives up after its timeout.
+ * </p>
+ * <p>
+ * Callers pin the snapshot the student was shown and hand the pin over to the
+ * pipeline, which releases it once the submission is graded or rejected.
+ * The snapshot is released even if grading fails. The returned future
+ * completes with the result after the leaderboard was updated, with null if
+ * the submission was rejected, or exceptionally if a stage failed on it.
+ * </p>
+ * <p>
+ * {@link ExamScheduler} grades its exams through a pipeline. The student menu
+ * does not: a student there waits for the result of a single submission on
+ * the console, and multi-select answers are graded by
+ * {@link QuizService#submitSelections}, which this pipeline does not cover.
+ * </p>
+ */
+public class SubmissionPipeline implements AutoCloseable {
+    /**
+     * Default capacity of each buffer between two stages.
+     */
+    public static final int DEFAULT_BUFFER = 256;
+    /**
+     * Longest time {@link #close()} waits for accepted submissions to finish.
+     */
+    public static final long CLOSE_WAIT_MILLIS = 30_000;
+
+    private final QuizService quizService;
+    private final Leaderboard leaderboard;
+
+    private final SubmissionPublisher<Submission> intake;
+    private final PipelineStage validation;
+    private final PipelineStage grading;
+    private final PipelineStage persistence;
+    private final PipelineStage ranking;
+
+    /**
+     * Creates a pipeline with default buffers and one worker per stage,
+     * except grading which gets one per processor.
+     *
+     * @param quizService service whose bank the submissions are graded against
+     * @param leaderboard board updated with every graded submission
+     */
+    public SubmissionPipeline(QuizService quizService, Leaderboard leaderboard) {
+        this(quizService, leaderboard, DEFAULT_BUFFER, 1, Runtime.getRuntime().availableProcessors(), 1);
+    }
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param quizService service whose bank the submissions are graded against
+     * @param leaderboard board updated with every graded submission
+     * @param bufferSize  capacity of the intake and of each buffer between stages
+     * @param validators  parallel workers of the validation stage
+     * @param graders     parallel workers of the grading stage
+     * @param writers     parallel workers of the persistence stage
+     */
+    public SubmissionPipeline(QuizService quizService, Leaderboard leaderboard,
+                              int bufferSize, int validators, int graders, int writers) {
+        this.quizService = quizService;
+        this.leaderboard = leaderboard;
+        this.intake = new SubmissionPublisher<>(ForkJoinPool.commonPool(), bufferSize);
+        this.validation = new PipelineStage("validation", validators, bufferSize, this::validate);
+        this.grading = new PipelineStage("grading", graders, bufferSize, this::grade);
+        this.persistence = new PipelineStage("persistence", writers, bufferSize, this::persist);
+        // the leaderboard is updated by a single worker so results are ranked in arrival order
+        this.ranking = new PipelineStage("leaderboard", 1, bufferSize, this::rank);
+        intake.subscribe(validation);
+        validation.subscribe(grading);
+        grading.subscribe(persistence);
+        persistence.subscribe(ranking);
+    }
+
+    /**
+     * Hands a submission to the pipeline, waiting while the intake is full.
+     *
+     * @param user          the user who took the quiz
+     * @param snapshot      pinned bank version the questions were shown from; the pipeline releases it
+     * @param chosenAnswers chosen indices (1-based) for each question
+     * @param responseNanos time spent on each question in nanoseconds, or null if not measured
+     * @return future of the result, completed with null if the submission is rejected
+     */
+    public CompletableFuture<QuizResult> submit(User user, QuestionSnapshot snapshot, int[] chosenAnswers,
+                                                long[] responseNanos) {
+        Submission submission = new Submission(user, snapshot, chosenAnswers, responseNanos);
+        try {
+            intake.submit(submission);
+        } catch (IllegalStateException e) {
+            // closed meanwhile
+            release(submission);
+            submission.reject();
+        }
+        return submission.future;
+    }
+
+    /**
+     * Hands a submission to the pipeline, waiting at most {@code timeoutMillis} for room.
+     *
+     * @param user          the user who took the quiz
+     * @param snapshot      pinned bank version the questions were shown from; the pipeline releases it
+     * @param chosenAnswers chosen indices (1-based) for each question
+     * @param responseNanos time spent on each question in nanoseconds, or null if not measured
+     * @param timeoutMillis longest wait for room in the intake
+     * @return future of the result, or null if the pipeline had no room in time
+     */
+    public CompletableFuture<QuizResult> offer(User user, QuestionSnapshot snapshot, int[] chosenAnswers,
+                                               long[] responseNanos, long timeoutMillis) {
+        Submission submission = new Submission(user, snapshot, chosenAnswers, responseNanos);
+        try {
+            if (intake.offer(submission, timeoutMillis, TimeUnit.MILLISECONDS, (s, item) -> false) >= 0) {
+                return submission.future;
+            }
+        } catch (IllegalStateException e) {
+            // closed meanwhile
+        }
+        release(submission);
+        return null;
+    }
+
+    /**
+     * @return the board this pipeline updates
+     */
+    public Leaderboard leaderboard() {
+        return leaderboard;
+    }
+
+    /**
+     * Describes each stage: workers, processed and dropped submissions, and backlog.
+     *
+     * @return multi-line report
+     */
+    public String report() {
+        return String.format("intake      waiting %,6d%n%s%n%s%n%s%n%s",
+                intake.estimateMaximumLag(), validation, grading, persistence, ranking);
+    }
+
+    /**
+     * Stops taking submissions and waits up to {@value #CLOSE_WAIT_MILLIS} ms
+     * until every accepted one is finished.
+     */
+    @Override
+    public void close() {
+        if (!close(CLOSE_WAIT_MILLIS)) {
+            System.out.println("Submission pipeline closed with submissions still in progress");
+        }
+    }
+
+    /**
+     * Stops taking submissions and waits until every accepted one is finished.
+     *
+     * @param timeoutMillis longest wait
+     * @return true if all accepted submissions finished in time
+     */
+    public boolean close(long timeoutMillis) {
+        intake.close();
+        try {
+            ranking.done().get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException | ExecutionException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Submission validate(Submission s) {
+        String problem = null;
+        if (s.user == null) problem = "no user";
+        else if (s.snapshot == null) problem = "no quiz version";
+        else if (s.chosenAnswers == null) problem = "no answers";
+        else if (s.chosenAnswers.length > s.snapshot.size()) problem = "more answers than questions";
+        else {
+            for (int i = 0; i < s.chosenAnswers.length && problem == null; i++) {
+                Question q = s.snapshot.get(i);
+                if (s.chosenAnswers[i] < 0 || s.chosenAnswers[i] > q.getAnswerCount()) {
+                    problem = "answer " + (i + 1) + " out of range";
+                }
+            }
+        }
+        if (problem == null) return s;
+        System.out.println("Submission rejected: " + problem);
+        release(s);
+        s.reject();
+        return null;
+    }
+
+    private Submission grade(Submission s) {
+        try {
+            s.graded = quizService.grade(s.user, s.snapshot, s.chosenAnswers, s.responseNanos);
+            return s;
+        } finally {
+            release(s);
+        }
+    }
+
+    private Submission persist(Submission s) {
+        if (s.graded.result().totalQuestions() > 0) quizService.record(s.graded);
+        return s;
+    }
+
+    private Submission rank(Submission s) {
+        QuizResult result = s.graded.result();
+        leaderboard.update(result);
+        s.future.complete(result);
+        return s;
+    }
+
+    private void release(Submission s) {
+        QuestionSnapshot snapshot = s.takeSnapshot();
+        if (snapshot != null) quizService.questionRepository().release(snapshot);
+    }
+}
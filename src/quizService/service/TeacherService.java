@@ -1,8 +1,29 @@
 package quizService.service;
 
+import quizService.analytics.ItemStatistics;
+import quizService.analytics.ResultAnalytics;
+import quizService.analytics.ResultTable;
+import quizService.analytics.WeeklyScore;
+import quizService.audit.AuditEventType;
+import quizService.audit.AuditLog;
+import quizService.media.MediaStore;
 import quizService.model.Answer;
+import quizService.model.MediaRef;
 import quizService.model.Question;
+import quizService.model.Role;
+import quizService.model.User;
+import quizService.monitoring.QuestionEditEvent;
 import quizService.repository.QuestionRepository;
+import quizService.repository.ResponseTimeRepository;
+import quizService.repository.ResultRepository;
+import quizService.util.LatencyHistogram;
+import quizService.util.TextDictionary;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Service layer for teachers to manage quiz questions.
@@ -13,10 +34,66 @@ import quizService.repository.QuestionRepository;
  */
 public class TeacherService {
     /**
-     * Repository instance for storing quiz questions.
-     * Uses Singleton pattern.
+     * Bank the questions are managed in: the shared singleton
+     * unless the service was created for the bank of one quiz.
+     */
+    private final QuestionRepository questionRepo;
+    /**
+     * Response-time histograms collected from graded quizzes.
+     */
+    private static final ResponseTimeRepository responseTimes = ResponseTimeRepository.getInstance();
+    /**
+     * Stored quiz results the reports are computed from.
+     */
+    private static final ResultRepository resultRepo = ResultRepository.getInstance();
+    /**
+     * Parallel aggregations over {@link #resultRepo}.
+     */
+    private static final ResultAnalytics analytics = new ResultAnalytics();
+    /**
+     * Store the media files of questions are uploaded to.
+     */
+    private static final MediaStore mediaStore = MediaStore.getInstance();
+    /**
+     * Audit trail of question edits.
+     */
+    private static final AuditLog audit = AuditLog.getInstance();
+    /**
+     * Shared instances of question and answer texts, so repeated texts are stored once.
+     */
+    private static final TextDictionary dictionary = TextDictionary.getInstance();
+    /**
+     * Name recorded in the audit log for edits made through this service.
      */
-    private static final QuestionRepository questionRepo = QuestionRepository.getInstance();
+    private final String actor;
+
+    /**
+     * Creates a service whose edits are audited under the name {@code teacher}.
+     */
+    public TeacherService() {
+        this.actor = "teacher";
+        this.questionRepo = QuestionRepository.getInstance();
+    }
+
+    /**
+     * Creates a service acting on behalf of a logged-in teacher.
+     *
+     * @param teacher teacher whose edits are audited
+     */
+    public TeacherService(User teacher) {
+        this(teacher, QuestionRepository.getInstance());
+    }
+
+    /**
+     * Creates a service acting on behalf of a logged-in teacher on the bank of one quiz.
+     *
+     * @param teacher teacher whose edits are audited
+     * @param bank    bank to manage, e.g. the bank of a {@code BankLease}
+     */
+    public TeacherService(User teacher, QuestionRepository bank) {
+        this.actor = teacher.username();
+        this.questionRepo = bank;
+    }
 
     /**
      * Displays all questions and their answers in the repository.
@@ -33,7 +110,7 @@ public class TeacherService {
         }
         for (int i = 0; i < questions.length; i++) {
             Question q = questions[i];
-            System.out.printf("%d. %s%n", i + 1, q.getQuestion());
+            System.out.printf("%d. %s (difficulty %+.1f)%n", i + 1, q.getQuestion(), q.getDifficulty());
 
             Answer[] answers = q.getAnswers();
             for (int j = 0; j < answers.length; j++) {
@@ -43,6 +120,73 @@ public class TeacherService {
         }
     }
 
+    /**
+     * Displays how long students spend on each question.
+     * <p>
+     * For every question the count of timed answers, mean and
+     * p50/p90/p99 response times are printed.
+     * </p>
+     */
+    public void responseTimes() {
+        Question[] questions = questionRepo.listAll();
+        if (questions.length == 0) {
+            System.out.println("No questions available");
+            return;
+        }
+        for (int i = 0; i < questions.length; i++) {
+            LatencyHistogram h = responseTimes.histogram(questions[i].getId());
+            System.out.printf("%d. %s%n   %s%n", i + 1, questions[i].getQuestion(),
+                    h == null ? "no answers timed yet" : h);
+        }
+    }
+
+    /**
+     * Returns the response-time histogram of a question.
+     *
+     * @param index 1-based index of the question
+     * @return histogram, or null if the question does not exist or was never answered
+     */
+    public LatencyHistogram getResponseTimes(int index) {
+        Question question = questionRepo.getQuestion(index - 1);
+        return question == null ? null : responseTimes.histogram(question.getId());
+    }
+
+    /**
+     * Displays reports over all stored quiz results.
+     * <p>
+     * Prints the average score per week, the score distribution per role
+     * and, for every current question, its correct rate and discrimination.
+     * </p>
+     */
+    public void reports() {
+        ResultTable table = resultRepo.view();
+        if (table.size() == 0) {
+            System.out.println("No results yet");
+            return;
+        }
+        System.out.println("Average score per week:");
+        for (WeeklyScore w : analytics.averageScoreByWeek(table)) {
+            System.out.printf("  %s: %.1f%% (%d quizzes)%n", w.weekStart(), w.averagePercent(), w.results());
+        }
+
+        System.out.println("Score distribution (0-20-40-60-80-100%):");
+        long[][] distribution = analytics.scoreDistributionByRole(table, 5);
+        for (Role role : Role.values()) {
+            System.out.printf("  %s: %s%n", role, Arrays.toString(distribution[role.ordinal()]));
+        }
+
+        System.out.println("Questions:");
+        Map<Long, ItemStatistics> items = new HashMap<>();
+        for (ItemStatistics item : analytics.questionStatistics(table)) items.put(item.questionId(), item);
+        Question[] questions = questionRepo.listAll();
+        for (int i = 0; i < questions.length; i++) {
+            ItemStatistics item = items.get(questions[i].getId());
+            if (item == null) continue;
+            System.out.printf("  %d. answered %d, correct %.0f%%, discrimination %.2f%n",
+                    i + 1, item.answered(), item.correctRate() * 100, item.discrimination());
+        }
+    }
+
     /**
      * Deletes a question by its index.
      *
@@ -50,44 +194,91 @@ public class TeacherService {
      * @return true if deleted successfully, false if no question was found
      */
     public boolean delete(int index) {
+        QuestionEditEvent event = new QuestionEditEvent();
+        event.begin();
         int idx = index - 1;
         Question question = questionRepo.getQuestion(idx);
 
         if (question == null) {
             System.out.println("No question found with number " + idx);
+            event.finish("delete", actor, 0, 0, false);
             return false;
         }
         System.out.printf("Deleting question: %s%n", question.getQuestion());
-        return questionRepo.remove(idx);
+        boolean deleted = questionRepo.remove(idx);
+        audit.publish(AuditEventType.QUESTION_DELETED, actor, deleted, question.getId(), 0);
+        event.finish("delete", actor, question.getId(), 0, deleted);
+        return deleted;
+    }
+
+    /**
+     * Uploads a media file to show with a question.
+     * Content already stored for another question is not stored twice.
+     *
+     * @param file        file to upload
+     * @param contentType MIME type, or null to guess it from the file name
+     * @return reference to set on the question, or null if the file cannot be stored
+     */
+    public MediaRef uploadMedia(Path file, String contentType) {
+        try {
+            MediaRef media = mediaStore.put(file, contentType);
+            System.out.printf("Media stored: %s, %d KB%n", media.contentType(), (media.size() + 1023) / 1024);
+            return media;
+        } catch (IOException e) {
+            System.out.println("Could not store media: " + e.getMessage());
+            return null;
+        }
     }
 
     /**
-     * Updates a question and its answers.
+     * Updates a question and its answers; its media stay as they are.
      *
      * @param index       1-based index of the question to update
      * @param newQuestion new text for the question
      * @param newAnswers  array of new answers for the question
      */
     public void update(int index, String newQuestion, Answer[] newAnswers) {
+        update(index, newQuestion, newAnswers, null);
+    }
+
+    /**
+     * Updates a question, its answers and its media.
+     *
+     * @param index       1-based index of the question to update
+     * @param newQuestion new text for the question
+     * @param newAnswers  array of new answers for the question
+     * @param media       new media, e.g. from {@link #uploadMedia(Path, String)};
+     *                    null keeps the current ones, an empty array removes them
+     */
+    public void update(int index, String newQuestion, Answer[] newAnswers, MediaRef[] media) {
+        QuestionEditEvent event = new QuestionEditEvent();
+        event.begin();
         int idx = index - 1;
         Question oldQuestion = questionRepo.getQuestion(idx);
         if (oldQuestion == null) {
             System.out.println("No question found with number " + idx);
+            event.finish("update", actor, 0, 0, false);
             return;
         }
         if (newQuestion == null || newQuestion.isBlank() ||
             newAnswers == null || newAnswers.length == 0) {
             System.out.println("Question and Answer text cannot be empty.");
+            event.finish("update", actor, oldQuestion.getId(), 0, false);
             return;
         }
 
-        oldQuestion.setQuestion(newQuestion);
-
+        // Published questions belong to bank snapshots that running quizzes may hold,
+        // so the edit is made on a replacement instead of the stored object.
+        Question replacement = new Question(dictionary.intern(newQuestion), new Answer[newAnswers.length]);
+        replacement.setDifficulty(oldQuestion.getDifficulty());
+        replacement.setMedia(media != null ? media : oldQuestion.getMedia());
         for (Answer a : newAnswers) {
-            oldQuestion.updateAnswer(idx, a);
+            replacement.addAnswer(dictionary.intern(a));
         }
 
-        boolean updated = questionRepo.update(idx, oldQuestion);
+        boolean updated = questionRepo.update(idx, replacement);
+        audit.publish(AuditEventType.QUESTION_UPDATED, actor, updated, oldQuestion.getId(), 0);
+        event.finish("update", actor, oldQuestion.getId(), replacement.getAnswerCount(), updated);
         System.out.println(updated
                 ? "Question updated successfully."
                 : "Failed to update question.");
@@ -100,19 +291,26 @@ public class TeacherService {
      * @param answers  array of {@link Answer} objects for the question
      */
     public void add(Question question, Answer[] answers) {
+        QuestionEditEvent event = new QuestionEditEvent();
+        event.begin();
         if (question == null || answers == null || answers.length == 0) {
             System.out.println("Question or answer cannot be empty or null.");
+            event.finish("add", actor, 0, 0, false);
             return;
         }
         for (Question q : questionRepo.listAll()) {
             if (q.equals(question)) {
                 System.out.println("Such a question is already exists.");
+                event.finish("add", actor, q.getId(), 0, false);
                 return;
             }
         }
+        question.setQuestion(dictionary.intern(question.getQuestion()));
         for (Answer a : answers) {
-            question.addAnswer(a);
+            question.addAnswer(dictionary.intern(a));
         }
-        questionRepo.add(question);
+        boolean added = questionRepo.add(question);
+        audit.publish(AuditEventType.QUESTION_ADDED, actor, added, question.getId(), 0);
+        event.finish("add", actor, question.getId(), question.getAnswerCount(), added);
     }
 }
@@ -1,8 +1,22 @@
 package quizService.service;
 
+import quizService.audit.AuditEventType;
+import quizService.audit.AuditLog;
 import quizService.model.Role;
 import quizService.model.User;
+import quizService.monitoring.AuthEvent;
 import quizService.repository.UserRepository;
+import quizService.util.RateLimiter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * Service layer responsible for user-related operations.
@@ -22,12 +36,55 @@ public class UserService {
     /**
      * Reference to {@link UserRepository}.
      */
-    private static final UserRepository userRepo = UserRepository.getInstance();
+    private final UserRepository userRepo;
+
+    /**
+     * Hashes and checks passwords off the request threads.
+     */
+    private final CredentialService credentials;
+
+    /**
+     * Audit trail of registration and login attempts.
+     */
+    private static final AuditLog audit = AuditLog.getInstance();
+
+    /**
+     * Login attempts: 5 at once per username, then one every 6 seconds;
+     * 200 at once overall, then 1000 per second.
+     */
+    private static final RateLimiter loginLimiter =
+            new RateLimiter(5, 6_000, 200, 1_000_000, 1 << 16);
+
+    /**
+     * Registrations: 3 at once per username, then one every 10 seconds;
+     * 500 at once overall, then 2000 per second for term-start peaks.
+     */
+    private static final RateLimiter registerLimiter =
+            new RateLimiter(3, 10_000, 500, 500_000, 1 << 16);
+
+    /**
+     * Roster rows validated and inserted together.
+     */
+    private static final int PROVISIONING_BATCH = 4096;
 
     /**
      * Private constructor to enforce Singleton pattern.
      */
-    private UserService() {}
+    private UserService() {
+        this(UserRepository.getInstance(), CredentialService.getInstance());
+    }
+
+    /**
+     * Creates a service over a repository separate from the shared one, e.g. for tests.
+     * Rate limits are still shared with the singleton.
+     *
+     * @param userRepo    repository accounts are stored in
+     * @param credentials service hashing and checking passwords
+     */
+    public UserService(UserRepository userRepo, CredentialService credentials) {
+        this.userRepo = userRepo;
+        this.credentials = credentials;
+    }
 
     /**
      * Returns the singleton instance of {@code UserService}.
@@ -51,6 +108,134 @@ public class UserService {
      * @return true if registered successfully, false otherwise
      */
     public final boolean register(Role role, String username, String password) {
+        AuthEvent event = new AuthEvent();
+        event.begin();
+        boolean registered = tryRegister(role, username, password);
+        audit.publish(AuditEventType.REGISTER, username, registered);
+        event.finish("register", username, registered);
+        return registered;
+    }
+
+    /**
+     * Creates the accounts listed in a roster file, e.g. the registrar's export at term start.
+     * <p>
+     * Each line is {@code role,username,password}; a header line starting with
+     * {@code role}, blank lines and lines starting with {@code #} are skipped.
+     * The file is streamed in batches: the rows of a batch are validated in
+     * parallel with the same rules as {@link #register(Role, String, String)},
+     * then inserted with one put-if-absent per row under a single repository
+     * lock, so concurrent registrations and other rosters never create a second
+     * account with the same username. Rows are not rate limited.
+     * </p>
+     * <p>
+     * Passwords are hashed on the bounded {@link CredentialService} pool, one
+     * at a time per core, so logins stay served during an import. Hashing is
+     * deliberately slow: at the default iteration count a core hashes about
+     * five passwords a second, so a large roster takes minutes to hours.
+     * </p>
+     *
+     * @param roster roster file in UTF-8
+     * @return created accounts and the rows that failed, with their reasons
+     * @throws IOException if the file cannot be read
+     */
+    public ProvisioningReport provision(Path roster) throws IOException {
+        long start = System.nanoTime();
+        List<ProvisioningReport.RowFailure> failures = new ArrayList<>();
+        String[] lines = new String[PROVISIONING_BATCH];
+        int[] lineNumbers = new int[PROVISIONING_BATCH];
+        int rows = 0;
+        int created = 0;
+        try (BufferedReader reader = Files.newBufferedReader(roster, StandardCharsets.UTF_8)) {
+            int lineNumber = 0;
+            int n = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.strip();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")
+                        || (rows == 0 && n == 0 && trimmed.toLowerCase(Locale.ROOT).startsWith("role"))) {
+                    continue;
+                }
+                lines[n] = line;
+                lineNumbers[n++] = lineNumber;
+                if (n == PROVISIONING_BATCH) {
+                    created += provisionBatch(lines, lineNumbers, n, failures);
+                    rows += n;
+                    n = 0;
+                }
+            }
+            created += provisionBatch(lines, lineNumbers, n, failures);
+            rows += n;
+        }
+        ProvisioningReport report = new ProvisioningReport(rows, created, failures,
+                (System.nanoTime() - start) / 1_000_000);
+        System.out.println(report);
+        return report;
+    }
+
+    /**
+     * Validates a batch of roster rows in parallel and inserts the valid ones.
+     *
+     * @return amount of accounts created
+     */
+    private int provisionBatch(String[] lines, int[] lineNumbers, int n, List<ProvisioningReport.RowFailure> failures) {
+        if (n == 0) return 0;
+        String[][] fields = new String[n][];
+        String[] problems = new String[n];
+        User[] users = new User[n];
+        Arrays.parallelSetAll(fields, i -> lines[i].split(",", 3));
+        Arrays.parallelSetAll(problems, i -> rosterProblem(fields[i]));
+        // hashing dominates and runs on the bounded credential pool; skip rows that would be rejected anyway
+        String[] passwords = new String[n];
+        for (int i = 0; i < n; i++) {
+            if (problems[i] == null && !userRepo.usernameTaken(fields[i][1].strip())) passwords[i] = fields[i][2];
+        }
+        String[] hashes = credentials.hashAll(passwords);
+        for (int i = 0; i < n; i++) {
+            if (passwords[i] == null) continue;
+            if (hashes[i] == null) {
+                problems[i] = "password could not be hashed";
+                continue;
+            }
+            users[i] = new User(Role.valueOf(fields[i][0].strip().toUpperCase(Locale.ROOT)), fields[i][1].strip(), hashes[i]);
+        }
+
+        boolean[] added = userRepo.addAll(users, n);
+        int created = 0;
+        for (int i = 0; i < n; i++) {
+            String username = fields[i].length > 1 ? fields[i][1].strip() : null;
+            if (added[i]) {
+                created++;
+            } else {
+                String reason = problems[i] != null ? problems[i] : "username already exists";
+                failures.add(new ProvisioningReport.RowFailure(lineNumbers[i], username, reason));
+            }
+            audit.publish(AuditEventType.REGISTER, username, added[i]);
+        }
+        return created;
+    }
+
+    /**
+     * Checks one roster row against the registration rules.
+     *
+     * @return why the row is invalid, or null if it is valid
+     */
+    private static String rosterProblem(String[] fields) {
+        if (fields.length < 3) return "expected role,username,password";
+        try {
+            Role.valueOf(fields[0].strip().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return "unknown role " + fields[0].strip();
+        }
+        if (fields[1].isBlank() || fields[2].isBlank()) return "empty username/password";
+        if (fields[2].length() < 6) return "password must be > 6 chars";
+        return null;
+    }
+
+    /**
+     * Validates and stores a new user; see {@link #register(Role, String, String)}.
+     */
+    private boolean tryRegister(Role role, String username, String password) {
         if (role == null || role.name().trim().isBlank() ||
             username == null || username.isBlank() ||
             password == null || password.isBlank()) {
@@ -59,18 +244,28 @@ public class UserService {
         }
         String trimmedUsername = username.trim();
 
+        if (!registerLimiter.tryAcquire(trimmedUsername)) {
+            System.out.println("Registration failed: too many attempts, try again later");
+            return false;
+        }
+
         if (password.length() < 6) {
             System.out.println("Registration failed: password must be > 6 chars");
             return false;
         }
 
-        if (userRepo.exists(trimmedUsername, password)) {
+        if (userRepo.usernameTaken(trimmedUsername)) {
             System.out.println("Registration failed: username already exists");
             return false;
         }
 
 
-        User newUser = new User(role, trimmedUsername, password);
+        String hash = credentials.hash(password);
+        if (hash == null) {
+            System.out.println("Registration failed: server busy, try again later");
+            return false;
+        }
+        User newUser = new User(role, trimmedUsername, hash);
         return userRepo.add(newUser);
     }
 
@@ -79,7 +274,8 @@ public class UserService {
      * <p>
      * Checks username and password validity.
      * If a user is found, returns the corresponding {@link User}.
-     * Otherwise, returns {@code null}.
+     * Otherwise, returns {@code null}. A legacy plaintext password is replaced
+     * by its hash on the first successful login.
      * </p>
      *
      * @param username username of the user
@@ -87,6 +283,32 @@ public class UserService {
      * @return {@link User} if login succeeds, {@code null} otherwise
      */
     public final User login(String username, String password) {
+        AuthEvent event = new AuthEvent();
+        event.begin();
+        User user = tryLogin(username, password);
+        audit.publish(AuditEventType.LOGIN, username, user != null);
+        event.finish("login", username, user != null);
+        return user;
+    }
+
+    /**
+     * @return login attempts rejected so far as {per username, global}
+     */
+    public long[] rejectedLogins() {
+        return new long[]{loginLimiter.rejectedByKey(), loginLimiter.rejectedGlobally()};
+    }
+
+    /**
+     * @return registrations rejected so far as {per username, global}
+     */
+    public long[] rejectedRegistrations() {
+        return new long[]{registerLimiter.rejectedByKey(), registerLimiter.rejectedGlobally()};
+    }
+
+    /**
+     * Checks credentials; see {@link #login(String, String)}.
+     */
+    private User tryLogin(String username, String password) {
         if (username == null || username.isBlank() ||
             password == null || password.isBlank()) {
             System.out.println("Logging In failed: empty username/password");
@@ -95,11 +317,20 @@ public class UserService {
 
         String trimmedUsername = username.trim();
 
-        for (User u : userRepo.getAll()) {
-            if (userRepo.exists(trimmedUsername, password)) {
-                System.out.printf("%s logged in\n", u.username());
-                return u;
+        if (!loginLimiter.tryAcquire(trimmedUsername)) {
+            System.out.println("Logging In failed: too many attempts, try again later");
+            return null;
+        }
+
+        User u = userRepo.findByUsername(trimmedUsername);
+        if (u != null && credentials.verify(u, password)) {
+            String hash = credentials.rehash(u, password);
+            if (hash != null) {
+                User rehashed = userRepo.replacePassword(u.username(), u.password(), hash);
+                if (rehashed != null) u = rehashed;
             }
+            System.out.printf("%s logged in\n", u.username());
+            return u;
         }
         System.out.println("Login failed for user: " + trimmedUsername);
         return null;
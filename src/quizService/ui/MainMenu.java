@@ -33,10 +33,6 @@ public class MainMenu implements Menu {
      * Service responsible for authentication and user management.
      */
     private static final AuthService authService = new AuthService();
-    /**
-     * Menu handler for teachers. Invoked when a logged-in user has the role {@link Role#TEACHER}.
-     */
-    private static final TeacherMenu teacherMenu = new TeacherMenu();
 
     /**
      * Starts the main menu loop by invoking {@link #mainMenu()}.
@@ -106,7 +102,7 @@ public class MainMenu implements Menu {
         }
         System.out.println("Welcome " + user.username());
         System.out.println("Role: " + user.role());
-        if (user.role().equals(Role.TEACHER)) teacherMenu.start();
+        if (user.role().equals(Role.TEACHER)) new TeacherMenu(user).start();
         if (user.role().equals(Role.STUDENT)) new StudentMenu(user).start();
     }
 
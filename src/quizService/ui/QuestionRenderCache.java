@@ -0,0 +1,208 @@
+package quizService.ui;
+
+import quizService.model.Answer;
+import quizService.model.MediaRef;
+import quizService.model.Question;
+import quizService.repository.QuestionRepository;
+import quizService.uml.QuestionListener;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Cache of questions rendered for the student display.
+ * <p>
+ * A question is formatted once into a UTF-8 byte block holding its text and
+ * numbered answers; the per-quiz number in front of it comes from a table of
+ * pre-encoded prefixes. Showing a cached question is therefore two buffer writes
+ * without any formatting or string building.
+ * </p>
+ * <p>
+ * Blocks are stored in an array indexed by {@link Question#getId()} together with
+ * the question object they were rendered from, and read without a lock. The
+ * array grows with the ids up to {@value #DEFAULT_SLOTS} slots; larger ids share
+ * slots ({@code id} modulo the length), so a bank with many questions, or ids
+ * of several banks, evict each other's blocks instead of growing the array
+ * without bound. Stored questions are never modified (edits replace them), so
+ * a block is valid as long as it belongs to the same object. This check, not
+ * the invalidation, is what keeps edits safe: a reader that rendered the old
+ * question just before an edit may put its block back after the cache
+ * {@link #questionChanged dropped} it, but a reader holding the new question
+ * never accepts it. The cache listens to {@link QuestionRepository} and drops
+ * blocks of updated or removed questions right away only to free their space.
+ * This class follows the Singleton pattern.
+ * </p>
+ */
+public class QuestionRenderCache implements QuestionListener {
+    /**
+     * Singleton instance, registered with the question repository.
+     */
+    private static final QuestionRenderCache instance = new QuestionRenderCache();
+
+    static {
+        QuestionRepository.getInstance().addListener(instance);
+    }
+
+    /**
+     * Most slots of the shared cache; a power of two.
+     */
+    public static final int DEFAULT_SLOTS = 1 << 16;
+
+    /**
+     * Pre-encoded "\n{n}. " prefixes for question numbers 1..{@value #PREFIXES}.
+     */
+    private static final int PREFIXES = 256;
+    private static final byte[][] NUMBER_PREFIX = new byte[PREFIXES + 1][];
+
+    static {
+        for (int n = 1; n <= PREFIXES; n++) {
+            NUMBER_PREFIX[n] = ("\n" + n + ". ").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Rendered block together with the exact question it was rendered from.
+     */
+    private record Rendered(Question question, byte[] bytes) {}
+
+    /**
+     * Rendered blocks by question id modulo the length.
+     * Replaced by a larger copy when it grows.
+     */
+    private volatile Rendered[] byId = new Rendered[64];
+    private final int maxSlots;
+
+    /**
+     * Private constructor to enforce Singleton pattern.
+     */
+    private QuestionRenderCache() {
+        this(DEFAULT_SLOTS);
+    }
+
+    /**
+     * Creates a cache separate from the shared one, e.g. for tests.
+     *
+     * @param maxSlots most slots the array grows to; rounded up to a power of two, at least 64
+     */
+    QuestionRenderCache(int maxSlots) {
+        this.maxSlots = Math.max(64, Integer.highestOneBit(Math.max(1, maxSlots - 1)) << 1);
+    }
+
+    /**
+     * Returns the single instance of this cache.
+     *
+     * @return singleton {@code QuestionRenderCache} instance
+     */
+    public static QuestionRenderCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Writes a numbered question with its answers.
+     *
+     * @param out      stream to write to
+     * @param number   1-based number of the question in the quiz
+     * @param question question to show
+     */
+    public void write(PrintStream out, int number, Question question) {
+        byte[] prefix = number > 0 && number <= PREFIXES
+                ? NUMBER_PREFIX[number]
+                : ("\n" + number + ". ").getBytes(StandardCharsets.UTF_8);
+        byte[] block = rendered(question);
+        out.write(prefix, 0, prefix.length);
+        out.write(block, 0, block.length);
+        out.flush();
+    }
+
+    /**
+     * Writes a numbered question with its answers to any output stream,
+     * e.g. a network connection.
+     *
+     * @param out      stream to write to
+     * @param number   1-based number of the question in the quiz
+     * @param question question to show
+     * @throws IOException if writing fails
+     */
+    public void write(OutputStream out, int number, Question question) throws IOException {
+        byte[] prefix = number > 0 && number <= PREFIXES
+                ? NUMBER_PREFIX[number]
+                : ("\n" + number + ". ").getBytes(StandardCharsets.UTF_8);
+        out.write(prefix);
+        out.write(rendered(question));
+    }
+
+    /**
+     * Returns the cached block of a question, rendering it on first use.
+     *
+     * @param question question to render
+     * @return UTF-8 bytes of the question text and its numbered answers
+     */
+    public byte[] rendered(Question question) {
+        long id = question.getId();
+        if (id <= 0) return render(question);
+        Rendered[] arr = byId;
+        Rendered r = arr[(int) (id & (arr.length - 1))];
+        if (r != null && r.question() == question) return r.bytes();
+        byte[] bytes = render(question);
+        store(id, new Rendered(question, bytes));
+        return bytes;
+    }
+
+    /**
+     * Drops the block of a changed question.
+     */
+    @Override
+    public void questionChanged(Question oldQuestion, Question newQuestion) {
+        if (oldQuestion == null) return;
+        synchronized (this) {
+            Rendered[] arr = byId;
+            int slot = (int) (oldQuestion.getId() & (arr.length - 1));
+            if (arr[slot] != null && arr[slot].question() == oldQuestion) arr[slot] = null;
+        }
+    }
+
+    /**
+     * @return current length of the block array, at most the configured maximum
+     */
+    int slots() {
+        return byId.length;
+    }
+
+    /**
+     * Formats a question the way the student menu shows it.
+     */
+    private static byte[] render(Question question) {
+        StringBuilder sb = new StringBuilder(question.getQuestion()).append('\n');
+        for (MediaRef m : question.getMedia()) {
+            sb.append(" [").append(m.contentType()).append(", ").append((m.size() + 1023) / 1024)
+              .append(" KB, media ").append(m.hash(), 0, 12).append("]\n");
+        }
+        Answer[] answers = question.getAnswers();
+        for (int j = 0; j < question.getAnswerCount(); j++) {
+            Answer a = answers[j];
+            sb.append(' ').append(j + 1).append(". ")
+              .append(a != null ? a.text() : "(empty answer)").append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Stores a block, first growing the array towards the id while it is below its maximum.
+     */
+    private synchronized void store(long id, Rendered rendered) {
+        Rendered[] arr = byId;
+        if (id >= arr.length && arr.length < maxSlots) {
+            int newLength = arr.length;
+            while (newLength <= id && newLength < maxSlots) newLength *= 2;
+            Rendered[] newArr = new Rendered[newLength];
+            for (Rendered r : arr) {
+                if (r != null) newArr[(int) (r.question().getId() & (newLength - 1))] = r;
+            }
+            arr = newArr;
+        }
+        arr[(int) (id & (arr.length - 1))] = rendered;
+        byId = arr;
+    }
+}
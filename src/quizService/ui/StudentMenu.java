@@ -1,13 +1,26 @@
 package quizService.ui;
 
+import quizService.media.MediaStore;
+import quizService.model.MediaRef;
 import quizService.model.Question;
-import quizService.model.Answer;
 import quizService.model.User;
+import quizService.quiz.BankLease;
+import quizService.quiz.CourseQuiz;
+import quizService.quiz.QuizRegistry;
 import quizService.repository.QuestionRepository;
+import quizService.repository.QuestionSnapshot;
+import quizService.model.QuizResult;
+import quizService.service.AdaptiveQuizSession;
+import quizService.service.ExamScheduler;
+import quizService.service.ExamSession;
+import quizService.service.ProgressFeed;
 import quizService.service.QuizService;
+import quizService.service.ScoringRule;
 import quizService.util.InputUtil;
 import quizService.uml.Menu;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Scanner;
 
 /**
@@ -16,7 +29,8 @@ import java.util.Scanner;
  * <p>
  * Students can:
  * <ul>
- *   <li>Start and take quizzes</li>
+ *   <li>Start and take quizzes, of the shared bank or of a course</li>
+ *   <li>Write timed exams that are submitted when the time is up</li>
  *   <li>View questions and multiple-choice answers</li>
  *   <li>Submit their answers and view results</li>
  * </ul>
@@ -39,6 +53,44 @@ public class StudentMenu implements Menu {
      * Service responsible for running quizzes and calculating results.
      */
     private static final QuizService quizService = new QuizService(questionRepository);
+    /**
+     * Course quizzes with question banks of their own.
+     */
+    private static final QuizRegistry quizRegistry = QuizRegistry.getInstance();
+    /**
+     * Runs timed exams on the shared bank and submits them when their time is up;
+     * their progress is reported to the shared feed teachers watch.
+     */
+    private static final ExamScheduler examScheduler =
+            new ExamScheduler(quizService, ExamScheduler.DEFAULT_TICK_MILLIS, ProgressFeed.getInstance());
+    /**
+     * Time a student has for a whole timed exam.
+     */
+    private static final long EXAM_DURATION_MILLIS = 20 * 60_000L;
+    /**
+     * Time a student has for one question of a timed exam.
+     */
+    private static final long EXAM_QUESTION_LIMIT_MILLIS = 2 * 60_000L;
+    /**
+     * Pre-rendered question blocks shared by all students.
+     */
+    private static final QuestionRenderCache renderCache = QuestionRenderCache.getInstance();
+    /**
+     * Store the media of questions are delivered from.
+     */
+    private static final MediaStore mediaStore = MediaStore.getInstance();
+    /**
+     * Directory media files are copied to for the student to open.
+     */
+    private static final Path MEDIA_DIRECTORY = Path.of("downloads");
+    /**
+     * Upper bound on questions asked in an adaptive quiz.
+     */
+    private static final int ADAPTIVE_MAX_QUESTIONS = 20;
+    /**
+     * Standard error at which an adaptive quiz stops asking.
+     */
+    private static final double ADAPTIVE_TARGET_ERROR = 0.35;
     /**
      * The currently logged-in user associated with this menu.
      */
@@ -67,6 +119,9 @@ public class StudentMenu implements Menu {
      * Options:
      * <ul>
      *   <li>Start Quiz</li>
+     *   <li>Start Adaptive Quiz</li>
+     *   <li>Start Course Quiz</li>
+     *   <li>Start Timed Exam</li>
      *   <li>Exit</li>
      * </ul>
      */
@@ -78,12 +133,21 @@ public class StudentMenu implements Menu {
                     
                     1. Start Quiz\
                     
+                    2. Start Adaptive Quiz\
+                    
+                    3. Start Course Quiz\
+                    
+                    4. Start Timed Exam\
+                    
                     0. Exit\
                     
                     Choose: \s""");
 
             switch (inputUtil.getIntInput()) {
                 case 1 -> runQuiz();
+                case 2 -> runAdaptiveQuiz();
+                case 3 -> runCourseQuiz();
+                case 4 -> runTimedExam();
                 case 0 -> {
                     return;
                 }
@@ -97,35 +161,162 @@ public class StudentMenu implements Menu {
      * <p>
      * The method:
      * <ol>
-     *   <li>Retrieves all available questions from the repository</li>
+     *   <li>Pins the current version of the question bank</li>
      *   <li>Prompts the student to answer each question</li>
-     *   <li>Collects chosen answers</li>
+     *   <li>Collects chosen answers and the time spent on each question</li>
      *   <li>Submits answers to the {@link QuizService}</li>
      *   <li>Displays the result</li>
      * </ol>
      * </p>
      */
     private void runQuiz() {
-        Question[] questions = questionRepository.listAll();
-        if (questions == null || questions.length == 0) {
+        runQuiz(quizService, questionRepository);
+    }
+
+    /**
+     * Runs the quiz of one course: the student picks it by id, and its bank
+     * is leased while the quiz is taken.
+     */
+    private void runCourseQuiz() {
+        if (!TeacherMenu.listQuizzes()) return;
+        System.out.print("Enter quiz id: ");
+        CourseQuiz quiz = quizRegistry.find(inputUtil.getIntInput());
+        if (quiz == null) {
+            System.out.println("No such quiz.");
+            return;
+        }
+        try (BankLease lease = quiz.acquire()) {
+            if (lease == null) return;
+            runQuiz(lease.service(), lease.bank());
+        }
+    }
+
+    /**
+     * Runs a timed exam on the shared bank.
+     * <p>
+     * Each question has {@link #EXAM_QUESTION_LIMIT_MILLIS} and the whole exam
+     * {@link #EXAM_DURATION_MILLIS}. An answer given after its question's time
+     * ran out is not counted; once the exam time is up, it is submitted with
+     * the answers given so far.
+     * </p>
+     */
+    private void runTimedExam() {
+        if (questionRepository.size() == 0) {
+            System.out.println("No questions yet.");
+            return;
+        }
+        ExamSession session = examScheduler.start(currentUser, EXAM_DURATION_MILLIS, EXAM_QUESTION_LIMIT_MILLIS);
+        System.out.printf("=== Timed exam is started for %s: %d minutes, %d minutes per question ===%n",
+                currentUser.username(), EXAM_DURATION_MILLIS / 60_000, EXAM_QUESTION_LIMIT_MILLIS / 60_000);
+        Question q;
+        while ((q = session.currentQuestion()) != null) {
+            int index = session.currentIndex();
+            renderCache.write(System.out, index + 1, q);
+            deliverMedia(q);
+            int choice = InputUtil.readInt("Choose option: ", 1, q.getAnswerCount());
+            if (!session.answer(index, choice)) {
+                System.out.println(session.isFinished() ? "Time is up." : "Time for this question ran out.");
+            }
+        }
+        // submitted by the scheduler if the time ran out meanwhile
+        QuizResult result = session.submit();
+        if (result == null) result = session.result().join();
+        System.out.println(result != null ? result : "The exam could not be graded.");
+    }
+
+    /**
+     * Pins the current version of a bank and runs the quiz on it.
+     *
+     * @param service service grading against the bank
+     * @param bank    bank the questions come from
+     */
+    private void runQuiz(QuizService service, QuestionRepository bank) {
+        QuestionSnapshot snapshot = bank.pin();
+        try {
+            runQuiz(service, snapshot);
+        } finally {
+            bank.release(snapshot);
+        }
+    }
+
+    /**
+     * Shows the questions of a pinned bank version and grades against that same version.
+     *
+     * @param service  service grading against the bank
+     * @param snapshot version of the bank pinned for this quiz
+     */
+    private void runQuiz(QuizService service, QuestionSnapshot snapshot) {
+        Question[] questions = snapshot.toArray();
+        if (questions.length == 0) {
             System.out.println("No questions yet.");
             return;
         }
-        int[] chosenAnswers = new int[questions.length];
+        int[] selections = new int[questions.length];
+        long[] responseNanos = new long[questions.length];
         System.out.println("=== Test is started for " + currentUser.username() + " ===");
         for (int i = 0; i < questions.length; i++) {
             Question q = questions[i];
             if (q == null) continue;
-            System.out.printf("\n%d. %s\n", (i + 1), q.getQuestion());
-            Answer[] answers = q.getAnswers();
+            renderCache.write(System.out, i + 1, q);
+            deliverMedia(q);
             int answerCount = q.getAnswerCount();
-            for (int j = 0; j < answerCount; j++) {
-                Answer a = answers[j];
-                String answerText = (a != null) ? a.text() : "(empty answer)";
-                System.out.printf(" %d. %s\n", (j + 1), answerText);
+            long shownAt = System.nanoTime();
+            selections[i] = q.isMultiSelect()
+                    ? ScoringRule.selection(InputUtil.readInts("Choose all correct options (e.g. 1,3): ", 1, answerCount))
+                    : ScoringRule.selection(InputUtil.readInt("Choose option: ", 1, answerCount));
+            responseNanos[i] = System.nanoTime() - shownAt;
+        }
+        System.out.println(service.submitSelections(currentUser, snapshot, selections, responseNanos));
+    }
+
+    /**
+     * Runs an adaptive quiz for the current user.
+     * <p>
+     * Each next question is chosen by the {@link QuizService} from the
+     * student's answers so far; the quiz ends as soon as the ability
+     * estimate is precise enough.
+     * </p>
+     */
+    private void runAdaptiveQuiz() {
+        AdaptiveQuizSession session = quizService.startAdaptiveQuiz(
+                currentUser, ADAPTIVE_MAX_QUESTIONS, ADAPTIVE_TARGET_ERROR);
+        Question q = session.nextQuestion();
+        if (q == null) {
+            // nothing was asked: no result to show, store or audit
+            session.cancel();
+            System.out.println("No questions yet.");
+            return;
+        }
+        try {
+            System.out.println("=== Adaptive test is started for " + currentUser.username() + " ===");
+            while (q != null) {
+                renderCache.write(System.out, session.getAsked() + 1, q);
+                deliverMedia(q);
+                int answerCount = q.getAnswerCount();
+                session.select(q.isMultiSelect()
+                        ? ScoringRule.selection(InputUtil.readInts("Choose all correct options (e.g. 1,3): ", 1, answerCount))
+                        : ScoringRule.selection(InputUtil.readInt("Choose option: ", 1, answerCount)));
+                q = session.nextQuestion();
+            }
+        } finally {
+            System.out.println(session.finish());
+        }
+    }
+
+    /**
+     * Copies the media of a question to {@link #MEDIA_DIRECTORY} and prints
+     * where the student can open them. Questions without media print nothing.
+     */
+    private static void deliverMedia(Question q) {
+        for (MediaRef media : q.getMedia()) {
+            try {
+                Path file = mediaStore.export(media, MEDIA_DIRECTORY);
+                System.out.println(file != null
+                        ? " Open " + file.toAbsolutePath()
+                        : " Media " + media.hash().substring(0, 12) + " is missing.");
+            } catch (IOException e) {
+                System.out.println(" Could not open media: " + e.getMessage());
             }
-            chosenAnswers[i] = InputUtil.readInt("Choose option: ", 1, answerCount);
         }
-        System.out.println(quizService.startQuiz(currentUser, chosenAnswers));
     }
 }
@@ -1,11 +1,22 @@
 package quizService.ui;
 
 import quizService.model.Answer;
+import quizService.model.MediaRef;
 import quizService.model.Question;
+import quizService.model.User;
+import quizService.quiz.BankLease;
+import quizService.quiz.CourseQuiz;
+import quizService.quiz.QuizRegistry;
+import quizService.repository.ResultRepository;
+import quizService.service.ExamProgress;
+import quizService.service.ProgressFeed;
 import quizService.service.TeacherService;
+import quizService.uml.ProgressListener;
 import quizService.util.InputUtil;
 import quizService.uml.Menu;
 
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.util.Scanner;
 
 /**
@@ -18,6 +29,10 @@ import java.util.Scanner;
  *   <li>Update existing questions</li>
  *   <li>Delete questions</li>
  *   <li>List all stored questions</li>
+ *   <li>See how long students spend on each question</li>
+ *   <li>See score reports and question statistics</li>
+ *   <li>Create course quizzes and edit their own questions</li>
+ *   <li>Watch the progress of running timed exams live</li>
  * </ul>
  * </p>
  */
@@ -30,10 +45,28 @@ public class TeacherMenu implements Menu {
      * Utility class instance for handling validated user input.
      */
     private static final InputUtil inputUtil = InputUtil.getInstance();
+    /**
+     * Course quizzes with question banks of their own.
+     */
+    private static final QuizRegistry quizRegistry = QuizRegistry.getInstance();
+    /**
+     * The authenticated teacher.
+     */
+    private final User teacher;
     /**
      * Service layer for managing quiz questions on behalf of the teacher.
      */
-    private static final TeacherService teacherService = new TeacherService();
+    private final TeacherService teacherService;
+
+    /**
+     * Constructs a {@code TeacherMenu} for the given user.
+     *
+     * @param user the authenticated teacher
+     */
+    public TeacherMenu(User user) {
+        this.teacher = user;
+        this.teacherService = new TeacherService(user);
+    }
 
     /**
      * Starts the teacher menu interaction loop.
@@ -52,6 +85,10 @@ public class TeacherMenu implements Menu {
      *   <li>Update an existing question</li>
      *   <li>Delete a question</li>
      *   <li>Display all questions</li>
+     *   <li>Display response times per question</li>
+     *   <li>Display reports over stored results</li>
+     *   <li>Manage course quizzes</li>
+     *   <li>Watch running timed exams</li>
      *   <li>Exit the menu</li>
      * </ul>
      */
@@ -69,6 +106,14 @@ public class TeacherMenu implements Menu {
                     
                     4. display all tasks\
                     
+                    5. Response times\
+                    
+                    6. Reports\
+                    
+                    7. Course quizzes\
+                    
+                    8. Watch timed exams\
+                    
                     0. Exit\
                     
                     Choose: \s""");
@@ -76,10 +121,14 @@ public class TeacherMenu implements Menu {
             int input = inputUtil.getIntInput();
 
             switch (input) {
-                case 1 -> add();
-                case 2 -> update();
-                case 3 -> delete();
-                case 4 -> list();
+                case 1 -> add(teacherService);
+                case 2 -> update(teacherService);
+                case 3 -> delete(teacherService);
+                case 4 -> teacherService.list();
+                case 5 -> teacherService.responseTimes();
+                case 6 -> teacherService.reports();
+                case 7 -> courseQuizzes();
+                case 8 -> watchExams();
                 case 0 -> {
                     return;
                 }
@@ -89,10 +138,155 @@ public class TeacherMenu implements Menu {
     }
 
     /**
-     * Displays all existing questions stored in the system.
+     * Shows the progress of the timed exams on the shared bank live.
+     * <p>
+     * Prints every student writing an exam now, then subscribes to the shared
+     * {@link ProgressFeed} and prints its deltas as they arrive, at most one
+     * per tick, until the teacher presses Enter.
+     * </p>
      */
-    private static void list() {
-        teacherService.list();
+    private void watchExams() {
+        ProgressFeed feed = ProgressFeed.getInstance();
+        int examId = ResultRepository.DEFAULT_QUIZ;
+        ProgressListener listener = delta -> {
+            for (ExamProgress p : delta.changes()) System.out.println(describe(p));
+        };
+        feed.subscribe(examId, listener);
+        try {
+            System.out.println("=== Timed exams, press Enter to stop watching ===");
+            for (ExamProgress p : feed.progress(examId)) System.out.println(describe(p));
+            inputUtil.prompt("");
+        } finally {
+            feed.unsubscribe(examId, listener);
+        }
+    }
+
+    /**
+     * One line of a student's exam progress.
+     */
+    private static String describe(ExamProgress p) {
+        return String.format("%-20s %d/%d answered, %d correct, question %d%s", p.username(), p.answered(),
+                p.questions(), p.correct(), Math.min(p.current() + 1, p.questions()), p.finished() ? ", submitted" : "");
+    }
+
+    /**
+     * Lets the teacher create course quizzes, list them, show one and edit its questions.
+     */
+    private void courseQuizzes() {
+        while (true) {
+            System.out.print("""
+                    
+                    ==== COURSE QUIZZES ====\
+                    
+                    1. Create quiz\
+                    
+                    2. List quizzes\
+                    
+                    3. Edit quiz questions\
+                    
+                    4. Show quiz\
+                    
+                    0. Back\
+                    
+                    Choose: \s""");
+
+            switch (inputUtil.getIntInput()) {
+                case 1 -> {
+                    CourseQuiz quiz = quizRegistry.create(inputUtil.prompt("Quiz name: "));
+                    if (quiz != null) System.out.println("Created " + quiz);
+                }
+                case 2 -> listQuizzes();
+                case 3 -> editQuiz();
+                case 4 -> showQuiz();
+                case 0 -> {
+                    return;
+                }
+                default -> System.out.println("Invalid input. Try again.");
+            }
+        }
+    }
+
+    /**
+     * Shows the questions of one course quiz.
+     * <p>
+     * Questions are read through the registry's hot-question cache, so a quiz
+     * shown again and again is neither leased nor read back from disk.
+     * </p>
+     */
+    private void showQuiz() {
+        if (!listQuizzes()) return;
+        System.out.print("Enter quiz id: ");
+        CourseQuiz quiz = quizRegistry.find(inputUtil.getIntInput());
+        if (quiz == null) {
+            System.out.println("No such quiz.");
+            return;
+        }
+        quiz.show();
+        System.out.println(quizRegistry.hotQuestionReport());
+    }
+
+    /**
+     * Prints every course quiz with its id.
+     *
+     * @return false if there are no quizzes
+     */
+    static boolean listQuizzes() {
+        CourseQuiz[] quizzes = quizRegistry.listAll();
+        if (quizzes.length == 0) {
+            System.out.println("No course quizzes yet.");
+            return false;
+        }
+        for (CourseQuiz quiz : quizzes) System.out.println(quiz);
+        return true;
+    }
+
+    /**
+     * Edits the questions of one course quiz.
+     * <p>
+     * The quiz's bank is leased while the teacher edits it, so it stays in
+     * memory, and it is saved when the teacher goes back.
+     * </p>
+     */
+    private void editQuiz() {
+        if (!listQuizzes()) return;
+        System.out.print("Enter quiz id: ");
+        CourseQuiz quiz = quizRegistry.find(inputUtil.getIntInput());
+        if (quiz == null) {
+            System.out.println("No such quiz.");
+            return;
+        }
+        try (BankLease lease = quiz.acquire()) {
+            if (lease == null) return;
+            TeacherService quizService = new TeacherService(teacher, lease.bank());
+            while (true) {
+                System.out.print("""
+                        
+                        ==== %s ====\
+                        
+                        1. Add question\
+                        
+                        2. Update task\
+                        
+                        3. Delete task\
+                        
+                        4. display all tasks\
+                        
+                        0. Back\
+                        
+                        Choose: \s""".formatted(quiz.getName()));
+
+                switch (inputUtil.getIntInput()) {
+                    case 1 -> add(quizService);
+                    case 2 -> update(quizService);
+                    case 3 -> delete(quizService);
+                    case 4 -> quizService.list();
+                    case 0 -> {
+                        return;
+                    }
+                    default -> System.out.println("Invalid input. Try again.");
+                }
+            }
+        }
     }
 
 
@@ -104,8 +298,10 @@ public class TeacherMenu implements Menu {
      * </p>
      * If deletion succeeds, a success message is displayed; otherwise,
      * a failure message is shown.
+     *
+     * @param teacherService service of the bank to delete from
      */
-    private static void delete() {
+    private static void delete(TeacherService teacherService) {
         System.out.println("Enter question index: ");
         int idx = inputUtil.getIntInput();
         System.out.println(teacherService.delete(idx)
@@ -121,17 +317,22 @@ public class TeacherMenu implements Menu {
      *   <li>Index of the question to update</li>
      *   <li>New question text</li>
      *   <li>New set of answers</li>
+     *   <li>Optionally a media file replacing the current media, or {@code -} to remove them</li>
      * </ul>
      * </p>
-     * Calls the {@link TeacherService#update(int, String, Answer[])} method.
+     * Calls the {@link TeacherService#update(int, String, Answer[], MediaRef[])} method.
+     *
+     * @param teacherService service of the bank to update
      */
-    private void update() {
+    private static void update(TeacherService teacherService) {
         System.out.println("Enter question index: ");
         int idx = inputUtil.getIntInput();
         System.out.println("Enter new question: ");
         String newQuestion = sc.nextLine();
         Answer[] newAnswers = inputAnswers();
-        teacherService.update(idx, newQuestion, newAnswers);
+        String file = inputUtil.prompt("Media file (empty keeps the current media, - removes them): ").strip();
+        MediaRef[] media = file.equals("-") ? new MediaRef[0] : inputMedia(teacherService, file);
+        teacherService.update(idx, newQuestion, newAnswers, media);
     }
 
     /**
@@ -141,15 +342,42 @@ public class TeacherMenu implements Menu {
      * <ul>
      *   <li>Question text</li>
      *   <li>Four possible answers, each with correctness flag</li>
+     *   <li>Difficulty used by adaptive quizzes</li>
+     *   <li>Optionally a media file, e.g. an image, shown with the question</li>
      * </ul>
      * </p>
      * Calls the {@link TeacherService#add(Question, Answer[])} method.
+     *
+     * @param teacherService service of the bank to add to
      */
-    private void add() {
+    private static void add(TeacherService teacherService) {
         System.out.print("Enter a question: ");
         String question = sc.nextLine();
         Answer[] answers = inputAnswers();
-        teacherService.add(new Question(question, answers), answers);
+        Question newQuestion = new Question(question, answers);
+        newQuestion.setDifficulty(InputUtil.readInt("Difficulty (-3 easy .. 3 hard): ", -3, 3));
+        MediaRef[] media = inputMedia(teacherService,
+                inputUtil.prompt("Media file to show with the question (empty for none): ").strip());
+        if (media != null) newQuestion.setMedia(media);
+        teacherService.add(newQuestion, answers);
+    }
+
+    /**
+     * Uploads the media file a teacher entered.
+     *
+     * @param teacherService service to upload through
+     * @param file           path entered by the teacher
+     * @return the uploaded media, or null if no file was entered or it could not be stored
+     */
+    private static MediaRef[] inputMedia(TeacherService teacherService, String file) {
+        if (file.isEmpty()) return null;
+        try {
+            MediaRef media = teacherService.uploadMedia(Path.of(file), null);
+            return media == null ? null : new MediaRef[]{media};
+        } catch (InvalidPathException e) {
+            System.out.println("Not a valid path: " + file);
+            return null;
+        }
     }
 
     /**
@@ -0,0 +1,21 @@
+package quizService.uml;
+
+import quizService.service.ProgressDelta;
+
+/**
+ * Receives the progress of a running exam, e.g. a teacher's live view.
+ * <p>
+ * Implementations are registered with
+ * {@link quizService.service.ProgressFeed#subscribe(int, ProgressListener)}
+ * and are called on the feed's thread at most once per tick. They should return quickly.
+ * </p>
+ */
+public interface ProgressListener {
+
+    /**
+     * Called with the students whose progress changed during the last tick.
+     *
+     * @param delta changes of one exam
+     */
+    void progressUpdated(ProgressDelta delta);
+}
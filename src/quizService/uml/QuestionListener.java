@@ -0,0 +1,23 @@
+package quizService.uml;
+
+import quizService.model.Question;
+
+/**
+ * Receives notifications about changes of the question bank.
+ * <p>
+ * Implementations are registered with
+ * {@link quizService.repository.QuestionRepository#addListener(QuestionListener)}
+ * and are called after the new version of the bank is published,
+ * on the thread that made the change. They should return quickly.
+ * </p>
+ */
+public interface QuestionListener {
+
+    /**
+     * Called once per added, updated or removed question.
+     *
+     * @param oldQuestion question before the change, {@code null} if it was added
+     * @param newQuestion question after the change, {@code null} if it was removed
+     */
+    void questionChanged(Question oldQuestion, Question newQuestion);
+}
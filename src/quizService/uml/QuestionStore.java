@@ -0,0 +1,48 @@
+package quizService.uml;
+
+import quizService.model.Question;
+
+/**
+ * Durable storage behind {@link quizService.repository.QuestionRepository}.
+ * <p>
+ * The repository keeps the bank in memory as versioned snapshots and writes
+ * each change through to its store, so quizzes and teachers work the same
+ * with or without one. Questions are stored with their id, answers and media
+ * references and read back in pages of ascending id.
+ * </p>
+ */
+public interface QuestionStore {
+
+    /**
+     * Reads stored questions in ascending id order, with their answers and media.
+     *
+     * @param afterId id of the last question of the previous page, or 0 for the first page
+     * @param limit   most questions to return
+     * @return the page, empty after the last one, or null if the store cannot be read
+     */
+    Question[] page(long afterId, int limit);
+
+    /**
+     * Stores a new question under the id it already carries.
+     *
+     * @param question question to store
+     * @return true if stored
+     */
+    boolean insert(Question question);
+
+    /**
+     * Replaces the stored question with the same id, including its answers and media.
+     *
+     * @param question new content of the question
+     * @return true if replaced
+     */
+    boolean replace(Question question);
+
+    /**
+     * Deletes a question with its answers and media references.
+     *
+     * @param id id of the question
+     * @return true if the store no longer holds the question, false if the store failed
+     */
+    boolean delete(long id);
+}
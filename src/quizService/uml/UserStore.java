@@ -0,0 +1,60 @@
+package quizService.uml;
+
+import quizService.model.User;
+
+/**
+ * Durable storage behind {@link quizService.repository.UserRepository}.
+ * <p>
+ * The repository keeps every user in memory for lookups and writes each
+ * change through to its store, so the services work the same with or without
+ * one. A store reads in pages, so loading a large user base never needs one
+ * huge result. Failures are reported by the return values; implementations
+ * print the cause.
+ * </p>
+ */
+public interface UserStore {
+
+    /**
+     * Reads stored users in ascending username order.
+     *
+     * @param afterUsername last username of the previous page, or null for the first page
+     * @param limit         most users to return
+     * @return the page, empty after the last one, or null if the store cannot be read
+     */
+    User[] page(String afterUsername, int limit);
+
+    /**
+     * Stores a user unless one with the same username is stored already.
+     *
+     * @param user user to store
+     * @return true if stored, false if the username exists or the store failed
+     */
+    boolean insert(User user);
+
+    /**
+     * Stores many users at once, each with the same check as {@link #insert(User)}.
+     *
+     * @param users users to store
+     * @param n     amount of valid entries in {@code users}
+     * @return for each entry, whether it was stored
+     */
+    boolean[] insertAll(User[] users, int n);
+
+    /**
+     * Replaces the stored password of a user, if it is still the expected one.
+     *
+     * @param username    username of the user
+     * @param expected    password value the user is stored with
+     * @param newPassword password value to store instead
+     * @return true if replaced, false if the user is gone, has another password or the store failed
+     */
+    boolean replacePassword(String username, String expected, String newPassword);
+
+    /**
+     * Deletes a user.
+     *
+     * @param username username of the user
+     * @return true if the store no longer holds the user, false if the store failed
+     */
+    boolean delete(String username);
+}
@@ -0,0 +1,160 @@
+package quizService.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Concurrent Bloom filter of strings.
+ * <p>
+ * Answers "definitely absent" or "maybe present" using a fixed bit array.
+ * Bits are set with one atomic OR per word, so any number of threads may add
+ * and query at the same time without locks; a string whose {@link #put(String)}
+ * has returned is always reported as maybe present afterwards.
+ * Strings cannot be removed: a removed string only adds to the false positives.
+ * </p>
+ * <p>
+ * Bit count and hash count are derived from the expected amount of strings and
+ * the wanted false-positive probability. The {@code k} bit positions are
+ * produced from one 64-bit hash by double hashing.
+ * </p>
+ */
+public class BloomFilter {
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] words;
+    private final long bits;
+    private final int hashes;
+    private final int expected;
+    private final double targetFpp;
+
+    /**
+     * Creates a filter sized for the given load.
+     *
+     * @param expectedInsertions amount of strings the filter is sized for
+     * @param fpp                wanted false-positive probability at that load, in (0, 1)
+     */
+    public BloomFilter(int expectedInsertions, double fpp) {
+        if (expectedInsertions < 1) expectedInsertions = 1;
+        if (!(fpp > 0 && fpp < 1)) fpp = 0.01;
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        m = Math.max(64, (m + 63) & ~63L);
+        this.words = new long[(int) Math.min(Integer.MAX_VALUE - 8, m / 64)];
+        this.bits = (long) words.length * 64;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+        this.expected = expectedInsertions;
+        this.targetFpp = fpp;
+    }
+
+    /**
+     * Adds a string.
+     *
+     * @param value string to add
+     * @return true if at least one bit changed, i.e. the string was certainly new
+     */
+    public boolean put(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        boolean changed = false;
+        for (int i = 1; i <= hashes; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bits;
+            long mask = 1L << bit;
+            int w = (int) (bit >>> 6);
+            if (((long) WORDS.getAcquire(words, w) & mask) == 0) {
+                long before = (long) WORDS.getAndBitwiseOr(words, w, mask);
+                changed |= (before & mask) == 0;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Checks a string.
+     *
+     * @param value string to check
+     * @return false if the string was never added; true if it may have been
+     */
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bits;
+            if (((long) WORDS.getAcquire(words, (int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return size of the bit array
+     */
+    public long bitSize() {
+        return bits;
+    }
+
+    /**
+     * @return bit positions set per string
+     */
+    public int hashCount() {
+        return hashes;
+    }
+
+    /**
+     * @return memory taken by the bit array, in bytes
+     */
+    public long footprintBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+
+    /**
+     * @return amount of set bits
+     */
+    public long bitCount() {
+        long set = 0;
+        for (int i = 0; i < words.length; i++) set += Long.bitCount((long) WORDS.getAcquire(words, i));
+        return set;
+    }
+
+    /**
+     * Estimates how many distinct strings were added, from the share of set bits.
+     *
+     * @return estimated amount of strings
+     */
+    public long approximateCount() {
+        double fill = (double) bitCount() / bits;
+        if (fill >= 1) return Long.MAX_VALUE;
+        return Math.round(-bits / (double) hashes * Math.log(1 - fill));
+    }
+
+    /**
+     * False-positive probability at the current fill.
+     *
+     * @return probability that an absent string is reported as maybe present
+     */
+    public double expectedFpp() {
+        return Math.pow((double) bitCount() / bits, hashes);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d bits (%,d KB), %d hashes, sized for %,d at %.2f%%; ~%,d added, current fpp %.4f%%",
+                bits, footprintBytes() / 1024, hashes, expected, targetFpp * 100,
+                approximateCount(), expectedFpp() * 100);
+    }
+
+    /**
+     * 64-bit hash of the characters of a string (FNV-1a folded through a final mix).
+     */
+    private static long hash(String value) {
+        long h = 0xCBF2_9CE4_8422_2325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x1000_0000_01B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51_AFD7_ED55_8CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CE_B9FE_1A85_EC53L;
+        return h ^ (h >>> 33);
+    }
+}
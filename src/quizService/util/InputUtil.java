@@ -92,4 +92,32 @@ public class InputUtil {
             }
         }
     }
+
+    /**
+     * Reads several integers within [min, max], separated by commas or spaces.
+     * Keeps prompting the user until every number is valid.
+     *
+     * @param message the prompt message
+     * @param min     the minimum allowed value
+     * @param max     the maximum allowed value
+     * @return the entered numbers, at least one
+     */
+    public static int[] readInts(String message, int min, int max) {
+        while (true) {
+            System.out.print(message);
+            String[] parts = scanner.nextLine().trim().split("[,\\s]+");
+            int[] values = new int[parts.length];
+            boolean valid = parts.length > 0 && !parts[0].isEmpty();
+            for (int i = 0; valid && i < parts.length; i++) {
+                try {
+                    values[i] = Integer.parseInt(parts[i]);
+                    valid = values[i] >= min && values[i] <= max;
+                } catch (NumberFormatException e) {
+                    valid = false;
+                }
+            }
+            if (valid) return values;
+            System.out.printf("Enter numbers between %d and %d, e.g. %d,%d\n", min, max, min, max);
+        }
+    }
 }
@@ -0,0 +1,122 @@
+package quizService.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations in nanoseconds.
+ * <p>
+ * Buckets are log-linear: every power of two is split into
+ * {@value #SUB_BUCKETS} linear sub-buckets, so any recorded value is
+ * reported with at most ~12.5% relative error. All counters are preallocated,
+ * which keeps {@link #record(long)} free of allocation and locking.
+ * </p>
+ */
+public class LatencyHistogram {
+    /**
+     * Linear sub-buckets per power of two (must be a power of two).
+     */
+    private static final int SUB_BUCKETS = 8;
+    private static final int SUB_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+    /**
+     * Count of samples per bucket.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+    /**
+     * Number of recorded samples.
+     */
+    private final AtomicLong count = new AtomicLong();
+    /**
+     * Sum of all recorded samples, in nanoseconds.
+     */
+    private final AtomicLong sum = new AtomicLong();
+    /**
+     * Largest recorded sample, in nanoseconds.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one duration. Negative values are treated as zero.
+     *
+     * @param nanos duration in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucketOf(nanos));
+        count.incrementAndGet();
+        sum.addAndGet(nanos);
+        long m;
+        while (nanos > (m = max.get()) && !max.compareAndSet(m, nanos)) {
+            // retry until our value is stored or a larger one appears
+        }
+    }
+
+    /**
+     * @return amount of recorded samples
+     */
+    public long count() {
+        return count.get();
+    }
+
+    /**
+     * @return mean duration in nanoseconds, or 0 if nothing was recorded
+     */
+    public long mean() {
+        long c = count.get();
+        return c == 0 ? 0 : sum.get() / c;
+    }
+
+    /**
+     * @return largest recorded duration in nanoseconds
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Returns the duration below which the given share of samples fall.
+     *
+     * @param percentile value in range [0, 100]
+     * @return upper bound of the matching bucket in nanoseconds, or 0 if empty
+     */
+    public long percentile(double percentile) {
+        long total = count.get();
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * Bucket index of a value: the position of its highest bit selects
+     * the power of two, the next {@code SUB_BITS} bits the sub-bucket.
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Largest value that falls into the given bucket.
+     */
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        long base = (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+        return base + (1L << (exponent - SUB_BITS)) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.1fs p50=%.1fs p90=%.1fs p99=%.1fs max=%.1fs",
+                count(), mean() / 1e9, percentile(50) / 1e9, percentile(90) / 1e9,
+                percentile(99) / 1e9, max() / 1e9);
+    }
+}
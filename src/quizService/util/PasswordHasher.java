@@ -0,0 +1,148 @@
+package quizService.util;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Salted PBKDF2 password hashes.
+ * <p>
+ * A hash is stored as {@code pbkdf2-sha256$iterations$salt$hash} with Base64
+ * salt and hash, so it carries everything needed to check it later and old
+ * hashes stay valid when the iteration count is raised. Every hash gets its own
+ * random 16-byte salt. Hashing is deliberately slow: it should run on a bounded
+ * pool, not on request threads, see {@link quizService.service.CredentialService}.
+ * </p>
+ * <p>
+ * Stored values without the prefix are treated as plaintext passwords kept
+ * from before hashing was introduced and are compared in constant time.
+ * {@link #needsRehash(String)} tells such values apart, so they can be
+ * replaced by a hash at the next successful login.
+ * </p>
+ * <p>
+ * Stored hashes with more than {@value #MAX_ITERATIONS} iterations are
+ * refused rather than checked: a tampered or corrupt value must not tie up a
+ * hashing worker for minutes.
+ * </p>
+ */
+public class PasswordHasher {
+    /**
+     * System property with the iteration count of new hashes.
+     */
+    public static final String ITERATIONS_PROPERTY = "quizService.passwordIterations";
+    /**
+     * Iteration count of new hashes unless configured, as recommended by OWASP for PBKDF2-HMAC-SHA256.
+     */
+    public static final int DEFAULT_ITERATIONS = 600_000;
+    /**
+     * Most iterations of a stored hash that {@link #verify(String, String)} accepts.
+     */
+    public static final int MAX_ITERATIONS = 10_000_000;
+
+    private static final String PREFIX = "pbkdf2-sha256$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private static final PasswordHasher instance =
+            new PasswordHasher(Integer.getInteger(ITERATIONS_PROPERTY, DEFAULT_ITERATIONS));
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Creates a hasher.
+     *
+     * @param iterations PBKDF2 iteration count of new hashes, from 1 to {@value #MAX_ITERATIONS}
+     */
+    public PasswordHasher(int iterations) {
+        this.iterations = Math.min(MAX_ITERATIONS, Math.max(1, iterations));
+    }
+
+    /**
+     * Returns the shared hasher, configured by {@value #ITERATIONS_PROPERTY}.
+     *
+     * @return shared instance
+     */
+    public static PasswordHasher getInstance() {
+        return instance;
+    }
+
+    /**
+     * @return iteration count of new hashes
+     */
+    public int iterations() {
+        return iterations;
+    }
+
+    /**
+     * Hashes a password with a new random salt.
+     *
+     * @param password password to hash
+     * @return encoded hash to store
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = derive(password, salt, iterations);
+        Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + '$' + b64.encodeToString(salt) + '$' + b64.encodeToString(hash);
+    }
+
+    /**
+     * Checks a password against a stored hash.
+     *
+     * @param password password to check
+     * @param stored   value from {@link #hash(String)}, or a legacy plaintext password
+     * @return true if the password matches; false if it does not or the stored
+     *         hash is malformed or has more than {@value #MAX_ITERATIONS} iterations
+     */
+    public boolean verify(String password, String stored) {
+        if (password == null || stored == null) return false;
+        if (!isHashed(stored)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) return false;
+        try {
+            int storedIterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            if (storedIterations < 1 || storedIterations > MAX_ITERATIONS) return false;
+            return MessageDigest.isEqual(derive(password, salt, storedIterations), expected);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param stored stored password value
+     * @return true if it is a hash from {@link #hash(String)} rather than a plaintext password
+     */
+    public static boolean isHashed(String stored) {
+        return stored != null && stored.startsWith(PREFIX);
+    }
+
+    /**
+     * @param stored stored password value
+     * @return true if it is a legacy plaintext password that should be replaced by a hash
+     */
+    public static boolean needsRehash(String stored) {
+        return stored != null && !isHashed(stored);
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
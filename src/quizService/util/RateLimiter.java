@@ -0,0 +1,164 @@
+package quizService.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free token-bucket rate limiter with a per-key and a global bucket.
+ * <p>
+ * Buckets use the "theoretical arrival time" form of the token bucket (GCRA):
+ * the whole state of a bucket is one timestamp that moves forward by one
+ * interval per accepted request, and a request is rejected while that timestamp
+ * is more than {@code burst - 1} intervals ahead of now. Taking a token is
+ * therefore a single compare-and-set.
+ * </p>
+ * <p>
+ * Per-key buckets live in a fixed array of {@code long} words; each word packs a
+ * 24-bit fingerprint of the key with a 40-bit millisecond timestamp. A key probes
+ * a few neighbouring words; when none is its own, it takes over an empty word, an
+ * expired one, or the one idle the longest. Memory stays fixed however many keys
+ * are seen, and a rare fingerprint collision only makes two keys share a bucket.
+ * </p>
+ */
+public class RateLimiter {
+    /**
+     * Words a key may occupy, starting at its hash.
+     */
+    private static final int PROBES = 4;
+    private static final int TIME_BITS = 40;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+
+    private final long keyIntervalMillis;
+    private final long keyTolerance;
+    private final long globalIntervalNanos;
+    private final long globalTolerance;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final AtomicLong globalTat = new AtomicLong(System.nanoTime());
+    /**
+     * Start of the millisecond clock of the per-key buckets.
+     */
+    private final long originNanos = System.nanoTime();
+
+    private final LongAdder rejectedByKey = new LongAdder();
+    private final LongAdder rejectedGlobally = new LongAdder();
+
+    /**
+     * Creates a rate limiter.
+     *
+     * @param keyBurst            requests a single key may make at once
+     * @param keyIntervalMillis   time to regain one request for a key, in milliseconds
+     * @param globalBurst         requests all keys together may make at once
+     * @param globalIntervalNanos time to regain one global request, in nanoseconds
+     * @param slots               tracked keys, rounded up to a power of two
+     */
+    public RateLimiter(int keyBurst, long keyIntervalMillis, int globalBurst, long globalIntervalNanos, int slots) {
+        this.keyIntervalMillis = keyIntervalMillis;
+        this.keyTolerance = (keyBurst - 1) * keyIntervalMillis;
+        this.globalIntervalNanos = globalIntervalNanos;
+        this.globalTolerance = (globalBurst - 1) * globalIntervalNanos;
+        int size = Integer.highestOneBit(Math.max(PROBES, slots - 1)) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Takes a token for the key and then from the global bucket.
+     * A key that is over its own limit never consumes global tokens.
+     *
+     * @param key key to limit, e.g. a username
+     * @return true if the request may proceed
+     */
+    public boolean tryAcquire(String key) {
+        if (!acquireKey(key)) {
+            rejectedByKey.increment();
+            return false;
+        }
+        if (!acquireGlobal()) {
+            rejectedGlobally.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return requests rejected because their key was over its limit
+     */
+    public long rejectedByKey() {
+        return rejectedByKey.sum();
+    }
+
+    /**
+     * @return requests rejected because of the global limit
+     */
+    public long rejectedGlobally() {
+        return rejectedGlobally.sum();
+    }
+
+    /**
+     * @return memory taken by the per-key buckets, in bytes
+     */
+    public long footprintBytes() {
+        return (long) slots.length() * Long.BYTES;
+    }
+
+    private boolean acquireGlobal() {
+        long now = System.nanoTime();
+        while (true) {
+            long tat = globalTat.get();
+            long start = Math.max(tat, now);
+            if (start - now > globalTolerance) return false;
+            if (globalTat.compareAndSet(tat, start + globalIntervalNanos)) return true;
+        }
+    }
+
+    private boolean acquireKey(String key) {
+        int hash = mix(key.hashCode());
+        long fingerprint = ((hash >>> 8) & 0xFF_FFFFL) | 1;
+        long now = (System.nanoTime() - originNanos) / 1_000_000 + 1;
+        int base = hash & mask;
+        while (true) {
+            int victim = -1;
+            long victimWord = 0;
+            long victimTat = Long.MAX_VALUE;
+            boolean retry = false;
+            for (int p = 0; p < PROBES; p++) {
+                int i = (base + p) & mask;
+                long word = slots.get(i);
+                long tat = word & TIME_MASK;
+                if (word != 0 && word >>> TIME_BITS == fingerprint) {
+                    long start = Math.max(tat, now);
+                    if (start - now > keyTolerance) return false;
+                    if (slots.compareAndSet(i, word, pack(fingerprint, start + keyIntervalMillis))) return true;
+                    retry = true;
+                    break;
+                }
+                if (tat < victimTat) {
+                    victim = i;
+                    victimWord = word;
+                    victimTat = tat;
+                }
+            }
+            if (retry) continue;
+            // unknown key: take over the empty, expired or longest idle word
+            if (slots.compareAndSet(victim, victimWord, pack(fingerprint, now + keyIntervalMillis))) return true;
+        }
+    }
+
+    private static long pack(long fingerprint, long tat) {
+        return fingerprint << TIME_BITS | (tat & TIME_MASK);
+    }
+
+    /**
+     * Spreads the bits of a hash code so similar usernames land far apart.
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EB_CA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2_AE35;
+        return h ^ (h >>> 16);
+    }
+}
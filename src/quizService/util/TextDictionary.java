@@ -0,0 +1,169 @@
+package quizService.util;
+
+import quizService.model.Answer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent dictionary that deduplicates question and answer texts.
+ * <p>
+ * Banks repeat the same short texts over and over: "True", "False", "None of
+ * the above", numbers. {@link #intern(String)} returns one shared instance per
+ * distinct text and gives it a small integer id, so equal texts are stored
+ * once and can be referred to by id ({@link #id(String)}, {@link #text(int)}).
+ * {@link #intern(Answer)} goes one step further and shares the immutable
+ * {@link Answer} objects themselves, one per text and correctness.
+ * </p>
+ * <p>
+ * Lookups of known texts take no lock; a new text is added under the
+ * dictionary's lock. Texts longer than {@value #MAX_LENGTH} characters are
+ * mostly unique, would only cost an entry, and are returned unchanged, as is
+ * everything once the dictionary holds {@value #MAX_ENTRIES} texts. Entries are
+ * never removed; the dictionary only grows with the distinct short texts.
+ * This dictionary follows the Singleton pattern for the shared instance.
+ * </p>
+ */
+public class TextDictionary {
+    /**
+     * Longest text that is interned.
+     */
+    public static final int MAX_LENGTH = 64;
+    /**
+     * Most distinct texts the dictionary holds.
+     */
+    public static final int MAX_ENTRIES = 1 << 20;
+
+    private static final TextDictionary instance = new TextDictionary();
+
+    /**
+     * A stored text and its id.
+     */
+    private record Entry(String text, int id) {}
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Text by id, and the shared correct and wrong answer with that text;
+     * written under the lock, read without it through a volatile array reference.
+     */
+    private volatile String[] texts = new String[64];
+    private volatile Answer[] correctAnswers = new Answer[64];
+    private volatile Answer[] wrongAnswers = new Answer[64];
+    private int count = 0;
+
+    /**
+     * Creates an empty dictionary, e.g. to measure one bank on its own.
+     */
+    public TextDictionary() {}
+
+    /**
+     * Returns the dictionary shared by all banks.
+     *
+     * @return shared instance
+     */
+    public static TextDictionary getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the shared instance of a text.
+     *
+     * @param text text to look up or add
+     * @return equal text shared by all its users, or {@code text} itself if it is not interned
+     */
+    public String intern(String text) {
+        int id = id(text);
+        return id < 0 ? text : texts[id];
+    }
+
+    /**
+     * Returns the shared answer with the same text and correctness.
+     *
+     * @param answer answer to look up or add
+     * @return equal shared answer, or {@code answer} itself if its text is not interned
+     */
+    public Answer intern(Answer answer) {
+        if (answer == null) return null;
+        int id = id(answer.text());
+        if (id < 0) return answer;
+        Answer[] shared = answer.isCorrect() ? correctAnswers : wrongAnswers;
+        Answer found = id < shared.length ? shared[id] : null;
+        if (found != null) return found;
+        synchronized (this) {
+            shared = answer.isCorrect() ? correctAnswers : wrongAnswers;
+            if (shared[id] == null) shared[id] = new Answer(texts[id], answer.isCorrect());
+            return shared[id];
+        }
+    }
+
+    /**
+     * Interns every answer of an array in place.
+     *
+     * @param answers answers to replace by their shared instances; null entries stay null
+     * @return the same array
+     */
+    public Answer[] internAll(Answer[] answers) {
+        if (answers == null) return null;
+        for (int i = 0; i < answers.length; i++) answers[i] = intern(answers[i]);
+        return answers;
+    }
+
+    /**
+     * Small integer id of a text, adding the text if it is new.
+     *
+     * @param text text to look up or add
+     * @return id from 0, or -1 if the text is null, too long or the dictionary is full
+     */
+    public int id(String text) {
+        if (text == null || text.length() > MAX_LENGTH) return -1;
+        Entry entry = entries.get(text);
+        if (entry != null) return entry.id();
+        synchronized (this) {
+            entry = entries.get(text);
+            if (entry != null) return entry.id();
+            if (count >= MAX_ENTRIES) return -1;
+            ensureCapacity();
+            int id = count;
+            texts[id] = text;
+            entries.put(text, new Entry(text, id));
+            count++;
+            return id;
+        }
+    }
+
+    /**
+     * Text of an id.
+     *
+     * @param id id returned by {@link #id(String)}
+     * @return the text, or null if there is no such id
+     */
+    public String text(int id) {
+        String[] arr = texts;
+        return id >= 0 && id < arr.length ? arr[id] : null;
+    }
+
+    /**
+     * @return amount of distinct texts stored
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Grows the id arrays so that one more text fits.
+     */
+    private void ensureCapacity() {
+        if (count < texts.length) return;
+        int newLength = texts.length * 2;
+        String[] newTexts = new String[newLength];
+        Answer[] newCorrect = new Answer[newLength];
+        Answer[] newWrong = new Answer[newLength];
+        System.arraycopy(texts, 0, newTexts, 0, count);
+        System.arraycopy(correctAnswers, 0, newCorrect, 0, count);
+        System.arraycopy(wrongAnswers, 0, newWrong, 0, count);
+        correctAnswers = newCorrect;
+        wrongAnswers = newWrong;
+        texts = newTexts;
+    }
+}
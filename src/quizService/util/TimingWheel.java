@@ -0,0 +1,263 @@
+package quizService.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for large numbers of timeouts.
+ * <p>
+ * Time is cut into ticks. The wheel has {@value #LEVELS} levels of
+ * {@value #SLOTS} slots: level 0 holds timers due within the current run of 64
+ * ticks, level 1 within the current 64 × 64 ticks, and so on. Each slot is a
+ * doubly linked list, so scheduling and cancelling only link or unlink a node.
+ * When the lower levels wrap around, the slot of the next level is emptied into
+ * them ("cascading"), so every timer moves at most {@value #LEVELS} times.
+ * </p>
+ * <p>
+ * A single daemon thread advances the wheel once per tick and hands all timers
+ * that expired in that tick to the expiry handler as one batch, outside the
+ * wheel's lock. Timers never fire early and at most about one tick late. Timers longer
+ * than the wheel's horizon (64<sup>4</sup> ticks) wait in its farthest slot and
+ * are re-placed when it is reached.
+ * </p>
+ *
+ * @param <T> payload of a timer
+ */
+public class TimingWheel<T> implements AutoCloseable {
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+
+    /**
+     * A scheduled timeout. Returned by {@link #schedule} so it can be cancelled.
+     *
+     * @param <T> payload type
+     */
+    public static final class Timer<T> {
+        private final T payload;
+        private final long deadline;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        private Timer(T payload, long deadline) {
+            this.payload = payload;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return payload given to {@link #schedule}
+         */
+        public T payload() {
+            return payload;
+        }
+    }
+
+    /**
+     * Sentinel of every slot's circular list, by level and slot.
+     */
+    private final Timer<T>[][] slots;
+    private final long tickNanos;
+    private final long startNanos = System.nanoTime();
+    private final Consumer<List<T>> onExpiry;
+    /**
+     * Thread advancing the wheel, or null if the wheel is advanced by {@link #advanceTo(long)} alone.
+     */
+    private final Thread ticker;
+
+    /**
+     * Tick the wheel has advanced to; all earlier ticks are processed.
+     */
+    private long currentTick = 0;
+    private int size = 0;
+    private volatile boolean running = true;
+
+    /**
+     * Creates a wheel and starts its thread.
+     *
+     * @param tickMillis length of a tick: the precision of the timers
+     * @param name       name of the wheel's thread
+     * @param onExpiry   receives the payloads of the timers that expired in one tick
+     */
+    public TimingWheel(long tickMillis, String name, Consumer<List<T>> onExpiry) {
+        this(tickMillis, name, onExpiry, true);
+    }
+
+    /**
+     * Creates a wheel that only moves when {@link #advanceTo(long)} is called,
+     * so tests can step through ticks without waiting for them.
+     *
+     * @param tickMillis length of a tick
+     */
+    TimingWheel(long tickMillis) {
+        this(tickMillis, null, expired -> {}, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private TimingWheel(long tickMillis, String name, Consumer<List<T>> onExpiry, boolean start) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickMillis));
+        this.onExpiry = onExpiry;
+        this.slots = (Timer<T>[][]) new Timer<?>[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                Timer<T> sentinel = new Timer<>(null, 0);
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+                slots[level][slot] = sentinel;
+            }
+        }
+        if (!start) {
+            this.ticker = null;
+            return;
+        }
+        this.ticker = new Thread(this::run, name);
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    /**
+     * Schedules a timeout.
+     *
+     * @param payload     value handed to the expiry handler
+     * @param delayMillis time until the timeout expires
+     * @return the timer, for {@link #cancel(Timer)}
+     */
+    public synchronized Timer<T> schedule(T payload, long delayMillis) {
+        long now = ticker == null ? currentTick : (System.nanoTime() - startNanos) / tickNanos;
+        long ticks = (TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis)) + tickNanos - 1) / tickNanos;
+        // part of the current tick has already passed, so round up by one more tick
+        Timer<T> timer = new Timer<>(payload, Math.max(now, currentTick) + ticks + 1);
+        place(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * Cancels a timeout that has not expired yet.
+     *
+     * @param timer timer returned by {@link #schedule}
+     * @return true if it was cancelled, false if it had already expired or been cancelled
+     */
+    public synchronized boolean cancel(Timer<T> timer) {
+        if (timer == null || timer.next == null) return false;
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    /**
+     * @return amount of pending timers
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Stops the wheel's thread. Pending timers never fire.
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (ticker != null) ticker.interrupt();
+    }
+
+    /**
+     * @return tick the wheel has advanced to
+     */
+    synchronized long currentTick() {
+        return currentTick;
+    }
+
+    private void run() {
+        long processed = 0;
+        while (running) {
+            long target = (System.nanoTime() - startNanos) / tickNanos;
+            if (target <= processed) {
+                long wait = (processed + 1) * tickNanos - (System.nanoTime() - startNanos);
+                try {
+                    TimeUnit.NANOSECONDS.sleep(Math.max(1, wait));
+                } catch (InterruptedException e) {
+                    if (!running) return;
+                }
+                continue;
+            }
+            List<T> expired = advanceTo(target);
+            processed = target;
+            if (!expired.isEmpty()) {
+                try {
+                    onExpiry.accept(expired);
+                } catch (RuntimeException e) {
+                    System.out.println("Timer handler failed: " + e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Processes every tick up to {@code target} and collects the expired payloads.
+     * Called by the wheel's thread, or by tests on a wheel without one.
+     */
+    synchronized List<T> advanceTo(long target) {
+        List<T> expired = new ArrayList<>();
+        while (currentTick < target) {
+            currentTick++;
+            // cascade the levels whose lower neighbour just wrapped around, highest first,
+            // so timers moving down two levels land in a slot that is still to be emptied
+            int wrapped = 0;
+            while (wrapped < LEVELS - 1 && (currentTick & ((1L << (SLOT_BITS * (wrapped + 1))) - 1)) == 0) wrapped++;
+            for (int level = wrapped; level >= 1; level--) {
+                Timer<T> sentinel = slots[level][(int) (currentTick >>> (SLOT_BITS * level)) & MASK];
+                Timer<T> t = sentinel.next;
+                while (t != sentinel) {
+                    Timer<T> next = t.next;
+                    unlink(t);
+                    place(t);
+                    t = next;
+                }
+            }
+            Timer<T> sentinel = slots[0][(int) currentTick & MASK];
+            Timer<T> t = sentinel.next;
+            while (t != sentinel) {
+                Timer<T> next = t.next;
+                if (t.deadline <= currentTick) {
+                    unlink(t);
+                    size--;
+                    expired.add(t.payload);
+                }
+                t = next;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Links a timer into the slot of the lowest level that covers its deadline.
+     */
+    private void place(Timer<T> timer) {
+        long deadline = timer.deadline;
+        int level = 0;
+        while (level < LEVELS - 1 && (deadline ^ currentTick) >>> (SLOT_BITS * (level + 1)) != 0) level++;
+        int slot;
+        int top = SLOT_BITS * (LEVELS - 1);
+        if ((deadline >>> top) - (currentTick >>> top) >= SLOTS) {
+            // beyond the horizon: wait in the farthest slot and get re-placed from there
+            slot = (int) ((currentTick >>> (SLOT_BITS * level)) - 1) & MASK;
+        } else {
+            slot = (int) (deadline >>> (SLOT_BITS * level)) & MASK;
+        }
+        Timer<T> sentinel = slots[level][slot];
+        timer.prev = sentinel.prev;
+        timer.next = sentinel;
+        sentinel.prev.next = timer;
+        sentinel.prev = timer;
+    }
+
+    private void unlink(Timer<T> timer) {
+        timer.prev.next = timer.next;
+        timer.next.prev = timer.prev;
+        timer.prev = null;
+        timer.next = null;
+    }
+}
@@ -0,0 +1,407 @@
+package quizService.util;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Bounded concurrent cache with frequency-based admission (W-TinyLFU).
+ * <p>
+ * New entries enter a small LRU window. An entry leaving the window competes
+ * with the least recently used entry of the main area and is only admitted if
+ * it was requested more often; frequencies are estimated by a count-min
+ * sketch of 4-bit counters that are halved periodically, so old popularity
+ * fades. The main area is a segmented LRU: an entry hit again in its
+ * probation segment moves to the protected one. A burst of one-off lookups
+ * therefore cannot flush the entries that are hit all the time.
+ * </p>
+ * <p>
+ * The cache is split into independently locked shards by key hash, each with
+ * its own window, main area and sketch. Accesses are counted by {@link #get};
+ * a {@link #put} after a miss does not count the key again.
+ * </p>
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class TinyLfuCache<K, V> {
+    /**
+     * Share of a shard's capacity given to the window.
+     */
+    private static final double WINDOW_SHARE = 0.01;
+    /**
+     * Share of the main area reserved for protected entries.
+     */
+    private static final double PROTECTED_SHARE = 0.8;
+    private static final int MIN_SHARD_CAPACITY = 64;
+
+    private final Shard<K, V>[] shards;
+    private final int capacity;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * Creates a cache.
+     *
+     * @param capacity most entries held at once, at least 1
+     */
+    @SuppressWarnings("unchecked")
+    public TinyLfuCache(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        int count = Integer.highestOneBit(Math.max(1, Math.min(
+                4 * Runtime.getRuntime().availableProcessors(), this.capacity / MIN_SHARD_CAPACITY)));
+        this.shards = (Shard<K, V>[]) new Shard<?, ?>[count];
+        for (int i = 0; i < count; i++) {
+            int shardCapacity = this.capacity / count + (i < this.capacity % count ? 1 : 0);
+            shards[i] = new Shard<>(shardCapacity, this);
+        }
+    }
+
+    /**
+     * Looks up a value and counts the access.
+     *
+     * @param key key to look up
+     * @return cached value, or null on a miss
+     */
+    public V get(K key) {
+        int h = spread(key.hashCode());
+        V value = shard(h).get(key, h);
+        if (value != null) hits.increment();
+        else misses.increment();
+        return value;
+    }
+
+    /**
+     * Offers a value to the cache. A new key starts in the window and may be
+     * rejected later if it is requested less often than the entries it would displace.
+     *
+     * @param key   key of the value
+     * @param value value to cache, not null
+     */
+    public void put(K key, V value) {
+        int h = spread(key.hashCode());
+        shard(h).put(key, h, value);
+    }
+
+    /**
+     * Removes an entry.
+     *
+     * @param key key of the entry
+     * @return true if an entry was removed
+     */
+    public boolean invalidate(K key) {
+        int h = spread(key.hashCode());
+        return shard(h).remove(key);
+    }
+
+    /**
+     * Removes every entry whose key matches.
+     *
+     * @param filter keys to remove
+     * @return amount of removed entries
+     */
+    public int invalidateIf(Predicate<? super K> filter) {
+        int removed = 0;
+        for (Shard<K, V> shard : shards) removed += shard.removeIf(filter);
+        return removed;
+    }
+
+    /**
+     * @return amount of cached entries
+     */
+    public int size() {
+        int size = 0;
+        for (Shard<K, V> shard : shards) size += shard.size();
+        return size;
+    }
+
+    /**
+     * @return most entries held at once
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return lookups answered from the cache
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return lookups that found nothing
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return entries dropped to make room, including rejected newcomers
+     */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return newcomers not admitted because they were less popular than the entry they would displace
+     */
+    public long rejections() {
+        return rejections.sum();
+    }
+
+    /**
+     * @return one-line report of size, hit rate, evictions and rejections
+     */
+    @Override
+    public String toString() {
+        long h = hits.sum();
+        long m = misses.sum();
+        return String.format("%,d/%,d entries in %d shards, %,d hits, %,d misses (%.1f%% hit rate), %,d evicted, %,d rejected",
+                size(), capacity, shards.length, h, m, h + m == 0 ? 0.0 : 100.0 * h / (h + m),
+                evictions.sum(), rejections.sum());
+    }
+
+    private Shard<K, V> shard(int h) {
+        return shards[(h >>> 16) & (shards.length - 1)];
+    }
+
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 15);
+    }
+
+    // ---- shard ----
+
+    /**
+     * Segment an entry currently lives in.
+     */
+    private enum Segment { WINDOW, PROBATION, PROTECTED }
+
+    private static final class Node<K, V> {
+        final K key;
+        final int hash;
+        V value;
+        Segment segment;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, int hash, V value) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Circular doubly linked LRU list with a sentinel; the eldest entry is {@code head.next}.
+     */
+    private static final class Lru<K, V> {
+        final Node<K, V> head = new Node<>(null, 0, null);
+        int size;
+
+        Lru() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.prev = head.prev;
+            node.next = head;
+            head.prev.next = node;
+            head.prev = node;
+            size++;
+        }
+
+        void unlink(Node<K, V> node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        Node<K, V> eldest() {
+            return head.next == head ? null : head.next;
+        }
+    }
+
+    private static final class Shard<K, V> {
+        private final TinyLfuCache<K, V> owner;
+        private final Map<K, Node<K, V>> map = new HashMap<>();
+        private final Lru<K, V> window = new Lru<>();
+        private final Lru<K, V> probation = new Lru<>();
+        private final Lru<K, V> protectedLru = new Lru<>();
+        private final int windowCapacity;
+        private final int mainCapacity;
+        private final int protectedCapacity;
+        private final FrequencySketch sketch;
+
+        Shard(int capacity, TinyLfuCache<K, V> owner) {
+            this.owner = owner;
+            this.windowCapacity = Math.max(1, (int) (capacity * WINDOW_SHARE));
+            this.mainCapacity = Math.max(0, capacity - windowCapacity);
+            this.protectedCapacity = (int) (mainCapacity * PROTECTED_SHARE);
+            this.sketch = new FrequencySketch(capacity);
+        }
+
+        synchronized V get(K key, int hash) {
+            sketch.increment(hash);
+            Node<K, V> node = map.get(key);
+            if (node == null) return null;
+            touch(node);
+            return node.value;
+        }
+
+        synchronized void put(K key, int hash, V value) {
+            Node<K, V> node = map.get(key);
+            if (node != null) {
+                node.value = value;
+                touch(node);
+                return;
+            }
+            node = new Node<>(key, hash, value);
+            node.segment = Segment.WINDOW;
+            map.put(key, node);
+            window.addLast(node);
+            if (window.size > windowCapacity) admit(window.eldest());
+        }
+
+        synchronized boolean remove(K key) {
+            Node<K, V> node = map.remove(key);
+            if (node == null) return false;
+            lru(node.segment).unlink(node);
+            return true;
+        }
+
+        synchronized int removeIf(Predicate<? super K> filter) {
+            int removed = 0;
+            for (Lru<K, V> list : List.of(window, probation, protectedLru)) {
+                Node<K, V> node = list.head.next;
+                while (node != list.head) {
+                    Node<K, V> next = node.next;
+                    if (filter.test(node.key)) {
+                        list.unlink(node);
+                        map.remove(node.key);
+                        removed++;
+                    }
+                    node = next;
+                }
+            }
+            return removed;
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+
+        /**
+         * Moves an entry to the most recent end of its segment; a hit in probation promotes it.
+         */
+        private void touch(Node<K, V> node) {
+            if (node.segment == Segment.PROBATION) {
+                probation.unlink(node);
+                node.segment = Segment.PROTECTED;
+                protectedLru.addLast(node);
+                if (protectedLru.size > protectedCapacity) {
+                    Node<K, V> demoted = protectedLru.eldest();
+                    protectedLru.unlink(demoted);
+                    demoted.segment = Segment.PROBATION;
+                    probation.addLast(demoted);
+                }
+            } else {
+                Lru<K, V> list = lru(node.segment);
+                list.unlink(node);
+                list.addLast(node);
+            }
+        }
+
+        /**
+         * Lets the entry leaving the window into the main area if there is room
+         * or if it is more popular than the main area's eldest entry.
+         */
+        private void admit(Node<K, V> candidate) {
+            window.unlink(candidate);
+            if (probation.size + protectedLru.size < mainCapacity) {
+                candidate.segment = Segment.PROBATION;
+                probation.addLast(candidate);
+                return;
+            }
+            Node<K, V> victim = probation.eldest() != null ? probation.eldest() : protectedLru.eldest();
+            if (victim != null && sketch.frequency(candidate.hash) > sketch.frequency(victim.hash)) {
+                lru(victim.segment).unlink(victim);
+                map.remove(victim.key);
+                candidate.segment = Segment.PROBATION;
+                probation.addLast(candidate);
+            } else {
+                map.remove(candidate.key);
+                owner.rejections.increment();
+            }
+            owner.evictions.increment();
+        }
+
+        private Lru<K, V> lru(Segment segment) {
+            return switch (segment) {
+                case WINDOW -> window;
+                case PROBATION -> probation;
+                case PROTECTED -> protectedLru;
+            };
+        }
+    }
+
+    /**
+     * Count-min sketch of 4-bit counters, 16 per word, with four hash rows.
+     * After about ten increments per cached entry all counters are halved.
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {
+                0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L};
+        private static final long HALF_MASK = 0x7777_7777_7777_7777L;
+
+        private final long[] table;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int words = Integer.highestOneBit(Math.max(8, capacity - 1) << 1);
+            this.table = new long[words];
+            this.sampleSize = 10 * Math.max(1, capacity);
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int row = 0; row < SEEDS.length; row++) {
+                int counter = counter(hash, row);
+                int word = counter >>> 4;
+                int shift = (counter & 15) << 2;
+                if (((table[word] >>> shift) & 15) < 15) {
+                    table[word] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                for (int i = 0; i < table.length; i++) table[i] = (table[i] >>> 1) & HALF_MASK;
+                additions /= 2;
+            }
+        }
+
+        int frequency(int hash) {
+            int min = 15;
+            for (int row = 0; row < SEEDS.length; row++) {
+                int counter = counter(hash, row);
+                min = Math.min(min, (int) ((table[counter >>> 4] >>> ((counter & 15) << 2)) & 15));
+            }
+            return min;
+        }
+
+        private int counter(int hash, int row) {
+            long h = (hash + SEEDS[row]) * SEEDS[(row + 1) & 3];
+            return (int) (h >>> 32) & (table.length * 16 - 1);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package quizService.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CollusionDetectorTest {
+    private static final int QUESTIONS = 8;
+
+    /**
+     * Results of one quiz, one row per result, with the given choice for every question, all wrong.
+     */
+    private static ResultTable table(int[]... choices) {
+        int size = choices.length;
+        int answers = size * QUESTIONS;
+        int[] userId = new int[size];
+        int[] quizId = new int[size];
+        int[] answerResult = new int[answers];
+        long[] answerQuestion = new long[answers];
+        int[] answerChoice = new int[answers];
+        for (int r = 0; r < size; r++) {
+            userId[r] = r;
+            quizId[r] = 1;
+            for (int q = 0; q < QUESTIONS; q++) {
+                int a = r * QUESTIONS + q;
+                answerResult[a] = r;
+                answerQuestion[a] = q + 1;
+                answerChoice[a] = choices[r][q];
+            }
+        }
+        return new ResultTable(userId, quizId, new byte[size], new int[size], new int[size], new double[size],
+                new long[size], size, answerResult, answerQuestion, answerChoice, new boolean[answers], answers);
+    }
+
+    private static int[] same(int choice) {
+        int[] choices = new int[QUESTIONS];
+        Arrays.fill(choices, choice);
+        return choices;
+    }
+
+    @Test
+    void sharedWrongSelectionsAreSuspicious() {
+        // the same wrong multi-select answers, stored as negated masks
+        SuspiciousPair[] pairs = new CollusionDetector().detect(table(same(-0b0110), same(-0b0110), same(2)));
+        assertEquals(1, pairs.length);
+        assertEquals(0, Math.min(pairs[0].resultA(), pairs[0].resultB()));
+        assertEquals(1, Math.max(pairs[0].resultA(), pairs[0].resultB()));
+        assertEquals(QUESTIONS, pairs[0].sharedWrong());
+    }
+
+    @Test
+    void differentSelectionsDoNotCollide() {
+        // masks that agree in their low 16 bits are still different choices
+        CollusionDetector detector = new CollusionDetector(ForkJoinPool.commonPool(), 32, 6, 0.1, 1);
+        assertEquals(0, detector.detect(table(same(-0x1_0001), same(-0x2_0001))).length);
+    }
+}
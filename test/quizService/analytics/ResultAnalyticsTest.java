@@ -0,0 +1,28 @@
+package quizService.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResultAnalyticsTest {
+
+    @Test
+    void sparseQuestionIdsGetOneSlotEach() {
+        long big = 3_000_000_000L;
+        long huge = 1L << 40;
+        // two results of two answers each: the first got both right, the second only the huge one
+        ResultTable table = new ResultTable(new int[]{0, 1}, new int[2], new byte[2], new int[]{2, 1},
+                new int[]{2, 2}, new double[]{2, 1}, new long[2], 2,
+                new int[]{0, 0, 1, 1}, new long[]{huge, big, big, huge}, new int[]{1, 1, 2, 1},
+                new boolean[]{true, true, false, true}, 4);
+
+        ItemStatistics[] items = new ResultAnalytics().questionStatistics(table);
+        assertEquals(2, items.length);
+        assertEquals(big, items[0].questionId());
+        assertEquals(2, items[0].answered());
+        assertEquals(0.5, items[0].correctRate());
+        assertEquals(1.0, items[0].discrimination(), 1e-9);
+        assertEquals(huge, items[1].questionId());
+        assertEquals(1.0, items[1].correctRate());
+    }
+}
@@ -0,0 +1,60 @@
+package quizService.archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import quizService.analytics.ResultTable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ResultArchiveReaderTest {
+    private static final Path OPEN_FILES = Path.of("/proc/self/fd");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rejectedFileIsClosed() throws IOException {
+        assumeTrue(Files.isDirectory(OPEN_FILES), "needs /proc to count open files");
+        Path file = directory.resolve("not-an-archive.bin");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+        Path empty = Files.createFile(directory.resolve("empty.bin"));
+
+        long before = openFiles();
+        for (int i = 0; i < 200; i++) {
+            assertThrows(IOException.class, () -> new ResultArchiveReader(file));
+            assertThrows(IOException.class, () -> new ResultArchiveReader(empty));
+            assertThrows(IOException.class, () -> new ResultArchiveWriter(file));
+        }
+        assertTrue(openFiles() - before < 50, "every rejected archive is closed again");
+    }
+
+    @Test
+    void fractionalScoresAreArchived() throws IOException {
+        Path file = directory.resolve("results.qza");
+        try (ResultArchiveWriter writer = new ResultArchiveWriter(file)) {
+            writer.append(7, 1, 3, 1, 3, 2.0 / 3 + 1, 1_700_000_000_000L,
+                    new long[]{11, 12, 13}, new int[]{1, -6, 2}, new boolean[]{true, false, false}, 3);
+        }
+        try (ResultArchiveReader reader = new ResultArchiveReader(file)) {
+            assertTrue(reader.hasScores());
+            ResultTable table = reader.toTable();
+            assertEquals(1, table.correct()[0]);
+            assertEquals(5.0 / 3, table.score()[0], 1e-6);
+            assertEquals(100.0 * 5 / 9, reader.averageScorePercent(), 1e-4);
+        }
+    }
+
+    private static long openFiles() throws IOException {
+        try (Stream<Path> files = Files.list(OPEN_FILES)) {
+            return files.count();
+        }
+    }
+}
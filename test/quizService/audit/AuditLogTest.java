@@ -0,0 +1,86 @@
+package quizService.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditLogTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void eventsAfterCloseAreDroppedWithoutStallingTheWriter() throws Exception {
+        Path file = directory.resolve("audit.log");
+        AuditLog log = new AuditLog(file, 4, Long.MAX_VALUE);
+        Thread[] producers = new Thread[4];
+        for (int t = 0; t < producers.length; t++) {
+            int k = t;
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) log.publish(AuditEventType.LOGIN, "user" + k, true);
+            });
+            producers[t].start();
+        }
+        // closes while producers still wait for slots of the small ring
+        Thread.sleep(5);
+        // close() gives up on a stalled writer after 5 s
+        assertTimeoutPreemptively(Duration.ofSeconds(4), () -> {
+            log.close();
+            for (Thread producer : producers) producer.join();
+        });
+
+        assertEquals(20_000, log.written(), "the writer passed every claimed sequence");
+        assertEquals(20_000, lines(file) + log.dropped());
+    }
+
+    @Test
+    void everyEventBeforeCloseIsWritten() throws Exception {
+        Path file = directory.resolve("audit.log");
+        AuditLog log = new AuditLog(file, 4, Long.MAX_VALUE);
+        for (int i = 0; i < 100; i++) log.publish(AuditEventType.LOGIN, "user", true);
+        log.close();
+        log.publish(AuditEventType.LOGIN, "late", true);
+
+        assertEquals(100, lines(file));
+        assertEquals(1, log.dropped());
+    }
+
+    @Test
+    void rotationCountsEncodedBytes() throws Exception {
+        String subject = "Ölçüm-学生-\uD83D\uDE00";
+        assertEquals(subject.getBytes(StandardCharsets.UTF_8).length, AuditLog.utf8Length(subject));
+        assertEquals(1, AuditLog.utf8Length("\uD800"), "a lone surrogate becomes '?'");
+
+        Path file = directory.resolve("audit.log");
+        AuditLog log = new AuditLog(file, 4, Long.MAX_VALUE);
+        log.publish(AuditEventType.LOGIN, subject, true);
+        log.close();
+        long lineBytes = Files.size(file);
+        long lineChars = Files.readString(file).length();
+        assertTrue(lineBytes > lineChars);
+
+        // larger than the line in chars, reached by its bytes
+        Path rotating = directory.resolve("rotating").resolve("audit.log");
+        AuditLog small = new AuditLog(rotating, 4, lineChars + 1);
+        small.publish(AuditEventType.LOGIN, subject, true);
+        small.close();
+        try (var files = Files.list(rotating.getParent())) {
+            assertEquals(2, files.count(), "the full file was moved aside");
+        }
+        assertEquals(0, Files.size(rotating));
+    }
+
+    private static long lines(Path file) throws IOException {
+        try (var lines = Files.lines(file)) {
+            return lines.count();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package quizService.backup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import quizService.model.Answer;
+import quizService.model.Question;
+import quizService.model.QuizResult;
+import quizService.model.Role;
+import quizService.model.User;
+import quizService.quiz.BankLease;
+import quizService.quiz.CourseQuiz;
+import quizService.quiz.QuizRegistry;
+import quizService.repository.QuestionRepository;
+import quizService.repository.ResultRepository;
+import quizService.repository.UserRepository;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BackupServiceTest {
+    @TempDir
+    Path directory;
+
+    private static Question question(String text) {
+        Question q = new Question(text, new Answer[2]);
+        q.addAnswer(new Answer("yes", true));
+        q.addAnswer(new Answer("no", false));
+        return q;
+    }
+
+    @Test
+    void quizBanksAreBackedUpAndRestored() throws Exception {
+        UserRepository users = UserRepository.open(null);
+        users.add(new User(Role.STUDENT, "ali", "secret1"));
+        QuestionRepository bank = QuestionRepository.newBank();
+        bank.add(question("shared"));
+        ResultRepository results = ResultRepository.newRepository();
+        // a one-byte budget keeps evicting, so evicted banks are backed up from their files
+        QuizRegistry quizzes = new QuizRegistry(directory.resolve("before"), 1);
+        CourseQuiz math = quizzes.create("Math");
+        CourseQuiz history = quizzes.create("History");
+        try (BankLease lease = math.acquire()) {
+            lease.bank().add(question("2 + 2 = 4?"));
+            lease.bank().add(question("3 * 3 = 9?"));
+        }
+        try (BankLease lease = history.acquire()) {
+            lease.bank().add(question("1066?"));
+        }
+        Path file = directory.resolve("backup.bin");
+        BackupInfo written = new BackupService(users, bank, results, quizzes).backup(file);
+        assertEquals(2, written.quizzes());
+
+        QuizRegistry restoredQuizzes = new QuizRegistry(directory.resolve("after"), QuizRegistry.DEFAULT_BUDGET_BYTES);
+        BackupInfo restored = new BackupService(UserRepository.open(null), QuestionRepository.newBank(),
+                ResultRepository.newRepository(), restoredQuizzes).restore(file);
+        assertNotNull(restored);
+        assertEquals(2, restored.quizzes());
+        CourseQuiz restoredMath = restoredQuizzes.find("Math");
+        assertEquals(math.getId(), restoredMath.getId());
+        try (BankLease lease = restoredMath.acquire()) {
+            assertEquals(2, lease.bank().size());
+            assertEquals("3 * 3 = 9?", lease.bank().getQuestion(1).getQuestion());
+        }
+        try (BankLease lease = restoredQuizzes.find("History").acquire()) {
+            assertEquals("1066?", lease.bank().getQuestion(0).getQuestion());
+        }
+        // new quizzes continue after the restored ids
+        assertEquals(history.getId() + 1, restoredQuizzes.create("Biology").getId());
+    }
+
+    @Test
+    void restoreWritesNothingUnlessEveryTargetIsEmpty() throws Exception {
+        UserRepository users = UserRepository.open(null);
+        users.add(new User(Role.STUDENT, "ali", "secret1"));
+        QuestionRepository bank = QuestionRepository.newBank();
+        bank.add(question("shared"));
+        Path file = directory.resolve("backup.bin");
+        new BackupService(users, bank, ResultRepository.newRepository()).backup(file);
+
+        UserRepository targetUsers = UserRepository.open(null);
+        QuestionRepository targetBank = QuestionRepository.newBank();
+        ResultRepository targetResults = ResultRepository.newRepository();
+        User other = new User(Role.STUDENT, "vali", "secret2");
+        targetResults.add(new QuizResult(other, 1, 1), new long[]{1}, new int[]{1}, new boolean[]{true}, 1);
+
+        assertNull(new BackupService(targetUsers, targetBank, targetResults).restore(file));
+        assertEquals(0, targetUsers.getAll().length);
+        assertEquals(0, targetBank.size());
+        assertEquals(1, targetResults.size());
+    }
+
+    @Test
+    void fractionalScoresAreBackedUp() throws Exception {
+        ResultRepository results = ResultRepository.newRepository();
+        User ali = new User(Role.STUDENT, "ali", "secret1");
+        results.add(new QuizResult(ali, 1, 2, 1.5), new long[]{1, 2}, new int[]{1, -3}, new boolean[]{true, false}, 2);
+        Path file = directory.resolve("backup.bin");
+        new BackupService(UserRepository.open(null), QuestionRepository.newBank(), results).backup(file);
+
+        ResultRepository restored = ResultRepository.newRepository();
+        assertNotNull(new BackupService(UserRepository.open(null), QuestionRepository.newBank(), restored)
+                .restore(file));
+        assertEquals(1, restored.view().correct()[0]);
+        assertEquals(1.5, restored.view().score()[0]);
+    }
+}
@@ -0,0 +1,190 @@
+package quizService.jdbc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import quizService.model.Answer;
+import quizService.model.MediaRef;
+import quizService.model.Question;
+import quizService.model.Role;
+import quizService.model.User;
+import quizService.repository.QuestionRepository;
+import quizService.repository.UserRepository;
+import quizService.uml.QuestionStore;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round trips through an in-memory H2 database.
+ */
+class JdbcStorageTest {
+    private static final AtomicInteger databases = new AtomicInteger();
+
+    private JdbcStorage storage;
+
+    @BeforeEach
+    void open() throws SQLException {
+        // kept until the last connection closes; each test gets its own database
+        storage = new JdbcStorage("jdbc:h2:mem:quiz" + databases.incrementAndGet() + ";DB_CLOSE_DELAY=-1",
+                null, null, 4);
+    }
+
+    @AfterEach
+    void close() {
+        storage.close();
+    }
+
+    private static User student(int i) {
+        return new User(Role.STUDENT, String.format("student%05d", i), "pw-" + i);
+    }
+
+    @Test
+    void usersSurviveReopening() {
+        UserRepository repo = UserRepository.open(storage.users());
+        assertTrue(repo.add(new User(Role.TEACHER, "teacher", "pw")));
+        assertFalse(repo.add(new User(Role.STUDENT, "teacher", "other")), "username is taken");
+
+        // more than one load page, keyset paged by username
+        int n = 2_500;
+        User[] batch = new User[n + 1];
+        for (int i = 0; i < n; i++) batch[i] = student(i);
+        batch[n] = new User(Role.STUDENT, "teacher", "duplicate");
+        boolean[] added = repo.addAll(batch, batch.length);
+        for (int i = 0; i < n; i++) assertTrue(added[i], "row " + i);
+        assertFalse(added[n]);
+        assertTrue(repo.remove("student00007"));
+
+        UserRepository reopened = UserRepository.open(storage.users());
+        assertEquals(n, reopened.getAll().length);
+        assertEquals(Role.TEACHER, reopened.findByUsername("teacher").role());
+        assertEquals("pw", reopened.findByUsername("teacher").password());
+        assertEquals("pw-2499", reopened.findByUsername("student02499").password());
+        assertNull(reopened.findByUsername("student00007"));
+    }
+
+    @Test
+    void replacedPasswordSurvivesReopening() {
+        UserRepository repo = UserRepository.open(storage.users());
+        assertTrue(repo.add(new User(Role.STUDENT, "legacy", "plain")));
+        assertNotNull(repo.replacePassword("legacy", "plain", "pbkdf2-sha256$1$c2FsdA$aGFzaA"));
+        assertNull(repo.replacePassword("legacy", "plain", "again"), "expected password is gone");
+
+        UserRepository reopened = UserRepository.open(storage.users());
+        assertEquals("pbkdf2-sha256$1$c2FsdA$aGFzaA", reopened.findByUsername("legacy").password());
+        assertEquals(0, reopened.legacyPasswords());
+    }
+
+    @Test
+    void insertIsPutIfAbsent() {
+        assertTrue(storage.users().insert(student(1)));
+        assertFalse(storage.users().insert(student(1)));
+        assertEquals(1, storage.users().page(null, 10).length);
+    }
+
+    @Test
+    void failedBatchFallsBackToSingleRows() {
+        // the over-long username fails the whole batch; the other rows are then stored one by one
+        User[] batch = {student(1), new User(Role.STUDENT, "x".repeat(300), "pw"), student(2)};
+        boolean[] stored = storage.users().insertAll(batch, batch.length);
+        assertArrayEquals(new boolean[]{true, false, true}, stored);
+        assertEquals(2, storage.users().page(null, 10).length);
+    }
+
+    @Test
+    void unreadablePageFailsTheLoad() {
+        QuestionRepository bank = QuestionRepository.open(storage.questions());
+        for (int i = 0; i < 600; i++) {
+            Question q = new Question("Question " + i, new Answer[1]);
+            q.addAnswer(new Answer("yes", true));
+            assertTrue(bank.add(q));
+        }
+        QuestionStore failing = new QuestionStore() {
+            @Override
+            public Question[] page(long afterId, int limit) {
+                // the second page cannot be read
+                return afterId == 0 ? storage.questions().page(afterId, limit) : null;
+            }
+
+            @Override
+            public boolean insert(Question question) {
+                return storage.questions().insert(question);
+            }
+
+            @Override
+            public boolean replace(Question question) {
+                return storage.questions().replace(question);
+            }
+
+            @Override
+            public boolean delete(long id) {
+                return storage.questions().delete(id);
+            }
+        };
+        assertThrows(IllegalStateException.class, () -> QuestionRepository.open(failing));
+    }
+
+    @Test
+    void unusableConfiguredDatabaseFailsFast() {
+        System.setProperty(JdbcStorage.URL_PROPERTY, "jdbc:no-such-driver:quiz");
+        try {
+            assertThrows(IllegalStateException.class, JdbcStorage::openConfigured);
+        } finally {
+            System.clearProperty(JdbcStorage.URL_PROPERTY);
+        }
+    }
+
+    @Test
+    void questionsSurviveReopening() {
+        QuestionRepository bank = QuestionRepository.open(storage.questions());
+        // more than one load page
+        int n = 1_200;
+        for (int i = 0; i < n; i++) {
+            Question q = new Question("Question " + i, new Answer[3]);
+            q.addAnswer(new Answer("a" + i, false));
+            q.addAnswer(new Answer("b" + i, true));
+            q.addAnswer(new Answer("c" + i, i % 2 == 0));
+            q.setDifficulty(i / (double) n);
+            if (i % 100 == 0) q.setMedia(new MediaRef("ab".repeat(32), "image/png", 1000 + i));
+            assertTrue(bank.add(q));
+        }
+        Question replacement = new Question("Updated", new Answer[1]);
+        replacement.addAnswer(new Answer("only", true));
+        assertTrue(bank.update(5, replacement));
+        assertTrue(bank.remove(6));
+        Question[] before = bank.listAll();
+
+        QuestionRepository reopened = QuestionRepository.open(storage.questions());
+        Question[] after = reopened.listAll();
+        assertEquals(before.length, after.length);
+        for (int i = 0; i < before.length; i++) {
+            Question expected = before[i];
+            Question actual = after[i];
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getQuestion(), actual.getQuestion());
+            assertEquals(expected.getDifficulty(), actual.getDifficulty());
+            assertEquals(expected.getCorrectMask(), actual.getCorrectMask());
+            assertEquals(expected.getAnswerCount(), actual.getAnswerCount());
+            for (int a = 0; a < expected.getAnswerCount(); a++) {
+                assertEquals(expected.getAnswers()[a], actual.getAnswers()[a]);
+            }
+            assertArrayEquals(expected.getMedia(), actual.getMedia());
+        }
+        assertEquals("Updated", after[5].getQuestion());
+
+        // new questions continue after the stored ids
+        Question next = new Question("Next", new Answer[1]);
+        next.addAnswer(new Answer("yes", true));
+        assertTrue(reopened.add(next));
+        assertTrue(next.getId() > before[before.length - 1].getId());
+        assertNotNull(QuestionRepository.open(storage.questions()).getQuestion(before.length));
+    }
+}
@@ -0,0 +1,67 @@
+package quizService.media;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import quizService.model.MediaRef;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Uploads stored once per content and exported for students.
+ */
+class MediaStoreTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void sameContentIsStoredOnceAndExported() throws Exception {
+        MediaStore store = new MediaStore(directory.resolve("media"));
+        byte[] content = new byte[200_000];
+        new Random(39).nextBytes(content);
+        Path upload = directory.resolve("diagram.png");
+        Files.write(upload, content);
+
+        MediaRef first = store.put(upload, "image/png");
+        MediaRef second = store.put(new ByteArrayInputStream(content), "image/png");
+        assertEquals(first, second);
+        assertEquals(content.length, first.size());
+        assertTrue(store.contains(first.hash()));
+        assertTrue(store.report().startsWith("Media: 1 files stored, 1 duplicates avoided"));
+
+        Path downloads = directory.resolve("downloads");
+        Path exported = store.export(first, downloads);
+        assertEquals(first.hash() + ".png", exported.getFileName().toString());
+        assertArrayEquals(content, Files.readAllBytes(exported));
+        assertEquals(exported, store.export(first, downloads), "an exported file is reused");
+        try (var files = Files.list(downloads)) {
+            assertEquals(1, files.count(), "no temporary file is left behind");
+        }
+    }
+
+    @Test
+    void missingContentIsNotExported() throws Exception {
+        MediaStore store = new MediaStore(directory.resolve("media"));
+        MediaRef missing = new MediaRef("ab".repeat(32), "audio/mpeg", 10);
+        assertNull(store.export(missing, directory.resolve("downloads")));
+        try (var files = Files.list(directory.resolve("downloads"))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void extensionComesFromTheSubtype() {
+        assertEquals(".png", MediaStore.extension("image/png"));
+        assertEquals(".svg", MediaStore.extension("image/svg+xml"));
+        assertEquals(".mpeg", MediaStore.extension("audio/MPEG; q=1"));
+        assertEquals("", MediaStore.extension("application/"));
+        assertEquals("", MediaStore.extension("unknown"));
+    }
+}
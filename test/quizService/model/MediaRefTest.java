@@ -0,0 +1,21 @@
+package quizService.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MediaRefTest {
+
+    @Test
+    void onlySha256HexHashesAreAccepted() {
+        String hash = "0123456789abcdef".repeat(4);
+        assertEquals(hash, new MediaRef(hash, "image/png", 10).hash());
+        assertThrows(IllegalArgumentException.class, () -> new MediaRef("abc", "image/png", 10));
+        assertThrows(IllegalArgumentException.class, () -> new MediaRef(null, "image/png", 10));
+        assertThrows(IllegalArgumentException.class, () -> new MediaRef(hash.toUpperCase(), "image/png", 10));
+        // Arabic-Indic digits are digits to Character.digit, but not hex
+        assertThrows(IllegalArgumentException.class,
+                () -> new MediaRef("١".repeat(64), "image/png", 10));
+    }
+}
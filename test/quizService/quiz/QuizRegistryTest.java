@@ -0,0 +1,120 @@
+package quizService.quiz;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import quizService.model.Answer;
+import quizService.model.Question;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuizRegistryTest {
+    @TempDir
+    Path directory;
+
+    private static Question question(String text) {
+        Question q = new Question(text, new Answer[2]);
+        q.addAnswer(new Answer("yes", true));
+        q.addAnswer(new Answer("no", false));
+        return q;
+    }
+
+    @Test
+    void leasedBankIsNotEvicted() {
+        // a budget of one byte evicts every bank that may be evicted
+        QuizRegistry registry = new QuizRegistry(directory, 1);
+        CourseQuiz a = registry.create("A");
+        try (BankLease held = a.acquire()) {
+            assertTrue(held.bank().add(question("first")));
+            registry.create("B");
+            assertEquals(0, registry.evictions(), "A is leased and B is being handed out");
+            assertTrue(held.bank().add(question("second")));
+            try (BankLease again = a.acquire()) {
+                assertEquals(2, again.bank().size());
+            }
+        }
+        assertTrue(registry.evictions() >= 2, "A is evicted once its leases are closed");
+        try (BankLease reloaded = a.acquire()) {
+            assertNotNull(reloaded);
+            assertEquals(2, reloaded.bank().size());
+            assertEquals("second", reloaded.bank().getQuestion(1).getQuestion());
+        }
+        assertTrue(registry.loads() >= 1);
+    }
+
+    @Test
+    void hotQuestionsAreServedWithoutReadingTheBankBack() {
+        QuizRegistry registry = new QuizRegistry(directory, 1);
+        CourseQuiz quiz = registry.create("A");
+        try (BankLease lease = quiz.acquire()) {
+            lease.bank().add(question("first"));
+            lease.bank().add(question("second"));
+        }
+        assertEquals(2, quiz.size());
+        assertEquals("second", quiz.question(1).getQuestion());
+        registry.create("B");
+        assertEquals(1, registry.residentCount(), "only B is in memory");
+        long loads = registry.loads();
+        for (int i = 0; i < 100; i++) assertEquals("second", quiz.question(1).getQuestion());
+        assertEquals(2, quiz.size());
+        assertEquals(loads, registry.loads(), "hot reads leave the bank on disk");
+        assertNull(quiz.question(2));
+        assertNull(quiz.question(-1));
+    }
+
+    @Test
+    void editsDropCachedQuestions() {
+        QuizRegistry registry = new QuizRegistry(directory, QuizRegistry.DEFAULT_BUDGET_BYTES);
+        CourseQuiz quiz = registry.create("A");
+        try (BankLease lease = quiz.acquire()) {
+            lease.bank().add(question("first"));
+            lease.bank().add(question("second"));
+            assertEquals("first", quiz.question(0).getQuestion());
+            assertEquals("second", quiz.question(1).getQuestion());
+
+            lease.bank().update(1, question("edited"));
+            assertEquals("edited", quiz.question(1).getQuestion());
+            lease.bank().remove(0);
+            assertEquals(1, quiz.size());
+            assertEquals("edited", quiz.question(0).getQuestion());
+            assertNull(quiz.question(1));
+        }
+    }
+
+    @Test
+    void closedLeaseRefusesTheBank() {
+        QuizRegistry registry = new QuizRegistry(directory, 1);
+        BankLease lease = registry.create("A").acquire();
+        lease.close();
+        lease.close();
+        assertThrows(IllegalStateException.class, lease::bank);
+    }
+
+    @Test
+    void quizzesOutliveTheRegistry() {
+        QuizRegistry first = new QuizRegistry(directory, QuizRegistry.DEFAULT_BUDGET_BYTES);
+        CourseQuiz math = first.create("Math");
+        first.create("Empty");
+        try (BankLease lease = math.acquire()) {
+            lease.bank().add(question("2 + 2 = 4?"));
+        }
+
+        QuizRegistry second = new QuizRegistry(directory, QuizRegistry.DEFAULT_BUDGET_BYTES);
+        assertEquals(2, second.listAll().length);
+        assertEquals(0, second.residentCount(), "banks are read on first use");
+        try (BankLease lease = second.find("Math").acquire()) {
+            assertEquals(math.getId(), lease.quiz().getId());
+            assertEquals("2 + 2 = 4?", lease.bank().getQuestion(0).getQuestion());
+        }
+        try (BankLease lease = second.find("Empty").acquire()) {
+            assertEquals(0, lease.bank().size());
+        }
+        assertNull(second.create("Math"));
+        assertEquals(3, second.create("History").getId());
+    }
+}
@@ -0,0 +1,32 @@
+package quizService.repository;
+
+import org.junit.jupiter.api.Test;
+import quizService.model.Answer;
+import quizService.model.Question;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuestionDeltaTest {
+
+    @Test
+    void answersBeyondTheMaskAreNotKept() throws IOException {
+        Question q = new Question("Pick the last one", new Answer[Question.MAX_ANSWERS + 6]);
+        for (int a = 0; a < Question.MAX_ANSWERS + 6; a++) {
+            q.addAnswer(new Answer("option " + a, a == Question.MAX_ANSWERS - 1 || a == Question.MAX_ANSWERS));
+        }
+        assertEquals(Question.MAX_ANSWERS, q.getAnswerCount());
+
+        QuestionRepository bank = QuestionRepository.newBank();
+        bank.add(q);
+        Question copy = QuestionDelta.decode(QuestionDelta.of(bank.snapshot()).encode()).question(0);
+        assertEquals(Question.MAX_ANSWERS, copy.getAnswerCount());
+        for (int a = 0; a < Question.MAX_ANSWERS - 1; a++) {
+            assertFalse(copy.getAnswers()[a].isCorrect(), "answer " + a + " must not pick up a wrapped bit");
+        }
+        assertTrue(copy.getAnswers()[Question.MAX_ANSWERS - 1].isCorrect());
+    }
+}
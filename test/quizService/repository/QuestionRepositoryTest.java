@@ -0,0 +1,120 @@
+package quizService.repository;
+
+import org.junit.jupiter.api.Test;
+import quizService.model.Answer;
+import quizService.model.Question;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuestionRepositoryTest {
+
+    private static Question question(String text) {
+        Question q = new Question(text, new Answer[2]);
+        q.addAnswer(new Answer("yes", true));
+        q.addAnswer(new Answer("no", false));
+        return q;
+    }
+
+    @Test
+    void snapshotsKeepTheirVersionWhileTheBankChanges() {
+        QuestionRepository bank = QuestionRepository.newBank();
+        List<Question> expected = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Question q = question("q" + i);
+            bank.add(q);
+            expected.add(q);
+        }
+        QuestionSnapshot before = bank.pin();
+
+        SplittableRandom random = new SplittableRandom(26);
+        for (int i = 0; i < 500; i++) {
+            int index = random.nextInt(expected.size());
+            if (random.nextBoolean()) {
+                assertTrue(bank.remove(index));
+                expected.remove(index);
+            } else {
+                Question replacement = question("updated " + i);
+                assertTrue(bank.update(index, replacement));
+                expected.set(index, replacement);
+            }
+            if (random.nextInt(4) == 0) {
+                Question added = question("added " + i);
+                bank.add(added);
+                expected.add(added);
+            }
+        }
+
+        QuestionSnapshot after = bank.snapshot();
+        assertEquals(expected.size(), after.size());
+        for (int i = 0; i < expected.size(); i++) assertSame(expected.get(i), after.get(i), "position " + i);
+        assertNull(after.get(expected.size()));
+        assertNull(after.get(-1));
+
+        assertEquals(300, before.size());
+        for (int i = 0; i < 300; i++) assertEquals("q" + i, before.get(i).getQuestion());
+        assertEquals("q299", before.toArray()[299].getQuestion());
+        assertSame(before, bank.pinned(before.version()));
+        bank.release(before);
+    }
+
+    @Test
+    void pinsAreCountedPerVersion() {
+        QuestionRepository bank = QuestionRepository.newBank();
+        bank.add(question("first"));
+        QuestionSnapshot a = bank.pin();
+        QuestionSnapshot b = bank.pin();
+        assertSame(a, b);
+        assertEquals(1, bank.pinnedVersions());
+
+        bank.add(question("second"));
+        QuestionSnapshot c = bank.pin();
+        assertEquals(2, bank.pinnedVersions());
+
+        bank.release(a);
+        assertNotNull(bank.pinned(a.version()), "one pin on the first version is left");
+        bank.release(b);
+        assertNull(bank.pinned(a.version()));
+        bank.release(b);
+        assertEquals(1, bank.pinnedVersions(), "releasing too often leaves other versions alone");
+        bank.release(c);
+        assertEquals(0, bank.pinnedVersions());
+    }
+
+    @Test
+    void changesSinceFallsBackToTheWholeBankOnceTheHistoryWrapped() {
+        QuestionRepository bank = QuestionRepository.newBank();
+        bank.add(question("kept"));
+        long start = bank.version();
+        bank.add(question("short-lived"));
+        bank.remove(1);
+
+        QuestionDelta recent = bank.changesSince(start);
+        assertFalse(recent.full());
+        assertEquals(0, recent.size(), "added and removed within the range");
+
+        for (int i = 0; i < QuestionRepository.CHANGE_HISTORY; i++) {
+            assertTrue(bank.update(0, question("edit " + i)));
+        }
+        long covered = bank.version() - 3;
+        QuestionDelta partial = bank.changesSince(covered);
+        assertFalse(partial.full());
+        assertEquals(1, partial.size());
+        assertEquals(QuestionDelta.Kind.UPDATED, partial.kind(0));
+        assertEquals("edit " + (QuestionRepository.CHANGE_HISTORY - 1), partial.question(0).getQuestion());
+
+        QuestionDelta wrapped = bank.changesSince(start);
+        assertTrue(wrapped.full(), "the changes after that version were overwritten");
+        assertEquals(1, wrapped.size());
+        assertEquals(bank.version(), wrapped.toVersion());
+        assertTrue(bank.changesSince(bank.version() + 1).full(), "a version from the future");
+    }
+}
@@ -0,0 +1,61 @@
+package quizService.repository;
+
+import org.junit.jupiter.api.Test;
+import quizService.model.Role;
+import quizService.model.User;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserRepositoryTest {
+
+    @Test
+    void lookupsNeverMissAUserWhileOthersAreRemoved() throws InterruptedException {
+        UserRepository repo = UserRepository.open(null);
+        int churn = 200;
+        for (int i = 0; i < churn; i++) repo.add(new User(Role.STUDENT, "churn" + i, "pw"));
+        // behind all the others, so every removal shifts it to the left
+        repo.add(new User(Role.STUDENT, "stable", "pw"));
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger misses = new AtomicInteger();
+        Thread[] readers = new Thread[3];
+        for (int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread(() -> {
+                while (!done.get()) {
+                    if (repo.findByUsername("stable") == null) misses.incrementAndGet();
+                }
+            });
+            readers[t].start();
+        }
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < churn; i++) repo.remove("churn" + i);
+            for (int i = 0; i < churn; i++) repo.add(new User(Role.STUDENT, "churn" + i, "pw"));
+        }
+        done.set(true);
+        for (Thread reader : readers) reader.join();
+
+        assertEquals(0, misses.get());
+    }
+
+    @Test
+    void singleAddsGrowTheFilterAndKeepLookupsCurrent() {
+        UserRepository repo = UserRepository.open(null);
+        repo.configureFilter(10, 0.01);
+        for (int i = 0; i < 200; i++) repo.add(new User(Role.STUDENT, "user" + i, "pw"));
+        String report = repo.filterReport();
+        assertTrue(report.contains("sized for 320 "), report);
+
+        User updated = repo.replacePassword("user7", "pw", "new");
+        assertSame(updated, repo.findByUsername("user7"));
+        assertTrue(repo.remove("user7"));
+        assertNull(repo.findByUsername("user7"));
+        assertNull(repo.findByUsername(null));
+        assertEquals(199, repo.getAll().length);
+    }
+}
@@ -0,0 +1,64 @@
+package quizService.service;
+
+import org.junit.jupiter.api.Test;
+import quizService.model.Answer;
+import quizService.model.Question;
+import quizService.model.Role;
+import quizService.model.User;
+import quizService.repository.QuestionRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveQuizSessionTest {
+
+    @Test
+    void cancelledSessionOnAnEmptyBankReleasesItsVersion() {
+        QuestionRepository bank = QuestionRepository.newBank();
+        AdaptiveQuizSession session = new QuizService(bank, 28_001)
+                .startAdaptiveQuiz(new User(Role.STUDENT, "s1", "pw"), 10, 0.3);
+        assertEquals(1, bank.pinnedVersions());
+        assertNull(session.nextQuestion());
+
+        session.cancel();
+        session.cancel();
+        assertEquals(0, bank.pinnedVersions());
+        assertEquals(0, session.finish().totalQuestions(), "finishing afterwards changes nothing");
+        assertEquals(0, bank.pinnedVersions());
+    }
+
+    @Test
+    void multiSelectAnswersAreScoredByTheServiceRule() {
+        QuestionRepository bank = QuestionRepository.newBank();
+        Question q = new Question("Which are even?", new Answer[4]);
+        q.addAnswer(new Answer("1", false));
+        q.addAnswer(new Answer("2", true));
+        q.addAnswer(new Answer("3", false));
+        q.addAnswer(new Answer("4", true));
+        bank.add(q);
+        QuizService service = new QuizService(bank, 47_002);
+        User student = new User(Role.STUDENT, "s2", "pw");
+
+        AdaptiveQuizSession strict = service.startAdaptiveQuiz(student, 1, 0.3);
+        assertTrue(strict.nextQuestion().isMultiSelect());
+        assertFalse(strict.answer(2), "one of two correct options is not the full answer");
+        strict.cancel();
+
+        service.setScoringRule(ScoringRule.PARTIAL);
+        AdaptiveQuizSession partial = service.startAdaptiveQuiz(student, 1, 0.3);
+        partial.nextQuestion();
+        assertEquals(0.5, partial.select(ScoringRule.selection(2)));
+        partial.cancel();
+
+        AdaptiveQuizSession full = service.startAdaptiveQuiz(student, 1, 0.3);
+        full.nextQuestion();
+        double before = full.getAbility();
+        assertEquals(1, full.select(ScoringRule.selection(2, 4)));
+        assertTrue(full.getAbility() > before);
+        assertNull(full.nextQuestion());
+        full.cancel();
+        assertEquals(0, bank.pinnedVersions());
+    }
+}
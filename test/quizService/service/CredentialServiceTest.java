@@ -0,0 +1,60 @@
+package quizService.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import quizService.model.Role;
+import quizService.model.User;
+import quizService.repository.UserRepository;
+import quizService.util.PasswordHasher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Legacy plaintext passwords and the bounds on stored hashes.
+ */
+class CredentialServiceTest {
+    private final PasswordHasher hasher = new PasswordHasher(1_000);
+    private final CredentialService credentials = new CredentialService(hasher, 2, 0);
+
+    @AfterEach
+    void close() {
+        credentials.close();
+    }
+
+    @Test
+    void legacyPasswordIsHashedOnceAfterItsLogin() {
+        UserRepository repo = UserRepository.open(null);
+        repo.add(new User(Role.STUDENT, "legacy", "secret1"));
+        repo.add(new User(Role.STUDENT, "hashed", hasher.hash("secret2")));
+        assertEquals(1, repo.legacyPasswords());
+
+        User legacy = repo.findByUsername("legacy");
+        assertTrue(credentials.verify(legacy, "secret1"));
+        String hash = credentials.rehash(legacy, "secret1");
+        assertNotNull(hash);
+        User updated = repo.replacePassword("legacy", legacy.password(), hash);
+        assertNotNull(updated);
+        assertTrue(PasswordHasher.isHashed(repo.findByUsername("legacy").password()));
+        assertEquals(0, repo.legacyPasswords());
+        assertTrue(credentials.verify(updated, "secret1"));
+
+        assertNull(credentials.rehash(updated, "secret1"), "a hash is not hashed again");
+        assertNull(repo.replacePassword("legacy", "secret1", "other"), "a changed password is not overwritten");
+        assertEquals(updated, repo.findByUsername("legacy"));
+    }
+
+    @Test
+    void hashesWithTooManyIterationsAreRefused() {
+        String hash = hasher.hash("secret");
+        assertTrue(hasher.verify("secret", hash));
+        String forged = hash.replace("$1000$", "$" + (PasswordHasher.MAX_ITERATIONS + 1) + "$");
+        long start = System.nanoTime();
+        assertFalse(hasher.verify("secret", forged));
+        assertTrue(System.nanoTime() - start < 1_000_000_000L, "refused without deriving");
+        assertEquals(PasswordHasher.MAX_ITERATIONS, new PasswordHasher(Integer.MAX_VALUE).iterations());
+    }
+}
@@ -0,0 +1,87 @@
+package quizService.service;
+
+import org.junit.jupiter.api.Test;
+import quizService.model.Answer;
+import quizService.model.Question;
+import quizService.model.QuizResult;
+import quizService.model.Role;
+import quizService.model.User;
+import quizService.repository.QuestionRepository;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExamSchedulerTest {
+    private static final long TICK_MILLIS = 5;
+
+    private static QuestionRepository bank(int questions) {
+        QuestionRepository bank = QuestionRepository.newBank();
+        for (int i = 0; i < questions; i++) {
+            Question q = new Question("question " + i, new Answer[2]);
+            q.addAnswer(new Answer("right", true));
+            q.addAnswer(new Answer("wrong", false));
+            bank.add(q);
+        }
+        return bank;
+    }
+
+    @Test
+    void examIsSubmittedWhenItsTimeIsUp() throws Exception {
+        QuestionRepository bank = bank(3);
+        try (ExamScheduler scheduler = new ExamScheduler(new QuizService(bank, 40_001), TICK_MILLIS)) {
+            long startedAt = System.nanoTime();
+            ExamSession session = scheduler.start(new User(Role.STUDENT, "timed", "pw"), 60, 0);
+            assertTrue(session.answer(0, 1));
+
+            QuizResult result = session.result().get(10, TimeUnit.SECONDS);
+            assertTrue(System.nanoTime() - startedAt >= TimeUnit.MILLISECONDS.toNanos(60), "never early");
+            assertEquals(1, result.correctAnswers());
+            assertEquals(3, result.totalQuestions());
+            assertTrue(session.isFinished());
+            assertFalse(session.answer(1, 1), "no answers after the deadline");
+            assertNull(session.submit(), "already submitted");
+            assertEquals(0, scheduler.openSessions());
+            assertEquals(0, scheduler.pendingTimers());
+            assertEquals(1, scheduler.leaderboard().size());
+        }
+        assertEquals(0, bank.pinnedVersions());
+    }
+
+    @Test
+    void questionTimeLimitMovesOnToTheNextQuestion() {
+        QuestionRepository bank = bank(2);
+        try (ExamScheduler scheduler = new ExamScheduler(new QuizService(bank, 40_002), TICK_MILLIS)) {
+            ExamSession session = scheduler.start(new User(Role.STUDENT, "slow", "pw"), 60_000, 30);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (session.currentIndex() == 0 && System.nanoTime() < deadline) Thread.onSpinWait();
+            assertEquals(1, session.currentIndex());
+            assertFalse(session.answer(0, 1), "the first question's time ran out");
+            assertTrue(session.answer(1, 1));
+
+            QuizResult result = session.submit();
+            assertEquals(1, result.correctAnswers());
+            assertEquals(0, scheduler.openSessions());
+        }
+        assertEquals(0, bank.pinnedVersions());
+    }
+
+    @Test
+    void closingReleasesOpenExams() {
+        QuestionRepository bank = bank(2);
+        ExamSession session;
+        try (ExamScheduler scheduler = new ExamScheduler(new QuizService(bank, 40_003), TICK_MILLIS)) {
+            session = scheduler.start(new User(Role.STUDENT, "left", "pw"), 60_000, 0);
+            assertEquals(1, scheduler.openSessions());
+            assertEquals(1, bank.pinnedVersions());
+            scheduler.close();
+            assertEquals(0, scheduler.openSessions());
+        }
+        assertEquals(0, bank.pinnedVersions());
+        assertTrue(session.result().isCancelled());
+        assertFalse(session.answer(0, 1));
+    }
+}
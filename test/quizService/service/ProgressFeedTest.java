@@ -0,0 +1,53 @@
+package quizService.service;
+
+import org.junit.jupiter.api.Test;
+import quizService.model.Answer;
+import quizService.model.Question;
+import quizService.model.Role;
+import quizService.model.User;
+import quizService.repository.QuestionRepository;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProgressFeedTest {
+    private static final long TICK_MILLIS = 5;
+
+    @Test
+    void listenerOfAnIdleExamSurvivesTicks() throws Exception {
+        QuestionRepository bank = QuestionRepository.newBank();
+        for (int i = 0; i < 2; i++) {
+            Question q = new Question("question " + i, new Answer[2]);
+            q.addAnswer(new Answer("right", true));
+            q.addAnswer(new Answer("wrong", false));
+            bank.add(q);
+        }
+        LinkedBlockingQueue<ProgressDelta> deltas = new LinkedBlockingQueue<>();
+        try (ProgressFeed feed = new ProgressFeed(TICK_MILLIS);
+             ExamScheduler scheduler = new ExamScheduler(new QuizService(bank, 48_001), TICK_MILLIS, feed)) {
+            // subscribed before any student starts; ticks in between must not drop the exam as idle
+            feed.subscribe(48_001, deltas::add);
+            Thread.sleep(20 * TICK_MILLIS);
+            assertTrue(feed.progress(48_001).isEmpty());
+
+            ExamSession session = scheduler.start(new User(Role.STUDENT, "watched", "pw"), 60_000, 0);
+            assertTrue(session.answer(0, 1));
+            ExamProgress latest = null;
+            while (latest == null || latest.answered() < 1) {
+                ProgressDelta delta = deltas.poll(10, TimeUnit.SECONDS);
+                assertNotNull(delta, "the subscribed listener gets the exam's deltas");
+                assertEquals(48_001, delta.examId());
+                latest = delta.changes().get(delta.changes().size() - 1);
+            }
+            assertEquals("watched", latest.username());
+            assertEquals(1, latest.correct());
+            assertFalse(latest.finished());
+            assertEquals(1, feed.progress(48_001).size());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package quizService.service;
+
+import org.junit.jupiter.api.Test;
+import quizService.model.Answer;
+import quizService.model.Question;
+import quizService.model.QuizResult;
+import quizService.model.Role;
+import quizService.model.User;
+import quizService.repository.QuestionRepository;
+import quizService.repository.QuestionSnapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QuizServiceTest {
+    private static final User STUDENT = new User(Role.STUDENT, "student", "pw");
+
+    /**
+     * A question offering more answers than it can hold, the last kept one correct.
+     */
+    private static Question longQuestion() {
+        Question q = new Question("Which is the last one?", new Answer[Question.MAX_ANSWERS + 5]);
+        for (int a = 1; a <= Question.MAX_ANSWERS + 5; a++) {
+            q.addAnswer(new Answer("option " + a, a == Question.MAX_ANSWERS));
+        }
+        return q;
+    }
+
+    @Test
+    void everyAnswerAQuestionHoldsCanBeGraded() {
+        QuestionRepository bank = QuestionRepository.newBank();
+        bank.add(longQuestion());
+        assertEquals(Question.MAX_ANSWERS, bank.getQuestion(0).getAnswerCount());
+        QuizService service = new QuizService(bank, 47_001);
+
+        QuestionSnapshot snapshot = bank.snapshot();
+        int last = Question.MAX_ANSWERS;
+        assertEquals(1, service.grade(STUDENT, snapshot, new int[]{last}, null).result().correctAnswers());
+        assertEquals(0, service.grade(STUDENT, snapshot, new int[]{last - 1}, null).result().correctAnswers());
+        assertEquals(0, service.grade(STUDENT, snapshot, new int[]{last + 1}, null).result().correctAnswers());
+
+        for (ScoringRule rule : ScoringRule.values()) {
+            service.setScoringRule(rule);
+            QuizResult result = service.submitSelections(STUDENT, snapshot,
+                    new int[]{ScoringRule.selection(last)}, null);
+            assertEquals(1, result.correctAnswers(), rule.name());
+            assertEquals(1, result.score(), rule.name());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package quizService.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ScoringRuleTest {
+    private static final int OPTIONS = 0b1111;
+    private static final int CORRECT = 0b0011;
+
+    @Test
+    void emptySelectionEarnsNothingUnderEveryRule() {
+        for (ScoringRule rule : ScoringRule.values()) {
+            assertEquals(0, rule.credit(0, CORRECT, OPTIONS), rule.name());
+        }
+    }
+
+    @Test
+    void perOptionCountsAnswersJudgedRight() {
+        assertEquals(1, ScoringRule.PER_OPTION.credit(CORRECT, CORRECT, OPTIONS));
+        assertEquals(0.75, ScoringRule.PER_OPTION.credit(0b0001, CORRECT, OPTIONS));
+        assertEquals(0.5, ScoringRule.PER_OPTION.credit(0b0111 ^ 0b0010, CORRECT, OPTIONS));
+        assertEquals(0, ScoringRule.PER_OPTION.credit(0b1100, CORRECT, OPTIONS));
+    }
+}
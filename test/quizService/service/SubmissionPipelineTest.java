@@ -0,0 +1,72 @@
+package quizService.service;
+
+import org.junit.jupiter.api.Test;
+import quizService.model.Answer;
+import quizService.model.Question;
+import quizService.model.QuizResult;
+import quizService.model.Role;
+import quizService.model.User;
+import quizService.repository.QuestionRepository;
+import quizService.repository.QuestionSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SubmissionPipelineTest {
+    private static final int QUIZ = 38_001;
+
+    private static QuestionRepository bank() {
+        QuestionRepository bank = QuestionRepository.newBank();
+        Question q = new Question("2 + 2?", new Answer[2]);
+        q.addAnswer(new Answer("4", true));
+        q.addAnswer(new Answer("5", false));
+        bank.add(q);
+        return bank;
+    }
+
+    @Test
+    void failedGradingReleasesTheSnapshot() {
+        QuestionRepository bank = bank();
+        QuizService failing = new QuizService(bank, QUIZ) {
+            @Override
+            GradedQuiz grade(User user, QuestionSnapshot snapshot, int[] chosenAnswers, long[] responseNanos) {
+                throw new IllegalStateException("grading failed");
+            }
+        };
+        SubmissionPipeline pipeline = new SubmissionPipeline(failing, new Leaderboard(), 4, 1, 1, 1);
+        CompletableFuture<QuizResult> result =
+                pipeline.submit(new User(Role.STUDENT, "s1", "pw"), bank.pin(), new int[]{1}, null);
+        assertThrows(CompletionException.class, result::join);
+        assertTrue(pipeline.close(5_000));
+        assertEquals(0, bank.pinnedVersions());
+    }
+
+    @Test
+    void closeWaitsForEveryAcceptedSubmission() {
+        QuestionRepository bank = bank();
+        SubmissionPipeline pipeline = new SubmissionPipeline(new QuizService(bank, QUIZ), new Leaderboard(), 4, 1, 2, 1);
+        int n = 200;
+        List<CompletableFuture<QuizResult>> results = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            results.add(pipeline.submit(new User(Role.STUDENT, "student" + i, "pw"), bank.pin(),
+                    new int[]{i % 2 + 1}, null));
+        }
+        assertTrue(pipeline.close(10_000));
+        for (CompletableFuture<QuizResult> result : results) assertTrue(result.isDone());
+        assertEquals(n / 2, results.stream().filter(r -> r.join().correctAnswers() == 1).count());
+        assertEquals(n, pipeline.leaderboard().size());
+        assertEquals(0, bank.pinnedVersions());
+
+        QuestionSnapshot late = bank.pin();
+        assertNull(pipeline.submit(new User(Role.STUDENT, "late", "pw"), late, new int[]{1}, null).join());
+        assertFalse(bank.pinnedVersions() > 0, "a rejected submission releases its snapshot");
+    }
+}
@@ -0,0 +1,73 @@
+package quizService.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import quizService.model.Role;
+import quizService.model.User;
+import quizService.repository.UserRepository;
+import quizService.util.PasswordHasher;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Roster provisioning: created accounts, rejected rows and their line numbers.
+ */
+class UserServiceTest {
+    private final PasswordHasher hasher = new PasswordHasher(1_000);
+    private final CredentialService credentials = new CredentialService(hasher, 2, 0);
+    private final UserRepository repo = UserRepository.open(null);
+    private final UserService service = new UserService(repo, credentials);
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void close() {
+        credentials.close();
+    }
+
+    @Test
+    void rosterRowsAreCreatedOrReportedWithTheirLine() throws IOException {
+        repo.add(new User(Role.STUDENT, "taken", hasher.hash("secret1")));
+        Path roster = dir.resolve("roster.csv");
+        Files.write(roster, List.of(
+                "role,username,password",
+                "student,alice,secret1",
+                "",
+                "# teachers",
+                "TEACHER, bob ,secret2",
+                "janitor,carol,secret3",
+                "student,dave,short",
+                "student,erin",
+                "student,taken,secret4",
+                "student,alice,secret5",
+                "student,frank,pass,with,commas"), StandardCharsets.UTF_8);
+
+        ProvisioningReport report = service.provision(roster);
+
+        assertEquals(8, report.rows());
+        assertEquals(3, report.created());
+        assertEquals(List.of(
+                new ProvisioningReport.RowFailure(6, "carol", "unknown role janitor"),
+                new ProvisioningReport.RowFailure(7, "dave", "password must be > 6 chars"),
+                new ProvisioningReport.RowFailure(8, "erin", "expected role,username,password"),
+                new ProvisioningReport.RowFailure(9, "taken", "username already exists"),
+                new ProvisioningReport.RowFailure(10, "alice", "username already exists")), report.failures());
+
+        assertEquals(Role.TEACHER, repo.findByUsername("bob").role());
+        assertTrue(credentials.verify(repo.findByUsername("alice"), "secret1"), "the first row wins");
+        assertTrue(credentials.verify(repo.findByUsername("frank"), "pass,with,commas"));
+        assertNull(repo.findByUsername("carol"));
+        assertNotNull(service.login("bob", "secret2"));
+    }
+}
@@ -0,0 +1,95 @@
+package quizService.ui;
+
+import org.junit.jupiter.api.Test;
+import quizService.model.Answer;
+import quizService.model.Question;
+import quizService.repository.QuestionRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuestionRenderCacheTest {
+
+    private static Question question(String text) {
+        Question q = new Question(text, new Answer[2]);
+        q.addAnswer(new Answer("yes", true));
+        q.addAnswer(new Answer("no", false));
+        return q;
+    }
+
+    private static String text(byte[] block) {
+        return new String(block, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void lateBlockOfAnEditedQuestionIsNotServed() {
+        QuestionRenderCache cache = new QuestionRenderCache(64);
+        QuestionRepository bank = QuestionRepository.newBank();
+        bank.addListener(cache);
+        bank.add(question("old"));
+        Question old = bank.getQuestion(0);
+        assertTrue(text(cache.rendered(old)).startsWith("old\n"));
+
+        bank.update(0, question("new"));
+        // a reader still on the old snapshot puts its block back after the edit dropped it
+        assertTrue(text(cache.rendered(old)).startsWith("old\n"));
+
+        Question current = bank.getQuestion(0);
+        assertEquals(old.getId(), current.getId());
+        assertTrue(text(cache.rendered(current)).startsWith("new\n"));
+        assertTrue(text(cache.rendered(current)).startsWith("new\n"));
+    }
+
+    @Test
+    void largeIdsShareSlotsInsteadOfGrowingTheArray() {
+        QuestionRenderCache cache = new QuestionRenderCache(256);
+        Question low = question("low");
+        low.setId(3);
+        Question high = question("high");
+        high.setId(3 + 256 * 1000);
+        assertTrue(text(cache.rendered(low)).startsWith("low\n"));
+        assertTrue(text(cache.rendered(high)).startsWith("high\n"));
+        assertEquals(256, cache.slots());
+        // both map to slot 3; each read still gets its own question's block
+        assertTrue(text(cache.rendered(low)).startsWith("low\n"));
+        assertTrue(text(cache.rendered(high)).startsWith("high\n"));
+
+        Question max = question("max");
+        max.setId(Long.MAX_VALUE);
+        assertTrue(text(cache.rendered(max)).startsWith("max\n"));
+        assertEquals(256, cache.slots());
+    }
+
+    @Test
+    void concurrentEditsNeverServeAnOtherVersion() throws InterruptedException {
+        QuestionRenderCache cache = new QuestionRenderCache(64);
+        QuestionRepository bank = QuestionRepository.newBank();
+        bank.addListener(cache);
+        bank.add(question("v0"));
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[3];
+        for (int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread(() -> {
+                while (running.get()) {
+                    Question q = bank.getQuestion(0);
+                    String block = text(cache.rendered(q));
+                    if (!block.startsWith(q.getQuestion() + "\n")) {
+                        failure.compareAndSet(null, q.getQuestion() + " rendered as " + block);
+                    }
+                }
+            });
+            readers[t].start();
+        }
+        for (int v = 1; v <= 20_000 && failure.get() == null; v++) bank.update(0, question("v" + v));
+        running.set(false);
+        for (Thread reader : readers) reader.join();
+        assertNull(failure.get());
+    }
+}
@@ -0,0 +1,66 @@
+package quizService.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentilesStayWithinTheBucketError() {
+        SplittableRandom random = new SplittableRandom(27);
+        for (int i = 0; i < 10_000; i++) {
+            long value = random.nextLong(1, Long.MAX_VALUE >>> random.nextInt(1, 62));
+            LatencyHistogram h = new LatencyHistogram();
+            h.record(value);
+            // a larger sample keeps the percentile from being clipped to the maximum
+            h.record(Long.MAX_VALUE);
+            long reported = h.percentile(50);
+            assertTrue(reported >= value, "never below the sample: " + value);
+            assertTrue(reported - value <= value / 8, "at most 12.5% above: " + value + " -> " + reported);
+        }
+    }
+
+    @Test
+    void summariesOfKnownSamples() {
+        LatencyHistogram empty = new LatencyHistogram();
+        assertEquals(0, empty.percentile(99));
+        assertEquals(0, empty.mean());
+
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 1000; v++) h.record(v * 1_000_000);
+        h.record(-5);
+        assertEquals(1001, h.count());
+        assertEquals(1_000_000_000L, h.max());
+        assertEquals(0, h.percentile(0.01), "the negative sample counts as zero");
+        assertEquals(h.max(), h.percentile(100));
+        long p90 = h.percentile(90);
+        assertTrue(p90 >= 900_000_000L && p90 <= 900_000_000L * 9 / 8, "p90 " + p90);
+        assertEquals(500_500_000_000L / 1001, h.mean());
+        for (int v = 0; v < 8; v++) {
+            LatencyHistogram small = new LatencyHistogram();
+            small.record(v);
+            assertEquals(v, small.percentile(50), "small values are exact");
+        }
+    }
+
+    @Test
+    void concurrentRecordsAreAllCounted() throws InterruptedException {
+        LatencyHistogram h = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long offset = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) h.record(i * 4 + offset);
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+        assertEquals(200_000, h.count());
+        assertEquals(199_999, h.max());
+        assertEquals(h.max(), h.percentile(100));
+    }
+}
@@ -0,0 +1,48 @@
+package quizService.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+    @Test
+    void keyBucketRefillsOneTokenPerInterval() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(3, 200, 1_000, 1, 64);
+        for (int i = 0; i < 3; i++) assertTrue(limiter.tryAcquire("ali"), "burst " + i);
+        assertFalse(limiter.tryAcquire("ali"));
+        assertTrue(limiter.tryAcquire("vali"), "other keys have their own bucket");
+
+        Thread.sleep(250);
+        assertTrue(limiter.tryAcquire("ali"), "one token came back");
+        assertFalse(limiter.tryAcquire("ali"), "but only one");
+        assertEquals(2, limiter.rejectedByKey());
+        assertEquals(0, limiter.rejectedGlobally());
+    }
+
+    @Test
+    void globalBucketLimitsAllKeysTogether() {
+        RateLimiter limiter = new RateLimiter(1, 60_000, 2, TimeUnit.SECONDS.toNanos(60), 1000);
+        assertTrue(limiter.tryAcquire("a"));
+        assertFalse(limiter.tryAcquire("a"), "over its own limit, so no global token is taken");
+        assertTrue(limiter.tryAcquire("b"));
+        assertFalse(limiter.tryAcquire("c"));
+        assertEquals(1, limiter.rejectedByKey());
+        assertEquals(1, limiter.rejectedGlobally());
+        assertEquals(1024 * Long.BYTES, limiter.footprintBytes());
+    }
+
+    @Test
+    void manyKeysShareTheFixedSlots() {
+        RateLimiter limiter = new RateLimiter(1, 60_000, 1_000_000, 1, 16);
+        for (int i = 0; i < 10_000; i++) limiter.tryAcquire("user" + i);
+        assertEquals(16 * Long.BYTES, limiter.footprintBytes());
+        // a key that just took its token is still tracked, whatever was evicted before it
+        assertTrue(limiter.tryAcquire("latest"));
+        assertFalse(limiter.tryAcquire("latest"));
+    }
+}
@@ -0,0 +1,111 @@
+package quizService.util;
+
+import org.junit.jupiter.api.Test;
+import quizService.model.Answer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Shared texts and answers, id assignment and growth past the initial arrays.
+ */
+class TextDictionaryTest {
+
+    @Test
+    void equalTextsShareOneInstanceAndId() {
+        TextDictionary dictionary = new TextDictionary();
+        String first = new String("True");
+        String second = new String("True");
+        assertSame(first, dictionary.intern(first));
+        assertSame(first, dictionary.intern(second));
+        assertEquals(0, dictionary.id(second));
+        assertEquals(1, dictionary.id("False"));
+        assertEquals("False", dictionary.text(1));
+        assertNull(dictionary.text(2));
+        assertNull(dictionary.text(-1));
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    void longAndNullTextsAreNotInterned() {
+        TextDictionary dictionary = new TextDictionary();
+        String limit = "x".repeat(TextDictionary.MAX_LENGTH);
+        String tooLong = "y".repeat(TextDictionary.MAX_LENGTH + 1);
+        assertEquals(0, dictionary.id(limit));
+        assertEquals(-1, dictionary.id(tooLong));
+        assertSame(tooLong, dictionary.intern(tooLong));
+        assertEquals(-1, dictionary.id(null));
+        assertNull(dictionary.intern((String) null));
+        assertEquals(1, dictionary.size());
+    }
+
+    @Test
+    void answersAreSharedPerTextAndCorrectness() {
+        TextDictionary dictionary = new TextDictionary();
+        Answer right = dictionary.intern(new Answer(new String("42"), true));
+        Answer wrong = dictionary.intern(new Answer(new String("42"), false));
+        assertSame(right, dictionary.intern(new Answer("42", true)));
+        assertSame(wrong, dictionary.intern(new Answer("42", false)));
+        assertNotSame(right, wrong);
+        assertSame(right.text(), wrong.text());
+
+        Answer[] answers = {new Answer("42", true), null, new Answer("7", false)};
+        assertSame(answers, dictionary.internAll(answers));
+        assertSame(right, answers[0]);
+        assertNull(answers[1]);
+        assertEquals(new Answer("7", false), answers[2]);
+    }
+
+    @Test
+    void growthKeepsEveryIdTextAndAnswer() {
+        TextDictionary dictionary = new TextDictionary();
+        Answer[] shared = new Answer[1000];
+        for (int i = 0; i < shared.length; i++) {
+            assertEquals(i, dictionary.id("text " + i));
+            if (i % 3 == 0) shared[i] = dictionary.intern(new Answer("text " + i, true));
+        }
+        for (int i = 0; i < shared.length; i++) {
+            assertEquals("text " + i, dictionary.text(i));
+            assertEquals(i, dictionary.id("text " + i));
+            if (shared[i] != null) assertSame(shared[i], dictionary.intern(new Answer("text " + i, true)));
+        }
+        assertEquals(shared.length, dictionary.size());
+    }
+
+    @Test
+    void concurrentInternsAgreeOnOneIdPerText() throws Exception {
+        TextDictionary dictionary = new TextDictionary();
+        int texts = 500;
+        List<Future<int[]>> results = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(4)) {
+            for (int t = 0; t < 4; t++) {
+                int offset = t;
+                results.add(pool.submit(() -> {
+                    int[] ids = new int[texts];
+                    for (int i = 0; i < texts; i++) {
+                        int k = (i * 7 + offset * 131) % texts;
+                        ids[k] = dictionary.id("option " + k);
+                    }
+                    return ids;
+                }));
+            }
+        }
+        int[] expected = results.get(0).get();
+        for (Future<int[]> result : results) {
+            int[] ids = result.get();
+            for (int k = 0; k < texts; k++) {
+                assertEquals(expected[k], ids[k]);
+                assertEquals("option " + k, dictionary.text(ids[k]));
+            }
+        }
+        assertEquals(texts, dictionary.size());
+    }
+}
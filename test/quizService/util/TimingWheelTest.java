@@ -0,0 +1,77 @@
+package quizService.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+    /**
+     * Delays around the spans of the first three levels and beyond the horizon of 64^4 ticks.
+     */
+    private static final long[] DELAYS = {
+            0, 1, 62, 63, 64, 65,
+            4_094, 4_095, 4_096, 4_097,
+            262_142, 262_143, 262_144, 262_145,
+            16_777_215, 16_777_216, 16_777_300
+    };
+
+    @Test
+    void timersFireInTheTickAfterTheirDelayAcrossEveryLevel() {
+        // start off a slot boundary so the deadlines do not line up with the wrap-arounds
+        for (long start : new long[]{0, 37, 4_090}) {
+            TimingWheel<Long> wheel = new TimingWheel<>(1);
+            wheel.advanceTo(start);
+            for (long delay : DELAYS) wheel.schedule(start + delay + 1, delay);
+
+            List<Long> fired = new ArrayList<>();
+            for (long delay : DELAYS) {
+                long due = start + delay + 1;
+                fired.addAll(wheel.advanceTo(due - 1));
+                assertFalse(fired.contains(due), "never early: delay " + delay + " from " + start);
+                fired.addAll(wheel.advanceTo(due));
+                assertTrue(fired.contains(due), "at most one tick late: delay " + delay + " from " + start);
+            }
+            assertEquals(DELAYS.length, fired.size());
+            assertEquals(0, wheel.size());
+        }
+    }
+
+    @Test
+    void cancelledTimersNeverFire() {
+        TimingWheel<String> wheel = new TimingWheel<>(1);
+        TimingWheel.Timer<String> near = wheel.schedule("near", 10);
+        TimingWheel.Timer<String> far = wheel.schedule("far", 5_000);
+        TimingWheel.Timer<String> kept = wheel.schedule("kept", 20);
+        assertTrue(wheel.cancel(near));
+        assertFalse(wheel.cancel(near), "cancelling twice");
+
+        assertEquals(List.of("kept"), wheel.advanceTo(4_100));
+        // "far" was cascaded from level 1 to level 0 by now
+        assertTrue(wheel.cancel(far));
+        assertEquals(List.of(), wheel.advanceTo(6_000));
+        assertFalse(wheel.cancel(kept), "cancel after expiry");
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void runningWheelHandsOverExpiredTimers() throws InterruptedException {
+        CountDownLatch expired = new CountDownLatch(3);
+        long scheduledAt = System.nanoTime();
+        long[] firstAfter = new long[1];
+        try (TimingWheel<Integer> wheel = new TimingWheel<>(5, "test-wheel", batch -> {
+            if (firstAfter[0] == 0) firstAfter[0] = System.nanoTime() - scheduledAt;
+            for (int i = 0; i < batch.size(); i++) expired.countDown();
+        })) {
+            for (int i = 0; i < 3; i++) wheel.schedule(i, 30);
+            assertTrue(expired.await(5, TimeUnit.SECONDS));
+        }
+        assertTrue(firstAfter[0] >= TimeUnit.MILLISECONDS.toNanos(30), "never early");
+    }
+}